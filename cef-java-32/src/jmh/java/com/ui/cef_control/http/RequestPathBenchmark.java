@@ -0,0 +1,225 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request cost of the static file path, without sockets.
+ *
+ * Run with the allocation profiler (see the jmh profile in pom.xml):
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec
+ * </pre>
+ *
+ * gc.alloc.rate.norm is the figure to watch: resolve, negotiate and
+ * conditional checks are expected at 0 B/op; handle() is left with what
+ * com.sun.net.httpserver.Headers allocates for each response header set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestPathBenchmark {
+
+	@Param({"/assets/js/app.3f9a1c2b.js", "/guide/intro.html", "/guide/spa-route"})
+	public String path;
+
+	@Param({"", "gzip, deflate, br"})
+	public String acceptEncoding;
+
+	private Path root;
+	private StaticSite site;
+	private StaticFileHandler handler;
+	private StubExchange exchange;
+	private Map<String, byte[]> variants;
+	private ContentHashIndex.Validator validator;
+	private String ifNoneMatch;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("request_path_benchmark_").toRealPath();
+		SyntheticDocsTree.write(root, 200, 8 * 1024, 1.0, 42);
+		Files.createDirectories(root.resolve("assets/js"));
+		Files.write(root.resolve("assets/js/app.3f9a1c2b.js"), repeat("console.log('docs');\n", 400));
+		Files.createDirectories(root.resolve("guide"));
+		Files.write(root.resolve("guide/intro.html"), repeat("<p>intro</p>\n", 400));
+
+		site = StaticSite.open(root, new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES),
+				HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES, CachePolicy.defaults());
+		site.awaitIndexed();
+		handler = new StaticFileHandler(site);
+		exchange = new StubExchange(path, acceptEncoding);
+
+		CachedAsset asset = site.getCache().get(root.resolve("assets/js/app.3f9a1c2b.js"));
+		variants = asset.getEncodedVariants();
+		validator = new ContentHashIndex.Validator("\"3f9a1c0d\"", 8400, 1_700_000_000_000L);
+		ifNoneMatch = "\"0000\", " + validator.etagFor("gzip");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		site.close();
+	}
+
+	@Benchmark
+	public PathIndex.Entry resolve() {
+		return site.resolve(path);
+	}
+
+	@Benchmark
+	public String negotiate() {
+		return Compression.negotiate(acceptEncoding, variants);
+	}
+
+	@Benchmark
+	public boolean conditional() {
+		return validator.matches(ifNoneMatch);
+	}
+
+	@Benchmark
+	public int handle() throws IOException {
+		exchange.reset();
+		handler.handle(exchange);
+		return exchange.getResponseCode();
+	}
+
+	private static byte[] repeat(String text, int times) {
+		StringBuilder builder = new StringBuilder(text.length() * times);
+		for (int i = 0; i < times; i++) {
+			builder.append(text);
+		}
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reusable GET exchange; the body is discarded.
+	 */
+	private static final class StubExchange extends HttpExchange {
+		private final URI uri;
+		private final Headers requestHeaders = new Headers();
+		private final Headers responseHeaders = new Headers();
+		private final OutputStream body = OutputStream.nullOutputStream();
+		private int responseCode;
+
+		StubExchange(String path, String acceptEncoding) {
+			this.uri = URI.create(path);
+			if (!acceptEncoding.isEmpty()) {
+				requestHeaders.set("Accept-Encoding", acceptEncoding);
+			}
+		}
+
+		void reset() {
+			responseHeaders.clear();
+			responseCode = -1;
+		}
+
+		@Override
+		public Headers getRequestHeaders() {
+			return requestHeaders;
+		}
+
+		@Override
+		public Headers getResponseHeaders() {
+			return responseHeaders;
+		}
+
+		@Override
+		public URI getRequestURI() {
+			return uri;
+		}
+
+		@Override
+		public String getRequestMethod() {
+			return "GET";
+		}
+
+		@Override
+		public HttpContext getHttpContext() {
+			return null;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public InputStream getRequestBody() {
+			return InputStream.nullInputStream();
+		}
+
+		@Override
+		public OutputStream getResponseBody() {
+			return body;
+		}
+
+		@Override
+		public void sendResponseHeaders(int code, long length) {
+			responseCode = code;
+		}
+
+		@Override
+		public InetSocketAddress getRemoteAddress() {
+			return null;
+		}
+
+		@Override
+		public int getResponseCode() {
+			return responseCode;
+		}
+
+		@Override
+		public InetSocketAddress getLocalAddress() {
+			return null;
+		}
+
+		@Override
+		public String getProtocol() {
+			return "HTTP/1.1";
+		}
+
+		@Override
+		public Object getAttribute(String name) {
+			return null;
+		}
+
+		@Override
+		public void setAttribute(String name, Object value) {
+		}
+
+		@Override
+		public void setStreams(InputStream in, OutputStream out) {
+		}
+
+		@Override
+		public HttpPrincipal getPrincipal() {
+			return null;
+		}
+	}
+}
@@ -52,7 +52,7 @@ public class CefApplicationManager {
                 docsPath,
                 httpPort,
                 "127.0.0.1" // localhost only
-        );
+        ).withJdkNoDelay(true);
         httpServer = new VuePressHttpServer(httpConfig);
         httpServer.start();
 
@@ -0,0 +1,344 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit in front of the request executor.
+ *
+ * The engine hands every exchange to this executor before a worker is
+ * involved. Up to limit exchanges run on the workers at once; up to
+ * maxQueued more wait (at most maxWaitMillis) in a queue here, holding no
+ * thread. Anything beyond that is shed: it runs at once on the calling
+ * (dispatcher) thread, where the handler answers 503 with Retry-After
+ * without touching the docs. A burst of reloads from many windows so
+ * costs a fast retry instead of growing latency for every request, and
+ * waiting requests never take a worker from admitted ones.
+ *
+ * Which context an exchange is for is only known once it runs, so
+ * /__health and /__metrics share the limit and the queue; when shed they
+ * are still answered normally, never with 503.
+ *
+ * Adaptive mode (targetLatencyMillis > 0), AIMD over windows of completed
+ * requests:
+ * - Mean latency above target -> limit shrinks by a fifth
+ * - Otherwise, if the limit was reached during the window -> limit + 1
+ * The limit stays between 1 and maxConcurrent.
+ *
+ * State is guarded by this object's monitor.
+ */
+final class AdmissionControl implements HttpHandler, Executor {
+
+	static final String RETRY_AFTER_SECONDS = "1";
+
+	// Smallest window, so a low limit does not adapt on one or two samples
+	private static final int MIN_WINDOW = 8;
+
+	// Set while a shed exchange runs, so handle() answers 503
+	private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	/**
+	 * An exchange waiting for a slot.
+	 */
+	private static final class Waiting {
+		final Runnable exchange;
+		final long deadlineNanos;
+
+		Waiting(Runnable exchange, long deadlineNanos) {
+			this.exchange = exchange;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+
+	private final HttpHandler delegate;
+	private final RequestMetrics metrics;
+	private final Executor workers;
+	private final int maxConcurrent;
+	private final int maxQueued;
+	private final long maxWaitNanos;
+	private final long targetLatencyNanos;
+	private final ArrayDeque<Waiting> queue = new ArrayDeque<>();
+	private boolean expiryScheduled;
+
+	private int limit;
+	private int active;
+	private long admitted;
+	private long rejected;
+
+	// Current adaptation window
+	private int windowCount;
+	private long windowLatencyNanos;
+	private boolean windowSaturated;
+
+	/**
+	 * @param delegate Handler that serves admitted requests
+	 * @param metrics Recorder for rejected requests (admitted ones are recorded by the delegate)
+	 * @param workers Executor admitted exchanges run on
+	 * @param maxConcurrent Requests served at once (upper bound of the adaptive limit)
+	 * @param maxQueued Requests that may wait for a slot
+	 * @param maxWaitMillis Longest wait for a slot before rejecting
+	 * @param targetLatencyMillis Latency the adaptive limit aims for (0 = fixed limit)
+	 */
+	AdmissionControl(HttpHandler delegate, RequestMetrics metrics, Executor workers, int maxConcurrent,
+			int maxQueued, long maxWaitMillis, long targetLatencyMillis) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+		this.workers = workers;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = maxQueued;
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+		this.limit = maxConcurrent;
+	}
+
+	/**
+	 * Puts admission control in front of workers when config enables it.
+	 * With a bounded pool the limit is capped at its worker count, so an
+	 * admitted exchange always has a worker and never waits in the pool's
+	 * queue or overflows onto the dispatcher thread.
+	 *
+	 * Install the result as the engine's executor and as the handler of "/".
+	 *
+	 * @return AdmissionControl around handler, or null if it is disabled
+	 */
+	static AdmissionControl of(HttpServerConfig config, HttpHandler handler, RequestMetrics metrics,
+			RequestExecutor workers) {
+		if (config.getAdmissionMaxConcurrent() == 0) {
+			return null;
+		}
+		int maxConcurrent = config.getAdmissionMaxConcurrent();
+		if (workers.getStrategy() == ExecutorStrategy.BOUNDED_POOL) {
+			maxConcurrent = Math.min(maxConcurrent, config.getWorkerThreads());
+		}
+		return new AdmissionControl(handler, metrics, workers, maxConcurrent, config.getAdmissionMaxQueued(),
+				config.getAdmissionMaxWaitMillis(), config.getAdmissionTargetLatencyMillis());
+	}
+
+	/**
+	 * @return Executor admitted exchanges run on; work that is not a
+	 *         request (HTTP/2 frame writing) goes there directly
+	 */
+	Executor getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * Admits, queues or sheds one exchange of the engine.
+	 *
+	 * @throws RejectedExecutionException if the workers no longer accept work
+	 */
+	@Override
+	public void execute(Runnable exchange) {
+		boolean admit;
+		synchronized (this) {
+			admit = tryAcquire();
+			if (!admit) {
+				if (queue.size() < maxQueued && maxWaitNanos > 0) {
+					queue.add(new Waiting(exchange, System.nanoTime() + maxWaitNanos));
+					if (!expiryScheduled) {
+						scheduleExpiry(maxWaitNanos);
+					}
+					return;
+				}
+				rejected++;
+			}
+		}
+		if (admit) {
+			submit(exchange);
+		} else {
+			shed(exchange);
+		}
+	}
+
+	/**
+	 * Serves an admitted exchange, or answers 503 to a shed one.
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		if (SHEDDING.get()) {
+			reject(exchange);
+			return;
+		}
+		delegate.handle(exchange);
+	}
+
+	/**
+	 * Takes a slot if one is free.
+	 */
+	synchronized boolean tryAcquire() {
+		if (active >= limit) {
+			return false;
+		}
+		active++;
+		admitted++;
+		if (active >= limit) {
+			windowSaturated = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Frees a slot, feeds the request's latency to the adaptive limit and
+	 * hands freed slots to queued exchanges. Those that waited too long are
+	 * shed on this thread instead.
+	 */
+	void release(long latencyNanos) {
+		synchronized (this) {
+			active--;
+			if (targetLatencyNanos > 0) {
+				adapt(latencyNanos);
+			}
+		}
+		while (true) {
+			Waiting next;
+			boolean expired;
+			synchronized (this) {
+				if (queue.isEmpty() || active >= limit) {
+					return;
+				}
+				next = queue.poll();
+				expired = System.nanoTime() - next.deadlineNanos >= 0;
+				if (expired) {
+					rejected++;
+				} else {
+					tryAcquire();
+				}
+			}
+			if (expired) {
+				shed(next.exchange);
+			} else {
+				try {
+					submit(next.exchange);
+				} catch (RejectedExecutionException e) {
+					// Stopping: the engine closes the connection
+				}
+			}
+		}
+	}
+
+	private void submit(Runnable exchange) {
+		try {
+			workers.execute(() -> runAdmitted(exchange));
+		} catch (RejectedExecutionException e) {
+			synchronized (this) {
+				active--;
+			}
+			throw e;
+		}
+	}
+
+	private void runAdmitted(Runnable exchange) {
+		long start = System.nanoTime();
+		try {
+			exchange.run();
+		} finally {
+			release(System.nanoTime() - start);
+		}
+	}
+
+	private static void shed(Runnable exchange) {
+		SHEDDING.set(Boolean.TRUE);
+		try {
+			exchange.run();
+		} finally {
+			SHEDDING.set(Boolean.FALSE);
+		}
+	}
+
+	/**
+	 * True on a thread running a shed exchange (for tests).
+	 */
+	static boolean isShedding() {
+		return SHEDDING.get();
+	}
+
+	private void scheduleExpiry(long delayNanos) {
+		expiryScheduled = true;
+		ExpiryTimer.INSTANCE.schedule(this::expire, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Timer callback: queued exchanges past their deadline are handed to
+	 * the workers to be answered with 503; a stalled client must not hold
+	 * up the timer.
+	 */
+	private void expire() {
+		while (true) {
+			Waiting next;
+			synchronized (this) {
+				next = queue.peek();
+				if (next == null) {
+					expiryScheduled = false;
+					return;
+				}
+				long remaining = next.deadlineNanos - System.nanoTime();
+				if (remaining > 0) {
+					scheduleExpiry(remaining);
+					return;
+				}
+				queue.poll();
+				rejected++;
+			}
+			try {
+				workers.execute(() -> shed(next.exchange));
+			} catch (RejectedExecutionException e) {
+				// Stopping: the engine closes the connection
+			}
+		}
+	}
+
+	private void adapt(long latencyNanos) {
+		windowCount++;
+		windowLatencyNanos += latencyNanos;
+		if (windowCount < Math.max(limit, MIN_WINDOW)) {
+			return;
+		}
+		if (windowLatencyNanos / windowCount > targetLatencyNanos) {
+			limit = Math.max(1, limit - Math.max(1, limit / 5));
+		} else if (windowSaturated && limit < maxConcurrent) {
+			limit++;
+		}
+		windowCount = 0;
+		windowLatencyNanos = 0;
+		windowSaturated = false;
+	}
+
+	private void reject(HttpExchange exchange) throws IOException {
+		long start = metrics.requestStarted();
+		try {
+			exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+			exchange.getResponseHeaders().set("Cache-Control", "no-store");
+			exchange.sendResponseHeaders(503, -1); // 503 Service Unavailable
+			exchange.close();
+		} finally {
+			metrics.requestCompleted(RouteClass.OTHER, 503, 0, start);
+		}
+	}
+
+	synchronized AdmissionStats stats() {
+		return new AdmissionStats(limit, maxConcurrent, active, queue.size(), admitted, rejected);
+	}
+
+	/**
+	 * Ends queued waits. One daemon thread for all servers: it only moves
+	 * expired exchanges to the workers.
+	 */
+	private static final class ExpiryTimer {
+		static final ScheduledExecutorService INSTANCE = create();
+
+		private static ScheduledExecutorService create() {
+			return new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "http-admission-timer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
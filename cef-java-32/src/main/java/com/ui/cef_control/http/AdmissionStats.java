@@ -0,0 +1,74 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time snapshot of the admission control in front of the request
+ * executor.
+ */
+public final class AdmissionStats {
+
+	private final int limit;
+	private final int maxConcurrent;
+	private final int active;
+	private final int queued;
+	private final long admitted;
+	private final long rejected;
+
+	AdmissionStats(int limit, int maxConcurrent, int active, int queued, long admitted, long rejected) {
+		this.limit = limit;
+		this.maxConcurrent = maxConcurrent;
+		this.active = active;
+		this.queued = queued;
+		this.admitted = admitted;
+		this.rejected = rejected;
+	}
+
+	/**
+	 * Concurrency limit currently in effect (below getMaxConcurrent() while
+	 * the adaptive limit is backing off).
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * Requests currently being served.
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * Requests waiting for a slot.
+	 */
+	public int getQueued() {
+		return queued;
+	}
+
+	public long getAdmitted() {
+		return admitted;
+	}
+
+	/**
+	 * Requests shed because the queue was full or their wait timed out;
+	 * answered with 503 unless they were for /__health or /__metrics.
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	@Override
+	public String toString() {
+		return "AdmissionStats{" +
+				"limit=" + limit +
+				", maxConcurrent=" + maxConcurrent +
+				", active=" + active +
+				", queued=" + queued +
+				", admitted=" + admitted +
+				", rejected=" + rejected +
+				'}';
+	}
+}
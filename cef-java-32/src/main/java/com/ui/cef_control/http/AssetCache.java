@@ -0,0 +1,298 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Byte-budgeted LRU cache of static file contents, keyed by resolved path.
+ *
+ * Behaviour:
+ * - Hit: returns the cached entry, no disk access
+ * - Miss: loads the file (and builds its compressed variants) once; concurrent misses on the same path wait for
+ *   that single load instead of reading the file again
+ * - Budget: least recently used entries are evicted until the total body
+ *   size fits the budget; files larger than the budget are served but never cached
+ * - Generated gzip: a miss gzips (at Compression.SERVING_GZIP_LEVEL) only
+ *   files that can be cached and have no .gz sidecar. The result is kept in
+ *   a side table (up to a quarter of the budget) that outlives eviction, so
+ *   a file reloaded after eviction is not compressed again
+ * - Invalidation: invalidate(path) drops the path and everything below it;
+ *   driven by StaticRootWatcher when files under the static root change
+ *
+ * Thread-safety: the LRU map is guarded by this; loads run outside the lock.
+ */
+final class AssetCache {
+
+	/**
+	 * Loads a file into a cache entry. Called outside the cache lock.
+	 */
+	interface Loader {
+		CachedAsset load(Path path) throws IOException;
+	}
+
+	/** Default budget: comfortably holds a typical VuePress build. */
+	static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+
+	private final long budgetBytes;
+	private final Loader loader;
+
+	// Access-ordered map: iteration starts at the least recently used entry
+	private final LinkedHashMap<Path, CachedAsset> entries;
+	private final ConcurrentHashMap<Path, CompletableFuture<CachedAsset>> loading;
+	private long usedBytes;
+	private long generation;
+	// Generated gzip bodies by file, access-ordered like entries
+	private final LinkedHashMap<Path, byte[]> generatedGzip;
+	private long generatedGzipBytes;
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+
+	AssetCache(long budgetBytes) {
+		this(budgetBytes, null, true);
+	}
+
+	AssetCache(long budgetBytes, Loader loader) {
+		this(budgetBytes, loader, false);
+	}
+
+	private AssetCache(long budgetBytes, Loader loader, boolean fromDisk) {
+		if (budgetBytes < 0) {
+			throw new IllegalArgumentException("budgetBytes must be >= 0, got: " + budgetBytes);
+		}
+		if (loader == null && !fromDisk) {
+			throw new IllegalArgumentException("loader cannot be null");
+		}
+		this.budgetBytes = budgetBytes;
+		this.loader = fromDisk ? this::loadFromDisk : loader;
+		this.entries = new LinkedHashMap<>(64, 0.75f, true);
+		this.loading = new ConcurrentHashMap<>();
+		this.generatedGzip = new LinkedHashMap<>(64, 0.75f, true);
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+
+	/**
+	 * Returns the entry for the given file, loading it on a miss.
+	 *
+	 * @param path Resolved path of a regular file
+	 * @return Cached (or freshly loaded) entry
+	 * @throws IOException if the file cannot be read
+	 */
+	CachedAsset get(Path path) throws IOException {
+		long observedGeneration;
+		synchronized (this) {
+			CachedAsset cached = entries.get(path);
+			if (cached != null) {
+				hits.increment();
+				return cached;
+			}
+			observedGeneration = generation;
+		}
+		misses.increment();
+
+		CompletableFuture<CachedAsset> pending = new CompletableFuture<>();
+		CompletableFuture<CachedAsset> inFlight = loading.putIfAbsent(path, pending);
+		if (inFlight != null) {
+			// Another thread is already reading this file
+			return await(inFlight);
+		}
+
+		try {
+			CachedAsset loaded = loader.load(path);
+			store(path, loaded, observedGeneration);
+			pending.complete(loaded);
+			return loaded;
+		} catch (IOException | RuntimeException e) {
+			pending.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(path, pending);
+		}
+	}
+
+	/**
+	 * Drops the given path and, if it is a directory, every entry below it.
+	 * A changed .gz/.br sidecar also drops the file it encodes.
+	 */
+	synchronized void invalidate(Path path) {
+		Path sidecarSource = Compression.sourceOfSidecar(path);
+		if (sidecarSource != null) {
+			remove(sidecarSource);
+		}
+		remove(path);
+	}
+
+	private void remove(Path path) {
+		generation++;
+		Iterator<Map.Entry<Path, CachedAsset>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Path, CachedAsset> entry = it.next();
+			if (entry.getKey().startsWith(path)) {
+				usedBytes -= entry.getValue().weight();
+				it.remove();
+			}
+		}
+		Iterator<Map.Entry<Path, byte[]>> gzipped = generatedGzip.entrySet().iterator();
+		while (gzipped.hasNext()) {
+			Map.Entry<Path, byte[]> entry = gzipped.next();
+			if (entry.getKey().startsWith(path)) {
+				generatedGzipBytes -= entry.getValue().length;
+				gzipped.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops every entry.
+	 */
+	synchronized void clear() {
+		generation++;
+		entries.clear();
+		usedBytes = 0;
+		generatedGzip.clear();
+		generatedGzipBytes = 0;
+	}
+
+	synchronized AssetCacheStats stats() {
+		return new AssetCacheStats(
+				hits.sum(),
+				misses.sum(),
+				evictions.sum(),
+				entries.size(),
+				usedBytes,
+				budgetBytes
+		);
+	}
+
+	long getBudgetBytes() {
+		return budgetBytes;
+	}
+
+	private synchronized void store(Path path, CachedAsset asset, long observedGeneration) {
+		// A change notification arrived while loading: the bytes may be stale
+		if (observedGeneration != generation) {
+			return;
+		}
+		long weight = asset.weight();
+		if (weight > budgetBytes) {
+			return;
+		}
+
+		CachedAsset previous = entries.put(path, asset);
+		if (previous != null) {
+			usedBytes -= previous.weight();
+		}
+		usedBytes += weight;
+
+		Iterator<CachedAsset> it = entries.values().iterator();
+		while (usedBytes > budgetBytes && it.hasNext()) {
+			CachedAsset eldest = it.next();
+			usedBytes -= eldest.weight();
+			it.remove();
+			evictions.increment();
+		}
+	}
+
+	private static CachedAsset await(CompletableFuture<CachedAsset> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for asset load");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Asset load failed", cause);
+		}
+	}
+
+	/**
+	 * Loads a file with its sidecars and a freshly generated gzip variant.
+	 */
+	static CachedAsset readFromDisk(Path path) throws IOException {
+		byte[] content = Files.readAllBytes(path);
+		String contentType = ContentTypes.guess(path);
+		return new CachedAsset(path, content, contentType, Compression.buildVariants(path, content, contentType,
+				body -> Compression.gzip(body, Compression.SERVING_GZIP_LEVEL)));
+	}
+
+	/**
+	 * Default loader: like readFromDisk, but a file too large to cache gets
+	 * sidecars only (its gzip would be thrown away after one response) and
+	 * generated gzip bodies are reused across evictions.
+	 */
+	private CachedAsset loadFromDisk(Path path) throws IOException {
+		byte[] content = Files.readAllBytes(path);
+		String contentType = ContentTypes.guess(path);
+		Compression.GzipEncoder encoder = content.length > budgetBytes ? null : body -> gzipOf(path, body);
+		return new CachedAsset(path, content, contentType,
+				Compression.buildVariants(path, content, contentType, encoder));
+	}
+
+	private byte[] gzipOf(Path path, byte[] content) throws IOException {
+		synchronized (this) {
+			byte[] known = generatedGzip.get(path);
+			if (known != null && encodes(known, content)) {
+				return known;
+			}
+		}
+		byte[] gzipped = Compression.gzip(content, Compression.SERVING_GZIP_LEVEL);
+		synchronized (this) {
+			long limit = budgetBytes / 4;
+			if (gzipped.length <= limit) {
+				byte[] previous = generatedGzip.put(path, gzipped);
+				if (previous != null) {
+					generatedGzipBytes -= previous.length;
+				}
+				generatedGzipBytes += gzipped.length;
+				Iterator<byte[]> it = generatedGzip.values().iterator();
+				while (generatedGzipBytes > limit && it.hasNext()) {
+					generatedGzipBytes -= it.next().length;
+					it.remove();
+				}
+			}
+		}
+		return gzipped;
+	}
+
+	/**
+	 * Checks a kept gzip body against the current file content using the
+	 * CRC-32 and length in its trailer, so an edit the watcher has not
+	 * reported yet is not served from a stale body.
+	 */
+	private static boolean encodes(byte[] gzipped, byte[] content) {
+		int length = gzipped.length;
+		if (length < 18) {
+			return false; // Shorter than an empty gzip member
+		}
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return littleEndianInt(gzipped, length - 8) == (int) crc.getValue()
+				&& littleEndianInt(gzipped, length - 4) == content.length;
+	}
+
+	private static int littleEndianInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff)
+				| (bytes[offset + 1] & 0xff) << 8
+				| (bytes[offset + 2] & 0xff) << 16
+				| (bytes[offset + 3] & 0xff) << 24;
+	}
+}
@@ -0,0 +1,78 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time snapshot of the static asset cache counters.
+ *
+ * Used to size the cache budget: a high eviction count relative to hits
+ * means the budget is smaller than the working set of assets.
+ */
+public final class AssetCacheStats {
+
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final int entryCount;
+	private final long usedBytes;
+	private final long budgetBytes;
+
+	AssetCacheStats(long hits, long misses, long evictions, int entryCount, long usedBytes, long budgetBytes) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.entryCount = entryCount;
+		this.usedBytes = usedBytes;
+		this.budgetBytes = budgetBytes;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	public long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public long getBudgetBytes() {
+		return budgetBytes;
+	}
+
+	/**
+	 * Sum of two caches' counters (a server with mounted roots has one cache per root).
+	 */
+	AssetCacheStats plus(AssetCacheStats other) {
+		return new AssetCacheStats(hits + other.hits, misses + other.misses, evictions + other.evictions,
+				entryCount + other.entryCount, usedBytes + other.usedBytes, budgetBytes + other.budgetBytes);
+	}
+
+	/**
+	 * @return hits / (hits + misses), or 0 if nothing was requested yet
+	 */
+	public double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		return "AssetCacheStats{" +
+				"hits=" + hits +
+				", misses=" + misses +
+				", evictions=" + evictions +
+				", entryCount=" + entryCount +
+				", usedBytes=" + usedBytes +
+				", budgetBytes=" + budgetBytes +
+				'}';
+	}
+}
@@ -0,0 +1,70 @@
+package com.ui.cef_control.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Free list of equally sized direct buffers.
+ *
+ * Direct buffers are expensive to allocate and are only freed by the GC,
+ * so the NIO engine recycles them instead of allocating per read or per
+ * response. Buffers beyond maxPooled are dropped on release and left to
+ * the GC.
+ */
+final class BufferPool {
+
+	private final int bufferBytes;
+	private final int maxPooled;
+	private final ConcurrentLinkedQueue<ByteBuffer> free;
+	private final AtomicInteger pooled;
+
+	BufferPool(int bufferBytes, int maxPooled) {
+		if (bufferBytes <= 0) {
+			throw new IllegalArgumentException("bufferBytes must be > 0, got: " + bufferBytes);
+		}
+		this.bufferBytes = bufferBytes;
+		this.maxPooled = maxPooled;
+		this.free = new ConcurrentLinkedQueue<>();
+		this.pooled = new AtomicInteger();
+	}
+
+	/**
+	 * @return A cleared buffer of bufferBytes capacity
+	 */
+	ByteBuffer acquire() {
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferBytes);
+		}
+		pooled.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool. The caller must not touch it afterwards.
+	 */
+	void release(ByteBuffer buffer) {
+		if (buffer == null || buffer.capacity() != bufferBytes || !buffer.isDirect()) {
+			return;
+		}
+		if (pooled.incrementAndGet() > maxPooled) {
+			pooled.decrementAndGet();
+			return;
+		}
+		buffer.clear();
+		free.offer(buffer);
+	}
+
+	int getBufferBytes() {
+		return bufferBytes;
+	}
+
+	/**
+	 * Number of idle buffers currently held.
+	 */
+	int pooledCount() {
+		return pooled.get();
+	}
+}
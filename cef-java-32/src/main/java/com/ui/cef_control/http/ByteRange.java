@@ -0,0 +1,133 @@
+package com.ui.cef_control.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One satisfiable byte range of a representation (inclusive bounds),
+ * plus parsing of the HTTP Range request header (RFC 7233).
+ */
+final class ByteRange {
+
+	/** More ranges than this in one request are answered with the full body. */
+	static final int MAX_RANGES = 16;
+
+	private final long first;
+	private final long last;
+
+	ByteRange(long first, long last) {
+		this.first = first;
+		this.last = last;
+	}
+
+	long getFirst() {
+		return first;
+	}
+
+	long getLast() {
+		return last;
+	}
+
+	long length() {
+		return last - first + 1;
+	}
+
+	/**
+	 * Content-Range value for this range, e.g. "bytes 0-99/1000".
+	 */
+	String contentRange(long totalLength) {
+		return "bytes " + first + "-" + last + "/" + totalLength;
+	}
+
+	/**
+	 * Parses a Range header against a representation of the given length.
+	 *
+	 * Overlapping and adjacent ranges are coalesced and returned in
+	 * ascending order.
+	 *
+	 * @param header Range header value, e.g. "bytes=0-99,-500"
+	 * @param totalLength Length of the selected representation
+	 * @return Satisfiable ranges; an empty list if none is satisfiable (416);
+	 *         null if the header is malformed, not in bytes, or asks for too
+	 *         many ranges (ignore it and send 200)
+	 */
+	static List<ByteRange> parse(String header, long totalLength) {
+		String value = header.trim();
+		if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+			return null;
+		}
+
+		String[] specs = value.substring(6).split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+
+		List<ByteRange> ranges = new ArrayList<>(specs.length);
+		for (String rawSpec : specs) {
+			String spec = rawSpec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			String firstPart = spec.substring(0, dash).trim();
+			String lastPart = spec.substring(dash + 1).trim();
+
+			long first;
+			long last;
+			try {
+				if (firstPart.isEmpty()) {
+					// Suffix range: the final N bytes
+					long suffix = Long.parseLong(lastPart);
+					if (suffix <= 0) {
+						continue;
+					}
+					first = Math.max(0, totalLength - suffix);
+					last = totalLength - 1;
+				} else {
+					first = Long.parseLong(firstPart);
+					last = lastPart.isEmpty() ? totalLength - 1 : Long.parseLong(lastPart);
+					if (first < 0 || last < first) {
+						return null;
+					}
+					last = Math.min(last, totalLength - 1);
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+
+			if (first < totalLength && first <= last) {
+				ranges.add(new ByteRange(first, last));
+			}
+		}
+
+		return coalesce(ranges);
+	}
+
+	private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+		if (ranges.size() < 2) {
+			return ranges;
+		}
+		ranges.sort(Comparator.comparingLong(ByteRange::getFirst));
+
+		List<ByteRange> merged = new ArrayList<>(ranges.size());
+		ByteRange current = ranges.get(0);
+		for (int i = 1; i < ranges.size(); i++) {
+			ByteRange next = ranges.get(i);
+			if (next.first <= current.last + 1) {
+				current = new ByteRange(current.first, Math.max(current.last, next.last));
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		return Collections.unmodifiableList(merged);
+	}
+
+	@Override
+	public String toString() {
+		return first + "-" + last;
+	}
+}
@@ -0,0 +1,115 @@
+package com.ui.cef_control.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the Cache-Control header for a static file path.
+ *
+ * Evaluation order (first match wins):
+ * 1. Rules configured in HttpServerConfig.withCacheRule(), in insertion order
+ * 2. Fingerprinted asset names (app.3f9a1c2b.js, index-Bx3a9Q1c.css)
+ *    -> public, max-age=31536000, immutable
+ * 3. Everything else, including HTML entry points and the SPA fallback
+ *    -> no-cache (revalidate with ETag, answered by 304)
+ *
+ * The result depends only on the path, so StaticSite memoizes it per file.
+ */
+final class CachePolicy {
+
+	static final String IMMUTABLE = "public, max-age=31536000, immutable";
+	static final String REVALIDATE = "no-cache";
+
+	// Checked where a hash starts: a letter and a digit, not one run of each
+	private static final String HASH_START =
+			"(?![A-Za-z]+\\d+\\.|\\d+[A-Za-z]+\\.)(?=[\\w-]*\\d)(?=[\\w-]*[A-Za-z])";
+
+	/**
+	 * name.hash.ext or name-hash.ext, the hash right before the extension:
+	 * 8+ hex or base64url characters with at least one letter and one digit,
+	 * not shaped like a word and a number (started2, 2024spring), so
+	 * versioned names (guide-part01.png, report-2024q1.json, logo-v2dark.svg,
+	 * getting-started2.css) are not taken for fingerprints. After '-' the hash
+	 * cannot contain '-', or any dashed name ending in a digit would match;
+	 * such rare hashes are revalidated instead. HTML is never treated as
+	 * fingerprinted.
+	 */
+	private static final Pattern HASHED_ASSET = Pattern.compile(
+			"^.+(?:\\." + HASH_START + "[\\w-]{8,}|-" + HASH_START + "\\w{8,})"
+					+ "\\.(js|mjs|css|map|json|woff2?|ttf|otf|eot|svg|png|jpe?g|gif|webp|avif|ico)$");
+
+	private final List<Pattern> rulePatterns;
+	private final List<String> ruleValues;
+
+	/**
+	 * @param rules Path glob -> Cache-Control value, evaluated in iteration order
+	 */
+	CachePolicy(Map<String, String> rules) {
+		this.rulePatterns = new ArrayList<>(rules.size());
+		this.ruleValues = new ArrayList<>(rules.size());
+		for (Map.Entry<String, String> rule : rules.entrySet()) {
+			rulePatterns.add(globToPattern(rule.getKey()));
+			ruleValues.add(rule.getValue());
+		}
+	}
+
+	static CachePolicy defaults() {
+		return new CachePolicy(Collections.emptyMap());
+	}
+
+	/**
+	 * @param relativePath Path below the static root using '/' separators,
+	 *                     e.g. "assets/js/app.3f9a1c2b.js"
+	 * @return Cache-Control header value
+	 */
+	String cacheControlFor(String relativePath) {
+		for (int i = 0; i < rulePatterns.size(); i++) {
+			if (rulePatterns.get(i).matcher(relativePath).matches()) {
+				return ruleValues.get(i);
+			}
+		}
+
+		int slash = relativePath.lastIndexOf('/');
+		String fileName = relativePath.substring(slash + 1);
+		if (HASHED_ASSET.matcher(fileName).matches()) {
+			return IMMUTABLE;
+		}
+		return REVALIDATE;
+	}
+
+	/**
+	 * Converts a path glob to a regex: ** matches across directories,
+	 * * and ? stay within one path segment. A leading '/' is ignored.
+	 */
+	static Pattern globToPattern(String glob) {
+		String source = glob.startsWith("/") ? glob.substring(1) : glob;
+		StringBuilder regex = new StringBuilder(source.length() * 2);
+		for (int i = 0; i < source.length(); i++) {
+			char c = source.charAt(i);
+			if (c == '*') {
+				if (i + 1 < source.length() && source.charAt(i + 1) == '*') {
+					regex.append(".*");
+					i++;
+					// "**/" also matches zero directories
+					if (i + 1 < source.length() && source.charAt(i + 1) == '/') {
+						regex.setLength(regex.length() - 2);
+						regex.append("(?:.*/)?");
+						i++;
+					}
+				} else {
+					regex.append("[^/]*");
+				}
+			} else if (c == '?') {
+				regex.append("[^/]");
+			} else if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+				regex.append('\\').append(c);
+			} else {
+				regex.append(c);
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+}
@@ -0,0 +1,83 @@
+package com.ui.cef_control.http;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of a static file plus the response headers
+ * that never change for that file version.
+ *
+ * Built once on a cache miss; every later hit only copies the header
+ * values and writes the byte array.
+ */
+final class CachedAsset {
+
+	private final Path path;
+	private final byte[] content;
+	private final String contentType;
+	private final Map<String, byte[]> encodedVariants;
+	private final Map<String, String> headers;
+
+	CachedAsset(Path path, byte[] content, String contentType) {
+		this(path, content, contentType, Collections.emptyMap());
+	}
+
+	CachedAsset(Path path, byte[] content, String contentType, Map<String, byte[]> encodedVariants) {
+		this.path = path;
+		this.content = content;
+		this.contentType = contentType;
+		this.encodedVariants = encodedVariants;
+
+		Map<String, String> precomputed = new LinkedHashMap<>();
+		precomputed.put("Content-Type", contentType);
+		precomputed.put("Accept-Ranges", "bytes");
+		if (!encodedVariants.isEmpty()) {
+			// Caches between us and CEF must key on the negotiated encoding
+			precomputed.put("Vary", "Accept-Encoding");
+		}
+		this.headers = Collections.unmodifiableMap(precomputed);
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the cached body. Callers must not modify the array.
+	 */
+	byte[] getContent() {
+		return content;
+	}
+
+	String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Precompressed bodies keyed by content-coding (gzip, br).
+	 * Empty if the file is not compressible.
+	 */
+	Map<String, byte[]> getEncodedVariants() {
+		return encodedVariants;
+	}
+
+	/**
+	 * Response headers precomputed at load time (name -> value).
+	 */
+	Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Number of bytes this entry charges against the cache budget.
+	 */
+	long weight() {
+		long weight = content.length;
+		for (byte[] variant : encodedVariants.values()) {
+			weight += variant.length;
+		}
+		return weight;
+	}
+}
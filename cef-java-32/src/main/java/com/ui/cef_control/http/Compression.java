@@ -0,0 +1,291 @@
+package com.ui.cef_control.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Precompressed response variants and Accept-Encoding negotiation.
+ *
+ * Variants are built once per file version when the file is loaded into
+ * the asset cache, never per request:
+ * - br / gzip sidecars (app.js.br, app.js.gz) produced by the docs build are
+ *   used as-is when they are at least as new as the original file
+ * - otherwise a gzip variant is generated in memory for compressible MIME types:
+ *   at BEST_COMPRESSION when packing, at SERVING_GZIP_LEVEL on a cache miss,
+ *   which runs on the request thread
+ *
+ * Brotli cannot be produced with the JDK alone, so br is sidecar-only.
+ */
+final class Compression {
+
+	static final String GZIP = "gzip";
+	static final String BROTLI = "br";
+
+	/** Below this size the encoding overhead outweighs the savings. */
+	static final int MIN_COMPRESSIBLE_BYTES = 1024;
+
+	/** Level for gzip variants generated while serving, where latency beats ratio. */
+	static final int SERVING_GZIP_LEVEL = Deflater.BEST_SPEED;
+
+	/**
+	 * Produces the gzip body of a file that has no fresh .gz sidecar.
+	 */
+	interface GzipEncoder {
+		byte[] encode(byte[] content) throws IOException;
+	}
+
+	// Server preference when the client weights encodings equally
+	private static final String[] PREFERENCE = {BROTLI, GZIP};
+
+	private Compression() {
+		// Utility class, no instantiation
+	}
+
+	/**
+	 * @return true if responses of this MIME type benefit from compression
+	 */
+	static boolean isCompressible(String contentType) {
+		String type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/")
+				|| type.startsWith("application/javascript")
+				|| type.startsWith("application/json")
+				|| type.startsWith("application/xml")
+				|| type.startsWith("image/svg+xml")
+				|| type.startsWith("application/vnd.ms-fontobject")
+				|| type.startsWith("font/ttf");
+	}
+
+	/**
+	 * Builds the encoded variants of a file (encoding -> body), spending
+	 * CPU on the best gzip ratio (for build-time callers like DocsPacker).
+	 *
+	 * @param path Original file
+	 * @param content Original (identity) body
+	 * @param contentType MIME type of the original
+	 * @return Unmodifiable map, empty if the file is not worth compressing
+	 * @throws IOException if a sidecar exists but cannot be read
+	 */
+	static Map<String, byte[]> buildVariants(Path path, byte[] content, String contentType) throws IOException {
+		return buildVariants(path, content, contentType, body -> gzip(body, Deflater.BEST_COMPRESSION));
+	}
+
+	/**
+	 * Like buildVariants(path, content, contentType), generating the gzip
+	 * variant with the given encoder.
+	 *
+	 * @param gzipEncoder Encoder for files without a .gz sidecar, or null
+	 *                    to use sidecars only
+	 */
+	static Map<String, byte[]> buildVariants(Path path, byte[] content, String contentType,
+			GzipEncoder gzipEncoder) throws IOException {
+		if (!isCompressible(contentType) || content.length < MIN_COMPRESSIBLE_BYTES) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, byte[]> variants = new LinkedHashMap<>();
+		for (Map.Entry<String, Path> sidecar : freshSidecars(path).entrySet()) {
+			variants.put(sidecar.getKey(), Files.readAllBytes(sidecar.getValue()));
+		}
+
+		if (!variants.containsKey(GZIP) && gzipEncoder != null) {
+			byte[] gzipped = gzipEncoder.encode(content);
+			if (gzipped.length < content.length) {
+				variants.put(GZIP, gzipped);
+			}
+		}
+
+		return Collections.unmodifiableMap(variants);
+	}
+
+	/**
+	 * Returns the sidecars (encoding -> file) that are at least as new as path.
+	 */
+	static Map<String, Path> freshSidecars(Path path) throws IOException {
+		Map<String, Path> sidecars = new LinkedHashMap<>();
+		long originalModified = Files.getLastModifiedTime(path).toMillis();
+		for (String encoding : PREFERENCE) {
+			Path sidecar = sidecarOf(path, encoding);
+			if (Files.isRegularFile(sidecar)
+					&& Files.getLastModifiedTime(sidecar).toMillis() >= originalModified) {
+				sidecars.put(encoding, sidecar);
+			}
+		}
+		return sidecars;
+	}
+
+	/**
+	 * Picks the best available encoding for an Accept-Encoding header.
+	 *
+	 * @param acceptEncoding Request header value (may be null)
+	 * @param available Encodings the asset has variants for
+	 * @return Chosen encoding, or null to send the identity body
+	 */
+	static String negotiate(String acceptEncoding, Map<String, ?> available) {
+		if (acceptEncoding == null || available.isEmpty()) {
+			return null;
+		}
+
+		String best = null;
+		double bestQuality = 0.0;
+		for (String encoding : PREFERENCE) {
+			if (!available.containsKey(encoding)) {
+				continue;
+			}
+			double quality = qualityOf(acceptEncoding, encoding);
+			if (quality > bestQuality) {
+				best = encoding;
+				bestQuality = quality;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Maps a sidecar file (app.js.gz) back to the file it encodes (app.js).
+	 *
+	 * @return Original file path, or null if the path is not a sidecar
+	 */
+	static Path sourceOfSidecar(Path path) {
+		Path fileName = path.getFileName();
+		if (fileName == null) {
+			return null;
+		}
+		String name = fileName.toString();
+		for (String encoding : PREFERENCE) {
+			String suffix = "." + sidecarExtension(encoding);
+			if (name.length() > suffix.length() && name.endsWith(suffix)) {
+				return path.resolveSibling(name.substring(0, name.length() - suffix.length()));
+			}
+		}
+		return null;
+	}
+
+	static byte[] gzip(byte[] content) throws IOException {
+		// Built once per file version, so spend CPU on the best ratio
+		return gzip(content, Deflater.BEST_COMPRESSION);
+	}
+
+	static byte[] gzip(byte[] content, int level) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 3 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+			{
+				def.setLevel(level);
+			}
+		}) {
+			gzip.write(content);
+		}
+		return buffer.toByteArray();
+	}
+
+	private static Path sidecarOf(Path path, String encoding) {
+		return path.resolveSibling(path.getFileName().toString() + "." + sidecarExtension(encoding));
+	}
+
+	private static String sidecarExtension(String encoding) {
+		return GZIP.equals(encoding) ? "gz" : encoding;
+	}
+
+	/**
+	 * Returns the q-value the client assigned to an encoding (0 = not acceptable).
+	 *
+	 * Scans the header in place (runs on every request, so no split/trim
+	 * copies).
+	 */
+	static double qualityOf(String acceptEncoding, String encoding) {
+		double wildcard = 0.0;
+		int length = acceptEncoding.length();
+		int start = 0;
+		while (start < length) {
+			int end = acceptEncoding.indexOf(',', start);
+			if (end < 0) {
+				end = length;
+			}
+			int params = acceptEncoding.indexOf(';', start);
+			int tokenEnd = params >= 0 && params < end ? params : end;
+			int tokenStart = skipSpaces(acceptEncoding, start, tokenEnd);
+			int tokenLength = trimEnd(acceptEncoding, tokenStart, tokenEnd) - tokenStart;
+			double quality = tokenEnd < end ? qualityParameter(acceptEncoding, tokenEnd + 1, end) : 1.0;
+			if (tokenLength == encoding.length()
+					&& acceptEncoding.regionMatches(true, tokenStart, encoding, 0, tokenLength)) {
+				return quality;
+			}
+			if (tokenLength == 1 && acceptEncoding.charAt(tokenStart) == '*') {
+				wildcard = quality;
+			}
+			start = end + 1;
+		}
+		return wildcard;
+	}
+
+	/**
+	 * Finds "q=" among the ;-separated parameters in [start, end).
+	 *
+	 * @return The q-value, 1.0 without one, 0.0 if it is malformed
+	 */
+	private static double qualityParameter(String header, int start, int end) {
+		double quality = 1.0;
+		while (start < end) {
+			int paramEnd = header.indexOf(';', start);
+			if (paramEnd < 0 || paramEnd > end) {
+				paramEnd = end;
+			}
+			int from = skipSpaces(header, start, paramEnd);
+			int to = trimEnd(header, from, paramEnd);
+			if (to - from >= 2 && (header.charAt(from) | 0x20) == 'q' && header.charAt(from + 1) == '=') {
+				quality = parseQValue(header, from + 2, to);
+			}
+			start = paramEnd + 1;
+		}
+		return quality;
+	}
+
+	/**
+	 * Parses digits with an optional fraction ("1", "0.8", ".5").
+	 *
+	 * @return The value, or 0.0 if [start, end) is not such a number
+	 */
+	private static double parseQValue(String header, int start, int end) {
+		double value = 0.0;
+		double scale = 0.0;
+		boolean digits = false;
+		for (int i = start; i < end; i++) {
+			char c = header.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = true;
+				if (scale == 0.0) {
+					value = value * 10 + (c - '0');
+				} else {
+					value += (c - '0') * scale;
+					scale /= 10;
+				}
+			} else if (c == '.' && scale == 0.0) {
+				scale = 0.1;
+			} else {
+				return 0.0;
+			}
+		}
+		return digits ? value : 0.0;
+	}
+
+	private static int skipSpaces(String text, int start, int end) {
+		while (start < end && (text.charAt(start) == ' ' || text.charAt(start) == '\t')) {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimEnd(String text, int start, int end) {
+		while (end > start && (text.charAt(end - 1) == ' ' || text.charAt(end - 1) == '\t')) {
+			end--;
+		}
+		return end;
+	}
+}
@@ -0,0 +1,518 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-hash validators (strong ETag + Last-Modified) for every file
+ * under the static root.
+ *
+ * Lifecycle:
+ * 1. buildAsync() hashes the whole tree in parallel on the hash pool
+ * 2. onPathChanged() drops the validators of changed paths and queues
+ *    their re-hash on the hash pool, so the watcher thread never reads files
+ * 3. get() returns the stored validator, or hashes the file on demand if it
+ *    is missing or its size/mtime no longer match (e.g. build still running);
+ *    concurrent callers for one file wait for a single hash
+ * 4. getWithoutHashing() does the same for files too large to read on a
+ *    request thread: until the pool has hashed the file it answers with a
+ *    weak validator made from size and mtime
+ *
+ * The hash pool is a fork-join pool of HASH_THREADS daemon workers shared
+ * by all indexes (mounted roots, swapped sites), not the common pool:
+ * hashing a large tree is disk- and CPU-heavy and must neither occupy
+ * every core the request threads need nor delay unrelated common-pool
+ * work. Idle workers exit on their own.
+ *
+ * ETag: first 128 bits of the SHA-256 of the file contents, hex encoded.
+ * Weak ETag: W/"size-mtime", both hex encoded.
+ */
+final class ContentHashIndex {
+
+	/**
+	 * Validators of one file version.
+	 */
+	static final class Validator {
+		private final String etag;
+		// Start of the opaque tag: 2 for a weak tag (W/"..."), else 0
+		private final int opaqueStart;
+		private final long size;
+		private final long lastModifiedMillis;
+		private final String lastModifiedHttpDate;
+		// Tags of the variants the servers produce, built once instead of per response
+		private final String gzipEtag;
+		private final String brotliEtag;
+
+		Validator(String etag, long size, long lastModifiedMillis) {
+			this.etag = etag;
+			this.opaqueStart = etag.startsWith("W/") ? 2 : 0;
+			this.size = size;
+			this.lastModifiedMillis = lastModifiedMillis;
+			this.lastModifiedHttpDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+					Instant.ofEpochMilli(lastModifiedMillis).atOffset(ZoneOffset.UTC));
+			this.gzipEtag = encodedEtag(Compression.GZIP);
+			this.brotliEtag = encodedEtag(Compression.BROTLI);
+		}
+
+		/**
+		 * Weak validator of a file that has not been hashed yet.
+		 */
+		static Validator weak(long size, long lastModifiedMillis) {
+			return new Validator("W/\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMillis) + "\"",
+					size, lastModifiedMillis);
+		}
+
+		/**
+		 * Quoted strong entity tag, e.g. "3f9a1c...", or a weak W/"..." tag.
+		 */
+		String getEtag() {
+			return etag;
+		}
+
+		/**
+		 * A weak tag is never current for If-Range, which requires strong comparison.
+		 */
+		boolean isWeak() {
+			return opaqueStart != 0;
+		}
+
+		long getSize() {
+			return size;
+		}
+
+		long getLastModifiedMillis() {
+			return lastModifiedMillis;
+		}
+
+		String getLastModifiedHttpDate() {
+			return lastModifiedHttpDate;
+		}
+
+		/**
+		 * Tag of an encoded representation: "hash-gzip" for gzip, etc.
+		 *
+		 * @param encoding Content-coding, or null for the identity body
+		 */
+		String etagFor(String encoding) {
+			if (encoding == null) {
+				return etag;
+			}
+			if (Compression.GZIP.equals(encoding)) {
+				return gzipEtag;
+			}
+			if (Compression.BROTLI.equals(encoding)) {
+				return brotliEtag;
+			}
+			return encodedEtag(encoding);
+		}
+
+		private String encodedEtag(String encoding) {
+			return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+		}
+
+		/**
+		 * Evaluates an If-None-Match header (weak comparison, as RFC 7232
+		 * requires for If-None-Match). Tags of encoded representations of
+		 * this version also match.
+		 */
+		boolean matches(String ifNoneMatch) {
+			int length = ifNoneMatch.length();
+			int start = 0;
+			while (start < length) {
+				int end = ifNoneMatch.indexOf(',', start);
+				if (end < 0) {
+					end = length;
+				}
+				int from = start;
+				int to = end;
+				while (from < to && ifNoneMatch.charAt(from) <= ' ') {
+					from++;
+				}
+				while (to > from && ifNoneMatch.charAt(to - 1) <= ' ') {
+					to--;
+				}
+				if (to - from == 1 && ifNoneMatch.charAt(from) == '*') {
+					return true;
+				}
+				if (ifNoneMatch.startsWith("W/", from)) {
+					from += 2;
+				}
+				if (matchesTag(ifNoneMatch, from, to)) {
+					return true;
+				}
+				start = end + 1;
+			}
+			return false;
+		}
+
+		/**
+		 * Compares one tag of a header in place: this version's tag, or
+		 * "opaque-encoding" of one of its encoded representations.
+		 */
+		private boolean matchesTag(String header, int from, int to) {
+			int tagLength = to - from;
+			int quotedLength = etag.length() - opaqueStart;
+			if (tagLength == quotedLength && header.regionMatches(from, etag, opaqueStart, tagLength)) {
+				return true;
+			}
+			int opaqueLength = quotedLength - 1;
+			return tagLength > opaqueLength + 1
+					&& header.regionMatches(from, etag, opaqueStart, opaqueLength)
+					&& header.charAt(from + opaqueLength) == '-'
+					&& header.charAt(to - 1) == '"';
+		}
+
+		boolean isCurrent(long fileSize, long fileLastModifiedMillis) {
+			return fileSize == size && fileLastModifiedMillis == lastModifiedMillis;
+		}
+	}
+
+	private static final int HASH_BYTES = 16;
+	private static final int READ_BUFFER_BYTES = 64 * 1024;
+	private static final int FILES_PER_TASK = 8;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/** Workers of the shared hash pool: half the cores, at most 4. */
+	static final int HASH_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+	private static final ForkJoinPool HASH_POOL = newHashPool();
+
+	private final Path root;
+	private final ForkJoinPool pool;
+	private final ConcurrentHashMap<Path, Validator> validators;
+	// Hashes in progress, so concurrent requests and the pool read a file once
+	private final ConcurrentHashMap<Path, CompletableFuture<Validator>> hashing;
+	private final LongAdder hashes;
+	private volatile ForkJoinTask<?> build;
+	private volatile boolean cancelled;
+
+	ContentHashIndex(Path root) {
+		this(root, HASH_POOL);
+	}
+
+	ContentHashIndex(Path root, ForkJoinPool pool) {
+		this.root = root;
+		this.pool = pool;
+		this.validators = new ConcurrentHashMap<>();
+		this.hashing = new ConcurrentHashMap<>();
+		this.hashes = new LongAdder();
+	}
+
+	/**
+	 * Starts hashing the whole tree in the background.
+	 *
+	 * @return Task that completes when every file has been hashed
+	 */
+	ForkJoinTask<?> buildAsync() {
+		ForkJoinTask<?> task = pool.submit(new DirectoryTask(root));
+		this.build = task;
+		return task;
+	}
+
+	/**
+	 * Cancels a running background build (on server stop).
+	 */
+	void cancelBuild() {
+		cancelled = true;
+		ForkJoinTask<?> task = this.build;
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Returns the validator for the given file version, hashing it if needed.
+	 *
+	 * @param file Regular file under the root
+	 * @param attributes Current attributes of that file
+	 */
+	Validator get(Path file, BasicFileAttributes attributes) throws IOException {
+		return get(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+	}
+
+	/**
+	 * Same as get(Path, BasicFileAttributes), with size and mtime taken
+	 * from the PathIndex instead of a stat call.
+	 */
+	Validator get(Path file, long size, long lastModifiedMillis) throws IOException {
+		Validator validator = validators.get(file);
+		if (validator != null && validator.isCurrent(size, lastModifiedMillis)) {
+			return validator;
+		}
+		return hashAndStore(file, size, lastModifiedMillis);
+	}
+
+	/**
+	 * Like get(Path, long, long), but never reads the file on the calling
+	 * thread: a missing or stale validator is replaced by a weak one while
+	 * the file is hashed on the pool. Used for files above the large-file
+	 * threshold, so a Range request costs the range, not the whole file.
+	 */
+	Validator getWithoutHashing(Path file, long size, long lastModifiedMillis) {
+		Validator validator = validators.get(file);
+		if (validator != null && validator.isCurrent(size, lastModifiedMillis)) {
+			return validator;
+		}
+		if (!cancelled && !hashing.containsKey(file)) {
+			pool.execute(() -> {
+				try {
+					get(file, size, lastModifiedMillis);
+				} catch (IOException e) {
+					// Changed or deleted meanwhile: the next request queues it again
+				}
+			});
+		}
+		return Validator.weak(size, lastModifiedMillis);
+	}
+
+	/**
+	 * Watcher callback: drops the validators of a changed file or of the
+	 * tree below a changed directory, and queues their re-hash.
+	 */
+	void onPathChanged(Path changed) {
+		Iterator<Map.Entry<Path, Validator>> it = validators.entrySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().getKey().startsWith(changed)) {
+				it.remove();
+			}
+		}
+		if (!cancelled) {
+			pool.execute(() -> rehash(changed));
+		}
+	}
+
+	private void rehash(Path changed) {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(changed, BasicFileAttributes.class);
+			if (attributes.isRegularFile()) {
+				hashAndStore(changed, attributes);
+			} else if (attributes.isDirectory()) {
+				new DirectoryTask(changed).invoke();
+			}
+		} catch (IOException e) {
+			// Deleted or unreadable: stays absent, get() retries on demand
+		}
+	}
+
+	int size() {
+		return validators.size();
+	}
+
+	/**
+	 * Number of files read and hashed so far (for tests and diagnostics).
+	 */
+	long hashCount() {
+		return hashes.sum();
+	}
+
+	private Validator hashAndStore(Path file, BasicFileAttributes attributes) throws IOException {
+		return hashAndStore(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+	}
+
+	/**
+	 * Hashes a file version and stores its validator. A caller that finds
+	 * the file already being hashed waits for that hash instead.
+	 */
+	private Validator hashAndStore(Path file, long size, long lastModifiedMillis) throws IOException {
+		CompletableFuture<Validator> pending = new CompletableFuture<>();
+		CompletableFuture<Validator> inFlight = hashing.putIfAbsent(file, pending);
+		if (inFlight != null) {
+			Validator hashed = await(inFlight);
+			if (hashed.isCurrent(size, lastModifiedMillis)) {
+				return hashed;
+			}
+			// That hash was of another version; this one is read on its own
+			return store(file, size, lastModifiedMillis);
+		}
+		try {
+			Validator validator = validators.get(file);
+			if (validator == null || !validator.isCurrent(size, lastModifiedMillis)) {
+				// Not stored by a hash that finished since the caller looked
+				validator = store(file, size, lastModifiedMillis);
+			}
+			pending.complete(validator);
+			return validator;
+		} catch (IOException | RuntimeException e) {
+			pending.completeExceptionally(e);
+			throw e;
+		} finally {
+			hashing.remove(file, pending);
+		}
+	}
+
+	private Validator store(Path file, long size, long lastModifiedMillis) throws IOException {
+		Validator validator = new Validator(hash(file), size, lastModifiedMillis);
+		hashes.increment();
+		validators.put(file, validator);
+		return validator;
+	}
+
+	private static Validator await(CompletableFuture<Validator> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a file hash");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("File hash failed", cause);
+		}
+	}
+
+	static String hash(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return toEtag(digest.digest());
+	}
+
+	/**
+	 * Entity tag of an in-memory body (same format as a file's).
+	 */
+	static String hash(byte[] content) {
+		MessageDigest digest = newDigest();
+		digest.update(content);
+		return toEtag(digest.digest());
+	}
+
+	private static String toEtag(byte[] digest) {
+		char[] chars = new char[HASH_BYTES * 2 + 2];
+		chars[0] = '"';
+		for (int i = 0; i < HASH_BYTES; i++) {
+			chars[1 + i * 2] = HEX[(digest[i] >> 4) & 0xf];
+			chars[2 + i * 2] = HEX[digest[i] & 0xf];
+		}
+		chars[chars.length - 1] = '"';
+		return new String(chars);
+	}
+
+	private static ForkJoinPool newHashPool() {
+		AtomicInteger threads = new AtomicInteger();
+		ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("http-content-hash-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		return new ForkJoinPool(HASH_THREADS, factory, null, false);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every JRE is required to provide SHA-256
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/**
+	 * Hashes the files of one directory and forks a task per subdirectory.
+	 * Tasks are Serializable through ForkJoinTask but never serialized.
+	 */
+	private final class DirectoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient Path dir;
+
+		DirectoryTask(Path dir) {
+			this.dir = dir;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelled) {
+				return;
+			}
+			List<Path> files = new ArrayList<>();
+			List<RecursiveAction> tasks = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+				for (Path entry : entries) {
+					if (Files.isDirectory(entry)) {
+						tasks.add(new DirectoryTask(entry));
+					} else {
+						files.add(entry);
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("ContentHashIndex: cannot list " + dir + ": " + e);
+				return;
+			}
+
+			tasks.add(new FileBatchTask(files, 0, files.size()));
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Hashes a slice of a directory listing, splitting large slices in half.
+	 */
+	private final class FileBatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient List<Path> files;
+		private final int from;
+		private final int to;
+
+		FileBatchTask(List<Path> files, int from, int to) {
+			this.files = files;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > FILES_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new FileBatchTask(files, from, mid), new FileBatchTask(files, mid, to));
+				return;
+			}
+			for (int i = from; i < to && !cancelled; i++) {
+				Path file = files.get(i);
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+					if (attributes.isRegularFile() && !validators.containsKey(file)) {
+						hashAndStore(file, attributes);
+					}
+				} catch (IOException e) {
+					// Vanished during the build; get() hashes on demand
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * MIME type lookup shared by the static file handlers and the asset cache.
+ *
+ * Common VuePress file types are mapped by extension; anything else falls
+ * back to Files.probeContentType() and finally application/octet-stream.
+ */
+final class ContentTypes {
+
+	private ContentTypes() {
+		// Utility class, no instantiation
+	}
+
+	/**
+	 * Guesses MIME type based on file extension.
+	 * Uses Files.probeContentType() as fallback.
+	 */
+	static String guess(Path filePath) {
+		String fileName = filePath.getFileName().toString();
+		String extension = fileName.contains(".") ?
+				fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase() :
+				"";
+
+		// Common VuePress file types
+		switch (extension) {
+			case "html":
+				return "text/html; charset=utf-8";
+			case "css":
+				return "text/css";
+			case "js":
+				return "application/javascript";
+			case "json":
+				return "application/json";
+			case "svg":
+				return "image/svg+xml";
+			case "png":
+				return "image/png";
+			case "jpg":
+			case "jpeg":
+				return "image/jpeg";
+			case "gif":
+				return "image/gif";
+			case "webp":
+				return "image/webp";
+			case "woff":
+				return "font/woff";
+			case "woff2":
+				return "font/woff2";
+			case "ttf":
+				return "font/ttf";
+			case "eot":
+				return "application/vnd.ms-fontobject";
+			default:
+				// Fallback to system probe
+				try {
+					String probed = Files.probeContentType(filePath);
+					return probed != null ? probed : "application/octet-stream";
+				} catch (IOException e) {
+					return "application/octet-stream";
+				}
+		}
+	}
+}
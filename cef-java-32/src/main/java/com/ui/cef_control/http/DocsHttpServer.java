@@ -1,46 +1,199 @@
 package com.ui.cef_control.http;
 
-import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
 
 public class DocsHttpServer {
-    private final Path docsPath;
-    private final int requestedPort;
-    private HttpServer httpServer;
+    private final HttpServerConfig config;
+    private volatile Path docsPath;
+    private final AssetCache assetCache;
+    private final RequestMetrics requestMetrics;
+    private final HotSet hotSet;
+    private HttpEngine httpServer;
+    private StaticSite site;
+    private volatile StaticFileHandler handler;
+    private volatile MountRouter mounts;
+    private volatile AdmissionControl admission;
+    private RequestExecutor executor;
     private int boundPort;
 
     public DocsHttpServer(String docsPath, int requestedPort) throws IOException {
-        this.docsPath = Paths.get(docsPath);
-        this.requestedPort = requestedPort;
+        this(new HttpServerConfig(docsPath, requestedPort, "127.0.0.1"));
+    }
+
+    public DocsHttpServer(HttpServerConfig config) throws IOException {
+        this.config = config;
+        this.docsPath = Paths.get(config.getStaticFilesPath());
+        this.assetCache = new AssetCache(config.getAssetCacheBudgetBytes());
+        this.requestMetrics = new RequestMetrics();
+        this.hotSet = HotSet.of(config);
         validatePath();
     }
 
     private void validatePath() throws IOException {
-        if (!Files.isDirectory(docsPath)) {
+        if (config.getDocsPack() == null && !Files.isDirectory(docsPath)) {
             throw new IOException("Docs path is not a directory: " + docsPath);
         }
     }
 
-    public void start() throws IOException {
-        InetSocketAddress addr = new InetSocketAddress("127.0.0.1", requestedPort);
-        httpServer = HttpServer.create(addr, 0);
-        httpServer.createContext("/", new DocsHandler(docsPath));
-        httpServer.start();
-        boundPort = httpServer.getAddress().getPort();
+    /**
+     * Opens the docs, binds and starts serving. Holds the lock throughout,
+     * so swapRoot/swapPack and stop() never see a half-started server; if
+     * anything fails, whatever was opened is closed again.
+     */
+    public synchronized void start() throws IOException {
+        StaticSite openedSite = StaticSite.open(config, assetCache);
+        StaticFileHandler rootHandler = new StaticFileHandler(openedSite, requestMetrics, hotSet);
+        MountRouter router = null;
+        HttpEngine engine = null;
+        RequestExecutor workers = null;
+        try {
+            router = MountRouter.open(config, rootHandler, requestMetrics);
+            engine = HttpEngine.bind(config, "docs-http");
+            workers = RequestExecutor.create(config, "docs-http");
+            HttpHandler root = router != null ? router : rootHandler;
+            AdmissionControl gate = AdmissionControl.of(config, root, requestMetrics, workers);
+            engine.createContext("/", gate != null ? gate : root);
+            engine.createContext(MetricsHandler.CONTEXT_PATH, new MetricsHandler(requestMetrics,
+                    this::getAssetCacheStats, this::getWorkerStats, this::getAdmissionStats));
+            engine.createContext(HealthHandler.CONTEXT_PATH, new HealthHandler());
+            engine.createContext(SearchHandler.CONTEXT_PATH, new SearchHandler(this::searchIndexes));
+            engine.setExecutor(gate != null ? gate : workers);
+
+            site = openedSite;
+            mounts = router;
+            handler = rootHandler;
+            admission = gate;
+            executor = workers;
+            engine.start();
+        } catch (IOException | RuntimeException e) {
+            handler = null;
+            mounts = null;
+            admission = null;
+            executor = null;
+            site = null;
+            if (engine != null) {
+                engine.stop(0);
+            }
+            if (workers != null) {
+                workers.shutdown();
+            }
+            if (router != null) {
+                router.close();
+            }
+            openedSite.close();
+            throw e;
+        }
+        httpServer = engine;
+        boundPort = engine.getAddress().getPort();
+        if (hotSet != null) {
+            hotSet.start(site);
+        }
     }
 
-    public void stop() {
+    /**
+     * Stops accepting, waits up to the configured drain deadline for
+     * in-flight requests, then closes the remaining connections.
+     *
+     * @return How many requests were in flight and how many were cut off
+     */
+    public synchronized DrainResult stop() {
+        DrainResult drain = DrainResult.IDLE;
         if (httpServer != null) {
-            httpServer.stop(0);
+            drain = httpServer.stop(config.getDrainTimeoutMillis());
             httpServer = null;
+            if (!drain.isClean()) {
+                System.err.println("DocsHttpServer: drain deadline passed, aborted " + drain.getAborted()
+                        + " of " + drain.getInFlightAtStop() + " in-flight requests");
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (hotSet != null) {
+            hotSet.stop();
         }
+        if (site != null) {
+            site.close();
+            site = null;
+        }
+        if (mounts != null) {
+            mounts.close();
+            mounts = null;
+        }
+        handler = null;
+        admission = null;
+        return drain;
+    }
+
+    /**
+     * Serves another docs directory without rebinding: the port, and with it
+     * the browser's origin and HTTP cache, stay the same.
+     *
+     * The new tree is indexed on the calling thread while requests are still
+     * answered from the current one, without holding this server's lock, so
+     * stop() and the getters are not held up by it. Requests already running
+     * finish against the old tree, which is closed after the last of them;
+     * its cache entries are dropped once the new tree is published. Roots
+     * mounted with HttpServerConfig.withMount/withHostMount are not affected.
+     *
+     * @throws IOException if the directory cannot be indexed; the current docs stay in place
+     * @throws IllegalStateException if the server is not running, or was stopped during the swap
+     */
+    public void swapRoot(String newDocsPath) throws IOException {
+        Path root = Paths.get(newDocsPath);
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Docs path is not a directory: " + root);
+        }
+        checkRunning();
+        swap(StaticSite.open(root, assetCache, config.getLargeFileThresholdBytes(),
+                new CachePolicy(config.getCacheRules())).withHtmlTransform(config), root);
+    }
+
+    /**
+     * Like swapRoot, with a docs pack (see DocsPacker) as the new content.
+     *
+     * @throws IOException if the pack cannot be opened; the current docs stay in place
+     */
+    public void swapPack(String packLocation) throws IOException {
+        checkRunning();
+        swap(StaticSite.packed(DocsPack.open(packLocation, new CachePolicy(config.getCacheRules())), assetCache)
+                .withHtmlTransform(config), docsPath);
+    }
+
+    private void checkRunning() {
+        if (handler == null) {
+            throw new IllegalStateException("Server not running");
+        }
+    }
+
+    /**
+     * Waits for the replacement's indexes outside the lock, then publishes it.
+     */
+    private void swap(StaticSite replacement, Path newDocsPath) {
+        replacement.awaitIndexed();
+        StaticSite previous;
+        synchronized (this) {
+            if (handler == null) {
+                replacement.close();
+                throw new IllegalStateException("Server stopped during the swap");
+            }
+            previous = handler.swapSite(replacement);
+            site = replacement;
+            docsPath = newDocsPath;
+        }
+        // Requests still on the old tree may refill a few entries; the LRU ages them out
+        assetCache.invalidate(previous.getRoot());
+        previous.close();
+    }
+
+    public String getDocsPath() {
+        return docsPath.toString();
     }
 
     public boolean isRunning() {
@@ -51,80 +204,73 @@ public class DocsHttpServer {
         if (!isRunning()) {
             return null;
         }
-        return "http://127.0.0.1:" + boundPort;
+        return "http://" + config.getBindAddress() + ":" + boundPort;
     }
 
     public int getBoundPort() {
         return boundPort;
     }
 
-    private static class DocsHandler implements HttpHandler {
-        private final Path docsRoot;
-
-        DocsHandler(Path docsRoot) {
-            this.docsRoot = docsRoot;
+    /**
+     * Indexes /__search answers from for a request with this Host header;
+     * follows root swaps.
+     */
+    private List<SearchIndex> searchIndexes(String host) {
+        StaticFileHandler current = handler;
+        if (current == null) {
+            return Collections.emptyList();
         }
+        SearchIndex rootIndex = current.getSite().getSearchIndex();
+        MountRouter router = mounts;
+        return router != null ? router.searchIndexes(host, rootIndex) : Collections.singletonList(rootIndex);
+    }
 
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                exchange.sendResponseHeaders(405, 0);
-                exchange.close();
-                return;
-            }
+    /**
+     * Likely next pages of a page of the docs root, as sent in its Link
+     * rel=prefetch header; follows root swaps.
+     *
+     * @param pagePath Request path of the page ("/guide/")
+     * @return URL paths, best first; empty if stopped or not a page
+     */
+    public List<String> getPrefetchUrls(String pagePath) {
+        StaticFileHandler current = handler;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        PrefetchHints prefetch = current.getSite().getPrefetchHints();
+        String page = prefetch.pageKey(pagePath, 0);
+        return page != null ? prefetch.rank(page) : Collections.<String>emptyList();
+    }
 
-            String path = exchange.getRequestURI().getPath();
-            if (path.startsWith("/")) {
-                path = path.substring(1);
-            }
+    /**
+     * @return Counters of the docs cache, plus those of mounted roots while running
+     */
+    public AssetCacheStats getAssetCacheStats() {
+        MountRouter current = mounts;
+        return current != null ? current.addCacheStats(assetCache.stats()) : assetCache.stats();
+    }
 
-            if (path.contains("..")) {
-                exchange.sendResponseHeaders(400, 0);
-                exchange.close();
-                return;
-            }
+    public RequestMetricsStats getRequestMetrics() {
+        return requestMetrics.stats();
+    }
 
-            Path filePath = docsRoot.resolve(path);
-
-            if (Files.isRegularFile(filePath)) {
-                serveFile(exchange, filePath);
-            } else {
-                Path indexPath = docsRoot.resolve("index.html");
-                if (Files.isRegularFile(indexPath)) {
-                    serveFile(exchange, indexPath);
-                } else {
-                    exchange.sendResponseHeaders(404, 0);
-                    exchange.close();
-                }
-            }
-        }
+    /**
+     * @return Admission counters, or null if admission control is off or the server is stopped
+     */
+    public AdmissionStats getAdmissionStats() {
+        AdmissionControl current = admission;
+        return current != null ? current.stats() : null;
+    }
 
-        private void serveFile(HttpExchange exchange, Path filePath) throws IOException {
-            byte[] content = Files.readAllBytes(filePath);
-            String contentType = guessContentType(filePath);
-            exchange.getResponseHeaders().set("Content-Type", contentType);
-            exchange.sendResponseHeaders(200, content.length);
-            OutputStream os = exchange.getResponseBody();
-            os.write(content);
-            os.close();
-        }
+    /**
+     * @return Progress of the hot-set warm-up after the last start(), or null without a hot set
+     */
+    public WarmupStats getWarmupStats() {
+        return hotSet != null ? hotSet.stats() : null;
+    }
 
-        private String guessContentType(Path filePath) {
-            String name = filePath.getFileName().toString().toLowerCase();
-            if (name.endsWith(".html")) return "text/html; charset=utf-8";
-            if (name.endsWith(".css")) return "text/css";
-            if (name.endsWith(".js")) return "application/javascript";
-            if (name.endsWith(".json")) return "application/json";
-            if (name.endsWith(".svg")) return "image/svg+xml";
-            if (name.endsWith(".png")) return "image/png";
-            if (name.endsWith(".jpg") || name.endsWith(".jpeg")) return "image/jpeg";
-            if (name.endsWith(".gif")) return "image/gif";
-            if (name.endsWith(".webp")) return "image/webp";
-            if (name.endsWith(".woff")) return "font/woff";
-            if (name.endsWith(".woff2")) return "font/woff2";
-            if (name.endsWith(".ttf")) return "font/ttf";
-            return "application/octet-stream";
-        }
+    public WorkerPoolStats getWorkerStats() {
+        RequestExecutor current = executor;
+        return current != null ? current.stats() : null;
     }
 }
-
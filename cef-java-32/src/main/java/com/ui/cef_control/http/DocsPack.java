@@ -0,0 +1,334 @@
+package com.ui.cef_control.http;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read side of the docs pack: a whole docs tree in one file, served from a
+ * single memory mapping with no per-request file opens or stat calls.
+ *
+ * File layout (big-endian, strings in DataOutput modified UTF-8):
+ * <pre>
+ * magic        8 bytes  "CEFPACK1"
+ * entryCount   int
+ * bodyBase     long     absolute file offset of the first body
+ * entryCount x {
+ *   path          UTF    relative, '/'-separated ("assets/js/app.3f9a1c2b.js")
+ *   contentType   UTF
+ *   etag          UTF    quoted content hash, same scheme as ContentHashIndex
+ *   lastModified  long   epoch millis of the source file
+ *   offset        long   relative to bodyBase
+ *   length        long
+ *   variantCount  byte
+ *   variantCount x { encoding UTF, offset long, length long }
+ * }
+ * bodies       concatenated identity bodies and encoded variants
+ * </pre>
+ *
+ * Packs are written by DocsPacker. A pack can be opened from a file, from
+ * an entry of a zip/jar ("docs.zip!/docs.pack") or from the classpath
+ * ("classpath:docs/docs.pack"); the latter two are extracted to the temp
+ * directory once, since compressed archive entries cannot be mapped.
+ */
+final class DocsPack implements Closeable {
+
+	static final byte[] MAGIC = "CEFPACK1".getBytes(StandardCharsets.US_ASCII);
+	static final String CLASSPATH_PREFIX = "classpath:";
+	static final String ARCHIVE_SEPARATOR = "!/";
+
+	/**
+	 * One file of the pack. Bodies are read-only slices of the mapping.
+	 */
+	static final class Entry {
+		private final String path;
+		private final String contentType;
+		private final ContentHashIndex.Validator validator;
+		private final ByteBuffer body;
+		private final Map<String, ByteBuffer> encodedVariants;
+		private final String cacheControl;
+		private final RouteClass routeClass;
+
+		Entry(String path, String contentType, ContentHashIndex.Validator validator, ByteBuffer body,
+				Map<String, ByteBuffer> encodedVariants, String cacheControl) {
+			this.path = path;
+			this.contentType = contentType;
+			this.validator = validator;
+			this.body = body;
+			this.encodedVariants = encodedVariants;
+			this.cacheControl = cacheControl;
+			this.routeClass = RouteClass.of(contentType);
+		}
+
+		String getPath() {
+			return path;
+		}
+
+		String getContentType() {
+			return contentType;
+		}
+
+		ContentHashIndex.Validator getValidator() {
+			return validator;
+		}
+
+		/**
+		 * Identity body; callers must work on a duplicate().
+		 */
+		ByteBuffer getBody() {
+			return body;
+		}
+
+		/**
+		 * Encoding -> body, empty if the entry has no precompressed variants.
+		 */
+		Map<String, ByteBuffer> getEncodedVariants() {
+			return encodedVariants;
+		}
+
+		String getCacheControl() {
+			return cacheControl;
+		}
+
+		RouteClass getRouteClass() {
+			return routeClass;
+		}
+
+		long length() {
+			return body.remaining();
+		}
+	}
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Map<String, Entry> entries;
+	// Same entries keyed as requested ("/guide/intro.html"), so serving needs no substring
+	private final Map<String, Entry> requestPaths;
+
+	private DocsPack(Path file, FileChannel channel, Map<String, Entry> entries) {
+		this.file = file;
+		this.channel = channel;
+		this.entries = entries;
+		Map<String, Entry> byRequestPath = new HashMap<>(entries.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			byRequestPath.put("/" + entry.getKey(), entry.getValue());
+		}
+		this.requestPaths = Collections.unmodifiableMap(byRequestPath);
+	}
+
+	/**
+	 * Opens a pack from a file path, "archive.zip!/entry" or "classpath:resource".
+	 *
+	 * @param location Where the pack lives
+	 * @param cachePolicy Evaluated once per entry at load time
+	 * @throws IOException if the pack cannot be found, extracted or parsed
+	 */
+	static DocsPack open(String location, CachePolicy cachePolicy) throws IOException {
+		if (location.startsWith(CLASSPATH_PREFIX)) {
+			return open(extractResource(location.substring(CLASSPATH_PREFIX.length())), cachePolicy);
+		}
+		int separator = location.indexOf(ARCHIVE_SEPARATOR);
+		if (separator > 0) {
+			return open(extractArchiveEntry(Paths.get(location.substring(0, separator)),
+					location.substring(separator + ARCHIVE_SEPARATOR.length())), cachePolicy);
+		}
+		return open(Paths.get(location), cachePolicy);
+	}
+
+	/**
+	 * Maps a pack file and parses its index.
+	 */
+	static DocsPack open(Path file, CachePolicy cachePolicy) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new DocsPack(file, channel, readIndex(file, channel, cachePolicy));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static Map<String, Entry> readIndex(Path file, FileChannel channel, CachePolicy cachePolicy)
+			throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("Not a docs pack: " + file);
+			}
+			int count = in.readInt();
+			long bodyBase = in.readLong();
+			long bodyBytes = channel.size() - bodyBase;
+			if (count < 0 || bodyBase < MAGIC.length || bodyBytes < 0) {
+				throw new IOException("Corrupt docs pack header: " + file);
+			}
+			if (bodyBytes > Integer.MAX_VALUE) {
+				throw new IOException("Docs pack bodies exceed 2 GiB and cannot be mapped: " + file);
+			}
+
+			MappedByteBuffer bodies = channel.map(FileChannel.MapMode.READ_ONLY, bodyBase, bodyBytes);
+			Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				String contentType = in.readUTF();
+				String etag = in.readUTF();
+				long lastModified = in.readLong();
+				ByteBuffer body = slice(bodies, in.readLong(), in.readLong(), file);
+
+				int variantCount = in.readUnsignedByte();
+				Map<String, ByteBuffer> variants = Collections.emptyMap();
+				if (variantCount > 0) {
+					variants = new LinkedHashMap<>();
+					for (int v = 0; v < variantCount; v++) {
+						String encoding = in.readUTF();
+						variants.put(encoding, slice(bodies, in.readLong(), in.readLong(), file));
+					}
+					variants = Collections.unmodifiableMap(variants);
+				}
+
+				ContentHashIndex.Validator validator =
+						new ContentHashIndex.Validator(etag, body.remaining(), lastModified);
+				entries.put(path, new Entry(path, contentType, validator, body, variants,
+						cachePolicy.cacheControlFor(path)));
+			}
+			return Collections.unmodifiableMap(entries);
+		}
+	}
+
+	private static ByteBuffer slice(MappedByteBuffer bodies, long offset, long length, Path file)
+			throws IOException {
+		if (offset < 0 || length < 0 || offset + length > bodies.capacity()) {
+			throw new IOException("Corrupt docs pack entry bounds in " + file);
+		}
+		ByteBuffer slice = bodies.duplicate();
+		slice.position((int) offset);
+		slice.limit((int) (offset + length));
+		return slice.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the entry for a request path without its leading '/', or null.
+	 */
+	Entry get(String path) {
+		return entries.get(path);
+	}
+
+	/**
+	 * @return Paths of all entries ("guide/intro.html")
+	 */
+	Set<String> paths() {
+		return entries.keySet();
+	}
+
+	/**
+	 * Returns the entry for a request path as sent ("/guide/intro.html"), or null.
+	 */
+	Entry resolve(String requestPath) {
+		return requestPaths.get(requestPath);
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes the channel. The mapping itself is released when it becomes
+	 * unreachable (the JDK offers no explicit unmap).
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private static Path extractResource(String resource) throws IOException {
+		String name = resource.startsWith("/") ? resource.substring(1) : resource;
+		URL url = DocsPack.class.getClassLoader().getResource(name);
+		if (url == null) {
+			throw new IOException("Docs pack not found on classpath: " + resource);
+		}
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return Paths.get(url.toURI());
+			} catch (URISyntaxException e) {
+				throw new IOException("Invalid docs pack URL: " + url, e);
+			}
+		}
+
+		URLConnection connection = url.openConnection();
+		String key = url.toString() + "|" + connection.getContentLengthLong() + "|" + connection.getLastModified();
+		try (InputStream in = connection.getInputStream()) {
+			return extract(in, key, connection.getContentLengthLong());
+		}
+	}
+
+	private static Path extractArchiveEntry(Path archive, String entry) throws IOException {
+		try (FileSystem zip = FileSystems.newFileSystem(archive, (ClassLoader) null)) {
+			Path source = zip.getPath(entry);
+			if (!Files.isRegularFile(source)) {
+				throw new IOException("Docs pack entry " + entry + " not found in " + archive);
+			}
+			long size = Files.size(source);
+			String key = archive.toAbsolutePath() + "|" + entry + "|" + size + "|"
+					+ Files.getLastModifiedTime(archive).toMillis();
+			try (InputStream in = Files.newInputStream(source)) {
+				return extract(in, key, size);
+			}
+		}
+	}
+
+	/**
+	 * Copies a pack out of an archive into the temp directory. The name is
+	 * derived from the source, so restarts reuse the extracted copy instead
+	 * of leaving one file behind per run (a mapped file cannot be deleted
+	 * on Windows while the JVM is alive).
+	 */
+	private static Path extract(InputStream in, String key, long expectedSize) throws IOException {
+		Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+		Path target = tempDir.resolve("cef-docs-" + Integer.toHexString(key.hashCode()) + ".pack");
+		if (expectedSize >= 0 && Files.isRegularFile(target) && Files.size(target) == expectedSize) {
+			return target;
+		}
+
+		Path partial = Files.createTempFile(tempDir, "cef-docs-", ".pack.tmp");
+		try {
+			Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+			try {
+				return Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// Target still mapped by another process: serve from the fresh copy
+				partial.toFile().deleteOnExit();
+				return partial;
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(partial);
+			throw e;
+		}
+	}
+}
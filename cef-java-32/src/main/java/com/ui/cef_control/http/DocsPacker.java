@@ -0,0 +1,176 @@
+package com.ui.cef_control.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes a docs tree into a single pack file (format: see DocsPack).
+ *
+ * Run as part of the docs build:
+ * <pre>
+ * java -cp cef-java.jar com.ui.cef_control.http.DocsPacker docs/.vuepress/dist docs.pack
+ * </pre>
+ *
+ * Content types, ETags and gzip/br variants are computed here, once,
+ * instead of at server start or on the request path. br/gz sidecars are
+ * stored as variants of their source file rather than as separate entries.
+ */
+public final class DocsPacker {
+
+	private DocsPacker() {
+		// Utility class, no instantiation
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: DocsPacker <docsDirectory> <outputPack>");
+			System.err.println("Example: DocsPacker docs/.vuepress/dist build/docs.pack");
+			System.exit(1);
+		}
+
+		try {
+			int count = pack(Paths.get(args[0]), Paths.get(args[1]));
+			System.out.println("[DocsPacker] Packed " + count + " files into " + args[1]);
+		} catch (Exception e) {
+			System.err.println("Packing failed: " + e.getMessage());
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Packs every regular file below root.
+	 *
+	 * The pack is written next to the output and moved into place when
+	 * complete, so a running server never sees a half-written file.
+	 *
+	 * @return Number of entries written
+	 * @throws IOException if the tree cannot be read or the pack written
+	 */
+	public static int pack(Path root, Path output) throws IOException {
+		Path normalizedRoot = root.toAbsolutePath().normalize();
+		if (!Files.isDirectory(normalizedRoot)) {
+			throw new IOException("Docs path is not a directory: " + root);
+		}
+
+		List<Path> files = listFiles(normalizedRoot);
+
+		// Index and bodies are built separately; bodies stream to a temp file
+		ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(files.size() * 128);
+		DataOutputStream index = new DataOutputStream(indexBytes);
+		Path bodies = Files.createTempFile("cef-docs-bodies-", ".tmp");
+		try {
+			long offset = 0;
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(bodies))) {
+				for (Path file : files) {
+					offset = writeEntry(normalizedRoot, file, offset, index, out);
+				}
+			}
+			index.flush();
+
+			Path absoluteOutput = output.toAbsolutePath();
+			Path partial = Files.createTempFile(absoluteOutput.getParent(), "docs-pack-", ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(partial)))) {
+					out.write(DocsPack.MAGIC);
+					out.writeInt(files.size());
+					out.writeLong(DocsPack.MAGIC.length + 4 + 8 + indexBytes.size());
+					indexBytes.writeTo(out);
+					Files.copy(bodies, out);
+				}
+				Files.move(partial, absoluteOutput, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(partial);
+			}
+		} finally {
+			Files.deleteIfExists(bodies);
+		}
+		return files.size();
+	}
+
+	/**
+	 * Appends one file (and its variants) to the body stream.
+	 *
+	 * @return Offset after the written bodies
+	 */
+	private static long writeEntry(Path root, Path file, long offset, DataOutputStream index, OutputStream out)
+			throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		String contentType = ContentTypes.guess(file);
+
+		index.writeUTF(root.relativize(file).toString().replace(File.separatorChar, '/'));
+		index.writeUTF(contentType);
+		index.writeUTF(ContentHashIndex.hash(file));
+		index.writeLong(attributes.lastModifiedTime().toMillis());
+
+		Map<String, byte[]> variants = Collections.emptyMap();
+		Map<String, Path> sidecars = Collections.emptyMap();
+		long length;
+		if (attributes.size() <= HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES) {
+			byte[] content = Files.readAllBytes(file);
+			out.write(content);
+			length = content.length;
+			variants = Compression.buildVariants(file, content, contentType);
+		} else {
+			// Large files are streamed; only build-provided sidecars become variants
+			length = Files.copy(file, out);
+			if (Compression.isCompressible(contentType)) {
+				sidecars = Compression.freshSidecars(file);
+			}
+		}
+		// Bytes actually written, in case the file changed since readAttributes
+		index.writeLong(offset);
+		index.writeLong(length);
+		offset += length;
+
+		index.writeByte(variants.size() + sidecars.size());
+		for (Map.Entry<String, byte[]> variant : variants.entrySet()) {
+			index.writeUTF(variant.getKey());
+			index.writeLong(offset);
+			index.writeLong(variant.getValue().length);
+			out.write(variant.getValue());
+			offset += variant.getValue().length;
+		}
+		for (Map.Entry<String, Path> sidecar : sidecars.entrySet()) {
+			long sidecarLength = Files.copy(sidecar.getValue(), out);
+			index.writeUTF(sidecar.getKey());
+			index.writeLong(offset);
+			index.writeLong(sidecarLength);
+			offset += sidecarLength;
+		}
+		return offset;
+	}
+
+	/**
+	 * Regular files below root in path order, without br/gz sidecars whose
+	 * source file exists (those become variants of the source).
+	 */
+	private static List<Path> listFiles(Path root) throws IOException {
+		try (Stream<Path> walk = Files.walk(root)) {
+			return walk
+					.filter(Files::isRegularFile)
+					.filter(path -> {
+						Path source = Compression.sourceOfSidecar(path);
+						return source == null || !Files.isRegularFile(source);
+					})
+					.sorted()
+					.collect(Collectors.toCollection(ArrayList::new));
+		}
+	}
+}
@@ -5,7 +5,9 @@ import java.util.List;
 import java.io.IOException;
 
 public class DocsServerManager {
-    private final String docsPath;
+    private String docsPath;
+    private String docsPack;
+    private final String hotSetFile;
     private DocsHttpServer server;
     private DocsState state;
     private final List<DocsRestartListener> listeners;
@@ -14,10 +16,28 @@ public class DocsServerManager {
         void onBeforeRestart();
         void onAfterRestart(String baseUrl);
         void onStartFailure(Throwable error);
+
+        /**
+         * New docs are being served at the unchanged base URL (see swapRoot).
+         */
+        default void onDocsSwapped(String baseUrl) {
+        }
     }
 
     public DocsServerManager(String docsPath) {
+        this(docsPath, null);
+    }
+
+    /**
+     * Like DocsServerManager(docsPath), keeping the most requested files
+     * in a hot set file so each start warms the cache from the previous
+     * runs (see HttpServerConfig.withHotSet).
+     *
+     * @param hotSetFile Hot set file, or null for none
+     */
+    public DocsServerManager(String docsPath, String hotSetFile) {
         this.docsPath = docsPath;
+        this.hotSetFile = hotSetFile;
         this.state = DocsState.STOPPED;
         this.listeners = new ArrayList<>();
     }
@@ -31,7 +51,11 @@ public class DocsServerManager {
         notifyBeforeRestart();
 
         try {
-            server = new DocsHttpServer(docsPath, 0);
+            HttpServerConfig config = new HttpServerConfig(docsPath, 0, "127.0.0.1").withJdkNoDelay(true);
+            if (docsPack != null) {
+                config = config.withDocsPack(docsPack);
+            }
+            server = new DocsHttpServer(hotSetFile != null ? config.withHotSet(hotSetFile) : config);
             server.start();
             state = DocsState.RUNNING;
             notifyAfterRestart(server.getBaseUrl());
@@ -42,14 +66,21 @@ public class DocsServerManager {
         }
     }
 
-    public synchronized void stop() {
+    /**
+     * Stops the server after draining in-flight requests (see DocsHttpServer.stop).
+     *
+     * @return How many requests were in flight and how many were cut off
+     */
+    public synchronized DrainResult stop() {
         if (state != DocsState.RUNNING) {
             throw new IllegalStateException("Server not running");
         }
+        DrainResult drain = DrainResult.IDLE;
         if (server != null) {
-            server.stop();
+            drain = server.stop();
         }
         state = DocsState.STOPPED;
+        return drain;
     }
 
     public synchronized void restart() throws IOException {
@@ -57,6 +88,53 @@ public class DocsServerManager {
         start();
     }
 
+    /**
+     * Switches the running server to another docs directory in place.
+     *
+     * Unlike restart(), the port stays bound: in-flight loads complete and
+     * CEF keeps its origin and HTTP cache. The directory is indexed before
+     * the switch, so the first requests against it are not slower. The
+     * indexing runs without this manager's lock: getState(), getBaseUrl()
+     * and stop() answer meanwhile. Later restarts serve the new directory.
+     *
+     * @throws IOException if the directory cannot be indexed; the current docs stay in place
+     */
+    public void swapRoot(String newDocsPath) throws IOException {
+        DocsHttpServer current = runningServer();
+        current.swapRoot(newDocsPath);
+        synchronized (this) {
+            if (server == current) {
+                docsPath = newDocsPath;
+                docsPack = null;
+            }
+        }
+        notifyDocsSwapped(current.getBaseUrl());
+    }
+
+    /**
+     * Like swapRoot, with a docs pack (see DocsPacker) as the new content;
+     * later restarts serve the pack.
+     *
+     * @throws IOException if the pack cannot be opened; the current docs stay in place
+     */
+    public void swapPack(String packLocation) throws IOException {
+        DocsHttpServer current = runningServer();
+        current.swapPack(packLocation);
+        synchronized (this) {
+            if (server == current) {
+                docsPack = packLocation;
+            }
+        }
+        notifyDocsSwapped(current.getBaseUrl());
+    }
+
+    private synchronized DocsHttpServer runningServer() {
+        if (state != DocsState.RUNNING) {
+            throw new IllegalStateException("Server not running");
+        }
+        return server;
+    }
+
     public synchronized DocsState getState() {
         return state;
     }
@@ -75,6 +153,14 @@ public class DocsServerManager {
         return server.getBoundPort();
     }
 
+    /**
+     * @return Progress of the hot-set warm-up after the last start(), or
+     *         null without a hot set or before the first start
+     */
+    public synchronized WarmupStats getWarmupStats() {
+        return server != null ? server.getWarmupStats() : null;
+    }
+
     public void addListener(DocsRestartListener listener) {
         if (listener != null && !listeners.contains(listener)) {
             listeners.add(listener);
@@ -107,6 +193,17 @@ public class DocsServerManager {
         }
     }
 
+    private void notifyDocsSwapped(String baseUrl) {
+        List<DocsRestartListener> snapshot = new ArrayList<>(listeners);
+        for (DocsRestartListener listener : snapshot) {
+            try {
+                listener.onDocsSwapped(baseUrl);
+            } catch (Exception e) {
+                System.err.println("Listener onDocsSwapped error: " + e);
+            }
+        }
+    }
+
     private void notifyStartFailure(Throwable error) {
         List<DocsRestartListener> snapshot = new ArrayList<>(listeners);
         for (DocsRestartListener listener : snapshot) {
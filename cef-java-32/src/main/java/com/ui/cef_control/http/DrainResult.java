@@ -0,0 +1,68 @@
+package com.ui.cef_control.http;
+
+/**
+ * Outcome of draining a server on stop().
+ *
+ * Exchanges that were running when the server stopped accepting either
+ * finished within the drain deadline (completed) or were cut off when the
+ * remaining connections were closed (aborted).
+ */
+public final class DrainResult {
+
+	/** Result of stopping a server that had nothing in flight. */
+	static final DrainResult IDLE = new DrainResult(0, 0, 0);
+
+	private final int inFlightAtStop;
+	private final int aborted;
+	private final long elapsedMillis;
+
+	DrainResult(int inFlightAtStop, int aborted, long elapsedMillis) {
+		this.inFlightAtStop = inFlightAtStop;
+		this.aborted = aborted;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Exchanges running when the server stopped accepting.
+	 */
+	public int getInFlightAtStop() {
+		return inFlightAtStop;
+	}
+
+	/**
+	 * Exchanges that finished before the deadline.
+	 */
+	public int getCompleted() {
+		return Math.max(0, inFlightAtStop - aborted);
+	}
+
+	/**
+	 * Exchanges still running at the deadline; their connections were closed.
+	 */
+	public int getAborted() {
+		return aborted;
+	}
+
+	/**
+	 * Time spent waiting for in-flight exchanges.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return true if nothing was cut off
+	 */
+	public boolean isClean() {
+		return aborted == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "DrainResult{" +
+				"inFlightAtStop=" + inFlightAtStop +
+				", aborted=" + aborted +
+				", elapsedMillis=" + elapsedMillis +
+				'}';
+	}
+}
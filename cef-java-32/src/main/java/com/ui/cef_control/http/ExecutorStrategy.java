@@ -0,0 +1,19 @@
+package com.ui.cef_control.http;
+
+/**
+ * Thread model used to run HTTP exchanges.
+ *
+ * DISPATCHER_THREAD: every request runs on the JDK server's single dispatcher
+ *   thread (one slow read stalls all other requests). On the NIO backend
+ *   this is the selector thread.
+ * BOUNDED_POOL: fixed number of worker threads with a bounded wait queue;
+ *   when the queue is full the dispatcher runs the request itself, which
+ *   slows down accepting instead of dropping connections.
+ * VIRTUAL_THREADS: one virtual thread per request (JDK 21+); falls back to
+ *   BOUNDED_POOL on older runtimes.
+ */
+public enum ExecutorStrategy {
+	DISPATCHER_THREAD,
+	BOUNDED_POOL,
+	VIRTUAL_THREADS
+}
@@ -0,0 +1,85 @@
+package com.ui.cef_control.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams file regions to a response without loading them onto the heap.
+ *
+ * Uses FileChannel.transferTo in fixed-size chunks. The JDK moves the
+ * bytes through a small reusable per-thread buffer (or the kernel, when
+ * the target is a socket channel), so memory per request stays constant
+ * regardless of file size.
+ *
+ * Memory-mapped bodies (docs pack) are written the same way, from a
+ * duplicate of the mapping so the shared buffer's position is untouched.
+ */
+final class FileTransfer {
+
+	/** Upper bound for a single transferTo call. */
+	static final int TRANSFER_CHUNK_BYTES = 256 * 1024;
+
+	private FileTransfer() {
+		// Utility class, no instantiation
+	}
+
+	/**
+	 * Copies count bytes starting at position from the file to out.
+	 * The stream is not closed.
+	 *
+	 * @throws EOFException if the file shrank while it was being sent
+	 */
+	static void transfer(Path file, long position, long count, OutputStream out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			transfer(channel, position, count, asChannel(out));
+		}
+	}
+
+	/**
+	 * Copies count bytes starting at position from the channel to target.
+	 * Reads are positional; the channel's own position is not changed.
+	 *
+	 * @throws EOFException if the file shrank while it was being sent
+	 */
+	static void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+		long offset = position;
+		long remaining = count;
+		while (remaining > 0) {
+			long sent = channel.transferTo(offset, Math.min(remaining, TRANSFER_CHUNK_BYTES), target);
+			if (sent <= 0) {
+				throw new EOFException("File truncated during transfer at offset " + offset);
+			}
+			offset += sent;
+			remaining -= sent;
+		}
+	}
+
+	/**
+	 * Copies count bytes starting at offset of a (mapped) buffer to out.
+	 * The buffer itself is not modified; the stream is not closed.
+	 */
+	static void write(ByteBuffer buffer, long offset, long count, OutputStream out) throws IOException {
+		ByteBuffer region = buffer.duplicate();
+		region.position((int) offset);
+		region.limit((int) (offset + count));
+		WritableByteChannel target = asChannel(out);
+		while (region.hasRemaining()) {
+			target.write(region);
+		}
+	}
+
+	/**
+	 * Streams that are channels themselves (the NIO engine's response body)
+	 * take ByteBuffers directly; others are wrapped, copying via byte[].
+	 */
+	private static WritableByteChannel asChannel(OutputStream out) {
+		return out instanceof WritableByteChannel ? (WritableByteChannel) out : Channels.newChannel(out);
+	}
+}
@@ -0,0 +1,43 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serves the reserved /__health context probed by HttpServerSupervisor.
+ *
+ * Answers "ok" without touching the docs, so its latency is that of the
+ * engine and executor alone: a slow answer means queued or stuck
+ * workers, not a slow file. Never answered with 503 by admission control
+ * (it waits in its queue like any request) and not recorded in the
+ * request metrics.
+ */
+class HealthHandler implements HttpHandler {
+
+	static final String CONTEXT_PATH = "/__health";
+
+	private static final byte[] BODY = {'o', 'k', '\n'};
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		if (!"GET".equals(method) && !"HEAD".equals(method)) {
+			exchange.sendResponseHeaders(405, -1); // 405 Method Not Allowed
+			exchange.close();
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		if ("HEAD".equals(method)) {
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(200, BODY.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(BODY);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.ui.cef_control.http;
+
+/**
+ * Settings of the active health prober of HttpServerSupervisor.
+ *
+ * The prober sends GET /__health over a fresh loopback connection every
+ * interval. A probe fails if it does not complete within the timeout,
+ * cannot connect or gets a non-2xx status.
+ *
+ * Detection latency:
+ * - Unresponsive: at most failureThreshold * interval + timeout after
+ *   the server stops answering (see getDetectionBoundMillis)
+ * - SLO breach: the quantile is taken over the last windowProbes
+ *   successful probes, so a slowdown shows after enough of the window
+ *   has turned slow (at most windowProbes * interval)
+ *
+ * Immutable; with*() methods return a modified copy.
+ */
+public final class HealthProbeConfig {
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+	public static final long DEFAULT_TIMEOUT_MILLIS = 500;
+	public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+	public static final int DEFAULT_WINDOW_PROBES = 30;
+
+	private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+	private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+	private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+	private long sloLatencyMillis = 0;
+	private double sloQuantile = 0.99;
+	private int windowProbes = DEFAULT_WINDOW_PROBES;
+	private boolean restartOnUnresponsive = false;
+
+	/**
+	 * Probes every second with a 500 ms timeout, reports the server
+	 * unresponsive after 3 failed probes, no latency SLO, no restarts.
+	 */
+	public HealthProbeConfig() {
+	}
+
+	private HealthProbeConfig(HealthProbeConfig other) {
+		this.intervalMillis = other.intervalMillis;
+		this.timeoutMillis = other.timeoutMillis;
+		this.failureThreshold = other.failureThreshold;
+		this.sloLatencyMillis = other.sloLatencyMillis;
+		this.sloQuantile = other.sloQuantile;
+		this.windowProbes = other.windowProbes;
+		this.restartOnUnresponsive = other.restartOnUnresponsive;
+	}
+
+	/**
+	 * Returns a copy with a different probe schedule.
+	 *
+	 * @param intervalMillis Time between probe starts
+	 * @param timeoutMillis Deadline of one probe (connect and first response line),
+	 *                      at most the interval so probes never overlap
+	 */
+	public HealthProbeConfig withSchedule(long intervalMillis, long timeoutMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("intervalMillis must be > 0, got: " + intervalMillis);
+		}
+		if (timeoutMillis <= 0 || timeoutMillis > intervalMillis) {
+			throw new IllegalArgumentException("timeoutMillis must be 1-" + intervalMillis + ", got: " + timeoutMillis);
+		}
+		HealthProbeConfig copy = new HealthProbeConfig(this);
+		copy.intervalMillis = intervalMillis;
+		copy.timeoutMillis = timeoutMillis;
+		return copy;
+	}
+
+	/**
+	 * Returns a copy with a different number of consecutive failed probes
+	 * after which the server is reported unresponsive.
+	 */
+	public HealthProbeConfig withFailureThreshold(int failures) {
+		if (failures < 1) {
+			throw new IllegalArgumentException("failureThreshold must be >= 1, got: " + failures);
+		}
+		HealthProbeConfig copy = new HealthProbeConfig(this);
+		copy.failureThreshold = failures;
+		return copy;
+	}
+
+	/**
+	 * Returns a copy with a latency SLO: the server is reported degraded
+	 * while the given quantile of the last windowProbes probe latencies is
+	 * above the target, and recovered once it is back under it.
+	 *
+	 * @param targetMillis Latency target (0 = no SLO)
+	 * @param quantile Quantile compared against the target, e.g. 0.99
+	 * @param windowProbes Successful probes the quantile is taken over
+	 */
+	public HealthProbeConfig withLatencySlo(long targetMillis, double quantile, int windowProbes) {
+		if (targetMillis < 0) {
+			throw new IllegalArgumentException("targetMillis must be >= 0, got: " + targetMillis);
+		}
+		if (!(quantile > 0 && quantile <= 1)) {
+			throw new IllegalArgumentException("quantile must be in (0, 1], got: " + quantile);
+		}
+		if (windowProbes < 1) {
+			throw new IllegalArgumentException("windowProbes must be >= 1, got: " + windowProbes);
+		}
+		HealthProbeConfig copy = new HealthProbeConfig(this);
+		copy.sloLatencyMillis = targetMillis;
+		copy.sloQuantile = quantile;
+		copy.windowProbes = windowProbes;
+		return copy;
+	}
+
+	/**
+	 * Returns a copy that restarts the server (stop with drain, then start
+	 * with the supervisor's retry policy) each time it is found unresponsive.
+	 */
+	public HealthProbeConfig withRestartOnUnresponsive(boolean restart) {
+		HealthProbeConfig copy = new HealthProbeConfig(this);
+		copy.restartOnUnresponsive = restart;
+		return copy;
+	}
+
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	/**
+	 * @return Latency target, or 0 if no SLO is monitored
+	 */
+	public long getSloLatencyMillis() {
+		return sloLatencyMillis;
+	}
+
+	public double getSloQuantile() {
+		return sloQuantile;
+	}
+
+	public int getWindowProbes() {
+		return windowProbes;
+	}
+
+	public boolean isRestartOnUnresponsive() {
+		return restartOnUnresponsive;
+	}
+
+	/**
+	 * @return Longest time from the server stopping to answer until it is
+	 *         reported unresponsive
+	 */
+	public long getDetectionBoundMillis() {
+		return failureThreshold * intervalMillis + timeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "HealthProbeConfig{" +
+				"intervalMillis=" + intervalMillis +
+				", timeoutMillis=" + timeoutMillis +
+				", failureThreshold=" + failureThreshold +
+				", sloLatencyMillis=" + sloLatencyMillis +
+				", sloQuantile=" + sloQuantile +
+				", windowProbes=" + windowProbes +
+				", restartOnUnresponsive=" + restartOnUnresponsive +
+				'}';
+	}
+}
@@ -0,0 +1,250 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Probes a server's /__health context on a schedule (see HealthProbeConfig)
+ * and tracks its HealthState.
+ *
+ * Each probe opens a new loopback connection, so a stuck acceptor or
+ * dispatcher is caught as well as busy workers. Latencies of successful
+ * probes go into a LatencyHistogram (all probes) and a ring of the last
+ * windowProbes (SLO quantile). The callback hears about state changes
+ * only, not about every probe.
+ *
+ * Runs on one daemon thread; all state below is confined to it.
+ */
+final class HealthProber {
+
+	/**
+	 * Called on the probe thread.
+	 */
+	interface Callback {
+		void stateChanged(HealthState previous, HealthState current, HealthStats stats);
+
+		/**
+		 * The failure threshold was reached and restarts are enabled. The
+		 * restart runs elsewhere; probing goes on and follows the server to
+		 * its new address once it is up.
+		 *
+		 * @return true if a restart was started, false if one is already
+		 *         pending or the server is being stopped
+		 */
+		boolean restartRequested(HealthStats stats);
+	}
+
+	private static final String REQUEST_LINE = "GET " + HealthHandler.CONTEXT_PATH + " HTTP/1.1\r\n";
+
+	private final HealthProbeConfig config;
+	private final Supplier<InetSocketAddress> address;
+	private final Callback callback;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final long[] window;
+	private int windowSize;
+	private int windowNext;
+	private ScheduledExecutorService scheduler;
+	private volatile boolean stopped;
+
+	// Published to other threads through stats()
+	private volatile HealthState state = HealthState.UNKNOWN;
+	private volatile long probes;
+	private volatile long failures;
+	private volatile int consecutiveFailures;
+	private volatile long restarts;
+	private volatile long lastLatencyNanos;
+	private volatile long windowQuantileNanos;
+
+	/**
+	 * @param address Supplies the server's bound address, or null while it is down
+	 */
+	HealthProber(HealthProbeConfig config, Supplier<InetSocketAddress> address, Callback callback) {
+		this.config = config;
+		this.address = address;
+		this.callback = callback;
+		this.window = new long[config.getWindowProbes()];
+	}
+
+	synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "http-health-probe");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(this::probe, config.getIntervalMillis(), config.getIntervalMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops probing. Does not wait for a probe or restart in progress.
+	 */
+	synchronized void stop() {
+		stopped = true;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	HealthStats stats() {
+		LatencyHistogram.Snapshot snapshot = latency.snapshot();
+		return new HealthStats(state, probes, failures, consecutiveFailures, restarts,
+				toMicros(lastLatencyNanos), toMicros(windowQuantileNanos), toMicros(snapshot.percentile(0.50)),
+				toMicros(snapshot.percentile(0.99)), toMicros(snapshot.getMax()));
+	}
+
+	/**
+	 * One scheduled probe; exceptions must not escape, or the schedule ends.
+	 */
+	void probe() {
+		if (stopped) {
+			return;
+		}
+		InetSocketAddress target = address.get();
+		long nanos = -1;
+		if (target != null) {
+			try {
+				nanos = probeOnce(target, config.getTimeoutMillis());
+			} catch (IOException e) {
+				nanos = -1;
+			}
+		}
+		if (stopped) {
+			return;
+		}
+		try {
+			if (nanos >= 0) {
+				onSuccess(nanos);
+			} else {
+				onFailure();
+			}
+		} catch (RuntimeException e) {
+			System.err.println("HealthProber: " + e);
+		}
+	}
+
+	private void onSuccess(long nanos) {
+		probes++;
+		consecutiveFailures = 0;
+		lastLatencyNanos = nanos;
+		latency.record(nanos);
+		window[windowNext] = nanos;
+		windowNext = (windowNext + 1) % window.length;
+		windowSize = Math.min(windowSize + 1, window.length);
+
+		long targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getSloLatencyMillis());
+		boolean breached = false;
+		if (windowSize == window.length) {
+			windowQuantileNanos = windowQuantile();
+			breached = targetNanos > 0 && windowQuantileNanos > targetNanos;
+		}
+		transition(breached ? HealthState.DEGRADED : HealthState.HEALTHY);
+	}
+
+	private void onFailure() {
+		probes++;
+		failures++;
+		consecutiveFailures++;
+		if (consecutiveFailures < config.getFailureThreshold()) {
+			return;
+		}
+		transition(HealthState.UNRESPONSIVE);
+		if (config.isRestartOnUnresponsive() && callback.restartRequested(stats())) {
+			restarts++;
+			// The new server starts with a clean slate; one more threshold of failures restarts again
+			consecutiveFailures = 0;
+			windowSize = 0;
+			windowNext = 0;
+			windowQuantileNanos = 0;
+		}
+	}
+
+	private void transition(HealthState next) {
+		HealthState previous = state;
+		if (previous == next) {
+			return;
+		}
+		state = next;
+		callback.stateChanged(previous, next, stats());
+	}
+
+	private long windowQuantile() {
+		long[] sorted = Arrays.copyOf(window, windowSize);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(config.getSloQuantile() * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Sends one GET /__health and reads the status line.
+	 *
+	 * @return Latency in nanoseconds
+	 * @throws IOException if the probe timed out, could not connect or got a non-2xx status
+	 */
+	static long probeOnce(InetSocketAddress target, long timeoutMillis) throws IOException {
+		InetSocketAddress connectTo = target.getAddress() != null && target.getAddress().isAnyLocalAddress()
+				? new InetSocketAddress(InetAddress.getLoopbackAddress(), target.getPort())
+				: target;
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		try (Socket socket = new Socket()) {
+			socket.setTcpNoDelay(true);
+			socket.connect(connectTo, (int) timeoutMillis);
+			socket.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+			OutputStream out = socket.getOutputStream();
+			out.write((REQUEST_LINE
+					+ "Host: " + connectTo.getHostString() + ":" + connectTo.getPort() + "\r\n"
+					+ "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			out.flush();
+
+			String statusLine = readLine(socket.getInputStream(), deadline);
+			long elapsed = System.nanoTime() - start;
+			// "HTTP/1.1 200 OK"
+			if (statusLine.length() < 12 || !statusLine.startsWith("HTTP/") || statusLine.charAt(9) != '2') {
+				throw new IOException("Unhealthy response: " + statusLine);
+			}
+			if (System.nanoTime() > deadline) {
+				throw new IOException("Probe exceeded " + timeoutMillis + " ms");
+			}
+			return elapsed;
+		}
+	}
+
+	private static String readLine(InputStream in, long deadline) throws IOException {
+		StringBuilder line = new StringBuilder(32);
+		while (line.length() < 256) {
+			if (System.nanoTime() > deadline) {
+				throw new IOException("Probe deadline passed");
+			}
+			int b = in.read();
+			if (b < 0 || b == '\n') {
+				break;
+			}
+			if (b != '\r') {
+				line.append((char) b);
+			}
+		}
+		return line.toString();
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
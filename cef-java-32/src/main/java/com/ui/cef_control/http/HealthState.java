@@ -0,0 +1,15 @@
+package com.ui.cef_control.http;
+
+/**
+ * Health of a supervised server as seen by its prober.
+ */
+public enum HealthState {
+	/** No probe has completed yet. */
+	UNKNOWN,
+	/** Probes succeed within the latency SLO. */
+	HEALTHY,
+	/** Probes succeed, but the windowed latency quantile is above the SLO. */
+	DEGRADED,
+	/** The configured number of consecutive probes failed or timed out. */
+	UNRESPONSIVE
+}
@@ -0,0 +1,101 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time snapshot of the health prober of an HttpServerSupervisor.
+ *
+ * Latency figures are from successful probes: the percentiles over all
+ * probes since the supervisor started, the SLO quantile over the recent
+ * window only (0 until the window has filled).
+ */
+public final class HealthStats {
+
+	private final HealthState state;
+	private final long probes;
+	private final long failures;
+	private final int consecutiveFailures;
+	private final long restarts;
+	private final long lastLatencyMicros;
+	private final long windowQuantileMicros;
+	private final long p50Micros;
+	private final long p99Micros;
+	private final long maxMicros;
+
+	HealthStats(HealthState state, long probes, long failures, int consecutiveFailures, long restarts,
+			long lastLatencyMicros, long windowQuantileMicros, long p50Micros, long p99Micros, long maxMicros) {
+		this.state = state;
+		this.probes = probes;
+		this.failures = failures;
+		this.consecutiveFailures = consecutiveFailures;
+		this.restarts = restarts;
+		this.lastLatencyMicros = lastLatencyMicros;
+		this.windowQuantileMicros = windowQuantileMicros;
+		this.p50Micros = p50Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+	}
+
+	public HealthState getState() {
+		return state;
+	}
+
+	public long getProbes() {
+		return probes;
+	}
+
+	/**
+	 * @return Probes that timed out, could not connect or got a non-2xx status
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * @return Restarts triggered by the prober (see HealthProbeConfig.withRestartOnUnresponsive)
+	 */
+	public long getRestarts() {
+		return restarts;
+	}
+
+	public long getLastLatencyMicros() {
+		return lastLatencyMicros;
+	}
+
+	/**
+	 * @return SLO quantile of the recent probe window, compared against the target
+	 */
+	public long getWindowQuantileMicros() {
+		return windowQuantileMicros;
+	}
+
+	public long getP50Micros() {
+		return p50Micros;
+	}
+
+	public long getP99Micros() {
+		return p99Micros;
+	}
+
+	public long getMaxMicros() {
+		return maxMicros;
+	}
+
+	@Override
+	public String toString() {
+		return "HealthStats{" +
+				"state=" + state +
+				", probes=" + probes +
+				", failures=" + failures +
+				", consecutiveFailures=" + consecutiveFailures +
+				", restarts=" + restarts +
+				", lastLatencyMicros=" + lastLatencyMicros +
+				", windowQuantileMicros=" + windowQuantileMicros +
+				", p50Micros=" + p50Micros +
+				", p99Micros=" + p99Micros +
+				", maxMicros=" + maxMicros +
+				'}';
+	}
+}
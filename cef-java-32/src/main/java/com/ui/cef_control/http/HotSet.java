@@ -0,0 +1,356 @@
+package com.ui.cef_control.http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The most requested files of a server's root, kept across restarts so a
+ * restarted server does not answer its first requests from a cold cache.
+ *
+ * - Counting: StaticFileHandler records the file every root request is
+ *   served from (relative path, so no allocation for known paths);
+ *   at most MAX_TRACKED paths are counted
+ * - Persisting: the top MAX_PERSISTED paths with their counts are written
+ *   to a small text file every SAVE_INTERVAL_MILLIS and on stop(),
+ *   replaced atomically so a crash leaves the previous version
+ * - Warming: start() reads the file and, on a background thread, loads
+ *   the listed files into the asset cache (a docs pack's pages are
+ *   touched instead) in count order, until the byte or time budget of
+ *   HttpServerConfig.withHotSetWarmup is used up
+ *
+ * Persisted counts are halved when read, so paths that stop being
+ * requested drop out after a few restarts.
+ *
+ * File format, one path per line after a header: {@code <count> <path>}.
+ */
+final class HotSet {
+
+	static final int MAX_TRACKED = 4096;
+	static final int MAX_PERSISTED = 512;
+	static final long SAVE_INTERVAL_MILLIS = 60_000;
+	private static final String HEADER = "# hot set v1";
+	private static final int PAGE_BYTES = 4096;
+
+	/**
+	 * One persisted path.
+	 */
+	static final class Entry {
+		private final String path;
+		private final long count;
+
+		Entry(String path, long count) {
+			this.path = path;
+			this.count = count;
+		}
+
+		String getPath() {
+			return path;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	private final Path file;
+	private final long byteBudget;
+	private final long timeBudgetMillis;
+	private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+	private ScheduledExecutorService scheduler;
+	private volatile boolean stopped;
+	private boolean seeded;
+	// Keeps the reads that fault in pack pages from being optimized away
+	private volatile byte pageSink;
+
+	// Warm-up progress, written by the warm-up thread only
+	private volatile int listed;
+	private volatile int warmed;
+	private volatile long warmedBytes;
+	private volatile long elapsedMillis;
+	private volatile boolean finished;
+	private volatile boolean budgetExhausted;
+
+	/**
+	 * @param file Where the hot set is kept (created on the first save)
+	 * @param byteBudget Most bytes to load during warm-up
+	 * @param timeBudgetMillis Longest the warm-up may run
+	 */
+	HotSet(Path file, long byteBudget, long timeBudgetMillis) {
+		this.file = file;
+		this.byteBudget = byteBudget;
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	/**
+	 * @return Hot set of the config, or null if none is configured
+	 */
+	static HotSet of(HttpServerConfig config) {
+		if (config.getHotSetFile() == null) {
+			return null;
+		}
+		return new HotSet(Paths.get(config.getHotSetFile()), config.getHotSetWarmupBytes(),
+				config.getHotSetWarmupMillis());
+	}
+
+	/**
+	 * Counts one request served from a file of the root.
+	 *
+	 * @param path Path relative to the root ("assets/app.js")
+	 */
+	void record(String path) {
+		LongAdder count = counts.get(path);
+		if (count == null) {
+			if (counts.size() >= MAX_TRACKED) {
+				return;
+			}
+			count = counts.computeIfAbsent(path, key -> new LongAdder());
+		}
+		count.increment();
+	}
+
+	/**
+	 * Reads the persisted hot set, warms the site's cache from it in the
+	 * background and starts the periodic save.
+	 */
+	synchronized void start(StaticSite site) {
+		if (scheduler != null) {
+			return;
+		}
+		stopped = false;
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "http-hot-set");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.execute(() -> {
+			List<Entry> entries;
+			try {
+				entries = load(file);
+			} catch (IOException e) {
+				System.err.println("HotSet: cannot read " + file + ": " + e);
+				entries = new ArrayList<>();
+			}
+			seed(entries);
+			if (site.retain()) {
+				try {
+					warm(site, entries);
+				} finally {
+					site.release(); // A swap may have replaced the site meanwhile
+				}
+			}
+		});
+		scheduler.scheduleWithFixedDelay(this::saveQuietly, SAVE_INTERVAL_MILLIS, SAVE_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Adds the persisted counts, halved, once per instance: a restart of
+	 * the same server keeps counting where it was.
+	 */
+	private synchronized void seed(List<Entry> entries) {
+		if (seeded) {
+			return;
+		}
+		seeded = true;
+		for (Entry entry : entries) {
+			counts.computeIfAbsent(entry.getPath(), key -> new LongAdder()).add(Math.max(1, entry.getCount() / 2));
+		}
+	}
+
+	/**
+	 * Ends a running warm-up, stops the periodic save and saves once more.
+	 */
+	synchronized void stop() {
+		stopped = true;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			try {
+				scheduler.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			scheduler = null;
+		}
+		saveQuietly();
+	}
+
+	WarmupStats stats() {
+		return new WarmupStats(listed, warmed, warmedBytes, elapsedMillis, finished, budgetExhausted);
+	}
+
+	/**
+	 * Loads the listed files in order until a budget runs out or stop() is
+	 * called. Missing files, and files too large to be cached, are skipped.
+	 */
+	void warm(StaticSite site, List<Entry> entries) {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+		listed = entries.size();
+		warmed = 0;
+		warmedBytes = 0;
+		finished = false;
+		budgetExhausted = false;
+		long bytes = 0;
+		int done = 0;
+		try {
+			for (Entry entry : entries) {
+				if (stopped || Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				if (System.nanoTime() - deadline > 0) {
+					budgetExhausted = true;
+					return;
+				}
+				long size = warmOne(site, entry.getPath(), byteBudget - bytes);
+				if (size < 0) {
+					continue;
+				}
+				bytes += size;
+				done++;
+				warmed = done;
+				warmedBytes = bytes;
+				elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+				if (bytes >= byteBudget) {
+					budgetExhausted = true;
+					return;
+				}
+			}
+		} finally {
+			elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			finished = true;
+		}
+	}
+
+	/**
+	 * @param remaining Bytes left in the budget
+	 * @return Bytes brought into memory, or -1 if the file was skipped
+	 */
+	private long warmOne(StaticSite site, String path, long remaining) {
+		DocsPack pack = site.getPack();
+		if (pack != null) {
+			DocsPack.Entry entry = pack.get(path);
+			if (entry == null || entry.length() > remaining) {
+				return -1;
+			}
+			ByteBuffer body = entry.getBody();
+			byte touched = 0;
+			for (int i = body.position(); i < body.limit(); i += PAGE_BYTES) {
+				touched ^= body.get(i); // Faults the page of the mapping in
+			}
+			pageSink = touched;
+			return entry.length();
+		}
+		PathIndex.Entry entry = site.lookup(path);
+		if (entry == null || entry.getSize() > site.getLargeFileThreshold() || entry.getSize() > remaining) {
+			return -1;
+		}
+		try {
+			site.getCache().get(entry.getFile());
+			site.getHashIndex().get(entry.getFile(), entry.getSize(), entry.getLastModifiedMillis());
+		} catch (IOException e) {
+			return -1;
+		}
+		return entry.getSize();
+	}
+
+	private void saveQuietly() {
+		try {
+			save();
+		} catch (IOException e) {
+			System.err.println("HotSet: cannot write " + file + ": " + e);
+		}
+	}
+
+	/**
+	 * Writes the top MAX_PERSISTED paths, most requested first.
+	 */
+	void save() throws IOException {
+		List<Entry> top = top(MAX_PERSISTED);
+		if (top.isEmpty()) {
+			return;
+		}
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (Entry entry : top) {
+				writer.write(entry.getCount() + " " + entry.getPath());
+				writer.newLine();
+			}
+		}
+		try {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * @return Up to limit counted paths, most requested first
+	 */
+	List<Entry> top(int limit) {
+		List<Entry> entries = new ArrayList<>(counts.size());
+		for (Map.Entry<String, LongAdder> count : counts.entrySet()) {
+			entries.add(new Entry(count.getKey(), count.getValue().sum()));
+		}
+		entries.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+		return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+	}
+
+	/**
+	 * Reads a hot set file. Lines that do not parse are skipped.
+	 *
+	 * @return Entries in file order (most requested first), empty if there is no file
+	 */
+	static List<Entry> load(Path file) throws IOException {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return new ArrayList<>();
+		}
+		List<Entry> entries = new ArrayList<>();
+		for (String line : lines) {
+			int space = line.indexOf(' ');
+			if (line.startsWith("#") || space <= 0 || space == line.length() - 1) {
+				continue;
+			}
+			String path = line.substring(space + 1);
+			if (path.startsWith("/") || path.contains("..")) {
+				continue; // Only paths below the root
+			}
+			try {
+				long count = Long.parseLong(line.substring(0, space));
+				if (count > 0) {
+					entries.add(new Entry(path, count));
+				}
+			} catch (NumberFormatException e) {
+				// Not a hot set line
+			}
+			if (entries.size() == MAX_PERSISTED) {
+				break;
+			}
+		}
+		return entries;
+	}
+}
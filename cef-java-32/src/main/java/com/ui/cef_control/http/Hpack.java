@@ -0,0 +1,473 @@
+package com.ui.cef_control.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HPACK header compression for the h2c mode (RFC 7541).
+ *
+ * The decoder implements the whole spec: static and dynamic table,
+ * Huffman-coded strings, table size updates. The encoder indexes fields
+ * found in either table, adds repeating response fields (content-type,
+ * cache-control, ...) to its dynamic table, and Huffman-codes a string
+ * when that is shorter. Header fields are {name, value} pairs with
+ * lower-case names.
+ */
+final class Hpack {
+
+	static final int DEFAULT_TABLE_SIZE = 4096;
+
+	/** RFC 7541 Appendix A, index 1..61. */
+	private static final String[][] STATIC_TABLE = {
+			{":authority", ""}, {":method", "GET"}, {":method", "POST"}, {":path", "/"},
+			{":path", "/index.html"}, {":scheme", "http"}, {":scheme", "https"}, {":status", "200"},
+			{":status", "204"}, {":status", "206"}, {":status", "304"}, {":status", "400"},
+			{":status", "404"}, {":status", "500"}, {"accept-charset", ""}, {"accept-encoding", "gzip, deflate"},
+			{"accept-language", ""}, {"accept-ranges", ""}, {"accept", ""}, {"access-control-allow-origin", ""},
+			{"age", ""}, {"allow", ""}, {"authorization", ""}, {"cache-control", ""},
+			{"content-disposition", ""}, {"content-encoding", ""}, {"content-language", ""}, {"content-length", ""},
+			{"content-location", ""}, {"content-range", ""}, {"content-type", ""}, {"cookie", ""},
+			{"date", ""}, {"etag", ""}, {"expect", ""}, {"expires", ""},
+			{"from", ""}, {"host", ""}, {"if-match", ""}, {"if-modified-since", ""},
+			{"if-none-match", ""}, {"if-range", ""}, {"if-unmodified-since", ""}, {"last-modified", ""},
+			{"link", ""}, {"location", ""}, {"max-forwards", ""}, {"proxy-authenticate", ""},
+			{"proxy-authorization", ""}, {"range", ""}, {"referer", ""}, {"refresh", ""},
+			{"retry-after", ""}, {"server", ""}, {"set-cookie", ""}, {"strict-transport-security", ""},
+			{"transfer-encoding", ""}, {"user-agent", ""}, {"vary", ""}, {"via", ""},
+			{"www-authenticate", ""}
+	};
+
+	/** RFC 7541 Appendix B: Huffman code of each octet, index 256 is EOS. */
+	private static final int[] HUFFMAN_CODES = {
+			0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7,
+			0xfffffe8, 0xffffea, 0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec,
+			0xfffffed, 0xfffffee, 0xfffffef, 0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3,
+			0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7, 0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb,
+			0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa,
+			0x3fa, 0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18,
+			0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d,
+			0x1e, 0x1f, 0x5c, 0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc,
+			0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62,
+			0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a,
+			0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72,
+			0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0, 0x1ffc, 0x3ffc, 0x22,
+			0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26,
+			0x27, 0x6, 0x74, 0x75, 0x28, 0x29, 0x2a, 0x7,
+			0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78,
+			0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd, 0xffffffc,
+			0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9,
+			0x3fffd6, 0x7fffda, 0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf,
+			0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0, 0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3,
+			0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6, 0x7fffe7, 0xffffef,
+			0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+			0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec,
+			0x1fffe0, 0x1fffe1, 0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef,
+			0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4, 0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1,
+			0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2, 0x3fffe8, 0x1ffffec,
+			0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+			0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2,
+			0x1fffe4, 0x1fffe5, 0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5,
+			0xfffec, 0xfffff3, 0xfffed, 0x1fffe6, 0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3,
+			0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5, 0x3ffffea, 0x7ffff4,
+			0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9, 0x7ffffea,
+			0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee,
+			0x3fffffff,
+	};
+
+	private static final byte[] HUFFMAN_LENGTHS = {
+			13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+			28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+			6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+			5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+			13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+			7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+			15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+			6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+			20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+			24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+			22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+			21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+			26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+			19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+			20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+			26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+			30,
+	};
+
+	private static final int EOS = 256;
+
+	/** Decoding tree: child node per bit, symbol per node (-1 for inner nodes). */
+	private static final int[] TREE_ZERO = new int[2 * HUFFMAN_CODES.length];
+	private static final int[] TREE_ONE = new int[2 * HUFFMAN_CODES.length];
+	private static final int[] TREE_SYMBOL = new int[2 * HUFFMAN_CODES.length];
+
+	private static final Map<String, Integer> STATIC_EXACT = new HashMap<>();
+	private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+
+	/** Response fields whose values rarely repeat; indexing them would only evict useful entries. */
+	private static final Set<String> NOT_INDEXED = new HashSet<>(Arrays.asList(
+			"content-length", "content-range", "date", "etag", "last-modified", "location", "set-cookie"));
+
+	static {
+		Arrays.fill(TREE_SYMBOL, -1);
+		int nodes = 1;
+		for (int symbol = 0; symbol < HUFFMAN_CODES.length; symbol++) {
+			int node = 0;
+			for (int bit = HUFFMAN_LENGTHS[symbol] - 1; bit >= 0; bit--) {
+				int[] next = ((HUFFMAN_CODES[symbol] >>> bit) & 1) != 0 ? TREE_ONE : TREE_ZERO;
+				if (next[node] == 0) {
+					next[node] = nodes++;
+				}
+				node = next[node];
+			}
+			TREE_SYMBOL[node] = symbol;
+		}
+
+		for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+			STATIC_EXACT.put(STATIC_TABLE[i][0] + '\0' + STATIC_TABLE[i][1], i + 1);
+			STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+		}
+	}
+
+	private Hpack() {
+		// Holder for Encoder and Decoder
+	}
+
+	/**
+	 * Decodes header blocks of one connection (the dynamic table spans blocks).
+	 * Not thread-safe; used by the selector thread only.
+	 */
+	static final class Decoder {
+		private final DynamicTable table;
+		private final int maxTableSize;
+
+		/**
+		 * @param maxTableSize Table size announced in our SETTINGS_HEADER_TABLE_SIZE
+		 */
+		Decoder(int maxTableSize) {
+			this.table = new DynamicTable(maxTableSize);
+			this.maxTableSize = maxTableSize;
+		}
+
+		/**
+		 * @return Fields in block order
+		 * @throws IOException if the block is malformed (a COMPRESSION_ERROR)
+		 */
+		List<String[]> decode(ByteBuffer block) throws IOException {
+			List<String[]> fields = new ArrayList<>();
+			while (block.hasRemaining()) {
+				int first = block.get() & 0xff;
+				if ((first & 0x80) != 0) {
+					// Indexed field
+					fields.add(lookup(readInt(block, first, 7)));
+				} else if ((first & 0x40) != 0) {
+					// Literal with incremental indexing
+					String[] field = readLiteral(block, first, 6);
+					table.add(field[0], field[1]);
+					fields.add(field);
+				} else if ((first & 0x20) != 0) {
+					// Dynamic table size update, only before the first field
+					int size = readInt(block, first, 5);
+					if (!fields.isEmpty() || size > maxTableSize) {
+						throw new IOException("HPACK: invalid table size update " + size);
+					}
+					table.setMaxSize(size);
+				} else {
+					// Literal without indexing / never indexed
+					fields.add(readLiteral(block, first, 4));
+				}
+			}
+			return fields;
+		}
+
+		private String[] readLiteral(ByteBuffer block, int first, int prefixBits) throws IOException {
+			int index = readInt(block, first, prefixBits);
+			String name = index == 0 ? readString(block) : lookup(index)[0];
+			return new String[] {name, readString(block)};
+		}
+
+		private String[] lookup(int index) throws IOException {
+			if (index <= 0) {
+				throw new IOException("HPACK: index 0");
+			}
+			if (index <= STATIC_TABLE.length) {
+				return STATIC_TABLE[index - 1];
+			}
+			String[] field = table.get(index - STATIC_TABLE.length - 1);
+			if (field == null) {
+				throw new IOException("HPACK: index " + index + " outside the dynamic table");
+			}
+			return field;
+		}
+
+		private static String readString(ByteBuffer block) throws IOException {
+			if (!block.hasRemaining()) {
+				throw new IOException("HPACK: truncated string");
+			}
+			int first = block.get() & 0xff;
+			int length = readInt(block, first, 7);
+			if (length > block.remaining()) {
+				throw new IOException("HPACK: string length " + length + " exceeds block");
+			}
+			byte[] bytes = new byte[length];
+			block.get(bytes);
+			return (first & 0x80) != 0 ? huffmanDecode(bytes) : new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	/**
+	 * Encodes response header blocks of one connection. Blocks must be
+	 * written in the order they were encoded; callers serialize.
+	 */
+	static final class Encoder {
+		private final DynamicTable table;
+		private int pendingMinSize = -1;
+
+		Encoder() {
+			this.table = new DynamicTable(DEFAULT_TABLE_SIZE);
+		}
+
+		/**
+		 * Applies the peer's SETTINGS_HEADER_TABLE_SIZE; signalled at the
+		 * start of the next block.
+		 */
+		void setMaxTableSize(int size) {
+			int capped = Math.min(size, DEFAULT_TABLE_SIZE);
+			if (capped == table.maxSize) {
+				return;
+			}
+			pendingMinSize = pendingMinSize < 0 ? capped : Math.min(pendingMinSize, capped);
+			table.setMaxSize(capped);
+		}
+
+		byte[] encode(List<String[]> fields) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+			if (pendingMinSize >= 0) {
+				writeInt(out, 5, 0x20, pendingMinSize);
+				if (pendingMinSize != table.maxSize) {
+					writeInt(out, 5, 0x20, table.maxSize);
+				}
+				pendingMinSize = -1;
+			}
+			for (String[] field : fields) {
+				String name = field[0];
+				String value = field[1];
+				int exact = findExact(name, value);
+				if (exact > 0) {
+					writeInt(out, 7, 0x80, exact);
+					continue;
+				}
+				int nameIndex = findName(name);
+				if (NOT_INDEXED.contains(name) || name.length() + value.length() + 32 > table.maxSize / 4) {
+					writeInt(out, 4, 0x00, nameIndex);
+				} else {
+					writeInt(out, 6, 0x40, nameIndex);
+					table.add(name, value);
+				}
+				if (nameIndex == 0) {
+					writeString(out, name);
+				}
+				writeString(out, value);
+			}
+			return out.toByteArray();
+		}
+
+		private int findExact(String name, String value) {
+			Integer index = STATIC_EXACT.get(name + '\0' + value);
+			if (index != null) {
+				return index;
+			}
+			int dynamic = table.indexOf(name, value, true);
+			return dynamic >= 0 ? STATIC_TABLE.length + 1 + dynamic : 0;
+		}
+
+		private int findName(String name) {
+			Integer index = STATIC_NAMES.get(name);
+			if (index != null) {
+				return index;
+			}
+			int dynamic = table.indexOf(name, null, false);
+			return dynamic >= 0 ? STATIC_TABLE.length + 1 + dynamic : 0;
+		}
+
+		private static void writeString(ByteArrayOutputStream out, String value) {
+			int huffmanLength = huffmanLength(value);
+			if (huffmanLength < value.length()) {
+				writeInt(out, 7, 0x80, huffmanLength);
+				huffmanEncode(value, out);
+			} else {
+				writeInt(out, 7, 0x00, value.length());
+				byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+				out.write(bytes, 0, bytes.length);
+			}
+		}
+	}
+
+	/**
+	 * Entries newest first; size accounting per RFC 7541 4.1.
+	 */
+	private static final class DynamicTable {
+		private final ArrayDeque<String[]> entries = new ArrayDeque<>();
+		private int size;
+		private int maxSize;
+
+		DynamicTable(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		String[] get(int index) {
+			if (index < 0 || index >= entries.size()) {
+				return null;
+			}
+			Iterator<String[]> it = entries.iterator();
+			for (int i = 0; i < index; i++) {
+				it.next();
+			}
+			return it.next();
+		}
+
+		int indexOf(String name, String value, boolean matchValue) {
+			int index = 0;
+			for (String[] entry : entries) {
+				if (entry[0].equals(name) && (!matchValue || entry[1].equals(value))) {
+					return index;
+				}
+				index++;
+			}
+			return -1;
+		}
+
+		void add(String name, String value) {
+			int entrySize = entrySize(name, value);
+			evictTo(maxSize - entrySize);
+			if (entrySize <= maxSize) {
+				entries.addFirst(new String[] {name, value});
+				size += entrySize;
+			}
+		}
+
+		void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+			evictTo(maxSize);
+		}
+
+		private void evictTo(int target) {
+			while (size > Math.max(target, 0) && !entries.isEmpty()) {
+				String[] evicted = entries.removeLast();
+				size -= entrySize(evicted[0], evicted[1]);
+			}
+			if (target < 0) {
+				entries.clear();
+				size = 0;
+			}
+		}
+
+		private static int entrySize(String name, String value) {
+			return name.length() + value.length() + 32;
+		}
+	}
+
+	static void writeInt(ByteArrayOutputStream out, int prefixBits, int flags, int value) {
+		int max = (1 << prefixBits) - 1;
+		if (value < max) {
+			out.write(flags | value);
+			return;
+		}
+		out.write(flags | max);
+		int rest = value - max;
+		while (rest >= 0x80) {
+			out.write((rest & 0x7f) | 0x80);
+			rest >>>= 7;
+		}
+		out.write(rest);
+	}
+
+	static int readInt(ByteBuffer in, int first, int prefixBits) throws IOException {
+		int max = (1 << prefixBits) - 1;
+		int value = first & max;
+		if (value < max) {
+			return value;
+		}
+		int shift = 0;
+		int b;
+		do {
+			if (!in.hasRemaining() || shift > 21) {
+				throw new IOException("HPACK: integer truncated or too large");
+			}
+			b = in.get() & 0xff;
+			value += (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	static String huffmanDecode(byte[] bytes) throws IOException {
+		StringBuilder out = new StringBuilder(bytes.length * 8 / 5);
+		int node = 0;
+		int pendingBits = 0;
+		boolean pendingAllOnes = true;
+		for (byte value : bytes) {
+			for (int bit = 7; bit >= 0; bit--) {
+				boolean one = ((value >>> bit) & 1) != 0;
+				node = one ? TREE_ONE[node] : TREE_ZERO[node];
+				if (node == 0) {
+					throw new IOException("HPACK: invalid Huffman code");
+				}
+				pendingBits++;
+				pendingAllOnes &= one;
+				int symbol = TREE_SYMBOL[node];
+				if (symbol >= 0) {
+					if (symbol == EOS) {
+						throw new IOException("HPACK: EOS in Huffman string");
+					}
+					out.append((char) symbol);
+					node = 0;
+					pendingBits = 0;
+					pendingAllOnes = true;
+				}
+			}
+		}
+		// Padding: a prefix of EOS (all ones), shorter than one octet
+		if (pendingBits > 7 || !pendingAllOnes) {
+			throw new IOException("HPACK: invalid Huffman padding");
+		}
+		return out.toString();
+	}
+
+	static int huffmanLength(String value) {
+		long bits = 0;
+		for (int i = 0; i < value.length(); i++) {
+			bits += HUFFMAN_LENGTHS[value.charAt(i) & 0xff];
+		}
+		return (int) ((bits + 7) / 8);
+	}
+
+	static void huffmanEncode(String value, ByteArrayOutputStream out) {
+		long current = 0;
+		int bits = 0;
+		for (int i = 0; i < value.length(); i++) {
+			int symbol = value.charAt(i) & 0xff;
+			current = (current << HUFFMAN_LENGTHS[symbol]) | HUFFMAN_CODES[symbol];
+			bits += HUFFMAN_LENGTHS[symbol];
+			while (bits >= 8) {
+				bits -= 8;
+				out.write((int) (current >>> bits));
+			}
+			current &= (1L << bits) - 1;
+		}
+		if (bits > 0) {
+			out.write((int) ((current << (8 - bits)) | (0xff >>> bits)));
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package com.ui.cef_control.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Title and plain text of an HTML page, for the search index.
+ *
+ * A forward scan, not a parser: tags become word breaks (inline ones
+ * like a or code do not), comments and the bodies of script, style,
+ * noscript, template and svg are skipped, common entities are decoded.
+ * VuePress renders the same navbar and sidebar into every page, so if
+ * the page has a main element only its content is taken.
+ *
+ * Title: first h1 of that content, else the title element.
+ */
+final class HtmlText {
+
+	/** Longest token kept; longer runs are hashes or base64, not words. */
+	static final int MAX_TOKEN_CHARS = 64;
+
+	private static final String[] SKIPPED = {"script", "style", "noscript", "template", "svg"};
+	private static final String[] INLINE = {"a", "abbr", "b", "code", "em", "i", "kbd", "mark", "s", "small",
+			"span", "strong", "sub", "sup", "u", "wbr"};
+
+	private final String title;
+	private final String text;
+
+	private HtmlText(String title, String text) {
+		this.title = title;
+		this.text = text;
+	}
+
+	String getTitle() {
+		return title;
+	}
+
+	/**
+	 * @return Text with whitespace collapsed to single spaces
+	 */
+	String getText() {
+		return text;
+	}
+
+	static HtmlText extract(byte[] html) {
+		String page = new String(html, StandardCharsets.UTF_8);
+		int from = 0;
+		int to = page.length();
+		int mainOpen = findTag(page, "main", 0);
+		if (mainOpen >= 0) {
+			int mainClose = lastIndexOfIgnoreCase(page, "</main");
+			if (mainClose > mainOpen) {
+				from = mainOpen;
+				to = mainClose;
+			}
+		}
+		String text = toText(page, from, to);
+
+		String title = null;
+		int h1 = findTag(page, "h1", from);
+		if (h1 >= 0 && h1 < to) {
+			int end = indexOfIgnoreCase(page, "</h1", h1);
+			title = toText(page, h1, end < 0 ? to : end);
+		}
+		if (title == null || title.isEmpty()) {
+			int titleTag = findTag(page, "title", 0);
+			if (titleTag >= 0) {
+				int end = indexOfIgnoreCase(page, "</title", titleTag);
+				title = toText(page, titleTag, end < 0 ? page.length() : end);
+			}
+		}
+		return new HtmlText(title != null ? title : "", text);
+	}
+
+	/**
+	 * Splits text into lower-case tokens: runs of letters and digits, at
+	 * most MAX_TOKEN_CHARS long. The same rule serves pages and queries.
+	 */
+	static List<String> tokens(String text) {
+		List<String> tokens = new ArrayList<>();
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+				i++;
+			}
+			int start = i;
+			while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+				i++;
+			}
+			if (i > start && i - start <= MAX_TOKEN_CHARS) {
+				char[] token = new char[i - start];
+				for (int j = start; j < i; j++) {
+					token[j - start] = Character.toLowerCase(text.charAt(j));
+				}
+				tokens.add(new String(token));
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Text of page[from, to); from may point into a start tag, which is skipped.
+	 */
+	private static String toText(String page, int from, int to) {
+		StringBuilder out = new StringBuilder(Math.max(16, (to - from) / 4));
+		boolean space = true;
+		int i = from;
+		if (i < to && page.charAt(i) == '<') {
+			i = skipTag(page, i, to);
+		}
+		while (i < to) {
+			char c = page.charAt(i);
+			if (c == '<') {
+				if (page.startsWith("<!--", i)) {
+					int end = page.indexOf("-->", i + 4);
+					i = end < 0 || end >= to ? to : end + 3;
+					continue;
+				}
+				String name = tagName(page, i);
+				String skipped = opensSkipped(page, i, name);
+				if (skipped != null) {
+					int close = indexOfIgnoreCase(page, "</" + skipped, i + 1);
+					i = close < 0 || close >= to ? to : skipTag(page, close, to);
+				} else {
+					i = skipTag(page, i, to);
+				}
+				if (!isInline(name) && !space) {
+					out.append(' ');
+					space = true;
+				}
+				continue;
+			}
+			if (c == '&') {
+				int semicolon = page.indexOf(';', i);
+				if (semicolon > i && semicolon - i <= 10 && semicolon < to) {
+					int decoded = decodeEntity(page, i + 1, semicolon);
+					if (decoded >= 0) {
+						c = (char) decoded;
+						i = semicolon;
+					}
+				}
+			}
+			if (Character.isWhitespace(c) || c == '\u00a0') {
+				if (!space) {
+					out.append(' ');
+					space = true;
+				}
+			} else {
+				out.append(c);
+				space = false;
+			}
+			i++;
+		}
+		int end = out.length();
+		if (end > 0 && out.charAt(end - 1) == ' ') {
+			out.setLength(end - 1);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * @return Index just past the '>' of the tag at i (quoted attribute values respected)
+	 */
+	private static int skipTag(String page, int i, int to) {
+		char quote = 0;
+		for (int j = i + 1; j < to; j++) {
+			char c = page.charAt(j);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				return j + 1;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * @return Lower-case name of the tag at i ("/p" for a closing tag), or "" if none
+	 */
+	private static String tagName(String page, int i) {
+		int start = i + 1;
+		int end = start;
+		if (end < page.length() && page.charAt(end) == '/') {
+			end++;
+		}
+		while (end < page.length() && Character.isLetterOrDigit(page.charAt(end))) {
+			end++;
+		}
+		return page.substring(start, end).toLowerCase(Locale.ROOT);
+	}
+
+	private static String opensSkipped(String page, int i, String name) {
+		for (String skipped : SKIPPED) {
+			if (skipped.equals(name)) {
+				// <svg/> or <template/> has no body to skip
+				int end = skipTag(page, i, page.length());
+				return page.charAt(end - 2) == '/' ? null : skipped;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isInline(String name) {
+		String bare = name.startsWith("/") ? name.substring(1) : name;
+		for (String inline : INLINE) {
+			if (inline.equals(bare)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Index of the '<' of the first start tag with that name at or after from, or -1
+	 */
+	private static int findTag(String page, String name, int from) {
+		int i = from;
+		while ((i = indexOfIgnoreCase(page, "<" + name, i)) >= 0) {
+			int after = i + 1 + name.length();
+			if (after < page.length() && (page.charAt(after) == '>' || Character.isWhitespace(page.charAt(after)))) {
+				return i;
+			}
+			i = after;
+		}
+		return -1;
+	}
+
+	private static int indexOfIgnoreCase(String page, String needle, int from) {
+		int last = page.length() - needle.length();
+		for (int i = Math.max(0, from); i <= last; i++) {
+			if (page.regionMatches(true, i, needle, 0, needle.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int lastIndexOfIgnoreCase(String page, String needle) {
+		for (int i = page.length() - needle.length(); i >= 0; i--) {
+			if (page.regionMatches(true, i, needle, 0, needle.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param from First char of the entity name (past '&')
+	 * @param to Index of the ';'
+	 * @return Decoded char, or -1 if unknown (left as is)
+	 */
+	private static int decodeEntity(String page, int from, int to) {
+		String name = page.substring(from, to);
+		switch (name) {
+			case "amp":
+				return '&';
+			case "lt":
+				return '<';
+			case "gt":
+				return '>';
+			case "quot":
+				return '"';
+			case "apos":
+				return '\'';
+			case "nbsp":
+				return ' ';
+			default:
+				break;
+		}
+		if (name.length() > 1 && name.charAt(0) == '#') {
+			try {
+				int code = name.charAt(1) == 'x' || name.charAt(1) == 'X'
+						? Integer.parseInt(name.substring(2), 16)
+						: Integer.parseInt(name.substring(1));
+				return code > 0 && code <= Character.MAX_VALUE ? code : -1;
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+}
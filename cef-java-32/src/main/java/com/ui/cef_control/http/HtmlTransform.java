@@ -0,0 +1,429 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rewrites HTML pages before they are served (HttpServerConfig.withHtmlTransform):
+ * - Minifies: whitespace runs outside pre, textarea, script and style
+ *   collapse to one character; comments go, except Vue SSR hydration
+ *   markers (no whitespace inside, e.g. {@code <!--[-->}) and
+ *   conditional comments
+ * - Inlines small stylesheets: a {@code <link rel=stylesheet>} naming a
+ *   file of the site becomes a {@code <style>} block while the page's
+ *   inlined total stays within the limit, so first paint does not wait
+ *   for another request. Relative url() references are made absolute,
+ *   since the CSS now resolves against the page.
+ *
+ * Each page version is transformed once: the result is cached by page
+ * path with the ETag of the source it came from, and carries its own
+ * validator (hash of the transformed body), a gzip variant, and the page's
+ * preload header without the stylesheets now inlined. The watcher clears
+ * the cache when any file changes, since an inlined stylesheet may have.
+ */
+final class HtmlTransform {
+
+	private static final int MAX_CACHED_PAGES = 1024;
+	private static final String[] VERBATIM = {"pre", "textarea", "script", "style"};
+
+	/**
+	 * One transformed page version.
+	 */
+	static final class Page {
+		private final String sourceEtag;
+		private final byte[] content;
+		private final Map<String, byte[]> encodedVariants;
+		private final ContentHashIndex.Validator validator;
+		private final String preloadLink;
+
+		Page(String sourceEtag, byte[] content, Map<String, byte[]> encodedVariants,
+				ContentHashIndex.Validator validator, String preloadLink) {
+			this.sourceEtag = sourceEtag;
+			this.content = content;
+			this.encodedVariants = encodedVariants;
+			this.validator = validator;
+			this.preloadLink = preloadLink;
+		}
+
+		/**
+		 * Returns the transformed body. Callers must not modify the array.
+		 */
+		byte[] getContent() {
+			return content;
+		}
+
+		/**
+		 * @return Compressed bodies keyed by content-coding; empty if not worth it
+		 */
+		Map<String, byte[]> getEncodedVariants() {
+			return encodedVariants;
+		}
+
+		ContentHashIndex.Validator getValidator() {
+			return validator;
+		}
+
+		/**
+		 * @return Link preload header value for this version, or null
+		 */
+		String getPreloadLink() {
+			return preloadLink;
+		}
+	}
+
+	/**
+	 * Source of a page body.
+	 */
+	interface Body {
+		byte[] read() throws IOException;
+	}
+
+	private final PreloadHints.Source source;
+	private final PreloadHints preloadHints;
+	private final String basePath;
+	private final int inlineCssLimit;
+	// Page path -> last transformed version; keyed by path alone so a hit builds no key
+	private final Map<String, Page> pages;
+
+	/**
+	 * @param basePath URL path the site is served under, with leading and trailing '/'
+	 * @param inlineCssLimit Stylesheet bytes inlined per page (0 = minify only)
+	 */
+	HtmlTransform(PreloadHints.Source source, PreloadHints preloadHints, String basePath, int inlineCssLimit) {
+		this.source = source;
+		this.preloadHints = preloadHints;
+		this.basePath = basePath;
+		this.inlineCssLimit = inlineCssLimit;
+		this.pages = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the transformed version of a page, from the cache unless the
+	 * source changed.
+	 *
+	 * @param pagePath Page path relative to the root ("guide/index.html")
+	 * @param validator Validator of the source version being served
+	 * @param html Source body (read only on a cache miss)
+	 * @return Transformed page, or null if a stylesheet could not be read
+	 *         (serve the source; retried on the next request)
+	 */
+	Page transform(String pagePath, ContentHashIndex.Validator validator, Body html) {
+		Page cached = pages.get(pagePath);
+		if (cached != null && cached.sourceEtag.equals(validator.getEtag())) {
+			return cached;
+		}
+		Page page;
+		try {
+			Set<String> inlined = new HashSet<>();
+			String text = inlineStylesheets(pagePath, new String(html.read(), StandardCharsets.UTF_8), inlined);
+			byte[] content = minify(text).getBytes(StandardCharsets.UTF_8);
+			page = new Page(validator.getEtag(), content, variantsOf(content),
+					new ContentHashIndex.Validator(ContentHashIndex.hash(content), content.length,
+							validator.getLastModifiedMillis()),
+					preloadLink(pagePath, inlined));
+		} catch (IOException e) {
+			return null;
+		}
+		if (pages.size() >= MAX_CACHED_PAGES) {
+			pages.clear();
+		}
+		pages.put(pagePath, page);
+		return page;
+	}
+
+	/**
+	 * Watcher callback: an inlined stylesheet may have changed.
+	 */
+	void onPathChanged(Path changed) {
+		pages.clear();
+	}
+
+	private static Map<String, byte[]> variantsOf(byte[] content) throws IOException {
+		if (content.length < Compression.MIN_COMPRESSIBLE_BYTES) {
+			return Collections.emptyMap();
+		}
+		byte[] gzipped = Compression.gzip(content);
+		return gzipped.length < content.length
+				? Collections.singletonMap(Compression.GZIP, gzipped)
+				: Collections.emptyMap();
+	}
+
+	private String preloadLink(String pagePath, Set<String> inlined) throws IOException {
+		List<PreloadHints.Hint> hints = new ArrayList<>();
+		for (PreloadHints.Hint hint : preloadHints.analyze(pagePath)) {
+			if (!inlined.contains(hint.getUrl())) {
+				hints.add(hint);
+			}
+		}
+		String link = PreloadHints.join(hints);
+		return link.isEmpty() ? null : link;
+	}
+
+	// --- Stylesheet inlining ---
+
+	/**
+	 * Replaces stylesheet links with style blocks while the inlined total
+	 * stays within the limit, in document order.
+	 *
+	 * @param inlined Receives the URLs of the inlined stylesheets
+	 */
+	String inlineStylesheets(String pagePath, String html, Set<String> inlined) throws IOException {
+		if (inlineCssLimit == 0) {
+			return html;
+		}
+		StringBuilder out = null;
+		int copied = 0;
+		int budget = inlineCssLimit;
+		int i = 0;
+		while ((i = html.indexOf('<', i)) >= 0) {
+			if (html.startsWith("<!--", i)) {
+				int end = html.indexOf("-->", i + 4);
+				if (end < 0) {
+					break;
+				}
+				i = end + 3;
+				continue;
+			}
+			int nameEnd = i + 1;
+			while (nameEnd < html.length() && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+				nameEnd++;
+			}
+			String tag = html.substring(i + 1, nameEnd).toLowerCase(Locale.ROOT);
+			if ("script".equals(tag) || "style".equals(tag) || "noscript".equals(tag)) {
+				int end = PreloadHints.endOfElement(html, nameEnd, "</" + tag);
+				i = end == html.length() ? end : end + 1;
+				continue;
+			}
+			if (!"link".equals(tag)) {
+				i++;
+				continue;
+			}
+			Map<String, String> attributes = new HashMap<>();
+			int tagEnd = PreloadHints.parseAttributes(html, nameEnd, attributes);
+			String url = inlinableStylesheet(pagePath, attributes);
+			byte[] css = url != null ? source.read(url.substring(basePath.length())) : null;
+			if (css != null && css.length <= budget) {
+				String text = new String(css, StandardCharsets.UTF_8);
+				if (!text.contains("@import") && !text.toLowerCase(Locale.ROOT).contains("</style")) {
+					if (out == null) {
+						out = new StringBuilder(html.length() + inlineCssLimit);
+					}
+					out.append(html, copied, i).append("<style");
+					String media = attributes.get("media");
+					if (media != null && !media.isEmpty() && !"all".equalsIgnoreCase(media)) {
+						out.append(" media=\"").append(media.replace("\"", "&quot;")).append('"');
+					}
+					out.append('>').append(absoluteUrls(url, text)).append("</style>");
+					copied = tagEnd;
+					budget -= css.length;
+					inlined.add(url);
+				}
+			}
+			i = tagEnd;
+		}
+		if (out == null) {
+			return html;
+		}
+		return out.append(html, copied, html.length()).toString();
+	}
+
+	/**
+	 * @return URL path of the stylesheet a link element applies, if it is a
+	 *         plain one of this site, else null
+	 */
+	private String inlinableStylesheet(String pagePath, Map<String, String> attributes) {
+		String rel = attributes.get("rel");
+		String href = attributes.get("href");
+		if (rel == null || href == null || attributes.containsKey("integrity")
+				|| attributes.containsKey("disabled") || attributes.containsKey("title")) {
+			return null; // Integrity cannot be checked inline; titled sheets can be switched off
+		}
+		boolean stylesheet = false;
+		for (String token : rel.toLowerCase(Locale.ROOT).split("\\s+")) {
+			if ("alternate".equals(token)) {
+				return null;
+			}
+			stylesheet |= "stylesheet".equals(token);
+		}
+		if (!stylesheet) {
+			return null;
+		}
+		try {
+			URI reference = new URI(href.trim());
+			if (reference.getScheme() != null || reference.getRawAuthority() != null
+					|| reference.getRawQuery() != null || reference.getRawPath() == null
+					|| reference.getRawPath().isEmpty()) {
+				return null;
+			}
+			String path = new URI(null, null, basePath + pagePath, null).resolve(reference).normalize().getPath();
+			if (path == null || !path.startsWith(basePath) || path.contains("..")
+					|| !source.exists(path.substring(basePath.length()))) {
+				return null;
+			}
+			return path;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Rewrites relative url() references of a stylesheet to absolute paths.
+	 *
+	 * @param stylesheetUrl URL path the CSS was served from
+	 */
+	static String absoluteUrls(String stylesheetUrl, String css) {
+		String lower = css.toLowerCase(Locale.ROOT);
+		StringBuilder out = null;
+		int copied = 0;
+		for (int u = lower.indexOf("url(", 0); u >= 0; u = lower.indexOf("url(", u + 4)) {
+			int end = css.indexOf(')', u + 4);
+			if (end < 0) {
+				break;
+			}
+			String raw = css.substring(u + 4, end).trim();
+			String target = raw;
+			char quote = 0;
+			if (target.length() >= 2 && (target.charAt(0) == '"' || target.charAt(0) == '\'')) {
+				quote = target.charAt(0);
+				target = target.substring(1, target.length() - 1);
+			}
+			if (target.isEmpty() || target.startsWith("/") || target.startsWith("#") || target.contains(":")) {
+				continue; // Absolute, fragment (SVG filters), data: or another origin
+			}
+			String absolute;
+			try {
+				absolute = new URI(null, null, stylesheetUrl, null).resolve(new URI(target)).normalize()
+						.getRawPath();
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				continue;
+			}
+			if (out == null) {
+				out = new StringBuilder(css.length() + 64);
+			}
+			out.append(css, copied, u + 4);
+			if (quote != 0) {
+				out.append(quote).append(absolute).append(quote);
+			} else {
+				out.append(absolute);
+			}
+			copied = end;
+		}
+		if (out == null) {
+			return css;
+		}
+		return out.append(css, copied, css.length()).toString();
+	}
+
+	// --- Minification ---
+
+	/**
+	 * Collapses whitespace and drops comments; tags, attribute values and
+	 * the bodies of pre, textarea, script and style are copied as they are.
+	 */
+	static String minify(String html) {
+		int length = html.length();
+		StringBuilder out = new StringBuilder(length);
+		int i = 0;
+		while (i < length) {
+			char c = html.charAt(i);
+			if (c == '<') {
+				if (html.startsWith("<!--", i)) {
+					int end = html.indexOf("-->", i + 4);
+					end = end < 0 ? length : end + 3;
+					if (isKeptComment(html, i + 4, end - 3)) {
+						out.append(html, i, end);
+					}
+					i = end;
+					continue;
+				}
+				int tagEnd = endOfTag(html, i);
+				out.append(html, i, tagEnd);
+				String verbatim = verbatimElement(html, i);
+				if (verbatim != null) {
+					int close = PreloadHints.endOfElement(html, tagEnd, "</" + verbatim);
+					out.append(html, tagEnd, close);
+					i = close;
+				} else {
+					i = tagEnd;
+				}
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				boolean newline = false;
+				while (i < length && Character.isWhitespace(html.charAt(i))) {
+					newline |= html.charAt(i) == '\n';
+					i++;
+				}
+				// A newline keeps line-based tools and inline-block spacing as they were
+				out.append(newline ? '\n' : ' ');
+				continue;
+			}
+			out.append(c);
+			i++;
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Vue SSR fragment markers ({@code <!--[-->}, {@code <!--]-->},
+	 * {@code <!---->}) must survive for hydration; they contain no whitespace.
+	 */
+	private static boolean isKeptComment(String html, int from, int to) {
+		if (to < from) {
+			return false;
+		}
+		if (html.startsWith("[if", from)) {
+			return true;
+		}
+		for (int i = from; i < to; i++) {
+			if (Character.isWhitespace(html.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Index just past the '>' of the tag at i (quoted attribute values respected)
+	 */
+	private static int endOfTag(String html, int i) {
+		char quote = 0;
+		for (int j = i + 1; j < html.length(); j++) {
+			char c = html.charAt(j);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				return j + 1;
+			}
+		}
+		return html.length();
+	}
+
+	private static String verbatimElement(String html, int i) {
+		for (String name : VERBATIM) {
+			int after = i + 1 + name.length();
+			if (html.regionMatches(true, i + 1, name, 0, name.length()) && after < html.length()
+					&& (html.charAt(after) == '>' || html.charAt(after) == '/'
+					|| Character.isWhitespace(html.charAt(after)))) {
+				return name;
+			}
+		}
+		return null;
+	}
+}
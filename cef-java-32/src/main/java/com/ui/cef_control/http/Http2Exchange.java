@@ -0,0 +1,356 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HttpExchange for one HTTP/2 stream, so the docs handlers run unchanged
+ * over h2c.
+ *
+ * sendResponseHeaders follows the same JDK contract as NioExchange; the
+ * length only decides whether content-length is announced, since HTTP/2
+ * frames the body itself. Body bytes are collected in one pooled buffer
+ * and sent as DATA frames when it fills; direct sources larger than the
+ * free space (mapped pack bodies) are sent as frames of their own slices.
+ *
+ * A failed or short response resets the stream instead of closing the
+ * connection, so the other streams carry on.
+ */
+final class Http2Exchange extends HttpExchange {
+
+	private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+	private final Http2Session session;
+	private final Http2Session.Stream stream;
+	private final BufferPool buffers;
+	private final InetSocketAddress localAddress;
+	private final InetSocketAddress remoteAddress;
+	private final Headers responseHeaders;
+	private final Map<String, Object> attributes;
+	private final Body body;
+	private InputStream requestStream;
+	private OutputStream responseStream;
+	private int responseCode;
+	private boolean ended;
+
+	Http2Exchange(Http2Session session, Http2Session.Stream stream, BufferPool buffers,
+			InetSocketAddress localAddress, InetSocketAddress remoteAddress) {
+		this.session = session;
+		this.stream = stream;
+		this.buffers = buffers;
+		this.localAddress = localAddress;
+		this.remoteAddress = remoteAddress;
+		this.responseHeaders = new Headers();
+		this.attributes = new HashMap<>();
+		this.body = new Body();
+		this.requestStream = EMPTY_BODY;
+		this.responseStream = body;
+		this.responseCode = -1;
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return stream.headers;
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return stream.uri;
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return stream.method;
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		try {
+			responseStream.close();
+		} catch (IOException e) {
+			// Stream was reset in Body.close()
+		}
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestStream;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseStream;
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+		if (responseCode != -1) {
+			throw new IOException("Response headers already sent");
+		}
+		responseCode = rCode;
+
+		List<String[]> fields = new ArrayList<>(responseHeaders.size() + 3);
+		fields.add(new String[] {":status", Integer.toString(rCode)});
+		fields.add(new String[] {"date", NioExchange.httpDate()});
+		for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+			String name = header.getKey().toLowerCase(Locale.ROOT);
+			if (isConnectionSpecific(name) || "content-length".equals(name)) {
+				continue; // Not allowed in HTTP/2, or decided here
+			}
+			for (String value : header.getValue()) {
+				fields.add(new String[] {name, value});
+			}
+		}
+
+		int mode;
+		long length = 0;
+		boolean bodyForbidden = rCode < 200 || rCode == 204 || rCode == 304;
+		if (bodyForbidden) {
+			mode = Body.NONE;
+		} else if ("HEAD".equals(stream.method)) {
+			mode = Body.NONE;
+			if (responseLength > 0) {
+				fields.add(new String[] {"content-length", Long.toString(responseLength)});
+			}
+		} else if (responseLength < 0) {
+			mode = Body.NONE;
+			fields.add(new String[] {"content-length", "0"});
+		} else if (responseLength == 0) {
+			mode = Body.STREAMED;
+		} else {
+			mode = Body.FIXED;
+			length = responseLength;
+			fields.add(new String[] {"content-length", Long.toString(responseLength)});
+		}
+
+		boolean endStream = mode == Body.NONE;
+		session.sendHeaders(stream, fields, endStream);
+		if (endStream) {
+			ended = true;
+		}
+		body.start(mode, length);
+	}
+
+	private static boolean isConnectionSpecific(String name) {
+		return "connection".equals(name) || "keep-alive".equals(name) || "proxy-connection".equals(name)
+				|| "transfer-encoding".equals(name) || "upgrade".equals(name);
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return localAddress;
+	}
+
+	@Override
+	public String getProtocol() {
+		return "HTTP/2.0";
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		if (value == null) {
+			attributes.remove(name);
+		} else {
+			attributes.put(name, value);
+		}
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		if (i != null) {
+			requestStream = i;
+		}
+		if (o != null) {
+			responseStream = o;
+		}
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+
+	/**
+	 * Completes the stream once the handler has returned or thrown. A
+	 * handler that sent nothing gets a 500; a failed or unfinished response
+	 * is reset.
+	 */
+	void complete(boolean handlerFailed) {
+		try {
+			if (responseCode == -1) {
+				sendResponseHeaders(500, -1); // 500 Internal Server Error
+			} else if (handlerFailed && !ended) {
+				session.resetStream(stream, Http2Session.INTERNAL_ERROR);
+				ended = true;
+			}
+			body.close();
+		} catch (IOException e) {
+			if (!ended) {
+				session.resetStream(stream, Http2Session.INTERNAL_ERROR);
+				ended = true;
+			}
+		} finally {
+			body.release();
+		}
+	}
+
+	/**
+	 * Response body stream; a WritableByteChannel for FileTransfer, as in
+	 * NioExchange.
+	 */
+	private final class Body extends OutputStream implements WritableByteChannel {
+		static final int NONE = 0;
+		static final int FIXED = 1;
+		static final int STREAMED = 2;
+
+		private ByteBuffer buffer;
+		private int mode;
+		private long remaining;
+		private boolean started;
+		private boolean open = true;
+
+		void start(int mode, long length) {
+			this.mode = mode;
+			this.remaining = length;
+			this.started = true;
+			if (mode != NONE) {
+				this.buffer = buffers.acquire();
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			write(ByteBuffer.wrap(b, off, len));
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			int count = source.remaining();
+			if (!open) {
+				throw new IOException("Response body already closed");
+			}
+			if (!started) {
+				throw new IOException("sendResponseHeaders() must be called before writing the body");
+			}
+			if (count == 0) {
+				return 0;
+			}
+			if (mode == NONE) {
+				throw new IOException("Response has no body");
+			}
+			if (mode == FIXED && count > remaining) {
+				throw new IOException("Too many bytes for the announced Content-Length");
+			}
+			remaining -= count;
+
+			if (source.isDirect() && count > buffer.remaining()) {
+				flushBuffer(false);
+				session.sendData(stream, source, false);
+				return count;
+			}
+			while (source.hasRemaining()) {
+				if (!buffer.hasRemaining()) {
+					flushBuffer(false);
+				}
+				int chunk = Math.min(source.remaining(), buffer.remaining());
+				ByteBuffer part = source.duplicate();
+				part.limit(part.position() + chunk);
+				buffer.put(part);
+				source.position(source.position() + chunk);
+			}
+			return count;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (open && buffer != null && buffer.position() > 0) {
+				flushBuffer(false);
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!open || !started) {
+				return;
+			}
+			open = false;
+			if (mode == NONE || ended) {
+				return;
+			}
+			if (mode == FIXED && remaining > 0) {
+				session.resetStream(stream, Http2Session.INTERNAL_ERROR);
+				ended = true;
+				throw new IOException("Response closed " + remaining + " bytes short of its Content-Length");
+			}
+			flushBuffer(true);
+			ended = true;
+		}
+
+		void release() {
+			open = false;
+			if (buffer != null) {
+				buffers.release(buffer);
+				buffer = null;
+			}
+		}
+
+		private void flushBuffer(boolean endStream) throws IOException {
+			buffer.flip();
+			try {
+				session.sendData(stream, buffer, endStream);
+			} finally {
+				buffer.clear();
+			}
+		}
+	}
+}
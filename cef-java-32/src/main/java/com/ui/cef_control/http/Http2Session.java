@@ -0,0 +1,982 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One HTTP/2 connection in h2c mode (RFC 7540 over cleartext TCP), driven
+ * by the NIO engine. Entered with the connection preface (prior
+ * knowledge) or an "Upgrade: h2c" request.
+ *
+ * Reading: the selector thread hands received bytes to onInput(), which
+ * parses frames, decodes header blocks and dispatches every complete
+ * request as its own stream to the executor, so one connection carries
+ * all chunk requests of a page at once.
+ *
+ * Writing: workers and the selector thread queue frames; whoever finds the
+ * writer role free writes queued frames until the queue is empty. The
+ * queue is ordered control frames first, then HEADERS, then DATA by
+ * stream priority (dependency depth, weight, stream id), so what a page
+ * blocks on leaves first when the socket is congested. HEADERS are
+ * HPACK-encoded when they are written, which keeps the encoder's table in
+ * the order the peer decodes.
+ *
+ * Flow control: DATA waits for the connection and stream send windows.
+ * Request bodies are discarded and credited back immediately.
+ */
+final class Http2Session {
+
+	static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	static final int FRAME_HEADER_BYTES = 9;
+	/** Our SETTINGS_MAX_FRAME_SIZE and the largest frame we send (protocol minimum). */
+	static final int MAX_FRAME_BYTES = 16384;
+	static final int MAX_CONCURRENT_STREAMS = 128;
+	static final int DEFAULT_WINDOW = 65535;
+	private static final int MAX_HEADER_BLOCK_BYTES = 64 * 1024;
+	private static final int MAX_PRIORITY_DEPTH = 16;
+
+	static final int DATA = 0x0;
+	static final int HEADERS = 0x1;
+	static final int PRIORITY = 0x2;
+	static final int RST_STREAM = 0x3;
+	static final int SETTINGS = 0x4;
+	static final int PUSH_PROMISE = 0x5;
+	static final int PING = 0x6;
+	static final int GOAWAY = 0x7;
+	static final int WINDOW_UPDATE = 0x8;
+	static final int CONTINUATION = 0x9;
+
+	static final int FLAG_END_STREAM = 0x1;
+	static final int FLAG_ACK = 0x1;
+	static final int FLAG_END_HEADERS = 0x4;
+	static final int FLAG_PADDED = 0x8;
+	static final int FLAG_PRIORITY = 0x20;
+
+	static final int NO_ERROR = 0x0;
+	static final int PROTOCOL_ERROR = 0x1;
+	static final int INTERNAL_ERROR = 0x2;
+	static final int FLOW_CONTROL_ERROR = 0x3;
+	static final int STREAM_CLOSED = 0x5;
+	static final int FRAME_SIZE_ERROR = 0x6;
+	static final int REFUSED_STREAM = 0x7;
+	static final int COMPRESSION_ERROR = 0x9;
+
+	static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+	static final int SETTINGS_ENABLE_PUSH = 0x2;
+	static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+	static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+	static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+	/**
+	 * What the session needs from the engine connection.
+	 */
+	interface Transport extends NioExchange.Sink {
+		/** Runs a stream's exchange on the executor, counted as an active exchange. */
+		void dispatch(Runnable exchange);
+
+		/** Runs frame writing on the executor. */
+		void execute(Runnable task);
+
+		HttpHandler findHandler(String path);
+
+		/** Closes the connection from the selector thread. */
+		void requestClose();
+
+		boolean isStopping();
+
+		InetSocketAddress getLocalAddress();
+
+		InetSocketAddress getRemoteAddress();
+	}
+
+	/**
+	 * One request/response pair.
+	 */
+	static final class Stream {
+		final int id;
+		final String method;
+		final URI uri;
+		final Headers headers;
+		volatile int weight = 16;
+		volatile int dependency;
+		volatile boolean reset;
+		int sendWindow;          // guarded by flowLock
+		boolean requestComplete; // selector thread
+		boolean dispatched;      // selector thread
+
+		Stream(int id, String method, URI uri, Headers headers) {
+			this.id = id;
+			this.method = method;
+			this.uri = uri;
+			this.headers = headers;
+		}
+	}
+
+	/**
+	 * A queued outgoing frame.
+	 */
+	private static final class Frame {
+		static final int CONTROL = 0;
+		static final int HEADER_BLOCK = 1;
+		static final int BODY = 2;
+
+		final int type;
+		final int flags;
+		final int streamId;
+		final ByteBuffer payload;
+		final List<String[]> fields;
+		final Stream stream;
+		final int kind;
+		final int depth;
+		final int weight;
+		long sequence;
+		boolean closeAfterWrite;
+		private boolean done;
+		private IOException failure;
+
+		Frame(int type, int flags, int streamId, ByteBuffer payload, List<String[]> fields, Stream stream,
+				int kind, int depth, int weight) {
+			this.type = type;
+			this.flags = flags;
+			this.streamId = streamId;
+			this.payload = payload;
+			this.fields = fields;
+			this.stream = stream;
+			this.kind = kind;
+			this.depth = depth;
+			this.weight = weight;
+		}
+
+		synchronized void finish(IOException error) {
+			done = true;
+			failure = error;
+			notifyAll();
+		}
+
+		synchronized void await() throws IOException {
+			while (!done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while sending a frame");
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	private static final Comparator<Frame> FRAME_ORDER = Comparator
+			.comparingInt((Frame f) -> f.kind)
+			.thenComparingInt(f -> f.depth)
+			.thenComparingInt(f -> -f.weight)
+			.thenComparingLong(f -> f.sequence);
+
+	/**
+	 * Connection-level protocol error: GOAWAY and close.
+	 */
+	private static final class ConnectionError extends Exception {
+		private static final long serialVersionUID = 1L;
+		final int code;
+
+		ConnectionError(int code, String message) {
+			super(message);
+			this.code = code;
+		}
+	}
+
+	private final Transport transport;
+	private final BufferPool buffers;
+	private final ByteBuffer input;
+	private final Hpack.Decoder decoder;
+	private final Hpack.Encoder encoder;
+	private final Map<Integer, Stream> streams;
+
+	private final Object flowLock = new Object();
+	private int connectionSendWindow = DEFAULT_WINDOW;
+	private int initialStreamWindow = DEFAULT_WINDOW;
+
+	private final Object writeLock = new Object();
+	private final PriorityQueue<Frame> outbound;
+	private boolean writing;
+	private IOException broken;
+	private long frameSequence;
+	private volatile int peerHeaderTableSize = Hpack.DEFAULT_TABLE_SIZE;
+
+	// Selector thread only
+	private boolean prefaceReceived;
+	private boolean inputFailed;
+	private int lastStreamId;
+	private int continuationStreamId;
+	private int continuationFlags;
+	private int continuationDependency;
+	private int continuationWeight;
+	private ByteArrayOutputStream headerBlock;
+	private volatile boolean goingAway;
+
+	/**
+	 * Starts the session and sends our SETTINGS.
+	 *
+	 * @param upgrade The HTTP/1.1 request that asked for "Upgrade: h2c"; it
+	 *                becomes stream 1. Null for prior-knowledge connections.
+	 */
+	Http2Session(Transport transport, BufferPool buffers, HttpRequestHead upgrade) {
+		this.transport = transport;
+		this.buffers = buffers;
+		this.input = ByteBuffer.allocateDirect(2 * (FRAME_HEADER_BYTES + MAX_FRAME_BYTES));
+		this.decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+		this.encoder = new Hpack.Encoder();
+		this.streams = new ConcurrentHashMap<>();
+		this.outbound = new PriorityQueue<>(FRAME_ORDER);
+
+		ByteBuffer settings = ByteBuffer.allocate(6);
+		settings.putShort((short) SETTINGS_MAX_CONCURRENT_STREAMS).putInt(MAX_CONCURRENT_STREAMS).flip();
+		sendControl(control(SETTINGS, 0, 0, settings));
+
+		if (upgrade != null) {
+			try {
+				String encoded = upgrade.getHeaders().getFirst("HTTP2-Settings");
+				applySettings(ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded.trim())));
+			} catch (IllegalArgumentException | ConnectionError e) {
+				// Unusable HTTP2-Settings: keep the defaults, the client resends SETTINGS anyway
+			}
+			Stream first = new Stream(1, upgrade.getMethod(), upgrade.getUri(), upgrade.getHeaders());
+			synchronized (flowLock) {
+				first.sendWindow = initialStreamWindow;
+			}
+			lastStreamId = 1;
+			streams.put(1, first);
+			requestComplete(first);
+		}
+	}
+
+	/**
+	 * Buffer the selector thread reads into before calling onInput().
+	 */
+	ByteBuffer input() {
+		return input;
+	}
+
+	/**
+	 * Selector thread: handles every complete frame in the input buffer.
+	 * Protocol errors answer with GOAWAY, after which the connection closes.
+	 */
+	void onInput() {
+		input.flip();
+		try {
+			if (inputFailed) {
+				input.position(input.limit());
+				return;
+			}
+			if (!prefaceReceived) {
+				if (input.remaining() < PREFACE.length) {
+					return;
+				}
+				for (byte expected : PREFACE) {
+					if (input.get() != expected) {
+						throw new ConnectionError(PROTOCOL_ERROR, "Invalid connection preface");
+					}
+				}
+				prefaceReceived = true;
+			}
+			while (input.remaining() >= FRAME_HEADER_BYTES) {
+				int start = input.position();
+				int length = ((input.get(start) & 0xff) << 16) | ((input.get(start + 1) & 0xff) << 8)
+						| (input.get(start + 2) & 0xff);
+				if (length > MAX_FRAME_BYTES) {
+					throw new ConnectionError(FRAME_SIZE_ERROR, "Frame of " + length + " bytes");
+				}
+				if (input.remaining() < FRAME_HEADER_BYTES + length) {
+					break;
+				}
+				int type = input.get(start + 3) & 0xff;
+				int flags = input.get(start + 4) & 0xff;
+				int streamId = input.getInt(start + 5) & 0x7fffffff;
+				ByteBuffer payload = input.duplicate();
+				payload.position(start + FRAME_HEADER_BYTES);
+				payload.limit(start + FRAME_HEADER_BYTES + length);
+				input.position(start + FRAME_HEADER_BYTES + length);
+				onFrame(type, flags, streamId, payload.slice());
+			}
+		} catch (ConnectionError e) {
+			goAway(e.code, e.getMessage());
+			input.position(input.limit());
+		} finally {
+			input.compact();
+		}
+	}
+
+	/**
+	 * @return true if no stream is open
+	 */
+	boolean isIdle() {
+		return streams.isEmpty();
+	}
+
+	/**
+	 * Connection closed: fails queued frames and wakes writers waiting for window.
+	 */
+	void close() {
+		fail(new IOException("Connection closed"));
+	}
+
+	private void onFrame(int type, int flags, int streamId, ByteBuffer payload) throws ConnectionError {
+		if (continuationStreamId != 0 && (type != CONTINUATION || streamId != continuationStreamId)) {
+			throw new ConnectionError(PROTOCOL_ERROR, "Expected CONTINUATION for stream " + continuationStreamId);
+		}
+		switch (type) {
+			case DATA:
+				onData(flags, streamId, payload);
+				break;
+			case HEADERS:
+				onHeaders(flags, streamId, payload);
+				break;
+			case PRIORITY:
+				onPriority(streamId, payload);
+				break;
+			case RST_STREAM:
+				onReset(streamId, payload);
+				break;
+			case SETTINGS:
+				onSettings(flags, streamId, payload);
+				break;
+			case PUSH_PROMISE:
+				throw new ConnectionError(PROTOCOL_ERROR, "PUSH_PROMISE from client");
+			case PING:
+				if (streamId != 0) {
+					throw new ConnectionError(PROTOCOL_ERROR, "PING on stream " + streamId);
+				}
+				if (payload.remaining() != 8) {
+					throw new ConnectionError(FRAME_SIZE_ERROR, "PING of " + payload.remaining() + " bytes");
+				}
+				if ((flags & FLAG_ACK) == 0) {
+					sendControl(control(PING, FLAG_ACK, 0, copy(payload)));
+				}
+				break;
+			case GOAWAY:
+				if (streamId != 0) {
+					throw new ConnectionError(PROTOCOL_ERROR, "GOAWAY on stream " + streamId);
+				}
+				goingAway = true;
+				if (streams.isEmpty()) {
+					transport.requestClose();
+				}
+				break;
+			case WINDOW_UPDATE:
+				onWindowUpdate(streamId, payload);
+				break;
+			case CONTINUATION:
+				if (continuationStreamId == 0) {
+					throw new ConnectionError(PROTOCOL_ERROR, "Unexpected CONTINUATION");
+				}
+				appendHeaderBlock(payload);
+				if ((flags & FLAG_END_HEADERS) != 0) {
+					endHeaders();
+				}
+				break;
+			default:
+				// Unknown frame types are ignored (RFC 7540, 4.1)
+				break;
+		}
+	}
+
+	private void onHeaders(int flags, int streamId, ByteBuffer payload) throws ConnectionError {
+		if (streamId == 0 || (streamId & 1) == 0) {
+			throw new ConnectionError(PROTOCOL_ERROR, "HEADERS on invalid stream " + streamId);
+		}
+		int padding = 0;
+		if ((flags & FLAG_PADDED) != 0) {
+			if (!payload.hasRemaining()) {
+				throw new ConnectionError(FRAME_SIZE_ERROR, "Padded HEADERS without pad length");
+			}
+			padding = payload.get() & 0xff;
+		}
+		int dependency = 0;
+		int weight = 16;
+		if ((flags & FLAG_PRIORITY) != 0) {
+			if (payload.remaining() < 5) {
+				throw new ConnectionError(FRAME_SIZE_ERROR, "HEADERS priority truncated");
+			}
+			dependency = payload.getInt() & 0x7fffffff;
+			weight = (payload.get() & 0xff) + 1;
+		}
+		if (padding > payload.remaining()) {
+			throw new ConnectionError(PROTOCOL_ERROR, "Padding exceeds HEADERS payload");
+		}
+		payload.limit(payload.limit() - padding);
+
+		Stream existing = streams.get(streamId);
+		if (streamId <= lastStreamId && (existing == null || existing.requestComplete)) {
+			throw new ConnectionError(PROTOCOL_ERROR, "HEADERS on closed stream " + streamId);
+		}
+
+		headerBlock = new ByteArrayOutputStream(Math.max(payload.remaining(), 64));
+		continuationStreamId = streamId;
+		continuationFlags = flags;
+		continuationDependency = dependency == streamId ? 0 : dependency;
+		continuationWeight = weight;
+		appendHeaderBlock(payload);
+		if ((flags & FLAG_END_HEADERS) != 0) {
+			endHeaders();
+		}
+	}
+
+	private void appendHeaderBlock(ByteBuffer fragment) throws ConnectionError {
+		if (headerBlock.size() + fragment.remaining() > MAX_HEADER_BLOCK_BYTES) {
+			throw new ConnectionError(PROTOCOL_ERROR, "Header block exceeds " + MAX_HEADER_BLOCK_BYTES + " bytes");
+		}
+		byte[] bytes = new byte[fragment.remaining()];
+		fragment.get(bytes);
+		headerBlock.write(bytes, 0, bytes.length);
+	}
+
+	private void endHeaders() throws ConnectionError {
+		int streamId = continuationStreamId;
+		continuationStreamId = 0;
+		List<String[]> fields;
+		try {
+			fields = decoder.decode(ByteBuffer.wrap(headerBlock.toByteArray()));
+		} catch (IOException e) {
+			throw new ConnectionError(COMPRESSION_ERROR, e.getMessage());
+		}
+		headerBlock = null;
+		boolean endStream = (continuationFlags & FLAG_END_STREAM) != 0;
+
+		Stream existing = streams.get(streamId);
+		if (existing != null) {
+			// Trailers of a request with a body; nothing in them is used
+			if (endStream) {
+				requestComplete(existing);
+			}
+			return;
+		}
+
+		lastStreamId = streamId;
+		if (goingAway || transport.isStopping() || streams.size() >= MAX_CONCURRENT_STREAMS) {
+			sendReset(streamId, REFUSED_STREAM);
+			return;
+		}
+		Stream stream = newStream(streamId, fields);
+		if (stream == null) {
+			sendReset(streamId, PROTOCOL_ERROR);
+			return;
+		}
+		stream.dependency = continuationDependency;
+		stream.weight = continuationWeight;
+		synchronized (flowLock) {
+			stream.sendWindow = initialStreamWindow;
+		}
+		streams.put(streamId, stream);
+		if (endStream) {
+			requestComplete(stream);
+		}
+	}
+
+	/**
+	 * Builds a stream from decoded request fields.
+	 *
+	 * @return The stream, or null if pseudo-headers are missing or malformed
+	 */
+	private static Stream newStream(int streamId, List<String[]> fields) {
+		String method = null;
+		String path = null;
+		String authority = null;
+		Headers headers = new Headers();
+		for (String[] field : fields) {
+			String name = field[0];
+			if (name.startsWith(":")) {
+				if (!headers.isEmpty()) {
+					return null; // Pseudo-header after a regular field
+				}
+				if (":method".equals(name)) {
+					method = field[1];
+				} else if (":path".equals(name)) {
+					path = field[1];
+				} else if (":authority".equals(name)) {
+					authority = field[1];
+				} else if (!":scheme".equals(name)) {
+					return null;
+				}
+			} else {
+				headers.add(name, field[1]);
+			}
+		}
+		if (method == null || path == null || path.isEmpty()) {
+			return null;
+		}
+		if (authority != null && !headers.containsKey("Host")) {
+			headers.add("Host", authority);
+		}
+		try {
+			return new Stream(streamId, method, new URI(path), headers);
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	private void onData(int flags, int streamId, ByteBuffer payload) throws ConnectionError {
+		if (streamId == 0) {
+			throw new ConnectionError(PROTOCOL_ERROR, "DATA on stream 0");
+		}
+		int length = payload.remaining();
+		if ((flags & FLAG_PADDED) != 0 && (length == 0 || (payload.get(payload.position()) & 0xff) >= length)) {
+			throw new ConnectionError(PROTOCOL_ERROR, "Invalid DATA padding");
+		}
+		Stream stream = streams.get(streamId);
+		boolean endStream = (flags & FLAG_END_STREAM) != 0;
+
+		// Bodies are discarded: hand the flow-control credit straight back
+		if (length > 0) {
+			sendControl(windowUpdate(0, length));
+			if (stream != null && !stream.requestComplete && !endStream) {
+				sendControl(windowUpdate(streamId, length));
+			}
+		}
+		if (stream == null) {
+			if (streamId > lastStreamId) {
+				throw new ConnectionError(PROTOCOL_ERROR, "DATA on idle stream " + streamId);
+			}
+			return; // Already answered and closed
+		}
+		if (stream.requestComplete) {
+			sendReset(streamId, STREAM_CLOSED);
+			return;
+		}
+		if (endStream) {
+			requestComplete(stream);
+		}
+	}
+
+	private void onPriority(int streamId, ByteBuffer payload) throws ConnectionError {
+		if (streamId == 0) {
+			throw new ConnectionError(PROTOCOL_ERROR, "PRIORITY on stream 0");
+		}
+		if (payload.remaining() != 5) {
+			sendReset(streamId, FRAME_SIZE_ERROR);
+			return;
+		}
+		int dependency = payload.getInt() & 0x7fffffff;
+		int weight = (payload.get() & 0xff) + 1;
+		Stream stream = streams.get(streamId);
+		if (stream != null) {
+			stream.dependency = dependency == streamId ? 0 : dependency;
+			stream.weight = weight;
+		}
+	}
+
+	private void onReset(int streamId, ByteBuffer payload) throws ConnectionError {
+		if (streamId == 0 || streamId > lastStreamId) {
+			throw new ConnectionError(PROTOCOL_ERROR, "RST_STREAM on idle stream " + streamId);
+		}
+		if (payload.remaining() != 4) {
+			throw new ConnectionError(FRAME_SIZE_ERROR, "RST_STREAM of " + payload.remaining() + " bytes");
+		}
+		Stream stream = streams.get(streamId);
+		if (stream != null) {
+			stream.reset = true;
+			synchronized (flowLock) {
+				flowLock.notifyAll();
+			}
+			if (!stream.dispatched) {
+				streams.remove(streamId);
+			}
+		}
+	}
+
+	private void onSettings(int flags, int streamId, ByteBuffer payload) throws ConnectionError {
+		if (streamId != 0) {
+			throw new ConnectionError(PROTOCOL_ERROR, "SETTINGS on stream " + streamId);
+		}
+		if ((flags & FLAG_ACK) != 0) {
+			if (payload.hasRemaining()) {
+				throw new ConnectionError(FRAME_SIZE_ERROR, "SETTINGS ACK with payload");
+			}
+			return;
+		}
+		if (payload.remaining() % 6 != 0) {
+			throw new ConnectionError(FRAME_SIZE_ERROR, "SETTINGS of " + payload.remaining() + " bytes");
+		}
+		applySettings(payload);
+		sendControl(control(SETTINGS, FLAG_ACK, 0, ByteBuffer.allocate(0)));
+	}
+
+	private void applySettings(ByteBuffer payload) throws ConnectionError {
+		while (payload.remaining() >= 6) {
+			int id = payload.getShort() & 0xffff;
+			long value = payload.getInt() & 0xffffffffL;
+			switch (id) {
+				case SETTINGS_HEADER_TABLE_SIZE:
+					peerHeaderTableSize = (int) Math.min(value, Integer.MAX_VALUE);
+					break;
+				case SETTINGS_ENABLE_PUSH:
+					if (value > 1) {
+						throw new ConnectionError(PROTOCOL_ERROR, "SETTINGS_ENABLE_PUSH " + value);
+					}
+					break;
+				case SETTINGS_INITIAL_WINDOW_SIZE:
+					if (value > Integer.MAX_VALUE) {
+						throw new ConnectionError(FLOW_CONTROL_ERROR, "SETTINGS_INITIAL_WINDOW_SIZE " + value);
+					}
+					synchronized (flowLock) {
+						int delta = (int) value - initialStreamWindow;
+						initialStreamWindow = (int) value;
+						for (Stream stream : streams.values()) {
+							stream.sendWindow += delta;
+						}
+						flowLock.notifyAll();
+					}
+					break;
+				case SETTINGS_MAX_FRAME_SIZE:
+					// We never send frames above the 16384 minimum every peer accepts
+					if (value < MAX_FRAME_BYTES || value > 0xffffff) {
+						throw new ConnectionError(PROTOCOL_ERROR, "SETTINGS_MAX_FRAME_SIZE " + value);
+					}
+					break;
+				default:
+					// Unknown or irrelevant for a server (MAX_CONCURRENT_STREAMS: we never push)
+					break;
+			}
+		}
+	}
+
+	private void onWindowUpdate(int streamId, ByteBuffer payload) throws ConnectionError {
+		if (payload.remaining() != 4) {
+			throw new ConnectionError(FRAME_SIZE_ERROR, "WINDOW_UPDATE of " + payload.remaining() + " bytes");
+		}
+		int increment = payload.getInt() & 0x7fffffff;
+		if (streamId == 0) {
+			if (increment == 0) {
+				throw new ConnectionError(PROTOCOL_ERROR, "Connection WINDOW_UPDATE of 0");
+			}
+			synchronized (flowLock) {
+				if ((long) connectionSendWindow + increment > Integer.MAX_VALUE) {
+					throw new ConnectionError(FLOW_CONTROL_ERROR, "Connection window overflow");
+				}
+				connectionSendWindow += increment;
+				flowLock.notifyAll();
+			}
+			return;
+		}
+		Stream stream = streams.get(streamId);
+		if (stream == null) {
+			return;
+		}
+		boolean overflow;
+		synchronized (flowLock) {
+			overflow = increment == 0 || (long) stream.sendWindow + increment > Integer.MAX_VALUE;
+			if (!overflow) {
+				stream.sendWindow += increment;
+				flowLock.notifyAll();
+			}
+		}
+		if (overflow) {
+			stream.reset = true;
+			sendReset(streamId, increment == 0 ? PROTOCOL_ERROR : FLOW_CONTROL_ERROR);
+		}
+	}
+
+	private void requestComplete(Stream stream) {
+		stream.requestComplete = true;
+		if (stream.dispatched) {
+			return;
+		}
+		stream.dispatched = true;
+		try {
+			transport.dispatch(() -> serve(stream));
+		} catch (RejectedExecutionException e) {
+			streams.remove(stream.id);
+			sendReset(stream.id, REFUSED_STREAM);
+		}
+	}
+
+	/**
+	 * Runs on the executor: one stream, request to END_STREAM.
+	 */
+	private void serve(Stream stream) {
+		Http2Exchange exchange = new Http2Exchange(this, stream, buffers,
+				transport.getLocalAddress(), transport.getRemoteAddress());
+		boolean failed = false;
+		try {
+			String path = stream.uri.getPath() != null ? stream.uri.getPath() : "/";
+			HttpHandler handler = transport.findHandler(path);
+			if (handler == null) {
+				exchange.sendResponseHeaders(404, -1); // 404 Not Found
+			} else {
+				handler.handle(exchange);
+			}
+		} catch (IOException | RuntimeException e) {
+			failed = true;
+		}
+		exchange.complete(failed);
+		streams.remove(stream.id);
+		if (goingAway && streams.isEmpty()) {
+			transport.requestClose();
+		}
+	}
+
+	// --- Sending (worker side) ---
+
+	/**
+	 * Sends the response head; endStream when there is no body.
+	 */
+	void sendHeaders(Stream stream, List<String[]> fields, boolean endStream) throws IOException {
+		send(new Frame(HEADERS, endStream ? FLAG_END_STREAM : 0, stream.id, null, fields, stream,
+				Frame.HEADER_BLOCK, 0, 0));
+	}
+
+	/**
+	 * Sends data as DATA frames within the flow-control windows. Returns
+	 * once every byte is written; data's position is advanced.
+	 */
+	void sendData(Stream stream, ByteBuffer data, boolean endStream) throws IOException {
+		if (!data.hasRemaining()) {
+			if (endStream) {
+				send(dataFrame(stream, data, true));
+			}
+			return;
+		}
+		while (data.hasRemaining()) {
+			int allowed = acquireWindow(stream, Math.min(data.remaining(), MAX_FRAME_BYTES));
+			ByteBuffer chunk = data.duplicate();
+			chunk.limit(chunk.position() + allowed);
+			data.position(data.position() + allowed);
+			send(dataFrame(stream, chunk, endStream && !data.hasRemaining()));
+		}
+	}
+
+	/**
+	 * Abandons a stream whose response cannot be completed.
+	 */
+	void resetStream(Stream stream, int errorCode) {
+		stream.reset = true;
+		sendReset(stream.id, errorCode);
+	}
+
+	private Frame dataFrame(Stream stream, ByteBuffer chunk, boolean endStream) {
+		return new Frame(DATA, endStream ? FLAG_END_STREAM : 0, stream.id, chunk, null, stream,
+				Frame.BODY, depth(stream), stream.weight);
+	}
+
+	private int acquireWindow(Stream stream, int wanted) throws IOException {
+		long deadline = System.currentTimeMillis() + NioHttpEngine.WRITE_TIMEOUT_MILLIS;
+		synchronized (flowLock) {
+			while (true) {
+				if (stream.reset) {
+					throw new IOException("Stream " + stream.id + " was reset");
+				}
+				synchronized (writeLock) {
+					if (broken != null) {
+						throw broken;
+					}
+				}
+				int allowed = Math.min(wanted, Math.min(connectionSendWindow, stream.sendWindow));
+				if (allowed > 0) {
+					connectionSendWindow -= allowed;
+					stream.sendWindow -= allowed;
+					return allowed;
+				}
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new SocketTimeoutException("Flow-control window closed for "
+							+ NioHttpEngine.WRITE_TIMEOUT_MILLIS + " ms");
+				}
+				try {
+					flowLock.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for window");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Number of open ancestors in the priority tree; dependents go after
+	 * the streams they depend on.
+	 */
+	private int depth(Stream stream) {
+		int depth = 0;
+		int parent = stream.dependency;
+		while (parent != 0 && depth < MAX_PRIORITY_DEPTH) {
+			Stream ancestor = streams.get(parent);
+			if (ancestor == null) {
+				break;
+			}
+			depth++;
+			parent = ancestor.dependency;
+		}
+		return depth;
+	}
+
+	// --- Frame queue ---
+
+	private static Frame control(int type, int flags, int streamId, ByteBuffer payload) {
+		return new Frame(type, flags, streamId, payload, null, null, Frame.CONTROL, 0, 0);
+	}
+
+	private static Frame windowUpdate(int streamId, int increment) {
+		ByteBuffer payload = ByteBuffer.allocate(4);
+		payload.putInt(increment).flip();
+		return control(WINDOW_UPDATE, 0, streamId, payload);
+	}
+
+	private void sendReset(int streamId, int errorCode) {
+		ByteBuffer payload = ByteBuffer.allocate(4);
+		payload.putInt(errorCode).flip();
+		sendControl(control(RST_STREAM, 0, streamId, payload));
+	}
+
+	private void goAway(int errorCode, String debug) {
+		inputFailed = true;
+		goingAway = true;
+		byte[] message = debug != null ? debug.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		ByteBuffer payload = ByteBuffer.allocate(8 + message.length);
+		payload.putInt(lastStreamId).putInt(errorCode).put(message).flip();
+		Frame frame = control(GOAWAY, 0, 0, payload);
+		frame.closeAfterWrite = true;
+		sendControl(frame);
+	}
+
+	/**
+	 * Queues a frame without waiting for it; a free writer role is handed
+	 * to the executor so the selector thread does not write.
+	 */
+	private void sendControl(Frame frame) {
+		if (enqueue(frame)) {
+			try {
+				transport.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				drain();
+			}
+		}
+	}
+
+	/**
+	 * Queues a frame and returns once it is written (or failed).
+	 */
+	private void send(Frame frame) throws IOException {
+		if (enqueue(frame)) {
+			drain();
+		}
+		frame.await();
+	}
+
+	/**
+	 * @return true if the caller has taken the writer role
+	 */
+	private boolean enqueue(Frame frame) {
+		synchronized (writeLock) {
+			if (broken != null) {
+				frame.finish(broken);
+				return false;
+			}
+			frame.sequence = frameSequence++;
+			outbound.add(frame);
+			if (writing) {
+				return false;
+			}
+			writing = true;
+			return true;
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			Frame frame;
+			synchronized (writeLock) {
+				frame = outbound.poll();
+				if (frame == null) {
+					writing = false;
+					return;
+				}
+			}
+			if (frame.stream != null && frame.stream.reset) {
+				frame.finish(new IOException("Stream " + frame.streamId + " was reset"));
+				continue;
+			}
+			try {
+				write(frame);
+			} catch (IOException e) {
+				frame.finish(e);
+				fail(e);
+				transport.requestClose();
+				return;
+			}
+			frame.finish(null);
+			if (frame.closeAfterWrite) {
+				transport.requestClose();
+			}
+		}
+	}
+
+	private void write(Frame frame) throws IOException {
+		if (frame.type == HEADERS) {
+			encoder.setMaxTableSize(peerHeaderTableSize);
+			byte[] block = encoder.encode(frame.fields);
+			int offset = 0;
+			do {
+				int length = Math.min(block.length - offset, MAX_FRAME_BYTES);
+				boolean first = offset == 0;
+				boolean last = offset + length == block.length;
+				int flags = (last ? FLAG_END_HEADERS : 0) | (first ? frame.flags : 0);
+				transport.write(frameHeader(length, first ? HEADERS : CONTINUATION, flags, frame.streamId),
+						ByteBuffer.wrap(block, offset, length));
+				offset += length;
+			} while (offset < block.length);
+			return;
+		}
+		transport.write(frameHeader(frame.payload.remaining(), frame.type, frame.flags, frame.streamId),
+				frame.payload);
+	}
+
+	private void fail(IOException error) {
+		List<Frame> dropped;
+		synchronized (writeLock) {
+			if (broken == null) {
+				broken = error;
+			}
+			dropped = new ArrayList<>(outbound);
+			outbound.clear();
+		}
+		for (Frame frame : dropped) {
+			frame.finish(error);
+		}
+		synchronized (flowLock) {
+			flowLock.notifyAll();
+		}
+	}
+
+	private static ByteBuffer frameHeader(int length, int type, int flags, int streamId) {
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+		header.put((byte) (length >>> 16)).put((byte) (length >>> 8)).put((byte) length)
+				.put((byte) type).put((byte) flags).putInt(streamId & 0x7fffffff);
+		header.flip();
+		return header;
+	}
+
+	private static ByteBuffer copy(ByteBuffer source) {
+		ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+		copy.put(source).flip();
+		return copy;
+	}
+}
@@ -0,0 +1,17 @@
+package com.ui.cef_control.http;
+
+/**
+ * HTTP implementation underneath VuePressHttpServer and DocsHttpServer.
+ *
+ * JDK: com.sun.net.httpserver.HttpServer. One dispatcher thread plus the
+ *   configured executor; connection handling and buffers are internal to
+ *   the JDK.
+ * NIO: NioHttpEngine, a single selector thread with HTTP/1.1 keep-alive,
+ *   pipelining and pooled direct buffers. Meant for one control plane
+ *   serving docs to many CEF windows; handlers still run on the configured
+ *   executor.
+ */
+public enum HttpBackend {
+	JDK,
+	NIO
+}
@@ -0,0 +1,47 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * The part of com.sun.net.httpserver.HttpServer the docs servers use, so
+ * the backend can be chosen per HttpServerConfig. Handlers are plain
+ * HttpHandlers on every backend.
+ */
+interface HttpEngine {
+
+	/**
+	 * Creates and binds the engine selected by config.getBackend(); h2c
+	 * always runs on the NIO engine.
+	 *
+	 * @throws IOException if the address cannot be bound
+	 */
+	static HttpEngine bind(HttpServerConfig config, String threadNamePrefix) throws IOException {
+		InetSocketAddress address = new InetSocketAddress(config.getBindAddress(), config.getPort());
+		if (config.getBackend() == HttpBackend.NIO || config.isH2cEnabled()) {
+			return new NioHttpEngine(address, config.getBacklog(), threadNamePrefix, config.isH2cEnabled());
+		}
+		return JdkHttpEngine.create(address, config.getBacklog(), config.isJdkNoDelay());
+	}
+
+	/**
+	 * Routes requests whose path starts with path (longest prefix wins).
+	 */
+	void createContext(String path, HttpHandler handler);
+
+	void setExecutor(Executor executor);
+
+	void start();
+
+	/**
+	 * Stops accepting, waits up to drainMillis for running exchanges,
+	 * then closes all connections.
+	 *
+	 * @return How many exchanges were running and how many were cut off
+	 */
+	DrainResult stop(long drainMillis);
+
+	InetSocketAddress getAddress();
+}
@@ -0,0 +1,183 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.Headers;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Request line and headers of one HTTP/1.x request, parsed by the NIO
+ * engine from its read buffer.
+ *
+ * A head that cannot be served carries the error status to answer with
+ * (400, 501, 505) instead of throwing, so it keeps its place in the
+ * pipeline and the error goes out after the responses before it.
+ */
+final class HttpRequestHead {
+
+	private final String method;
+	private final URI uri;
+	private final String protocol;
+	private final Headers headers;
+	private final boolean keepAlive;
+	private final long contentLength;
+	private final int errorStatus;
+
+	private HttpRequestHead(String method, URI uri, String protocol, Headers headers,
+			boolean keepAlive, long contentLength, int errorStatus) {
+		this.method = method;
+		this.uri = uri;
+		this.protocol = protocol;
+		this.headers = headers;
+		this.keepAlive = keepAlive;
+		this.contentLength = contentLength;
+		this.errorStatus = errorStatus;
+	}
+
+	/**
+	 * A request that is answered with status and then closes the connection.
+	 */
+	static HttpRequestHead error(int status) {
+		return new HttpRequestHead("GET", URI.create("/"), "HTTP/1.1", new Headers(), false, 0, status);
+	}
+
+	/**
+	 * Finds the blank line that ends a head, scanning from the buffer's
+	 * position to its limit.
+	 *
+	 * @return Index just past the terminating CRLFCRLF, or -1 if the head is incomplete
+	 */
+	static int findEnd(ByteBuffer in) {
+		for (int i = in.position(), last = in.limit() - 3; i < last; i++) {
+			if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+				return i + 4;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Consumes the head between the buffer's position and end.
+	 */
+	static HttpRequestHead parse(ByteBuffer in, int end) {
+		byte[] bytes = new byte[end - in.position()];
+		in.get(bytes);
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+
+		int lineEnd = text.indexOf("\r\n");
+		String[] requestLine = text.substring(0, lineEnd).split(" ");
+		if (requestLine.length != 3) {
+			return error(400); // 400 Bad Request
+		}
+		String protocol = requestLine[2];
+		if (!protocol.startsWith("HTTP/1.")) {
+			return error(505); // 505 HTTP Version Not Supported
+		}
+		URI uri;
+		try {
+			uri = new URI(requestLine[1]);
+		} catch (URISyntaxException e) {
+			return error(400);
+		}
+
+		Headers headers = new Headers();
+		int start = lineEnd + 2;
+		while (true) {
+			int next = text.indexOf("\r\n", start);
+			if (next == start) {
+				break;
+			}
+			int colon = text.indexOf(':', start);
+			if (colon <= start || colon > next || text.charAt(start) == ' ' || text.charAt(start) == '\t') {
+				return error(400);
+			}
+			headers.add(text.substring(start, colon).trim(), text.substring(colon + 1, next).trim());
+			start = next + 2;
+		}
+
+		if (headers.containsKey("Transfer-Encoding")) {
+			return error(501); // 501 Not Implemented: chunked request bodies
+		}
+		long contentLength = 0;
+		String lengthHeader = headers.getFirst("Content-Length");
+		if (lengthHeader != null) {
+			try {
+				contentLength = Long.parseLong(lengthHeader);
+			} catch (NumberFormatException e) {
+				return error(400);
+			}
+			if (contentLength < 0) {
+				return error(400);
+			}
+		}
+
+		String connection = headers.getFirst("Connection");
+		connection = connection != null ? connection.toLowerCase(Locale.ROOT) : "";
+		boolean keepAlive = "HTTP/1.0".equals(protocol)
+				? connection.contains("keep-alive")
+				: !connection.contains("close");
+
+		return new HttpRequestHead(requestLine[0], uri, protocol, headers, keepAlive, contentLength, 0);
+	}
+
+	String getMethod() {
+		return method;
+	}
+
+	URI getUri() {
+		return uri;
+	}
+
+	String getProtocol() {
+		return protocol;
+	}
+
+	Headers getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return false if the client asked to close after this request
+	 */
+	boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * Body bytes following the head (read past and discarded).
+	 */
+	long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * @return true for a bodiless request asking to switch to h2c
+	 *         (Upgrade: h2c, HTTP2-Settings, Connection: Upgrade)
+	 */
+	boolean isH2cUpgrade() {
+		if (errorStatus != 0 || contentLength != 0 || !headers.containsKey("HTTP2-Settings")) {
+			return false;
+		}
+		String connection = headers.getFirst("Connection");
+		String upgrade = headers.getFirst("Upgrade");
+		if (connection == null || upgrade == null
+				|| !connection.toLowerCase(Locale.ROOT).contains("upgrade")) {
+			return false;
+		}
+		for (String protocol : upgrade.split(",")) {
+			if ("h2c".equalsIgnoreCase(protocol.trim())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Status to answer with instead of running a handler, or 0
+	 */
+	int getErrorStatus() {
+		return errorStatus;
+	}
+}
@@ -1,5 +1,10 @@
 package com.ui.cef_control.http;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Configuration for the VuePress static HTTP server.
  *
@@ -7,13 +12,62 @@ package com.ui.cef_control.http;
  * Binds only to 127.0.0.1 (localhost) on an ephemeral (OS-assigned) port.
  *
  * Design principle: Immutable config, minimal concerns.
+ * Optional tuning knobs are set with with*() methods, each of which
+ * returns a modified copy and leaves the original untouched. Every field
+ * is final, so a config can be shared between threads as is.
  */
 public final class HttpServerConfig {
 
+	/** Files larger than this are streamed instead of cached (1 MiB). */
+	public static final long DEFAULT_LARGE_FILE_THRESHOLD_BYTES = 1024L * 1024;
+
+	/** Chromium opens up to 6 connections per origin; leave headroom for several windows. */
+	public static final int DEFAULT_WORKER_THREADS = 8;
+
+	public static final int DEFAULT_WORKER_QUEUE_CAPACITY = 256;
+
+	/** Long enough for a large asset over loopback; stop() never blocks longer. */
+	public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 5000;
+
+	/** Bytes the hot-set warm-up loads after start() (16 MiB). */
+	public static final long DEFAULT_HOT_SET_WARMUP_BYTES = 16L * 1024 * 1024;
+
+	/** Longest the hot-set warm-up runs after start(). */
+	public static final long DEFAULT_HOT_SET_WARMUP_MILLIS = 2000;
+
+	/** Stylesheet bytes inlined per page by the HTML transform (16 KiB). */
+	public static final int DEFAULT_INLINE_CSS_LIMIT_BYTES = 16 * 1024;
+
 	private final String staticFilesPath;
 	private final int port;
 	private final String bindAddress;
 
+	// Optional tuning (copied by with*() methods through a Builder)
+	private final long assetCacheBudgetBytes;
+	private final long largeFileThresholdBytes;
+	private final ExecutorStrategy executorStrategy;
+	private final int workerThreads;
+	private final int workerQueueCapacity;
+	private final int backlog;
+	private final Map<String, String> cacheRules;
+	private final String docsPack;
+	private final HttpBackend backend;
+	private final boolean h2cEnabled;
+	private final boolean jdkNoDelay;
+	private final long drainTimeoutMillis;
+	private final int admissionMaxConcurrent;
+	private final int admissionMaxQueued;
+	private final long admissionMaxWaitMillis;
+	private final long admissionTargetLatencyMillis;
+	private final Map<String, String> mounts;
+	private final Map<String, String> hostMounts;
+	private final boolean ephemeralPortFallback;
+	private final boolean htmlTransform;
+	private final int inlineCssLimitBytes;
+	private final String hotSetFile;
+	private final long hotSetWarmupBytes;
+	private final long hotSetWarmupMillis;
+
 	/**
 	 * Creates configuration for HTTP server.
 	 *
@@ -22,6 +76,10 @@ public final class HttpServerConfig {
 	 * @param bindAddress Network address (typically 127.0.0.1)
 	 */
 	public HttpServerConfig(String staticFilesPath, int port, String bindAddress) {
+		this(checked(staticFilesPath, port, bindAddress));
+	}
+
+	private static Builder checked(String staticFilesPath, int port, String bindAddress) {
 		if (staticFilesPath == null || staticFilesPath.trim().isEmpty()) {
 			throw new IllegalArgumentException("staticFilesPath cannot be null or empty");
 		}
@@ -31,10 +89,498 @@ public final class HttpServerConfig {
 		if (bindAddress == null || bindAddress.trim().isEmpty()) {
 			throw new IllegalArgumentException("bindAddress cannot be null or empty");
 		}
+		return new Builder(staticFilesPath, port, bindAddress);
+	}
+
+	private HttpServerConfig(Builder other) {
+		this.staticFilesPath = other.staticFilesPath;
+		this.port = other.port;
+		this.bindAddress = other.bindAddress;
+		this.assetCacheBudgetBytes = other.assetCacheBudgetBytes;
+		this.largeFileThresholdBytes = other.largeFileThresholdBytes;
+		this.executorStrategy = other.executorStrategy;
+		this.workerThreads = other.workerThreads;
+		this.workerQueueCapacity = other.workerQueueCapacity;
+		this.backlog = other.backlog;
+		this.cacheRules = other.cacheRules;
+		this.docsPack = other.docsPack;
+		this.backend = other.backend;
+		this.h2cEnabled = other.h2cEnabled;
+		this.jdkNoDelay = other.jdkNoDelay;
+		this.drainTimeoutMillis = other.drainTimeoutMillis;
+		this.admissionMaxConcurrent = other.admissionMaxConcurrent;
+		this.admissionMaxQueued = other.admissionMaxQueued;
+		this.admissionMaxWaitMillis = other.admissionMaxWaitMillis;
+		this.admissionTargetLatencyMillis = other.admissionTargetLatencyMillis;
+		this.mounts = other.mounts;
+		this.hostMounts = other.hostMounts;
+		this.ephemeralPortFallback = other.ephemeralPortFallback;
+		this.htmlTransform = other.htmlTransform;
+		this.inlineCssLimitBytes = other.inlineCssLimitBytes;
+		this.hotSetFile = other.hotSetFile;
+		this.hotSetWarmupBytes = other.hotSetWarmupBytes;
+		this.hotSetWarmupMillis = other.hotSetWarmupMillis;
+	}
+
+	/**
+	 * Mutable settings a with*() method changes before they are frozen
+	 * into a new config; never escapes this class.
+	 */
+	private static final class Builder {
+		private String staticFilesPath;
+		private int port;
+		private String bindAddress;
+
+		// Optional tuning
+		private long assetCacheBudgetBytes = AssetCache.DEFAULT_BUDGET_BYTES;
+		private long largeFileThresholdBytes = DEFAULT_LARGE_FILE_THRESHOLD_BYTES;
+		private ExecutorStrategy executorStrategy = ExecutorStrategy.BOUNDED_POOL;
+		private int workerThreads = DEFAULT_WORKER_THREADS;
+		private int workerQueueCapacity = DEFAULT_WORKER_QUEUE_CAPACITY;
+		private int backlog = 0;
+		private Map<String, String> cacheRules = Collections.emptyMap();
+		private String docsPack = null;
+		private HttpBackend backend = HttpBackend.JDK;
+		private boolean h2cEnabled = false;
+		private boolean jdkNoDelay = false;
+		private long drainTimeoutMillis = DEFAULT_DRAIN_TIMEOUT_MILLIS;
+		private int admissionMaxConcurrent = 0;
+		private int admissionMaxQueued = 0;
+		private long admissionMaxWaitMillis = 0;
+		private long admissionTargetLatencyMillis = 0;
+		private Map<String, String> mounts = Collections.emptyMap();
+		private Map<String, String> hostMounts = Collections.emptyMap();
+		private boolean ephemeralPortFallback = false;
+		private boolean htmlTransform = false;
+		private int inlineCssLimitBytes = DEFAULT_INLINE_CSS_LIMIT_BYTES;
+		private String hotSetFile = null;
+		private long hotSetWarmupBytes = DEFAULT_HOT_SET_WARMUP_BYTES;
+		private long hotSetWarmupMillis = DEFAULT_HOT_SET_WARMUP_MILLIS;
+
+		Builder(String staticFilesPath, int port, String bindAddress) {
+			this.staticFilesPath = staticFilesPath;
+			this.port = port;
+			this.bindAddress = bindAddress;
+		}
+
+		Builder(HttpServerConfig config) {
+			this.staticFilesPath = config.staticFilesPath;
+			this.port = config.port;
+			this.bindAddress = config.bindAddress;
+			this.assetCacheBudgetBytes = config.assetCacheBudgetBytes;
+			this.largeFileThresholdBytes = config.largeFileThresholdBytes;
+			this.executorStrategy = config.executorStrategy;
+			this.workerThreads = config.workerThreads;
+			this.workerQueueCapacity = config.workerQueueCapacity;
+			this.backlog = config.backlog;
+			this.cacheRules = config.cacheRules;
+			this.docsPack = config.docsPack;
+			this.backend = config.backend;
+			this.h2cEnabled = config.h2cEnabled;
+			this.jdkNoDelay = config.jdkNoDelay;
+			this.drainTimeoutMillis = config.drainTimeoutMillis;
+			this.admissionMaxConcurrent = config.admissionMaxConcurrent;
+			this.admissionMaxQueued = config.admissionMaxQueued;
+			this.admissionMaxWaitMillis = config.admissionMaxWaitMillis;
+			this.admissionTargetLatencyMillis = config.admissionTargetLatencyMillis;
+			this.mounts = config.mounts;
+			this.hostMounts = config.hostMounts;
+			this.ephemeralPortFallback = config.ephemeralPortFallback;
+			this.htmlTransform = config.htmlTransform;
+			this.inlineCssLimitBytes = config.inlineCssLimitBytes;
+			this.hotSetFile = config.hotSetFile;
+			this.hotSetWarmupBytes = config.hotSetWarmupBytes;
+			this.hotSetWarmupMillis = config.hotSetWarmupMillis;
+		}
+	}
+
+	/**
+	 * Returns a copy with a different in-memory asset cache budget.
+	 *
+	 * @param budgetBytes Maximum total size of cached file bodies (0 = no caching)
+	 */
+	public HttpServerConfig withAssetCacheBudget(long budgetBytes) {
+		if (budgetBytes < 0) {
+			throw new IllegalArgumentException("assetCacheBudgetBytes must be >= 0, got: " + budgetBytes);
+		}
+		Builder copy = new Builder(this);
+		copy.assetCacheBudgetBytes = budgetBytes;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with a different large-file threshold.
+	 *
+	 * Files above the threshold bypass the asset cache and are streamed from
+	 * disk with a fixed-size transfer buffer.
+	 *
+	 * @param thresholdBytes Size in bytes above which a file is streamed
+	 */
+	public HttpServerConfig withLargeFileThreshold(long thresholdBytes) {
+		if (thresholdBytes <= 0) {
+			throw new IllegalArgumentException("largeFileThresholdBytes must be > 0, got: " + thresholdBytes);
+		}
+		Builder copy = new Builder(this);
+		copy.largeFileThresholdBytes = thresholdBytes;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy using the given thread model for requests.
+	 *
+	 * BOUNDED_POOL uses the configured worker count and queue capacity
+	 * (see withWorkerPool).
+	 *
+	 * @param strategy How exchanges are executed
+	 */
+	public HttpServerConfig withExecutorStrategy(ExecutorStrategy strategy) {
+		if (strategy == null) {
+			throw new IllegalArgumentException("executorStrategy cannot be null");
+		}
+		Builder copy = new Builder(this);
+		copy.executorStrategy = strategy;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy using a bounded worker pool.
+	 *
+	 * When all workers are busy and the queue is full, the dispatcher
+	 * thread runs the request itself instead of dropping the connection.
+	 * That keeps every request answered, at the price of the single-thread
+	 * stall the pool exists to avoid: until that request is done no other
+	 * connection is accepted or read. Such runs are counted in
+	 * WorkerPoolStats.getOverflowRuns(); size the queue so it stays at 0,
+	 * and use admission control to shed load before it gets there.
+	 *
+	 * @param threads Number of worker threads
+	 * @param queueCapacity Requests that may wait for a worker before the
+	 *                      dispatcher thread runs them itself
+	 */
+	public HttpServerConfig withWorkerPool(int threads, int queueCapacity) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("workerThreads must be >= 1, got: " + threads);
+		}
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("workerQueueCapacity must be >= 1, got: " + queueCapacity);
+		}
+		Builder copy = new Builder(this);
+		copy.executorStrategy = ExecutorStrategy.BOUNDED_POOL;
+		copy.workerThreads = threads;
+		copy.workerQueueCapacity = queueCapacity;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with a different TCP accept backlog.
+	 *
+	 * @param backlog Pending connections the OS may queue (0 = system default)
+	 */
+	public HttpServerConfig withBacklog(int backlog) {
+		if (backlog < 0) {
+			throw new IllegalArgumentException("backlog must be >= 0, got: " + backlog);
+		}
+		Builder copy = new Builder(this);
+		copy.backlog = backlog;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with an additional Cache-Control rule.
+	 *
+	 * Rules are checked in the order they were added, before the built-in
+	 * policy (fingerprinted assets immutable, everything else no-cache).
+	 * Patterns are globs relative to the static root: * and ? match within
+	 * one path segment, ** matches across directories.
+	 *
+	 * @param pathPattern Glob such as "assets/fonts/**" or "downloads/*.pdf"
+	 * @param cacheControl Cache-Control header value for matching files
+	 */
+	public HttpServerConfig withCacheRule(String pathPattern, String cacheControl) {
+		if (pathPattern == null || pathPattern.trim().isEmpty()) {
+			throw new IllegalArgumentException("pathPattern cannot be null or empty");
+		}
+		if (cacheControl == null || cacheControl.trim().isEmpty()) {
+			throw new IllegalArgumentException("cacheControl cannot be null or empty");
+		}
+		Map<String, String> rules = new LinkedHashMap<>(cacheRules);
+		rules.put(pathPattern, cacheControl);
+		Builder copy = new Builder(this);
+		copy.cacheRules = Collections.unmodifiableMap(rules);
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that serves from a docs pack (see DocsPacker) instead of
+	 * the static files directory.
+	 *
+	 * @param location Pack file path, "archive.zip!/docs.pack", or
+	 *                 "classpath:docs/docs.pack" for a pack shipped in the
+	 *                 application jar
+	 */
+	public HttpServerConfig withDocsPack(String location) {
+		if (location == null || location.trim().isEmpty()) {
+			throw new IllegalArgumentException("docsPack cannot be null or empty");
+		}
+		Builder copy = new Builder(this);
+		copy.docsPack = location;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that runs on a different HTTP implementation.
+	 *
+	 * @param backend JDK (com.sun.net.httpserver, default) or NIO (selector
+	 *                engine with keep-alive and pipelining)
+	 */
+	public HttpServerConfig withBackend(HttpBackend backend) {
+		if (backend == null) {
+			throw new IllegalArgumentException("backend cannot be null");
+		}
+		Builder copy = new Builder(this);
+		copy.backend = backend;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that also speaks HTTP/2 over cleartext (h2c): prior
+	 * knowledge and "Upgrade: h2c", with multiplexed streams, HPACK and
+	 * stream priorities. HTTP/1.1 clients are served as before.
+	 *
+	 * h2c runs on the NIO engine, so enabling it selects that backend
+	 * whatever withBackend() says.
+	 */
+	public HttpServerConfig withH2c(boolean enabled) {
+		Builder copy = new Builder(this);
+		copy.h2cEnabled = enabled;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that turns on TCP_NODELAY for the JDK backend.
+	 *
+	 * The JDK server leaves Nagle's algorithm on, so a response written as
+	 * headers plus body waits for the client's delayed ACK: about 40 ms per
+	 * request on a keep-alive connection. The JDK reads this setting from
+	 * the JVM-wide sun.net.httpserver.nodelay property, once, when the
+	 * first JDK server of the process is created. Enabling it therefore
+	 * sets that property, and takes effect only on the first JDK-backend
+	 * server the process creates; an explicit -D setting always wins. The
+	 * NIO backend sets TCP_NODELAY per connection and ignores this option.
+	 */
+	public HttpServerConfig withJdkNoDelay(boolean enabled) {
+		Builder copy = new Builder(this);
+		copy.jdkNoDelay = enabled;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with a different drain deadline.
+	 *
+	 * On stop() the server closes its listening socket, then waits up to
+	 * this long for running exchanges before closing their connections.
+	 * The JDK backend waits in whole seconds (rounded up).
+	 *
+	 * @param timeoutMillis Drain deadline (0 = close connections immediately)
+	 */
+	public HttpServerConfig withDrainTimeout(long timeoutMillis) {
+		if (timeoutMillis < 0) {
+			throw new IllegalArgumentException("drainTimeout must be >= 0, got: " + timeoutMillis);
+		}
+		Builder copy = new Builder(this);
+		copy.drainTimeoutMillis = timeoutMillis;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that limits how many requests are served at once.
+	 * The limit is applied before a request reaches the worker pool:
+	 * requests beyond it wait in a bounded queue without holding a thread;
+	 * when the queue is full, or a request waited maxWaitMillis, it gets
+	 * 503 with Retry-After. With a bounded worker pool the limit is capped
+	 * at its thread count. /__health and /__metrics are never answered
+	 * with 503.
+	 *
+	 * @param maxConcurrent Requests served at once (0 = no admission control)
+	 * @param maxQueued Requests that may wait for a slot
+	 * @param maxWaitMillis Longest wait in the queue
+	 */
+	public HttpServerConfig withAdmissionControl(int maxConcurrent, int maxQueued, long maxWaitMillis) {
+		if (maxConcurrent < 0) {
+			throw new IllegalArgumentException("maxConcurrent must be >= 0, got: " + maxConcurrent);
+		}
+		if (maxQueued < 0) {
+			throw new IllegalArgumentException("maxQueued must be >= 0, got: " + maxQueued);
+		}
+		if (maxWaitMillis < 0) {
+			throw new IllegalArgumentException("maxWaitMillis must be >= 0, got: " + maxWaitMillis);
+		}
+		Builder copy = new Builder(this);
+		copy.admissionMaxConcurrent = maxConcurrent;
+		copy.admissionMaxQueued = maxQueued;
+		copy.admissionMaxWaitMillis = maxWaitMillis;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy whose admission limit adapts to observed latency: it
+	 * shrinks while requests take longer than the target and grows back
+	 * towards maxConcurrent otherwise. Needs withAdmissionControl().
+	 *
+	 * @param targetLatencyMillis Mean request latency to aim for (0 = fixed limit)
+	 */
+	public HttpServerConfig withAdaptiveAdmission(long targetLatencyMillis) {
+		if (targetLatencyMillis < 0) {
+			throw new IllegalArgumentException("targetLatencyMillis must be >= 0, got: " + targetLatencyMillis);
+		}
+		Builder copy = new Builder(this);
+		copy.admissionTargetLatencyMillis = targetLatencyMillis;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that also serves another static files directory below
+	 * a path prefix, on the same socket and worker threads: with
+	 * withMount("/release-notes", dir), "/release-notes/v2.html" is
+	 * dir/v2.html and unknown paths below the prefix fall back to
+	 * dir/index.html.
+	 *
+	 * Every mounted root has its own path index, ETag index, file watcher
+	 * and asset cache (with the configured budget); cache rules apply to
+	 * each root. The longest matching prefix wins; paths no prefix matches
+	 * are served from the static files path.
+	 *
+	 * @param pathPrefix URL path such as "/release-notes" (a trailing '/' is ignored)
+	 * @param staticFilesPath Directory to serve below the prefix
+	 */
+	public HttpServerConfig withMount(String pathPrefix, String staticFilesPath) {
+		if (pathPrefix == null || !pathPrefix.startsWith("/")) {
+			throw new IllegalArgumentException("pathPrefix must start with '/', got: " + pathPrefix);
+		}
+		String prefix = pathPrefix;
+		while (prefix.endsWith("/")) {
+			prefix = prefix.substring(0, prefix.length() - 1);
+		}
+		if (prefix.isEmpty() || prefix.contains("..") || prefix.contains("//")) {
+			throw new IllegalArgumentException("invalid pathPrefix: " + pathPrefix);
+		}
+		if (staticFilesPath == null || staticFilesPath.trim().isEmpty()) {
+			throw new IllegalArgumentException("staticFilesPath cannot be null or empty");
+		}
+		Map<String, String> updated = new LinkedHashMap<>(mounts);
+		updated.put(prefix, staticFilesPath);
+		Builder copy = new Builder(this);
+		copy.mounts = Collections.unmodifiableMap(updated);
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that serves another static files directory to requests
+	 * whose Host header names the given host (any port), e.g. an
+	 * "api.localhost" alias of the bind address. Host mounts are matched
+	 * before path prefixes.
+	 *
+	 * @param host Host name, case-insensitive, without port
+	 * @param staticFilesPath Directory to serve for that host
+	 */
+	public HttpServerConfig withHostMount(String host, String staticFilesPath) {
+		if (host == null || host.trim().isEmpty() || host.indexOf(':') >= 0 || host.indexOf('/') >= 0) {
+			throw new IllegalArgumentException("host must be a host name without port, got: " + host);
+		}
+		if (staticFilesPath == null || staticFilesPath.trim().isEmpty()) {
+			throw new IllegalArgumentException("staticFilesPath cannot be null or empty");
+		}
+		Map<String, String> updated = new LinkedHashMap<>(hostMounts);
+		updated.put(host.trim().toLowerCase(Locale.ROOT), staticFilesPath);
+		Builder copy = new Builder(this);
+		copy.hostMounts = Collections.unmodifiableMap(updated);
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that, when HttpServerSupervisor gives up on the
+	 * configured port (retries exhausted or startup deadline reached),
+	 * makes one last attempt on an OS-assigned port. Listeners learn the
+	 * new address from onAfterRestart as usual. No effect with port 0.
+	 */
+	public HttpServerConfig withEphemeralPortFallback(boolean fallback) {
+		Builder copy = new Builder(this);
+		copy.ephemeralPortFallback = fallback;
+		return new HttpServerConfig(copy);
+	}
 
-		this.staticFilesPath = staticFilesPath;
-		this.port = port;
-		this.bindAddress = bindAddress;
+	/**
+	 * Returns a copy that transforms HTML pages before serving them:
+	 * whitespace and comments are minified and small stylesheets are
+	 * inlined (see withInlineCssLimit). Each page version is transformed
+	 * once and cached with its own ETag.
+	 */
+	public HttpServerConfig withHtmlTransform(boolean enabled) {
+		Builder copy = new Builder(this);
+		copy.htmlTransform = enabled;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with a different cap on the stylesheet bytes the HTML
+	 * transform inlines into one page. Stylesheets that would exceed it
+	 * stay linked.
+	 *
+	 * @param limitBytes Total inlined CSS per page (0 = minify only)
+	 */
+	public HttpServerConfig withInlineCssLimit(int limitBytes) {
+		if (limitBytes < 0) {
+			throw new IllegalArgumentException("inlineCssLimitBytes must be >= 0, got: " + limitBytes);
+		}
+		Builder copy = new Builder(this);
+		copy.inlineCssLimitBytes = limitBytes;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy that keeps the most requested files of the root in a
+	 * small file: saved periodically and on stop(), and read on start() to
+	 * load those files into memory in the background, most requested
+	 * first (see withHotSetWarmup for the budget).
+	 *
+	 * @param file Hot set file; created on the first save
+	 */
+	public HttpServerConfig withHotSet(String file) {
+		if (file == null || file.trim().isEmpty()) {
+			throw new IllegalArgumentException("hotSetFile cannot be null or empty");
+		}
+		Builder copy = new Builder(this);
+		copy.hotSetFile = file;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Returns a copy with a different budget for the hot-set warm-up; it
+	 * ends when either runs out.
+	 *
+	 * @param maxBytes Most file bytes to load
+	 * @param maxMillis Longest the warm-up may run
+	 */
+	public HttpServerConfig withHotSetWarmup(long maxBytes, long maxMillis) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("hotSetWarmupBytes must be > 0, got: " + maxBytes);
+		}
+		if (maxMillis <= 0) {
+			throw new IllegalArgumentException("hotSetWarmupMillis must be > 0, got: " + maxMillis);
+		}
+		Builder copy = new Builder(this);
+		copy.hotSetWarmupBytes = maxBytes;
+		copy.hotSetWarmupMillis = maxMillis;
+		return new HttpServerConfig(copy);
+	}
+
+	/**
+	 * Same settings, bound to an OS-assigned port; for the supervisor's fallback.
+	 */
+	HttpServerConfig onEphemeralPort() {
+		Builder copy = new Builder(this);
+		copy.port = 0;
+		return new HttpServerConfig(copy);
 	}
 
 	public String getStaticFilesPath() {
@@ -49,12 +595,153 @@ public final class HttpServerConfig {
 		return bindAddress;
 	}
 
+	public long getAssetCacheBudgetBytes() {
+		return assetCacheBudgetBytes;
+	}
+
+	public long getLargeFileThresholdBytes() {
+		return largeFileThresholdBytes;
+	}
+
+	public ExecutorStrategy getExecutorStrategy() {
+		return executorStrategy;
+	}
+
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
+	public int getWorkerQueueCapacity() {
+		return workerQueueCapacity;
+	}
+
+	public int getBacklog() {
+		return backlog;
+	}
+
+	/**
+	 * @return Path glob -> Cache-Control value, in evaluation order
+	 */
+	public Map<String, String> getCacheRules() {
+		return cacheRules;
+	}
+
+	/**
+	 * @return Docs pack location, or null to serve the static files directory
+	 */
+	public String getDocsPack() {
+		return docsPack;
+	}
+
+	public HttpBackend getBackend() {
+		return backend;
+	}
+
+	public boolean isH2cEnabled() {
+		return h2cEnabled;
+	}
+
+	public boolean isJdkNoDelay() {
+		return jdkNoDelay;
+	}
+
+	public long getDrainTimeoutMillis() {
+		return drainTimeoutMillis;
+	}
+
+	/**
+	 * @return Concurrent request limit, or 0 if admission control is off
+	 */
+	public int getAdmissionMaxConcurrent() {
+		return admissionMaxConcurrent;
+	}
+
+	public int getAdmissionMaxQueued() {
+		return admissionMaxQueued;
+	}
+
+	public long getAdmissionMaxWaitMillis() {
+		return admissionMaxWaitMillis;
+	}
+
+	/**
+	 * @return Latency target of the adaptive limit, or 0 for a fixed limit
+	 */
+	public long getAdmissionTargetLatencyMillis() {
+		return admissionTargetLatencyMillis;
+	}
+
+	/**
+	 * @return Path prefix ("/release-notes") -> static files directory
+	 */
+	public Map<String, String> getMounts() {
+		return mounts;
+	}
+
+	/**
+	 * @return Lower-case host name -> static files directory
+	 */
+	public Map<String, String> getHostMounts() {
+		return hostMounts;
+	}
+
+	public boolean isEphemeralPortFallback() {
+		return ephemeralPortFallback;
+	}
+
+	public boolean isHtmlTransform() {
+		return htmlTransform;
+	}
+
+	public int getInlineCssLimitBytes() {
+		return inlineCssLimitBytes;
+	}
+
+	/**
+	 * @return Hot set file, or null if none is kept
+	 */
+	public String getHotSetFile() {
+		return hotSetFile;
+	}
+
+	public long getHotSetWarmupBytes() {
+		return hotSetWarmupBytes;
+	}
+
+	public long getHotSetWarmupMillis() {
+		return hotSetWarmupMillis;
+	}
+
 	@Override
 	public String toString() {
 		return "HttpServerConfig{" +
 				"staticFilesPath='" + staticFilesPath + '\'' +
 				", port=" + port +
 				", bindAddress='" + bindAddress + '\'' +
+				", assetCacheBudgetBytes=" + assetCacheBudgetBytes +
+				", largeFileThresholdBytes=" + largeFileThresholdBytes +
+				", executorStrategy=" + executorStrategy +
+				", workerThreads=" + workerThreads +
+				", workerQueueCapacity=" + workerQueueCapacity +
+				", backlog=" + backlog +
+				", cacheRules=" + cacheRules +
+				", docsPack='" + docsPack + '\'' +
+				", backend=" + backend +
+				", h2cEnabled=" + h2cEnabled +
+				", jdkNoDelay=" + jdkNoDelay +
+				", drainTimeoutMillis=" + drainTimeoutMillis +
+				", admissionMaxConcurrent=" + admissionMaxConcurrent +
+				", admissionMaxQueued=" + admissionMaxQueued +
+				", admissionMaxWaitMillis=" + admissionMaxWaitMillis +
+				", admissionTargetLatencyMillis=" + admissionTargetLatencyMillis +
+				", mounts=" + mounts +
+				", hostMounts=" + hostMounts +
+				", ephemeralPortFallback=" + ephemeralPortFallback +
+				", htmlTransform=" + htmlTransform +
+				", inlineCssLimitBytes=" + inlineCssLimitBytes +
+				", hotSetFile='" + hotSetFile + '\'' +
+				", hotSetWarmupBytes=" + hotSetWarmupBytes +
+				", hotSetWarmupMillis=" + hotSetWarmupMillis +
 				'}';
 	}
 }
@@ -8,6 +8,10 @@ package com.ui.cef_control.http;
  *
  * Implementation note: Listeners must NOT throw exceptions.
  * Listeners must NOT mutate server state.
+ *
+ * Health events (onSloBreached, onUnresponsive, onHealthRestored) come
+ * from HttpServerSupervisor's prober thread, only when a HealthProbeConfig
+ * was given, and only on a change of state.
  */
 public interface HttpServerListener {
 
@@ -39,5 +43,33 @@ public interface HttpServerListener {
 	 * @param error The exception that caused the failure
 	 */
 	void onStartFailure(Throwable error);
+
+	/**
+	 * Called when the latency quantile of recent health probes rises above
+	 * the SLO target (HealthProbeConfig.withLatencySlo).
+	 *
+	 * @param stats Prober figures at the time of the breach
+	 */
+	default void onSloBreached(HealthStats stats) {
+	}
+
+	/**
+	 * Called when the configured number of consecutive health probes failed.
+	 * If restarts are enabled, the supervisor restarts the server right after
+	 * this call (onBeforeRestart / onAfterRestart follow).
+	 *
+	 * @param stats Prober figures at the time of detection
+	 */
+	default void onUnresponsive(HealthStats stats) {
+	}
+
+	/**
+	 * Called when probes succeed within the SLO again after onSloBreached
+	 * or onUnresponsive.
+	 *
+	 * @param stats Prober figures at the time of recovery
+	 */
+	default void onHealthRestored(HealthStats stats) {
+	}
 }
 
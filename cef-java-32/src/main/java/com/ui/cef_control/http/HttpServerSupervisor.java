@@ -4,6 +4,14 @@ import com.ui.cef_control.supervisor.RetryPolicy;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Supervisor for the VuePress HTTP server lifecycle.
@@ -16,14 +24,22 @@ import java.util.List;
  * - Notify listeners (via HttpServerListener) before and after restarts
  * - Use exponential backoff for restart attempts (Phase-6 functional, not Phase-7 hardening)
  * - Maintain deterministic lifecycle: never mutate server from outside
+ * - Optionally probe the running server (HealthProbeConfig): loopback GET
+ *   /__health on a schedule, latency histogram, SLO and unresponsiveness
+ *   events to listeners, restart when the server stops answering
  *
  * Lifecycle:
  * 1. Create supervisor with server and retry policy
  * 2. Add listeners to be notified of restart events
- * 3. Call start() -> server starts, listeners notified on success/failure
- * 4. Server runs independently; supervisor is passive observer
- * 5. If server crashes, supervisor can orchestrate restart (future integration)
- * 6. Call stop() -> graceful shutdown
+ * 3. Call start() -> server starts, listeners notified on success/failure;
+ *    or startAsync() -> same, but retries are scheduled and the caller
+ *    gets a future of the bound address
+ * 4. Server runs independently; supervisor is passive observer, or with
+ *    a HealthProbeConfig watches it from a probe thread
+ * 5. If the server stops answering probes, the supervisor restarts it
+ *    (HealthProbeConfig.withRestartOnUnresponsive); start attempts are
+ *    scheduled like startAsync()'s, so the lock is free between them
+ * 6. Call stop() -> graceful shutdown, cancelling a pending restart
  *
  * Design constraints:
  * - Java owns the lifecycle
@@ -42,7 +58,11 @@ public class HttpServerSupervisor {
 	private final VuePressHttpServer server;
 	private final RetryPolicy retryPolicy;
 	private final List<HttpServerListener> listeners;
-	private boolean serverRunning;
+	private final HealthProbeConfig healthConfig;
+	private volatile HealthProber prober;
+	private volatile boolean serverRunning;
+	// Restart after failed probes whose attempts are still scheduled; guarded by this
+	private AsyncStart pendingRestart;
 
 	/**
 	 * Creates supervisor for HTTP server.
@@ -51,6 +71,17 @@ public class HttpServerSupervisor {
 	 * @param retryPolicy Policy for restart retries (exponential backoff, max attempts)
 	 */
 	public HttpServerSupervisor(VuePressHttpServer server, RetryPolicy retryPolicy) {
+		this(server, retryPolicy, null);
+	}
+
+	/**
+	 * Creates supervisor that also probes the server while it runs.
+	 *
+	 * @param server The HTTP server to supervise
+	 * @param retryPolicy Policy for restart retries (exponential backoff, max attempts)
+	 * @param healthConfig Probe schedule, SLO and restart behaviour (null = no probing)
+	 */
+	public HttpServerSupervisor(VuePressHttpServer server, RetryPolicy retryPolicy, HealthProbeConfig healthConfig) {
 		if (server == null) {
 			throw new IllegalArgumentException("server cannot be null");
 		}
@@ -60,7 +91,9 @@ public class HttpServerSupervisor {
 
 		this.server = server;
 		this.retryPolicy = retryPolicy;
-		this.listeners = new ArrayList<>();
+		// Notified from the probe thread too
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.healthConfig = healthConfig;
 		this.serverRunning = false;
 	}
 
@@ -72,34 +105,87 @@ public class HttpServerSupervisor {
 	 *
 	 * Phase-6: Simple exponential backoff and notify-on-restart.
 	 * Phase-7: Deferred (metrics, advanced recovery, external service registration).
+	 *
+	 * With a HealthProbeConfig, probing starts once the server is up. A
+	 * restart after failed health probes that is still retrying is
+	 * replaced by this start.
 	 */
-	public void start() {
-		int attempt = 1;
+	public synchronized void start() {
+		AsyncStart restart = pendingRestart;
+		if (restart != null) {
+			pendingRestart = null;
+			restart.result.cancel(false);
+		}
+		startWithRetry();
+		startProber();
+	}
 
-		while (true) {
-			try {
-				// Notify listeners that restart is about to happen
-				notifyBeforeRestart();
+	/**
+	 * Starts the HTTP server without blocking the caller.
+	 *
+	 * Same as startAsync(0): no startup deadline.
+	 */
+	public CompletableFuture<String> startAsync() {
+		return startAsync(0);
+	}
 
-				// Perform actual start
-				server.start();
+	/**
+	 * Starts the HTTP server without blocking the caller, so the rest of
+	 * the application can come up while the docs server is still retrying.
+	 *
+	 * Attempts run on a scheduler thread shared by all supervisors; between
+	 * attempts the retry policy's backoff is a scheduled delay, not a sleep.
+	 * Listeners are notified exactly as with start().
+	 *
+	 * The future completes with the bound address ("127.0.0.1:PORT"), or
+	 * exceptionally once the retry policy gives up (RuntimeException) or
+	 * the next attempt would start after the deadline (TimeoutException).
+	 * Before failing, one last attempt is made on an OS-assigned port if
+	 * the config asks for it (HttpServerConfig.withEphemeralPortFallback).
+	 * Cancelling the future drops any pending attempt; a server that came
+	 * up at the same moment is stopped again.
+	 *
+	 * @param deadlineMillis Overall startup budget from now (0 = none)
+	 */
+	public CompletableFuture<String> startAsync(long deadlineMillis) {
+		if (deadlineMillis < 0) {
+			throw new IllegalArgumentException("deadlineMillis must be >= 0, got: " + deadlineMillis);
+		}
+		AsyncStart start = new AsyncStart(deadlineMillis);
+		start.schedule(0);
+		return start.result;
+	}
 
-				// Mark as running
-				this.serverRunning = true;
+	private void startProber() {
+		if (healthConfig != null && prober == null) {
+			ProbeCallback callback = new ProbeCallback();
+			HealthProber created = new HealthProber(healthConfig, server::getBoundAddress, callback);
+			callback.owner = created;
+			prober = created;
+			created.start();
+		}
+	}
 
-				// Get new address and notify listeners
-				String actualAddress = server.getActualAddress();
-				notifyAfterRestart(actualAddress);
+	private void startWithRetry() {
+		int attempt = 1;
 
+		while (true) {
+			try {
+				startOnce(false);
 				return; // Success
 
 			} catch (IOException e) {
-				// Notify listeners of failure
-				notifyStartFailure(e);
-
 				// Check retry policy
 				if (!retryPolicy.shouldRetry(attempt, e)) {
-					// Retries exhausted
+					// Retries exhausted; last resort is an OS-assigned port
+					if (canFallBackToEphemeralPort()) {
+						try {
+							startOnce(true);
+							return;
+						} catch (IOException fallbackFailure) {
+							e.addSuppressed(fallbackFailure);
+						}
+					}
 					throw new RuntimeException(
 							"Failed to start HTTP server after " + attempt + " attempts",
 							e
@@ -121,19 +207,255 @@ public class HttpServerSupervisor {
 	}
 
 	/**
-	 * Stops the HTTP server gracefully.
+	 * One start attempt with listener notifications.
+	 *
+	 * @return Bound address
+	 */
+	private String startOnce(boolean ephemeralPort) throws IOException {
+		try {
+			// Notify listeners that restart is about to happen
+			notifyBeforeRestart();
+
+			// Perform actual start
+			if (ephemeralPort) {
+				server.startOnEphemeralPort();
+			} else {
+				server.start();
+			}
+
+			// Mark as running
+			this.serverRunning = true;
+
+			// Get new address and notify listeners
+			String actualAddress = server.getActualAddress();
+			notifyAfterRestart(actualAddress);
+			return actualAddress;
+
+		} catch (IOException e) {
+			// Notify listeners of failure
+			notifyStartFailure(e);
+			throw e;
+		}
+	}
+
+	private boolean canFallBackToEphemeralPort() {
+		HttpServerConfig config = server.getConfig();
+		return config.isEphemeralPortFallback() && config.getPort() != 0;
+	}
+
+	/**
+	 * State of one startAsync() call or restart after failed probes.
+	 * Attempts run under the supervisor lock, so they never overlap
+	 * start(), stop() or each other; the lock is released between them.
+	 */
+	private final class AsyncStart {
+		final CompletableFuture<String> result = new CompletableFuture<>();
+		private final long deadlineNanos;
+		private int attempt = 1;
+		private volatile ScheduledFuture<?> pending;
+
+		AsyncStart(long deadlineMillis) {
+			this.deadlineNanos = deadlineMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : 0;
+			result.whenComplete((address, error) -> {
+				ScheduledFuture<?> next = pending;
+				if (next != null && result.isCancelled()) {
+					next.cancel(false);
+				}
+			});
+		}
+
+		void schedule(long delayMillis) {
+			pending = StartScheduler.INSTANCE.schedule(this::attempt, delayMillis, TimeUnit.MILLISECONDS);
+		}
+
+		private void attempt() {
+			synchronized (HttpServerSupervisor.this) {
+				if (result.isDone()) {
+					return;
+				}
+				try {
+					started(startOnce(false));
+					return;
+				} catch (IOException e) {
+					failed(e);
+				} catch (RuntimeException e) {
+					// e.g. already running; not something a retry fixes
+					result.completeExceptionally(e);
+				}
+			}
+		}
+
+		private void failed(IOException failure) {
+			boolean retry = retryPolicy.shouldRetry(attempt, failure);
+			long backoffMs = retry ? retryPolicy.getBackoffMs(attempt) : 0;
+			boolean pastDeadline = retry && deadlineNanos != 0
+					&& System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs) > deadlineNanos;
+			if (retry && !pastDeadline) {
+				attempt++;
+				schedule(backoffMs);
+				return;
+			}
+			if (canFallBackToEphemeralPort()) {
+				try {
+					started(startOnce(true));
+					return;
+				} catch (IOException fallbackFailure) {
+					failure.addSuppressed(fallbackFailure);
+				}
+			}
+			if (pastDeadline) {
+				TimeoutException timeout = new TimeoutException(
+						"HTTP server not started within the deadline after " + attempt + " attempts");
+				timeout.initCause(failure);
+				result.completeExceptionally(timeout);
+			} else {
+				result.completeExceptionally(new RuntimeException(
+						"Failed to start HTTP server after " + attempt + " attempts", failure));
+			}
+		}
+
+		private void started(String address) {
+			if (!result.complete(address)) {
+				// Cancelled while this attempt was binding
+				server.stop();
+				serverRunning = false;
+				return;
+			}
+			startProber();
+		}
+	}
+
+	/**
+	 * Runs startAsync() attempts. One daemon thread for all supervisors:
+	 * an attempt is a bind and a few context registrations.
+	 */
+	private static final class StartScheduler {
+		static final ScheduledExecutorService INSTANCE = create();
+
+		private static ScheduledExecutorService create() {
+			ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "http-supervisor-start");
+				thread.setDaemon(true);
+				return thread;
+			});
+			// Cancelled retries must not pin their supervisor until the backoff ends
+			scheduler.setRemoveOnCancelPolicy(true);
+			return scheduler;
+		}
+	}
+
+	/**
+	 * Stops the HTTP server gracefully. A restart after failed health
+	 * probes that is still retrying is cancelled.
 	 *
 	 * @throws IllegalStateException if server is not running
 	 */
-	public void stop() {
-		if (!serverRunning) {
+	public synchronized void stop() {
+		AsyncStart restart = pendingRestart;
+		if (!serverRunning && restart == null) {
 			throw new IllegalStateException("Server is not running");
 		}
 
-		server.stop();
+		if (restart != null) {
+			pendingRestart = null;
+			restart.result.cancel(false);
+		}
+		HealthProber current = prober;
+		if (current != null) {
+			current.stop();
+			prober = null;
+		}
+		if (server.isRunning()) {
+			server.stop();
+		}
 		this.serverRunning = false;
 	}
 
+	/**
+	 * Returns the health prober's state, probe latency percentiles and
+	 * failure counts.
+	 *
+	 * @return Snapshot, or null if no HealthProbeConfig was given or the
+	 *         supervisor is stopped
+	 */
+	public HealthStats getHealthStats() {
+		HealthProber current = prober;
+		return current != null ? current.stats() : null;
+	}
+
+	/**
+	 * Prober callback: stops the server and schedules its start, unless
+	 * stop() got there first or a restart is already under way. Attempts
+	 * and backoff run on the start scheduler (see startAsync), so neither
+	 * the probe thread nor the supervisor lock is held while retrying.
+	 *
+	 * @return true if a restart was scheduled
+	 */
+	private synchronized boolean restartUnresponsive(HealthProber source) {
+		if (!serverRunning || prober != source || source.isStopped()) {
+			return false;
+		}
+		// A hung server is stopped (drain deadline bounds the wait); one that died is just started again
+		if (server.isRunning()) {
+			DrainResult drain = server.stop();
+			if (!drain.isClean()) {
+				System.err.println("HttpServerSupervisor: unresponsive server, aborted " + drain.getAborted()
+						+ " in-flight requests on restart");
+			}
+		}
+		this.serverRunning = false;
+		AsyncStart restart = new AsyncStart(0);
+		pendingRestart = restart;
+		restart.result.whenComplete((address, error) -> restartFinished(restart, source, error));
+		restart.schedule(0);
+		return true;
+	}
+
+	private synchronized void restartFinished(AsyncStart restart, HealthProber source, Throwable error) {
+		if (pendingRestart != restart) {
+			return; // Cancelled by stop()
+		}
+		pendingRestart = null;
+		if (error != null && !(error instanceof CancellationException)) {
+			// Retries exhausted; listeners already heard onStartFailure
+			System.err.println("HttpServerSupervisor: restart after failed health probes gave up: " + error.getMessage());
+			source.stop();
+			if (prober == source) {
+				prober = null;
+			}
+		}
+	}
+
+	/**
+	 * Turns prober state changes into listener events.
+	 */
+	private final class ProbeCallback implements HealthProber.Callback {
+		private HealthProber owner;
+
+		@Override
+		public void stateChanged(HealthState previous, HealthState current, HealthStats stats) {
+			for (HttpServerListener listener : listeners) {
+				try {
+					if (current == HealthState.DEGRADED) {
+						listener.onSloBreached(stats);
+					} else if (current == HealthState.UNRESPONSIVE) {
+						listener.onUnresponsive(stats);
+					} else if (current == HealthState.HEALTHY && previous != HealthState.UNKNOWN) {
+						listener.onHealthRestored(stats);
+					}
+				} catch (Exception e) {
+					System.err.println("HttpServerListener health callback threw exception: " + e);
+					e.printStackTrace();
+				}
+			}
+		}
+
+		@Override
+		public boolean restartRequested(HealthStats stats) {
+			return restartUnresponsive(owner);
+		}
+	}
+
 	/**
 	 * Returns true if the server is currently running.
 	 *
@@ -0,0 +1,84 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HttpEngine over the JDK built-in server.
+ *
+ * The JDK server does not expose its exchange count, so handlers are
+ * wrapped to count running exchanges for the drain report.
+ */
+final class JdkHttpEngine implements HttpEngine {
+
+	private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	private final HttpServer server;
+	private final AtomicInteger activeExchanges;
+
+	JdkHttpEngine(HttpServer server) {
+		this.server = server;
+		this.activeExchanges = new AtomicInteger();
+	}
+
+	/**
+	 * Binds a JDK server.
+	 *
+	 * @param noDelay Set sun.net.httpserver.nodelay (unless given with -D)
+	 *                before the server is created; see
+	 *                HttpServerConfig.withJdkNoDelay for why and when it applies
+	 * @throws IOException if the address cannot be bound
+	 */
+	static JdkHttpEngine create(InetSocketAddress address, int backlog, boolean noDelay) throws IOException {
+		if (noDelay && System.getProperty(NODELAY_PROPERTY) == null) {
+			System.setProperty(NODELAY_PROPERTY, "true");
+		}
+		return new JdkHttpEngine(HttpServer.create(address, backlog));
+	}
+
+	@Override
+	public void createContext(String path, HttpHandler handler) {
+		server.createContext(path, exchange -> {
+			activeExchanges.incrementAndGet();
+			try {
+				handler.handle(exchange);
+			} finally {
+				activeExchanges.decrementAndGet();
+			}
+		});
+	}
+
+	@Override
+	public void setExecutor(Executor executor) {
+		server.setExecutor(executor);
+	}
+
+	@Override
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * HttpServer.stop() takes whole seconds and returns early once its
+	 * exchanges are done; with nothing running it is told not to wait.
+	 */
+	@Override
+	public DrainResult stop(long drainMillis) {
+		long start = System.nanoTime();
+		int inFlight = activeExchanges.get();
+		int delaySeconds = inFlight == 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (drainMillis + 999) / 1000);
+		server.stop(delaySeconds);
+		return new DrainResult(inFlight, activeExchanges.get(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	@Override
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+}
@@ -0,0 +1,194 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serves the reserved /__metrics context.
+ *
+ * Formats:
+ * - Plain text, one "name{labels} value" line per figure (default)
+ * - JSON with ?format=json or "Accept: application/json"
+ *
+ * Requests to this context are not recorded themselves.
+ */
+class MetricsHandler implements HttpHandler {
+
+	static final String CONTEXT_PATH = "/__metrics";
+
+	private final RequestMetrics metrics;
+	private final Supplier<AssetCacheStats> cacheStats;
+	private final Supplier<WorkerPoolStats> workerStats;
+	private final Supplier<AdmissionStats> admissionStats;
+
+	/**
+	 * @param metrics Request recorder of the server
+	 * @param cacheStats Asset cache counters
+	 * @param workerStats Executor counters (supplier may return null while stopped)
+	 * @param admissionStats Admission counters (supplier returns null when admission control is off)
+	 */
+	MetricsHandler(RequestMetrics metrics, Supplier<AssetCacheStats> cacheStats,
+			Supplier<WorkerPoolStats> workerStats, Supplier<AdmissionStats> admissionStats) {
+		this.metrics = metrics;
+		this.cacheStats = cacheStats;
+		this.workerStats = workerStats;
+		this.admissionStats = admissionStats;
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			exchange.sendResponseHeaders(405, -1); // 405 Method Not Allowed
+			exchange.close();
+			return;
+		}
+
+		RequestMetricsStats stats = metrics.stats();
+		AssetCacheStats cache = cacheStats.get();
+		WorkerPoolStats workers = workerStats.get();
+		AdmissionStats admission = admissionStats.get();
+
+		String body;
+		String contentType;
+		if (wantsJson(exchange)) {
+			body = renderJson(stats, cache, workers, admission);
+			contentType = "application/json; charset=utf-8";
+		} else {
+			body = renderText(stats, cache, workers, admission);
+			contentType = "text/plain; charset=utf-8";
+		}
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	private static boolean wantsJson(HttpExchange exchange) {
+		String query = exchange.getRequestURI().getQuery();
+		if (query != null && query.contains("format=json")) {
+			return true;
+		}
+		String accept = exchange.getRequestHeaders().getFirst("Accept");
+		return accept != null && accept.contains("application/json");
+	}
+
+	static String renderText(RequestMetricsStats stats, AssetCacheStats cache, WorkerPoolStats workers,
+			AdmissionStats admission) {
+		StringBuilder out = new StringBuilder(2048);
+		out.append("http_in_flight ").append(stats.getInFlight()).append('\n');
+		for (RouteStats route : stats.getRoutes().values()) {
+			String label = "{route=\"" + route.getRoute().name().toLowerCase(Locale.ROOT) + "\"";
+			out.append("http_requests_total").append(label).append("} ").append(route.getRequests()).append('\n');
+			out.append("http_bytes_total").append(label).append("} ").append(route.getBytes()).append('\n');
+			out.append("http_latency_us").append(label).append(",quantile=\"0.5\"} ")
+					.append(route.getP50Micros()).append('\n');
+			out.append("http_latency_us").append(label).append(",quantile=\"0.9\"} ")
+					.append(route.getP90Micros()).append('\n');
+			out.append("http_latency_us").append(label).append(",quantile=\"0.99\"} ")
+					.append(route.getP99Micros()).append('\n');
+			out.append("http_latency_us_max").append(label).append("} ").append(route.getMaxMicros()).append('\n');
+		}
+		for (Map.Entry<Integer, Long> status : stats.getStatusCounts().entrySet()) {
+			out.append("http_responses_total{status=\"").append(status.getKey()).append("\"} ")
+					.append(status.getValue()).append('\n');
+		}
+		out.append("asset_cache_hits ").append(cache.getHits()).append('\n');
+		out.append("asset_cache_misses ").append(cache.getMisses()).append('\n');
+		out.append("asset_cache_evictions ").append(cache.getEvictions()).append('\n');
+		out.append("asset_cache_hit_ratio ").append(formatRatio(cache.getHitRatio())).append('\n');
+		out.append("asset_cache_used_bytes ").append(cache.getUsedBytes()).append('\n');
+		if (workers != null) {
+			out.append("worker_active ").append(workers.getActiveWorkers()).append('\n');
+			out.append("worker_queue_depth ").append(workers.getQueueDepth()).append('\n');
+			out.append("worker_pool_size ").append(workers.getPoolSize()).append('\n');
+			out.append("worker_overflow_runs_total ").append(workers.getOverflowRuns()).append('\n');
+		}
+		if (admission != null) {
+			out.append("admission_limit ").append(admission.getLimit()).append('\n');
+			out.append("admission_active ").append(admission.getActive()).append('\n');
+			out.append("admission_queued ").append(admission.getQueued()).append('\n');
+			out.append("admission_admitted_total ").append(admission.getAdmitted()).append('\n');
+			out.append("admission_rejected_total ").append(admission.getRejected()).append('\n');
+		}
+		return out.toString();
+	}
+
+	static String renderJson(RequestMetricsStats stats, AssetCacheStats cache, WorkerPoolStats workers,
+			AdmissionStats admission) {
+		StringBuilder out = new StringBuilder(2048);
+		out.append("{\"inFlight\":").append(stats.getInFlight());
+
+		out.append(",\"routes\":{");
+		boolean first = true;
+		for (RouteStats route : stats.getRoutes().values()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append('"').append(route.getRoute().name().toLowerCase(Locale.ROOT)).append("\":{")
+					.append("\"requests\":").append(route.getRequests())
+					.append(",\"bytes\":").append(route.getBytes())
+					.append(",\"p50Micros\":").append(route.getP50Micros())
+					.append(",\"p90Micros\":").append(route.getP90Micros())
+					.append(",\"p99Micros\":").append(route.getP99Micros())
+					.append(",\"maxMicros\":").append(route.getMaxMicros())
+					.append('}');
+		}
+		out.append('}');
+
+		out.append(",\"statusCounts\":{");
+		first = true;
+		for (Map.Entry<Integer, Long> status : stats.getStatusCounts().entrySet()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append('"').append(status.getKey()).append("\":").append(status.getValue());
+		}
+		out.append('}');
+
+		out.append(",\"assetCache\":{")
+				.append("\"hits\":").append(cache.getHits())
+				.append(",\"misses\":").append(cache.getMisses())
+				.append(",\"evictions\":").append(cache.getEvictions())
+				.append(",\"hitRatio\":").append(formatRatio(cache.getHitRatio()))
+				.append(",\"usedBytes\":").append(cache.getUsedBytes())
+				.append('}');
+
+		if (workers != null) {
+			out.append(",\"workers\":{")
+					.append("\"strategy\":\"").append(workers.getStrategy()).append('"')
+					.append(",\"active\":").append(workers.getActiveWorkers())
+					.append(",\"queueDepth\":").append(workers.getQueueDepth())
+					.append(",\"poolSize\":").append(workers.getPoolSize())
+					.append(",\"overflowRuns\":").append(workers.getOverflowRuns())
+					.append('}');
+		}
+		if (admission != null) {
+			out.append(",\"admission\":{")
+					.append("\"limit\":").append(admission.getLimit())
+					.append(",\"maxConcurrent\":").append(admission.getMaxConcurrent())
+					.append(",\"active\":").append(admission.getActive())
+					.append(",\"queued\":").append(admission.getQueued())
+					.append(",\"admitted\":").append(admission.getAdmitted())
+					.append(",\"rejected\":").append(admission.getRejected())
+					.append('}');
+		}
+		out.append('}');
+		return out.toString();
+	}
+
+	private static String formatRatio(double ratio) {
+		return String.format(Locale.ROOT, "%.4f", ratio);
+	}
+}
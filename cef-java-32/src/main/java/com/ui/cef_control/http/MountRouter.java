@@ -0,0 +1,254 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves several static roots from one server (HttpServerConfig.withMount
+ * and withHostMount): one socket, one executor, one set of NIO buffers,
+ * however many doc sets are mounted.
+ *
+ * Routing, decided per request without allocating:
+ * - Host header naming a host mount -> that root, whole path
+ * - Longest path prefix ending at a segment boundary -> that root, path
+ *   below the prefix ("/release-notes/v2.html" -> "v2.html")
+ * - Anything else -> the server's own root
+ *
+ * Prefixes are compiled into a character trie when the router is built,
+ * so matching is one pass over the path whatever the number of mounts;
+ * host mounts are few and compared in place against the Host header.
+ *
+ * Each mounted root is a StaticSite of its own (path index, ETag index,
+ * watcher, preload hints, asset cache) with its own StaticFileHandler;
+ * request metrics are shared with the server.
+ */
+final class MountRouter implements HttpHandler, Closeable {
+
+	/**
+	 * Trie node; children by next character in parallel arrays (a node
+	 * rarely has more than a few).
+	 */
+	private static final class Node {
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		// Handler of the prefix ending here, or null
+		private HttpHandler handler;
+
+		Node child(char c) {
+			for (int i = 0; i < labels.length; i++) {
+				if (labels[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			Node existing = child(c);
+			if (existing != null) {
+				return existing;
+			}
+			Node created = new Node();
+			labels = Arrays.copyOf(labels, labels.length + 1);
+			children = Arrays.copyOf(children, children.length + 1);
+			labels[labels.length - 1] = c;
+			children[children.length - 1] = created;
+			return created;
+		}
+	}
+
+	private final HttpHandler root;
+	private final Node prefixes;
+	private final String[] hosts;
+	private final HttpHandler[] hostHandlers;
+	private final List<StaticSite> prefixSites;
+	// Parallel to hosts; null entries for handlers given directly (tests)
+	private final StaticSite[] hostSites;
+	private final List<StaticSite> sites;
+
+	/**
+	 * @param root Handler for requests no mount matches
+	 * @param prefixMounts Path prefix without trailing '/' -> handler
+	 * @param hostMounts Lower-case host name -> handler
+	 */
+	MountRouter(HttpHandler root, Map<String, HttpHandler> prefixMounts, Map<String, HttpHandler> hostMounts) {
+		this(root, prefixMounts, hostMounts, Collections.emptyList(), new StaticSite[hostMounts.size()]);
+	}
+
+	private MountRouter(HttpHandler root, Map<String, HttpHandler> prefixMounts,
+			Map<String, HttpHandler> hostMounts, List<StaticSite> prefixSites, StaticSite[] hostSites) {
+		this.root = root;
+		this.prefixes = new Node();
+		for (Map.Entry<String, HttpHandler> mount : prefixMounts.entrySet()) {
+			Node node = prefixes;
+			String prefix = mount.getKey();
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.addChild(prefix.charAt(i));
+			}
+			node.handler = mount.getValue();
+		}
+		this.hosts = hostMounts.keySet().toArray(new String[0]);
+		this.hostHandlers = hostMounts.values().toArray(new HttpHandler[0]);
+		this.prefixSites = prefixSites;
+		this.hostSites = hostSites;
+		List<StaticSite> all = new ArrayList<>(prefixSites);
+		for (StaticSite site : hostSites) {
+			if (site != null) {
+				all.add(site);
+			}
+		}
+		this.sites = all;
+	}
+
+	/**
+	 * Opens the roots mounted in a server config and builds the router.
+	 *
+	 * @param root Handler of the server's own root
+	 * @return The router, or null if the config mounts nothing
+	 * @throws IOException if a mounted directory is missing or cannot be
+	 *         watched; roots opened so far are closed again
+	 */
+	static MountRouter open(HttpServerConfig config, HttpHandler root, RequestMetrics metrics) throws IOException {
+		if (config.getMounts().isEmpty() && config.getHostMounts().isEmpty()) {
+			return null;
+		}
+		CachePolicy cachePolicy = new CachePolicy(config.getCacheRules());
+		List<StaticSite> prefixSites = new ArrayList<>();
+		List<StaticSite> hostSites = new ArrayList<>();
+		Map<String, HttpHandler> prefixMounts = new LinkedHashMap<>();
+		Map<String, HttpHandler> hostMounts = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<String, String> mount : config.getMounts().entrySet()) {
+				String prefix = mount.getKey();
+				StaticSite site = openSite(config, mount.getValue(), prefix + "/", cachePolicy);
+				prefixSites.add(site);
+				prefixMounts.put(prefix, new StaticFileHandler(site, metrics, prefix.length()));
+			}
+			for (Map.Entry<String, String> mount : config.getHostMounts().entrySet()) {
+				StaticSite site = openSite(config, mount.getValue(), "/", cachePolicy);
+				hostSites.add(site);
+				hostMounts.put(mount.getKey(), new StaticFileHandler(site, metrics));
+			}
+		} catch (IOException | RuntimeException e) {
+			for (StaticSite site : prefixSites) {
+				site.close();
+			}
+			for (StaticSite site : hostSites) {
+				site.close();
+			}
+			throw e;
+		}
+		return new MountRouter(root, prefixMounts, hostMounts, prefixSites, hostSites.toArray(new StaticSite[0]));
+	}
+
+	private static StaticSite openSite(HttpServerConfig config, String directory, String basePath,
+			CachePolicy cachePolicy) throws IOException {
+		Path path = Paths.get(directory);
+		if (!Files.isDirectory(path)) {
+			throw new IOException("Mounted path does not exist or is not a directory: " + path);
+		}
+		return StaticSite.open(path, basePath, new AssetCache(config.getAssetCacheBudgetBytes()),
+				config.getLargeFileThresholdBytes(), cachePolicy).withHtmlTransform(config);
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		route(StaticFileHandler.requestHeader(exchange, "Host"), exchange.getRequestURI().getPath())
+				.handle(exchange);
+	}
+
+	/**
+	 * @param host Host header as sent (port included), or null
+	 * @param path Request path
+	 * @return Handler of the matching mount, or the root handler
+	 */
+	HttpHandler route(String host, String path) {
+		int hostIndex = hostIndex(host);
+		if (hostIndex >= 0) {
+			return hostHandlers[hostIndex];
+		}
+
+		HttpHandler match = root;
+		Node node = prefixes;
+		int length = path.length();
+		for (int i = 0; ; i++) {
+			if (node.handler != null && (i == length || path.charAt(i) == '/')) {
+				match = node.handler; // Prefix ends at a segment boundary; keep looking for a longer one
+			}
+			if (i == length) {
+				return match;
+			}
+			node = node.child(path.charAt(i));
+			if (node == null) {
+				return match;
+			}
+		}
+	}
+
+	/**
+	 * @return Index into hosts of the host mount the Host header names, or -1
+	 */
+	private int hostIndex(String host) {
+		if (host != null) {
+			for (int i = 0; i < hosts.length; i++) {
+				String name = hosts[i];
+				if (host.regionMatches(true, 0, name, 0, name.length())
+						&& (host.length() == name.length() || host.charAt(name.length()) == ':')) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Search indexes of what a request with this Host header sees: the
+	 * host mount's root, or the server's root and the path mounts.
+	 *
+	 * @param rootIndex Index of the server's own root
+	 */
+	List<SearchIndex> searchIndexes(String host, SearchIndex rootIndex) {
+		int hostIndex = hostIndex(host);
+		if (hostIndex >= 0 && hostSites[hostIndex] != null) {
+			return Collections.singletonList(hostSites[hostIndex].getSearchIndex());
+		}
+		List<SearchIndex> indexes = new ArrayList<>(prefixSites.size() + 1);
+		indexes.add(rootIndex);
+		for (StaticSite site : prefixSites) {
+			indexes.add(site.getSearchIndex());
+		}
+		return indexes;
+	}
+
+	/**
+	 * Adds the asset cache counters of the mounted roots to the root's.
+	 */
+	AssetCacheStats addCacheStats(AssetCacheStats rootStats) {
+		AssetCacheStats total = rootStats;
+		for (StaticSite site : sites) {
+			total = total.plus(site.getCache().stats());
+		}
+		return total;
+	}
+
+	/**
+	 * Closes the mounted roots (the server's own root is not the router's).
+	 */
+	@Override
+	public void close() {
+		for (StaticSite site : sites) {
+			site.close();
+		}
+	}
+}
@@ -0,0 +1,458 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HttpExchange of the NIO engine, so StaticFileHandler and MetricsHandler
+ * run unchanged on either backend.
+ *
+ * sendResponseHeaders follows the JDK contract: length > 0 is sent with
+ * Content-Length, 0 as chunked (close-delimited for HTTP/1.0 clients),
+ * -1 without a body. The head and small writes are collected in one
+ * pooled direct buffer and go out together; direct sources larger than
+ * the free space (mapped pack bodies) are written to the socket as they
+ * are, in the same gathering write.
+ *
+ * Request bodies are not made available (the docs handlers only serve
+ * GET); getHttpContext() returns null since contexts are plain prefixes.
+ */
+final class NioExchange extends HttpExchange {
+
+	/**
+	 * Socket side of the connection.
+	 */
+	interface Sink {
+		/**
+		 * Writes every remaining byte of sources, waiting while the socket is full.
+		 */
+		void write(ByteBuffer... sources) throws IOException;
+	}
+
+	private static final byte[] CRLF = {'\r', '\n'};
+	private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+	private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+	private static final class CachedDate {
+		final long second;
+		final String value;
+
+		CachedDate(long second, String value) {
+			this.second = second;
+			this.value = value;
+		}
+	}
+
+	private static volatile CachedDate cachedDate = new CachedDate(-1, null);
+
+	private final HttpRequestHead request;
+	private final Sink sink;
+	private final BufferPool buffers;
+	private final InetSocketAddress localAddress;
+	private final InetSocketAddress remoteAddress;
+	private final Headers responseHeaders;
+	private final Map<String, Object> attributes;
+	private final Body body;
+	private InputStream requestStream;
+	private OutputStream responseStream;
+	private int responseCode;
+	private boolean closeAfter;
+
+	/**
+	 * @param closeAfter true if the connection is closed after this response
+	 *                   (client asked for it, or the engine is stopping)
+	 */
+	NioExchange(HttpRequestHead request, Sink sink, BufferPool buffers,
+			InetSocketAddress localAddress, InetSocketAddress remoteAddress, boolean closeAfter) {
+		this.request = request;
+		this.sink = sink;
+		this.buffers = buffers;
+		this.localAddress = localAddress;
+		this.remoteAddress = remoteAddress;
+		this.responseHeaders = new Headers();
+		this.attributes = new HashMap<>();
+		this.body = new Body();
+		this.requestStream = EMPTY_BODY;
+		this.responseStream = body;
+		this.responseCode = -1;
+		this.closeAfter = closeAfter;
+	}
+
+	@Override
+	public Headers getRequestHeaders() {
+		return request.getHeaders();
+	}
+
+	@Override
+	public Headers getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	@Override
+	public URI getRequestURI() {
+		return request.getUri();
+	}
+
+	@Override
+	public String getRequestMethod() {
+		return request.getMethod();
+	}
+
+	@Override
+	public HttpContext getHttpContext() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		try {
+			responseStream.close();
+		} catch (IOException e) {
+			closeAfter = true;
+		}
+	}
+
+	@Override
+	public InputStream getRequestBody() {
+		return requestStream;
+	}
+
+	@Override
+	public OutputStream getResponseBody() {
+		return responseStream;
+	}
+
+	@Override
+	public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+		if (responseCode != -1) {
+			throw new IOException("Response headers already sent");
+		}
+		responseCode = rCode;
+
+		StringBuilder head = new StringBuilder(256);
+		head.append("HTTP/1.1 ").append(rCode).append(' ').append(reasonPhrase(rCode)).append("\r\n");
+		head.append("Date: ").append(httpDate()).append("\r\n");
+		for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+			String name = header.getKey();
+			if ("Content-length".equalsIgnoreCase(name) || "Transfer-encoding".equalsIgnoreCase(name)
+					|| "Connection".equalsIgnoreCase(name)) {
+				continue; // Framing is decided here
+			}
+			for (String value : header.getValue()) {
+				head.append(name).append(": ").append(value).append("\r\n");
+			}
+		}
+
+		int mode;
+		long length = 0;
+		boolean bodyForbidden = rCode < 200 || rCode == 204 || rCode == 304;
+		if (bodyForbidden) {
+			mode = Body.NONE;
+		} else if ("HEAD".equals(request.getMethod())) {
+			mode = Body.NONE;
+			if (responseLength > 0) {
+				head.append("Content-Length: ").append(responseLength).append("\r\n");
+			}
+		} else if (responseLength < 0) {
+			mode = Body.NONE;
+			head.append("Content-Length: 0\r\n");
+		} else if (responseLength == 0) {
+			if ("HTTP/1.0".equals(request.getProtocol())) {
+				mode = Body.UNTIL_CLOSE;
+				closeAfter = true;
+			} else {
+				mode = Body.CHUNKED;
+				head.append("Transfer-Encoding: chunked\r\n");
+			}
+		} else {
+			mode = Body.FIXED;
+			length = responseLength;
+			head.append("Content-Length: ").append(responseLength).append("\r\n");
+		}
+
+		if (closeAfter) {
+			head.append("Connection: close\r\n");
+		} else if ("HTTP/1.0".equals(request.getProtocol())) {
+			head.append("Connection: keep-alive\r\n");
+		}
+		head.append("\r\n");
+
+		body.start(head.toString().getBytes(StandardCharsets.ISO_8859_1), mode, length);
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return remoteAddress;
+	}
+
+	@Override
+	public int getResponseCode() {
+		return responseCode;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return localAddress;
+	}
+
+	@Override
+	public String getProtocol() {
+		return request.getProtocol();
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		if (value == null) {
+			attributes.remove(name);
+		} else {
+			attributes.put(name, value);
+		}
+	}
+
+	@Override
+	public void setStreams(InputStream i, OutputStream o) {
+		if (i != null) {
+			requestStream = i;
+		}
+		if (o != null) {
+			responseStream = o;
+		}
+	}
+
+	@Override
+	public HttpPrincipal getPrincipal() {
+		return null;
+	}
+
+	/**
+	 * Completes the response once the handler has returned or thrown.
+	 * A handler that sent nothing gets a 500; a failed or short response
+	 * closes the connection, since its framing cannot be trusted.
+	 *
+	 * @return true if the connection can carry another request
+	 */
+	boolean complete(boolean handlerFailed) {
+		try {
+			if (handlerFailed) {
+				closeAfter = true;
+			}
+			if (responseCode == -1) {
+				sendResponseHeaders(500, -1); // 500 Internal Server Error
+			}
+			body.close();
+		} catch (IOException e) {
+			closeAfter = true;
+		} finally {
+			body.release();
+		}
+		return !closeAfter;
+	}
+
+	/**
+	 * Response body stream. Also a WritableByteChannel, so FileTransfer can
+	 * hand over ByteBuffers (mapped pack bodies) without copying them into
+	 * byte arrays first.
+	 */
+	private final class Body extends OutputStream implements WritableByteChannel {
+		static final int NONE = 0;
+		static final int FIXED = 1;
+		static final int CHUNKED = 2;
+		static final int UNTIL_CLOSE = 3;
+
+		private ByteBuffer buffer;
+		private int mode;
+		private long remaining;
+		private int headBytes;
+		private boolean open = true;
+
+		void start(byte[] head, int mode, long length) throws IOException {
+			this.mode = mode;
+			this.remaining = length;
+			this.buffer = buffers.acquire();
+			if (head.length > buffer.capacity()) {
+				sink.write(ByteBuffer.wrap(head));
+			} else {
+				buffer.put(head);
+				headBytes = head.length;
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			write(ByteBuffer.wrap(b, off, len));
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			int count = source.remaining();
+			if (!open) {
+				throw new IOException("Response body already closed");
+			}
+			if (buffer == null) {
+				throw new IOException("sendResponseHeaders() must be called before writing the body");
+			}
+			if (count == 0) {
+				return 0;
+			}
+			if (mode == NONE) {
+				throw new IOException("Response has no body");
+			}
+			if (mode == FIXED && count > remaining) {
+				throw new IOException("Too many bytes for the announced Content-Length");
+			}
+			remaining -= count;
+
+			if (source.isDirect() && count > buffer.remaining()) {
+				flushBuffer(source, false);
+				return count;
+			}
+			while (source.hasRemaining()) {
+				if (!buffer.hasRemaining()) {
+					flushBuffer(null, false);
+				}
+				int chunk = Math.min(source.remaining(), buffer.remaining());
+				ByteBuffer part = source.duplicate();
+				part.limit(part.position() + chunk);
+				buffer.put(part);
+				source.position(source.position() + chunk);
+			}
+			return count;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (open && buffer != null && buffer.position() > 0) {
+				flushBuffer(null, false);
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!open || buffer == null) {
+				return;
+			}
+			open = false;
+			if (mode == FIXED && remaining > 0) {
+				closeAfter = true;
+				flushBuffer(null, false);
+				throw new IOException("Response closed " + remaining + " bytes short of its Content-Length");
+			}
+			flushBuffer(null, mode == CHUNKED);
+		}
+
+		void release() {
+			open = false;
+			if (buffer != null) {
+				buffers.release(buffer);
+				buffer = null;
+			}
+		}
+
+		/**
+		 * Sends the buffered head and data plus an optional direct source in
+		 * one gathering write, framed as a chunk in chunked mode.
+		 */
+		private void flushBuffer(ByteBuffer extra, boolean lastChunk) throws IOException {
+			buffer.flip();
+			int dataLength = buffer.remaining() - headBytes + (extra != null ? extra.remaining() : 0);
+			ByteBuffer[] parts;
+			if (mode == CHUNKED && (dataLength > 0 || lastChunk)) {
+				ByteBuffer head = buffer.duplicate();
+				head.limit(headBytes);
+				ByteBuffer data = buffer.duplicate();
+				data.position(headBytes);
+				ByteBuffer size = ByteBuffer.wrap(
+						(Integer.toHexString(dataLength) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				ByteBuffer end = ByteBuffer.wrap(lastChunk ? LAST_CHUNK : CRLF);
+				if (dataLength == 0) {
+					parts = new ByteBuffer[] {head, end};
+				} else if (extra != null) {
+					parts = new ByteBuffer[] {head, size, data, extra, ByteBuffer.wrap(CRLF)};
+				} else if (lastChunk) {
+					parts = new ByteBuffer[] {head, size, data, ByteBuffer.wrap(CRLF), end};
+				} else {
+					parts = new ByteBuffer[] {head, size, data, end};
+				}
+			} else {
+				parts = extra != null ? new ByteBuffer[] {buffer, extra} : new ByteBuffer[] {buffer};
+			}
+			try {
+				sink.write(parts);
+			} finally {
+				buffer.clear();
+				headBytes = 0;
+			}
+		}
+	}
+
+	/**
+	 * RFC 1123 date for the Date header, formatted at most once per second.
+	 */
+	static String httpDate() {
+		long second = System.currentTimeMillis() / 1000;
+		CachedDate current = cachedDate;
+		if (current.second != second) {
+			current = new CachedDate(second, DateTimeFormatter.RFC_1123_DATE_TIME.format(
+					ZonedDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneOffset.UTC)));
+			cachedDate = current;
+		}
+		return current.value;
+	}
+
+	static String reasonPhrase(int status) {
+		switch (status) {
+			case 200: return "OK";
+			case 204: return "No Content";
+			case 206: return "Partial Content";
+			case 301: return "Moved Permanently";
+			case 302: return "Found";
+			case 304: return "Not Modified";
+			case 400: return "Bad Request";
+			case 403: return "Forbidden";
+			case 404: return "Not Found";
+			case 405: return "Method Not Allowed";
+			case 408: return "Request Timeout";
+			case 413: return "Payload Too Large";
+			case 416: return "Range Not Satisfiable";
+			case 431: return "Request Header Fields Too Large";
+			case 500: return "Internal Server Error";
+			case 501: return "Not Implemented";
+			case 503: return "Service Unavailable";
+			case 505: return "HTTP Version Not Supported";
+			default: return "Status";
+		}
+	}
+}
@@ -0,0 +1,773 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpHandler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking HTTP/1.1 engine on a single selector thread.
+ *
+ * The selector thread accepts connections, reads and parses request
+ * heads; idle keep-alive connections cost a selection key and no thread
+ * or buffer. Parsed requests queue per connection (pipelining) and are
+ * handed to the executor one at a time, so responses leave in request
+ * order. The exchange writes its response from the worker thread straight
+ * to the socket through a pooled direct buffer; when the socket is full
+ * the worker waits on a temporary selector rather than buffering the rest
+ * of the response in memory.
+ *
+ * With ExecutorStrategy.DISPATCHER_THREAD handlers run on the selector
+ * thread itself, the same trade-off as the JDK server's dispatcher.
+ *
+ * With h2c enabled, a connection that opens with the HTTP/2 preface (prior
+ * knowledge) or asks for "Upgrade: h2c" is handed to an Http2Session and
+ * carries multiplexed streams from then on.
+ *
+ * Not supported: request bodies (read past and discarded; chunked request
+ * bodies are answered with 501), Expect: 100-continue, TLS (and with it
+ * HTTP/2 over TLS).
+ */
+final class NioHttpEngine implements HttpEngine {
+
+	/** Size of pooled read and response buffers; also the request head limit. */
+	static final int BUFFER_BYTES = 16 * 1024;
+	static final int MAX_POOLED_BUFFERS = 256;
+	/** Parsed requests queued per connection before reading is paused. */
+	static final int MAX_PIPELINED_REQUESTS = 16;
+	static final long IDLE_TIMEOUT_MILLIS = 30_000;
+	static final long WRITE_TIMEOUT_MILLIS = 30_000;
+	private static final long SELECT_TIMEOUT_MILLIS = 1_000;
+	private static final byte[] SWITCHING_PROTOCOLS = ("HTTP/1.1 101 Switching Protocols\r\n"
+			+ "Connection: Upgrade\r\nUpgrade: h2c\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	private static final class Context {
+		final String path;
+		final HttpHandler handler;
+
+		Context(String path, HttpHandler handler) {
+			this.path = path;
+			this.handler = handler;
+		}
+	}
+
+	private final ServerSocketChannel serverChannel;
+	private final Selector selector;
+	private final InetSocketAddress address;
+	private final String threadNamePrefix;
+	private final BufferPool buffers;
+	private final ConcurrentLinkedQueue<Selector> writeSelectors;
+	private final ConcurrentLinkedQueue<Runnable> selectorTasks;
+	private final List<Context> contexts;
+	private final AtomicInteger activeExchanges;
+	private final boolean h2c;
+	private volatile Executor executor;
+	// Runs frame writing, which is not a request and so bypasses admission control
+	private volatile Executor taskExecutor;
+	private volatile boolean running;
+	private volatile boolean stopping;
+	private Thread selectorThread;
+
+	/**
+	 * Binds the listening socket; requests are accepted after start().
+	 *
+	 * @param backlog Pending connections the OS may queue (0 = system default)
+	 * @param h2c Accept HTTP/2 over cleartext (prior knowledge and Upgrade)
+	 * @throws IOException if the address cannot be bound
+	 */
+	NioHttpEngine(InetSocketAddress bindAddress, int backlog, String threadNamePrefix, boolean h2c)
+			throws IOException {
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(bindAddress, backlog);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			closeQuietly(serverChannel);
+			closeQuietly(selector);
+			throw e;
+		}
+		this.address = (InetSocketAddress) serverChannel.getLocalAddress();
+		this.threadNamePrefix = threadNamePrefix;
+		this.buffers = new BufferPool(BUFFER_BYTES, MAX_POOLED_BUFFERS);
+		this.writeSelectors = new ConcurrentLinkedQueue<>();
+		this.selectorTasks = new ConcurrentLinkedQueue<>();
+		this.contexts = new CopyOnWriteArrayList<>();
+		this.activeExchanges = new AtomicInteger();
+		this.h2c = h2c;
+		this.executor = Runnable::run;
+		this.taskExecutor = executor;
+	}
+
+	@Override
+	public void createContext(String path, HttpHandler handler) {
+		if (path == null || !path.startsWith("/")) {
+			throw new IllegalArgumentException("context path must start with '/', got: " + path);
+		}
+		for (Context context : contexts) {
+			if (context.path.equals(path)) {
+				throw new IllegalArgumentException("context already exists: " + path);
+			}
+		}
+		contexts.add(new Context(path, handler));
+	}
+
+	@Override
+	public void setExecutor(Executor executor) {
+		this.executor = executor != null ? executor : Runnable::run;
+		this.taskExecutor = this.executor instanceof AdmissionControl
+				? ((AdmissionControl) this.executor).getWorkers() : this.executor;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (selectorThread != null) {
+			throw new IllegalStateException("Engine already started");
+		}
+		running = true;
+		selectorThread = new Thread(this::runSelector, threadNamePrefix + "-selector");
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+	}
+
+	@Override
+	public DrainResult stop(long drainMillis) {
+		stopping = true;
+		closeQuietly(serverChannel);
+		selector.wakeup();
+
+		long start = System.currentTimeMillis();
+		int inFlight = activeExchanges.get();
+		long deadline = start + drainMillis;
+		while (activeExchanges.get() > 0 && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		int aborted = activeExchanges.get();
+		long elapsed = System.currentTimeMillis() - start;
+		running = false;
+		selector.wakeup();
+		Thread thread;
+		synchronized (this) {
+			thread = selectorThread;
+		}
+		if (thread == null) {
+			closeQuietly(selector);
+		} else if (thread != Thread.currentThread()) {
+			try {
+				thread.join(SELECT_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return new DrainResult(inFlight, aborted, elapsed);
+	}
+
+	@Override
+	public InetSocketAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * Exchanges currently running or writing their response.
+	 */
+	int getActiveExchanges() {
+		return activeExchanges.get();
+	}
+
+	BufferPool getBufferPool() {
+		return buffers;
+	}
+
+	private void runSelector() {
+		long lastIdleScan = System.currentTimeMillis();
+		try {
+			while (running) {
+				selector.select(SELECT_TIMEOUT_MILLIS);
+				for (SelectionKey key : selector.selectedKeys()) {
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					} else if (key.isReadable()) {
+						Connection connection = (Connection) key.attachment();
+						try {
+							connection.onReadable();
+						} catch (RuntimeException e) {
+							System.err.println("NioHttpEngine: closing connection after error: " + e);
+							connection.close();
+						}
+					}
+				}
+				selector.selectedKeys().clear();
+
+				Runnable task;
+				while ((task = selectorTasks.poll()) != null) {
+					task.run();
+				}
+
+				long now = System.currentTimeMillis();
+				if (stopping || now - lastIdleScan >= SELECT_TIMEOUT_MILLIS) {
+					closeIdle(now);
+					lastIdleScan = now;
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			if (running) {
+				System.err.println("NioHttpEngine: selector loop failed: " + e);
+			}
+		} finally {
+			shutdownConnections();
+		}
+	}
+
+	private void accept() {
+		SocketChannel channel;
+		try {
+			channel = serverChannel.accept();
+		} catch (IOException e) {
+			return; // Listening socket closed by stop()
+		}
+		while (channel != null) {
+			try {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				Connection connection = new Connection(channel);
+				connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+			} catch (IOException e) {
+				closeQuietly(channel);
+			}
+			try {
+				channel = serverChannel.accept();
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void closeIdle(long now) {
+		for (SelectionKey key : new ArrayList<>(selector.keys())) {
+			Object attachment = key.attachment();
+			if (attachment instanceof Connection) {
+				Connection connection = (Connection) attachment;
+				if (connection.isIdle() && (stopping || now - connection.lastActive > IDLE_TIMEOUT_MILLIS)) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	private void shutdownConnections() {
+		try {
+			for (SelectionKey key : new ArrayList<>(selector.keys())) {
+				if (key.attachment() instanceof Connection) {
+					((Connection) key.attachment()).close();
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Already gone
+		}
+		closeQuietly(selector);
+		closeQuietly(serverChannel);
+		Selector writeSelector;
+		while ((writeSelector = writeSelectors.poll()) != null) {
+			closeQuietly(writeSelector);
+		}
+	}
+
+	private void runOnSelector(Runnable task) {
+		selectorTasks.add(task);
+		selector.wakeup();
+	}
+
+	private HttpHandler findHandler(String path) {
+		Context best = null;
+		for (Context context : contexts) {
+			if (path.startsWith(context.path) && (best == null || context.path.length() > best.path.length())) {
+				best = context;
+			}
+		}
+		return best != null ? best.handler : null;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * One client connection.
+	 *
+	 * readBuffer, discardBytes and the selection key belong to the selector
+	 * thread. The request queue and flags are shared with the worker running
+	 * the current exchange and guarded by the connection's monitor.
+	 *
+	 * Once switched to HTTP/2, reading goes to the session's input buffer
+	 * and the HTTP/1.1 queue is no longer used.
+	 */
+	private final class Connection implements Http2Session.Transport {
+		final SocketChannel channel;
+		SelectionKey key;
+		ByteBuffer readBuffer;   // held only while a partial request is buffered
+		long discardBytes;       // request body bytes still to skip
+		volatile long lastActive;
+		volatile Selector writeWaiter;
+
+		final ArrayDeque<HttpRequestHead> pending = new ArrayDeque<>();
+		boolean busy;
+		boolean lastRequestSeen; // client asked to close or input ended: read no further
+		boolean closed;
+		boolean firstRequestSeen; // selector thread: too late for a prior-knowledge preface
+		Http2Session http2;       // selector thread: set when the connection switched to h2c
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+			this.lastActive = System.currentTimeMillis();
+		}
+
+		synchronized boolean isIdle() {
+			if (http2 != null) {
+				return http2.isIdle();
+			}
+			return !busy && pending.isEmpty();
+		}
+
+		void onReadable() {
+			if (http2 != null) {
+				onReadableHttp2();
+				return;
+			}
+			if (readBuffer == null) {
+				readBuffer = buffers.acquire();
+			}
+			int read;
+			try {
+				read = channel.read(readBuffer);
+			} catch (IOException e) {
+				close();
+				return;
+			}
+			if (read < 0) {
+				inputEnded();
+				return;
+			}
+			lastActive = System.currentTimeMillis();
+			parse();
+		}
+
+		private void onReadableHttp2() {
+			int read;
+			try {
+				read = channel.read(http2.input());
+			} catch (IOException e) {
+				close();
+				return;
+			}
+			if (read < 0) {
+				close();
+				return;
+			}
+			lastActive = System.currentTimeMillis();
+			http2.onInput();
+		}
+
+		private void inputEnded() {
+			boolean idle;
+			synchronized (this) {
+				lastRequestSeen = true;
+				idle = !busy && pending.isEmpty();
+			}
+			if (idle) {
+				close();
+			} else {
+				updateReadInterest();
+			}
+		}
+
+		/**
+		 * Moves every complete head out of the read buffer into the queue.
+		 */
+		private void parse() {
+			ByteBuffer in = readBuffer;
+			in.flip();
+			if (h2c && !firstRequestSeen) {
+				int matched = matchPreface(in);
+				if (matched == Http2Session.PREFACE.length) {
+					switchToHttp2(null);
+					return;
+				}
+				if (matched == in.remaining()) {
+					in.compact(); // Could still become the preface
+					return;
+				}
+				firstRequestSeen = true;
+			}
+			boolean paused = false;
+			while (in.hasRemaining()) {
+				if (discardBytes > 0) {
+					int skip = (int) Math.min(discardBytes, in.remaining());
+					in.position(in.position() + skip);
+					discardBytes -= skip;
+					continue;
+				}
+				synchronized (this) {
+					if (closed || lastRequestSeen) {
+						in.position(in.limit());
+						break;
+					}
+					if (pending.size() >= MAX_PIPELINED_REQUESTS) {
+						paused = true;
+						break;
+					}
+				}
+				// Empty lines before a request line are ignored (RFC 7230, 3.5)
+				byte first = in.get(in.position());
+				if (first == '\r' || first == '\n') {
+					in.get();
+					continue;
+				}
+				int end = HttpRequestHead.findEnd(in);
+				if (end < 0) {
+					break;
+				}
+				HttpRequestHead request = HttpRequestHead.parse(in, end);
+				firstRequestSeen = true;
+				if (request.getErrorStatus() != 0) {
+					in.position(in.limit());
+				}
+				if (h2c && request.isH2cUpgrade() && isIdle()) {
+					switchToHttp2(request);
+					return;
+				}
+				discardBytes = request.getContentLength();
+				enqueue(request);
+			}
+			in.compact();
+
+			if (in.position() == 0) {
+				buffers.release(in);
+				readBuffer = null;
+			} else if (!in.hasRemaining() && !paused) {
+				// A whole buffer without the end of a head
+				readBuffer = null;
+				buffers.release(in);
+				enqueue(HttpRequestHead.error(431)); // 431 Request Header Fields Too Large
+			}
+			updateReadInterest();
+		}
+
+		/**
+		 * @return Number of leading bytes that match the HTTP/2 preface;
+		 *         -1 on a mismatch
+		 */
+		private int matchPreface(ByteBuffer in) {
+			int count = Math.min(in.remaining(), Http2Session.PREFACE.length);
+			for (int i = 0; i < count; i++) {
+				if (in.get(in.position() + i) != Http2Session.PREFACE[i]) {
+					return -1;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Selector thread: hands the connection to an HTTP/2 session, moving
+		 * bytes already read past the preface or upgrade request along.
+		 *
+		 * @param upgrade The "Upgrade: h2c" request, answered with 101 here,
+		 *                or null for prior knowledge
+		 */
+		private void switchToHttp2(HttpRequestHead upgrade) {
+			ByteBuffer in = readBuffer;
+			readBuffer = null;
+			if (upgrade != null) {
+				try {
+					write(ByteBuffer.wrap(SWITCHING_PROTOCOLS));
+				} catch (IOException e) {
+					buffers.release(in);
+					close();
+					return;
+				}
+			}
+			http2 = new Http2Session(this, buffers, upgrade);
+			http2.input().put(in);
+			buffers.release(in);
+			if (key.isValid()) {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+			http2.onInput();
+		}
+
+		private void enqueue(HttpRequestHead request) {
+			synchronized (this) {
+				pending.add(request);
+				if (!request.isKeepAlive()) {
+					lastRequestSeen = true;
+				}
+			}
+			dispatchNext();
+		}
+
+		private void updateReadInterest() {
+			boolean wantRead;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				wantRead = !lastRequestSeen && pending.size() < MAX_PIPELINED_REQUESTS;
+			}
+			if (key.isValid()) {
+				key.interestOps(wantRead ? SelectionKey.OP_READ : 0);
+			}
+		}
+
+		/**
+		 * Selector thread: continues with requests left in the buffer while
+		 * reading was paused.
+		 */
+		private void resumeReading() {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+			}
+			if (readBuffer != null) {
+				parse();
+			} else {
+				updateReadInterest();
+			}
+		}
+
+		private void dispatchNext() {
+			HttpRequestHead next;
+			synchronized (this) {
+				if (busy || closed || pending.isEmpty()) {
+					return;
+				}
+				next = pending.poll();
+				busy = true;
+			}
+			activeExchanges.incrementAndGet();
+			try {
+				executor.execute(() -> serve(next));
+			} catch (RejectedExecutionException e) {
+				activeExchanges.decrementAndGet();
+				synchronized (this) {
+					busy = false;
+				}
+				runOnSelector(this::close);
+			}
+		}
+
+		/**
+		 * Runs on the executor: one request, start to last byte.
+		 */
+		private void serve(HttpRequestHead request) {
+			NioExchange exchange = new NioExchange(request, this, buffers, address,
+					remoteAddress(), !request.isKeepAlive() || stopping);
+			boolean failed = false;
+			try {
+				if (request.getErrorStatus() != 0) {
+					exchange.sendResponseHeaders(request.getErrorStatus(), -1);
+				} else {
+					HttpHandler handler = findHandler(request.getUri().getPath() != null
+							? request.getUri().getPath() : "/");
+					if (handler == null) {
+						exchange.sendResponseHeaders(404, -1); // 404 Not Found
+					} else {
+						handler.handle(exchange);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				failed = true;
+			}
+			boolean reusable = exchange.complete(failed);
+			activeExchanges.decrementAndGet();
+			finished(reusable);
+		}
+
+		private void finished(boolean reusable) {
+			lastActive = System.currentTimeMillis();
+			boolean close;
+			synchronized (this) {
+				busy = false;
+				if (!reusable) {
+					lastRequestSeen = true;
+					pending.clear();
+				}
+				close = closed || (lastRequestSeen && pending.isEmpty());
+			}
+			if (close) {
+				runOnSelector(this::close);
+				return;
+			}
+			dispatchNext();
+			runOnSelector(this::resumeReading);
+		}
+
+		private InetSocketAddress remoteAddress() {
+			try {
+				return (InetSocketAddress) channel.getRemoteAddress();
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public void dispatch(Runnable exchange) {
+			activeExchanges.incrementAndGet();
+			try {
+				executor.execute(() -> {
+					try {
+						exchange.run();
+					} finally {
+						lastActive = System.currentTimeMillis();
+						activeExchanges.decrementAndGet();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				activeExchanges.decrementAndGet();
+				throw e;
+			}
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			taskExecutor.execute(task);
+		}
+
+		@Override
+		public HttpHandler findHandler(String path) {
+			return NioHttpEngine.this.findHandler(path);
+		}
+
+		@Override
+		public void requestClose() {
+			runOnSelector(this::close);
+		}
+
+		@Override
+		public boolean isStopping() {
+			return stopping;
+		}
+
+		@Override
+		public InetSocketAddress getLocalAddress() {
+			return address;
+		}
+
+		@Override
+		public InetSocketAddress getRemoteAddress() {
+			return remoteAddress();
+		}
+
+		@Override
+		public void write(ByteBuffer... sources) throws IOException {
+			long remaining = 0;
+			for (ByteBuffer source : sources) {
+				remaining += source.remaining();
+			}
+			while (remaining > 0) {
+				long written = channel.write(sources);
+				if (written > 0) {
+					remaining -= written;
+				} else {
+					awaitWritable();
+				}
+			}
+		}
+
+		/**
+		 * Blocks the writing thread until the socket accepts data again, on a
+		 * selector of its own (a channel may be registered with several).
+		 */
+		private void awaitWritable() throws IOException {
+			Selector waiter = writeSelectors.poll();
+			if (waiter == null) {
+				waiter = Selector.open();
+			}
+			SelectionKey writeKey = null;
+			boolean reusable = true;
+			try {
+				writeKey = channel.register(waiter, SelectionKey.OP_WRITE);
+				writeWaiter = waiter;
+				if (!channel.isOpen()) {
+					throw new IOException("Connection closed");
+				}
+				if (waiter.select(WRITE_TIMEOUT_MILLIS) == 0 && channel.isOpen()) {
+					throw new SocketTimeoutException("Client did not read for " + WRITE_TIMEOUT_MILLIS + " ms");
+				}
+			} finally {
+				writeWaiter = null;
+				if (writeKey != null) {
+					writeKey.cancel();
+					try {
+						waiter.selectNow(); // Flush the cancelled key so the selector can be reused
+					} catch (IOException e) {
+						reusable = false;
+					}
+				}
+				if (reusable) {
+					writeSelectors.offer(waiter);
+				} else {
+					closeQuietly(waiter);
+				}
+			}
+		}
+
+		/**
+		 * Selector thread only.
+		 */
+		void close() {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				pending.clear();
+			}
+			if (key != null) {
+				key.cancel();
+			}
+			closeQuietly(channel);
+			if (readBuffer != null) {
+				buffers.release(readBuffer);
+				readBuffer = null;
+			}
+			if (http2 != null) {
+				http2.close();
+			}
+			Selector waiter = writeWaiter;
+			if (waiter != null) {
+				waiter.wakeup();
+			}
+		}
+	}
+}
@@ -0,0 +1,464 @@
+package com.ui.cef_control.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the files under a static root, so resolving a request
+ * path is a few hash probes instead of stat calls.
+ *
+ * Structure: an immutable trie with one node per directory. Changes
+ * reported by StaticRootWatcher copy only the nodes on the path from the
+ * root to the changed directory and publish the new root with a single
+ * volatile write, so readers never lock and never see a partial update.
+ *
+ * The SPA fallback (root index.html) is resolved once and kept alongside
+ * the trie; a lookup miss returns it without touching the disk.
+ *
+ * resolve() memoises request paths as the client sent them, per trie
+ * version, so a repeated request is one hash probe on the path string
+ * and allocates nothing (no leading-slash strip, no segment substrings).
+ *
+ * On a case-insensitive filesystem (Windows, default macOS) names are
+ * folded to lower case in the trie and in lookups, so "/Guide/Intro.html"
+ * finds guide/intro.html as the per-request stat did. Entries keep the
+ * file's real name.
+ */
+final class PathIndex {
+
+	static final String FALLBACK = "index.html";
+
+	/** Memoised request paths per trie version; bounds memory when clients probe random URLs. */
+	static final int MAX_RESOLVED_PATHS = 4096;
+
+	/**
+	 * What the handler needs to serve a file, captured when it was indexed.
+	 */
+	static final class Entry {
+		// Memoised miss (resolve() returns null for it)
+		private static final Entry MISSING = new Entry();
+
+		private final Path file;
+		private final String relativePath;
+		private final String contentType;
+		private final String cacheControl;
+		private final RouteClass routeClass;
+		private final long size;
+		private final long lastModifiedMillis;
+
+		Entry(Path file, String relativePath, String contentType, String cacheControl, long size,
+				long lastModifiedMillis) {
+			this.file = file;
+			this.relativePath = relativePath;
+			this.contentType = contentType;
+			this.cacheControl = cacheControl;
+			this.routeClass = RouteClass.of(contentType);
+			this.size = size;
+			this.lastModifiedMillis = lastModifiedMillis;
+		}
+
+		private Entry() {
+			this(null, null, "application/octet-stream", null, 0, 0);
+		}
+
+		/**
+		 * Reads the attributes of a path and builds its entry.
+		 *
+		 * @return Entry, or null if the path is not a regular file
+		 */
+		static Entry of(Path root, Path file, CachePolicy cachePolicy) {
+			try {
+				return of(root, file, Files.readAttributes(file, BasicFileAttributes.class), cachePolicy);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		static Entry of(Path root, Path file, BasicFileAttributes attributes, CachePolicy cachePolicy) {
+			if (!attributes.isRegularFile()) {
+				return null;
+			}
+			String relative = root.relativize(file).toString().replace(File.separatorChar, '/');
+			return new Entry(file, relative, ContentTypes.guess(file), cachePolicy.cacheControlFor(relative),
+					attributes.size(), attributes.lastModifiedTime().toMillis());
+		}
+
+		Path getFile() {
+			return file;
+		}
+
+		/**
+		 * Path below the root with '/' separators, e.g. "guide/intro.html".
+		 */
+		String getRelativePath() {
+			return relativePath;
+		}
+
+		String getContentType() {
+			return contentType;
+		}
+
+		String getCacheControl() {
+			return cacheControl;
+		}
+
+		RouteClass getRouteClass() {
+			return routeClass;
+		}
+
+		long getSize() {
+			return size;
+		}
+
+		long getLastModifiedMillis() {
+			return lastModifiedMillis;
+		}
+	}
+
+	/**
+	 * URL of a page of a site served under basePath: "guide/index.html"
+	 * becomes "/guide/" (the SPA routes directory URLs itself), other
+	 * files keep their name.
+	 *
+	 * @param basePath URL path of the root, with leading and trailing '/'
+	 */
+	static String pageUrl(String basePath, String relativePath) {
+		if (relativePath.equals(FALLBACK)) {
+			return basePath;
+		}
+		if (relativePath.endsWith("/" + FALLBACK)) {
+			return basePath + relativePath.substring(0, relativePath.length() - FALLBACK.length());
+		}
+		return basePath + relativePath;
+	}
+
+	/**
+	 * One directory. Both maps are never modified after construction.
+	 */
+	private static final class Node {
+		static final Node EMPTY = new Node(Collections.emptyMap(), Collections.emptyMap());
+
+		final Map<String, Node> dirs;
+		final Map<String, Entry> files;
+
+		Node(Map<String, Node> dirs, Map<String, Entry> files) {
+			this.dirs = dirs;
+			this.files = files;
+		}
+
+		Node withDir(String name, Node dir) {
+			Map<String, Node> copy = new HashMap<>(dirs);
+			if (dir == null) {
+				copy.remove(name);
+			} else {
+				copy.put(name, dir);
+			}
+			return new Node(Collections.unmodifiableMap(copy), files);
+		}
+
+		Node withFile(String name, Entry entry) {
+			Map<String, Entry> copy = new HashMap<>(files);
+			if (entry == null) {
+				copy.remove(name);
+			} else {
+				copy.put(name, entry);
+			}
+			return new Node(dirs, Collections.unmodifiableMap(copy));
+		}
+	}
+
+	/**
+	 * Request path -> entry cache of one trie version.
+	 */
+	private static final class Resolved {
+		final Node root;
+		final ConcurrentHashMap<String, Entry> paths = new ConcurrentHashMap<>();
+
+		Resolved(Node root) {
+			this.root = root;
+		}
+	}
+
+	private final Path root;
+	private final CachePolicy cachePolicy;
+	private final boolean caseInsensitive;
+	private volatile Node rootNode;
+	private volatile Entry fallback;
+	private volatile Resolved resolved;
+
+	PathIndex(Path root, CachePolicy cachePolicy) {
+		this(root, cachePolicy, isCaseInsensitive(root));
+	}
+
+	PathIndex(Path root, CachePolicy cachePolicy, boolean caseInsensitive) {
+		this.root = root;
+		this.cachePolicy = cachePolicy;
+		this.caseInsensitive = caseInsensitive;
+		this.rootNode = Node.EMPTY;
+		this.resolved = new Resolved(Node.EMPTY);
+	}
+
+	/**
+	 * Walks the whole tree and publishes a fresh index.
+	 *
+	 * @throws IOException if the root cannot be walked
+	 */
+	synchronized void build() throws IOException {
+		rootNode = scan(root);
+		fallback = rootNode.files.get(FALLBACK);
+	}
+
+	/**
+	 * Resolves a request path (no leading '/') to a file.
+	 * Empty and "." segments are skipped, as Path.normalize() would.
+	 *
+	 * @return The file's entry, or null if no such file is indexed
+	 */
+	Entry lookup(String path) {
+		return lookup(rootNode, path, 0, caseInsensitive);
+	}
+
+	/**
+	 * Resolves a request path as sent by the client ("/guide/intro.html").
+	 * Results, misses included, are memoised until the trie next changes.
+	 *
+	 * @return The file's entry, or null if no such file is indexed
+	 */
+	Entry resolve(String requestPath) {
+		return resolve(requestPath, 0);
+	}
+
+	/**
+	 * Like resolve(String), ignoring the first from characters (a mount
+	 * prefix). The memo is keyed by the whole path, so all requests for
+	 * this index must use the same offset.
+	 */
+	Entry resolve(String requestPath, int from) {
+		Node node = rootNode;
+		Resolved cache = resolved;
+		if (cache.root != node) {
+			// Trie changed: results of the previous version are dropped with it
+			cache = new Resolved(node);
+			resolved = cache;
+		}
+		Entry entry = cache.paths.get(requestPath);
+		if (entry == null) {
+			entry = lookup(node, requestPath, from, caseInsensitive);
+			if (cache.paths.size() < MAX_RESOLVED_PATHS) {
+				cache.paths.put(requestPath, entry != null ? entry : Entry.MISSING);
+			}
+			return entry;
+		}
+		return entry == Entry.MISSING ? null : entry;
+	}
+
+	private static Entry lookup(Node rootNode, String path, int offset, boolean caseInsensitive) {
+		Node node = rootNode;
+		int start = offset;
+		int length = path.length();
+		while (start <= length) {
+			int slash = path.indexOf('/', start);
+			int end = slash < 0 ? length : slash;
+			if (end > start && !(end == start + 1 && path.charAt(start) == '.')) {
+				String segment = fold(path.substring(start, end), caseInsensitive);
+				if (slash < 0) {
+					return node.files.get(segment);
+				}
+				node = node.dirs.get(segment);
+				if (node == null) {
+					return null;
+				}
+			} else if (slash < 0) {
+				return null;
+			}
+			start = end + 1;
+		}
+		return null;
+	}
+
+	/**
+	 * @return name in the trie's key form (lower case if case-insensitive;
+	 *         String.toLowerCase returns the name itself when nothing changes)
+	 */
+	private static String fold(String name, boolean caseInsensitive) {
+		return caseInsensitive ? name.toLowerCase(Locale.ROOT) : name;
+	}
+
+	/**
+	 * Tells whether the filesystem of dir ignores case, by looking dir up
+	 * under its own name with the case swapped.
+	 */
+	static boolean isCaseInsensitive(Path dir) {
+		Path absolute = dir.toAbsolutePath();
+		Path name = absolute.getFileName();
+		Path parent = absolute.getParent();
+		if (name != null && parent != null) {
+			String swapped = swapCase(name.toString());
+			if (!swapped.equals(name.toString())) {
+				Path other = parent.resolve(swapped);
+				try {
+					return Files.exists(other) && Files.isSameFile(absolute, other);
+				} catch (IOException e) {
+					return false;
+				}
+			}
+		}
+		// No letters to swap (or a filesystem root): assume the platform's usual filesystem
+		return File.separatorChar == '\\';
+	}
+
+	private static String swapCase(String name) {
+		char[] chars = name.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			char c = chars[i];
+			chars[i] = Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * @return Entry of the root index.html, or null if there is none
+	 */
+	Entry fallback() {
+		return fallback;
+	}
+
+	/**
+	 * Number of indexed files (walks the trie; for tests and diagnostics).
+	 */
+	int size() {
+		int count = 0;
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(rootNode);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			count += node.files.size();
+			for (Node child : node.dirs.values()) {
+				pending.push(child);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Watcher callback: re-reads the changed path and replaces its part of
+	 * the trie (file entry, whole subtree, or removal if it is gone).
+	 */
+	synchronized void onPathChanged(Path changed) {
+		if (!changed.startsWith(root)) {
+			return;
+		}
+		if (changed.equals(root)) {
+			try {
+				build();
+			} catch (IOException e) {
+				System.err.println("PathIndex: cannot rescan " + root + ": " + e);
+			}
+			return;
+		}
+
+		List<String> segments = new ArrayList<>();
+		for (Path name : root.relativize(changed)) {
+			segments.add(fold(name.toString(), caseInsensitive));
+		}
+
+		Entry file = null;
+		Node dir = null;
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(changed, BasicFileAttributes.class);
+			if (attributes.isDirectory()) {
+				dir = scan(changed);
+			} else {
+				file = Entry.of(root, changed, attributes, cachePolicy);
+			}
+		} catch (IOException e) {
+			// Deleted: both the file entry and any directory of that name go away
+		}
+
+		rootNode = replace(rootNode, segments, 0, file, dir);
+		fallback = rootNode.files.get(FALLBACK);
+	}
+
+	/**
+	 * Returns a copy of node with the last segment replaced; nodes off the
+	 * changed path are shared with the previous version.
+	 */
+	private static Node replace(Node node, List<String> segments, int depth, Entry file, Node dir) {
+		String name = segments.get(depth);
+		if (depth == segments.size() - 1) {
+			return node.withFile(name, file).withDir(name, dir);
+		}
+		Node child = node.dirs.get(name);
+		if (child == null && file == null && dir == null) {
+			return node;
+		}
+		Node updated = replace(child != null ? child : Node.EMPTY, segments, depth + 1, file, dir);
+		return node.withDir(name, updated);
+	}
+
+	/**
+	 * Builds the subtree below dir; attributes come from the directory walk,
+	 * so files are not stat'ed a second time.
+	 */
+	private Node scan(Path dir) throws IOException {
+		Deque<Map<String, Node>> dirStack = new ArrayDeque<>();
+		Deque<Map<String, Entry>> fileStack = new ArrayDeque<>();
+		Node[] result = new Node[1];
+
+		SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+				dirStack.push(new HashMap<>());
+				fileStack.push(new HashMap<>());
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				Entry entry = Entry.of(root, file, attrs, cachePolicy);
+				if (entry != null) {
+					fileStack.peek().put(fold(file.getFileName().toString(), caseInsensitive), entry);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				// Vanished or unreadable: not indexed, a watcher event follows
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path d, IOException e) {
+				Node node = new Node(Collections.unmodifiableMap(dirStack.pop()),
+						Collections.unmodifiableMap(fileStack.pop()));
+				if (dirStack.isEmpty()) {
+					result[0] = node;
+				} else {
+					dirStack.peek().put(fold(d.getFileName().toString(), caseInsensitive), node);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		};
+
+		// Follow links like the per-request stat did; loops end up in visitFileFailed
+		Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+		return result[0] != null ? result[0] : Node.EMPTY;
+	}
+}
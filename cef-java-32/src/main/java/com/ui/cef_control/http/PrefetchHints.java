@@ -0,0 +1,461 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Link prefetch headers for HTML pages: the pages a reader is likely to
+ * open next, so the browser can fetch them while idle and the next
+ * navigation is answered from its cache.
+ *
+ * Two signals are combined per page:
+ * - Its links: a and router-link elements (VuePress renders both) that
+ *   name another page of the site. Links in the main content weigh more
+ *   than navbar and sidebar links, which every page repeats.
+ * - Observed navigation: requests for a page whose same-origin Referer
+ *   is another page count as a step from one to the other.
+ *
+ * A step seen once outranks any link, and more steps rank higher; links
+ * break ties in document order. The best MAX_PREFETCH pages are sent.
+ *
+ * Pages are keyed by their path relative to the root ("guide/intro.html");
+ * request paths map to keys the way the SPA links them ("/guide/" ->
+ * "guide/index.html", "/guide/intro" -> "guide/intro.html"). The link
+ * analysis is cached per page and cleared when any file changes; the
+ * observed counts are kept, bounded, for the life of the site.
+ *
+ * Page keys of request paths and Referer URLs are memoised the same way,
+ * so a repeated page request maps to its page, and counts the step from
+ * its Referer, without allocating.
+ */
+final class PrefetchHints {
+
+	static final int MAX_PREFETCH = 3;
+	/** Distinct link targets kept per page. */
+	static final int MAX_LINKS = 64;
+	static final double CONTENT_LINK_WEIGHT = 0.5;
+	static final double OTHER_LINK_WEIGHT = 0.25;
+	private static final int MAX_CACHED_PAGES = 1024;
+	/** Memoised request paths and Referer URLs; bounds memory when clients probe random URLs. */
+	private static final int MAX_PAGE_KEYS = 4096;
+	// Page key memo value for paths that are not a page (page keys are never empty)
+	private static final String NOT_A_PAGE = "";
+	private static final int MAX_TRACKED_PAGES = 1024;
+	/** Distinct next pages counted per page; later ones are dropped. */
+	private static final int MAX_TRACKED_TARGETS = 64;
+
+	/**
+	 * Outgoing links of one page and the ranking last derived from them.
+	 */
+	private static final class PageLinks {
+		final List<String> targets;
+		final List<Boolean> inContent;
+		volatile Ranking ranking;
+
+		PageLinks(List<String> targets, List<Boolean> inContent) {
+			this.targets = targets;
+			this.inContent = inContent;
+		}
+	}
+
+	/**
+	 * Ranked page URLs and their header, valid while the page's observed
+	 * step count is still the one they were computed at.
+	 */
+	private static final class Ranking {
+		final long observed;
+		final List<String> urls;
+		final String link;
+
+		Ranking(long observed, List<String> urls, String link) {
+			this.observed = observed;
+			this.urls = urls;
+			this.link = link;
+		}
+	}
+
+	/**
+	 * Steps observed from one page.
+	 */
+	private static final class Transitions {
+		final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+		final AtomicLong total = new AtomicLong();
+	}
+
+	private final PreloadHints.Source source;
+	private final String basePath;
+	private final Map<String, PageLinks> graph;
+	private final Map<String, Transitions> observed;
+	// Replaced, not cleared, on change: a lookup racing the change fills the old map
+	private volatile Map<String, String> pageKeys;
+
+	PrefetchHints(PreloadHints.Source source) {
+		this(source, "/");
+	}
+
+	/**
+	 * @param basePath URL path the site is served under, with leading and
+	 *                 trailing '/' ("/release-notes/" for a mounted root)
+	 */
+	PrefetchHints(PreloadHints.Source source, String basePath) {
+		this.source = source;
+		this.basePath = basePath;
+		this.graph = new ConcurrentHashMap<>();
+		this.observed = new ConcurrentHashMap<>();
+		this.pageKeys = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Maps the part of a request path from an offset on (past a mount
+	 * prefix) to the page it shows.
+	 *
+	 * The result is memoised by the whole path, so all calls must use the
+	 * same offset (the site's mount prefix).
+	 *
+	 * @return Root-relative path of an existing HTML page, or null
+	 */
+	String pageKey(String requestPath, int from) {
+		Map<String, String> keys = pageKeys;
+		String page = keys.get(requestPath);
+		if (page == null) {
+			page = remember(keys, requestPath, lookupPage(requestPath, from));
+		}
+		return page.isEmpty() ? null : page;
+	}
+
+	/**
+	 * Maps a Referer to the page it names, if it is a page of this site on
+	 * the authority of the request (its Host header).
+	 *
+	 * @return Page key, or null for other origins, paths outside the base
+	 *         path and anything that is not a page
+	 */
+	String refererPage(String referer, String host) {
+		int authority = referer.indexOf("://");
+		if (authority < 0) {
+			return null;
+		}
+		authority += 3;
+		int pathStart = authority + host.length();
+		if (!referer.regionMatches(true, authority, host, 0, host.length())
+				|| pathStart < referer.length() && "/?#".indexOf(referer.charAt(pathStart)) < 0) {
+			return null; // Other host, or a longer authority starting with ours
+		}
+		if (!referer.regionMatches(pathStart, basePath, 0, basePath.length() - 1)) {
+			return null; // Outside the mount
+		}
+		Map<String, String> keys = pageKeys;
+		String page = keys.get(referer);
+		if (page == null) {
+			page = remember(keys, referer, refererLookup(referer, pathStart));
+		}
+		return page.isEmpty() ? null : page;
+	}
+
+	private String refererLookup(String referer, int pathStart) {
+		int pathEnd = pathStart;
+		while (pathEnd < referer.length() && referer.charAt(pathEnd) != '?' && referer.charAt(pathEnd) != '#') {
+			pathEnd++;
+		}
+		String path = pathEnd > pathStart ? referer.substring(pathStart, pathEnd) : "/";
+		if (path.indexOf('%') >= 0) {
+			try {
+				path = new URI(path).getPath();
+			} catch (URISyntaxException e) {
+				return null;
+			}
+		}
+		return path.contains("..") ? null : lookupPage(path, basePath.length() - 1);
+	}
+
+	private static String remember(Map<String, String> keys, String key, String page) {
+		String value = page != null ? page : NOT_A_PAGE;
+		if (keys.size() < MAX_PAGE_KEYS) {
+			keys.put(key, value);
+		}
+		return value;
+	}
+
+	private String lookupPage(String requestPath, int from) {
+		String path = requestPath.substring(Math.min(from, requestPath.length()));
+		if (path.startsWith("/")) {
+			path = path.substring(1);
+		}
+		if (path.isEmpty() || path.endsWith("/")) {
+			return existing(path + PathIndex.FALLBACK);
+		}
+		if (path.endsWith(".html")) {
+			return existing(path);
+		}
+		if (path.lastIndexOf('.') > path.lastIndexOf('/')) {
+			return null; // An asset, not a page
+		}
+		String page = existing(path + ".html");
+		return page != null ? page : existing(path + "/" + PathIndex.FALLBACK);
+	}
+
+	private String existing(String page) {
+		return source.exists(page) ? page : null;
+	}
+
+	/**
+	 * Counts a navigation from one page to another.
+	 *
+	 * @param fromPage Page key of the referring page
+	 * @param toPage Page key of the requested page
+	 */
+	void recordNavigation(String fromPage, String toPage) {
+		if (fromPage.equals(toPage)) {
+			return; // Reload
+		}
+		Transitions transitions = observed.get(fromPage);
+		if (transitions == null) {
+			if (observed.size() >= MAX_TRACKED_PAGES) {
+				return;
+			}
+			transitions = observed.computeIfAbsent(fromPage, key -> new Transitions());
+		}
+		AtomicLong count = transitions.counts.get(toPage);
+		if (count == null) {
+			if (transitions.counts.size() >= MAX_TRACKED_TARGETS) {
+				return;
+			}
+			count = transitions.counts.computeIfAbsent(toPage, key -> new AtomicLong());
+		}
+		count.incrementAndGet();
+		transitions.total.incrementAndGet();
+	}
+
+	/**
+	 * @param page Page key ("guide/intro.html")
+	 * @return URLs of the likely next pages, best first (at most MAX_PREFETCH)
+	 */
+	List<String> rank(String page) {
+		Ranking ranking = ranking(page);
+		return ranking != null ? ranking.urls : Collections.emptyList();
+	}
+
+	/**
+	 * @param page Page key ("guide/intro.html")
+	 * @return Link header value ({@code </guide/next.html>; rel=prefetch, ...}),
+	 *         or null if there is nothing to prefetch
+	 */
+	String linkFor(String page) {
+		Ranking ranking = ranking(page);
+		return ranking != null && !ranking.link.isEmpty() ? ranking.link : null;
+	}
+
+	/**
+	 * Watcher callback: any change may add or remove a page or a link.
+	 */
+	void onPathChanged(Path changed) {
+		graph.clear();
+		pageKeys = new ConcurrentHashMap<>();
+	}
+
+	private Ranking ranking(String page) {
+		PageLinks links = graph.get(page);
+		if (links == null) {
+			try {
+				links = analyze(page);
+			} catch (IOException e) {
+				return null; // Not cached: retried on the next request
+			}
+			if (graph.size() >= MAX_CACHED_PAGES) {
+				graph.clear();
+			}
+			graph.put(page, links);
+		}
+		Transitions transitions = observed.get(page);
+		long steps = transitions != null ? transitions.total.get() : 0;
+		Ranking ranking = links.ranking;
+		if (ranking != null && ranking.observed == steps) {
+			return ranking;
+		}
+
+		Map<String, Double> scores = new LinkedHashMap<>();
+		for (int i = 0; i < links.targets.size(); i++) {
+			double weight = links.inContent.get(i) ? CONTENT_LINK_WEIGHT : OTHER_LINK_WEIGHT;
+			scores.merge(links.targets.get(i), weight, Math::max);
+		}
+		if (transitions != null) {
+			for (Map.Entry<String, AtomicLong> step : transitions.counts.entrySet()) {
+				if (scores.containsKey(step.getKey()) || source.exists(step.getKey())) {
+					scores.merge(step.getKey(), (double) step.getValue().get(), Double::sum);
+				}
+			}
+		}
+		List<Map.Entry<String, Double>> ranked = new ArrayList<>(scores.entrySet());
+		ranked.sort((a, b) -> Double.compare(b.getValue(), a.getValue())); // Stable: links keep document order
+		List<String> urls = new ArrayList<>();
+		StringBuilder link = new StringBuilder();
+		for (Map.Entry<String, Double> entry : ranked) {
+			if (urls.size() == MAX_PREFETCH) {
+				break;
+			}
+			String url = toUrl(PathIndex.pageUrl(basePath, entry.getKey()));
+			if (url == null) {
+				continue;
+			}
+			urls.add(url);
+			if (link.length() > 0) {
+				link.append(", ");
+			}
+			link.append('<').append(url).append(">; rel=prefetch");
+		}
+		ranking = new Ranking(steps, Collections.unmodifiableList(urls), link.toString());
+		links.ranking = ranking;
+		return ranking;
+	}
+
+	/**
+	 * Parses a page and returns the pages it links to, in document order.
+	 */
+	private PageLinks analyze(String page) throws IOException {
+		List<String> targets = new ArrayList<>();
+		List<Boolean> inContent = new ArrayList<>();
+		byte[] html = source.read(page);
+		if (html == null) {
+			return new PageLinks(targets, inContent);
+		}
+		for (Anchor anchor : scanHtml(new String(html, StandardCharsets.UTF_8))) {
+			String target = resolve(page, anchor.target);
+			if (target == null || target.equals(page)) {
+				continue;
+			}
+			int known = targets.indexOf(target);
+			if (known >= 0) {
+				if (anchor.inContent) {
+					inContent.set(known, Boolean.TRUE);
+				}
+			} else if (targets.size() < MAX_LINKS) {
+				targets.add(target);
+				inContent.add(anchor.inContent);
+			}
+		}
+		return new PageLinks(targets, inContent);
+	}
+
+	/**
+	 * Resolves a link against the page it appears in.
+	 *
+	 * @return Page key of an existing page of this site, or null
+	 */
+	private String resolve(String page, String target) {
+		try {
+			URI reference = new URI(target.trim());
+			if (reference.getScheme() != null || reference.getRawAuthority() != null
+					|| reference.getRawPath() == null || reference.getRawPath().isEmpty()) {
+				return null; // Other origin, mailto: or fragment only
+			}
+			URI resolved = new URI(null, null, basePath + page, null).resolve(reference).normalize();
+			String path = resolved.getPath();
+			if (path == null || !path.startsWith(basePath) || path.contains("..")) {
+				return null;
+			}
+			return lookupPage(path, basePath.length() - 1);
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return The URL if it can go into a header unescaped, else null
+	 */
+	private static String toUrl(String url) {
+		for (int i = 0; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c <= ' ' || c >= 0x7f || c == '>' || c == '<' || c == '"') {
+				return null;
+			}
+		}
+		return url;
+	}
+
+	// --- Scanning ---
+
+	/**
+	 * A link found in markup, before resolution.
+	 */
+	private static final class Anchor {
+		final String target;
+		final boolean inContent;
+
+		Anchor(String target, boolean inContent) {
+			this.target = target;
+			this.inContent = inContent;
+		}
+	}
+
+	/**
+	 * Tag scanner for a href and router-link to. Comments and the bodies
+	 * of script and style are skipped; links between a main start and end
+	 * tag are content links.
+	 */
+	private static List<Anchor> scanHtml(String html) {
+		List<Anchor> anchors = new ArrayList<>();
+		int length = html.length();
+		boolean inMain = false;
+		int i = 0;
+		while ((i = html.indexOf('<', i)) >= 0) {
+			if (html.startsWith("<!--", i)) {
+				int end = html.indexOf("-->", i + 4);
+				if (end < 0) {
+					break;
+				}
+				i = end + 3;
+				continue;
+			}
+			boolean closing = i + 1 < length && html.charAt(i + 1) == '/';
+			int nameStart = closing ? i + 2 : i + 1;
+			int nameEnd = nameStart;
+			while (nameEnd < length && (Character.isLetterOrDigit(html.charAt(nameEnd)) || html.charAt(nameEnd) == '-')) {
+				nameEnd++;
+			}
+			if (nameEnd == nameStart) {
+				i++;
+				continue;
+			}
+			String tag = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+			Map<String, String> attributes = new HashMap<>();
+			i = PreloadHints.parseAttributes(html, nameEnd, attributes);
+			if (closing) {
+				if ("main".equals(tag)) {
+					inMain = false;
+				}
+				continue;
+			}
+
+			if ("main".equals(tag)) {
+				inMain = true;
+			} else if ("script".equals(tag)) {
+				i = PreloadHints.endOfElement(html, i, "</script");
+			} else if ("style".equals(tag)) {
+				i = PreloadHints.endOfElement(html, i, "</style");
+			} else if ("a".equals(tag)) {
+				String href = attributes.get("href");
+				if (href != null && !attributes.containsKey("download")) {
+					anchors.add(new Anchor(href, inMain));
+				}
+			} else if ("router-link".equals(tag)) {
+				String to = attributes.get("to");
+				if (to != null) {
+					anchors.add(new Anchor(to, inMain));
+				}
+			}
+		}
+		return anchors;
+	}
+}
@@ -0,0 +1,487 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Link preload headers for HTML pages, so the browser requests a page's
+ * critical resources while the HTML is still arriving instead of after
+ * parsing it.
+ *
+ * Each page version is analysed once: its stylesheets, scripts
+ * (modulepreload for type=module), preload links, and the first font of
+ * every @font-face in inline styles and in the stylesheets it links.
+ * References are resolved against the page (or stylesheet) and kept only
+ * if they name a file of the site, since a miss would be answered with
+ * the SPA fallback.
+ *
+ * Results are cached per page path and ETag, so a changed page is
+ * re-analysed on its next request; the watcher clears the cache when any
+ * file changes, since referenced files may have appeared or gone.
+ */
+final class PreloadHints {
+
+	static final int MAX_HINTS = 16;
+	static final int MAX_FONT_HINTS = 4;
+	/** Pages and stylesheets above this size are not analysed. */
+	static final long MAX_DOCUMENT_BYTES = 1024 * 1024;
+	private static final int MAX_CACHED_PAGES = 1024;
+	private static final String NONE = "";
+
+	/**
+	 * Files of the site, by path relative to the root ("assets/app.css").
+	 */
+	interface Source {
+		boolean exists(String path);
+
+		/**
+		 * @return Identity content, or null if the file is missing or too large to analyse
+		 */
+		byte[] read(String path) throws IOException;
+	}
+
+	/**
+	 * One resource to preload.
+	 */
+	static final class Hint {
+		private final String url;
+		private final String rel;
+		private final String as;
+		private final String type;
+
+		Hint(String url, String rel, String as, String type) {
+			this.url = url;
+			this.rel = rel;
+			this.as = as;
+			this.type = type;
+		}
+
+		String getUrl() {
+			return url;
+		}
+
+		String getRel() {
+			return rel;
+		}
+
+		String getAs() {
+			return as;
+		}
+
+		/**
+		 * Link header element, e.g. {@code </assets/app.css>; rel=preload; as=style}.
+		 */
+		String toLinkValue() {
+			StringBuilder value = new StringBuilder(url.length() + 48);
+			value.append('<').append(url).append(">; rel=").append(rel);
+			if (as != null) {
+				value.append("; as=").append(as);
+			}
+			if (type != null) {
+				value.append("; type=\"").append(type).append('"');
+			}
+			if ("font".equals(as)) {
+				value.append("; crossorigin"); // Fonts are always fetched in CORS mode
+			}
+			return value.toString();
+		}
+	}
+
+	/**
+	 * Link header of one page version.
+	 */
+	private static final class PageLink {
+		final String etag;
+		final String link;
+
+		PageLink(String etag, String link) {
+			this.etag = etag;
+			this.link = link;
+		}
+	}
+
+	private final Source source;
+	private final String basePath;
+	// Page path -> header of the version last served; keyed by path alone so a hit builds no key
+	private final Map<String, PageLink> links;
+
+	PreloadHints(Source source) {
+		this(source, "/");
+	}
+
+	/**
+	 * @param basePath URL path the site is served under, with leading and
+	 *                 trailing '/' ("/release-notes/" for a mounted root)
+	 */
+	PreloadHints(Source source, String basePath) {
+		this.source = source;
+		this.basePath = basePath;
+		this.links = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the Link header value for a page version.
+	 *
+	 * @param pagePath Page path relative to the root ("guide/index.html")
+	 * @param etag Validator of the page version being served
+	 * @return Header value, or null if the page references nothing to preload
+	 */
+	String linkFor(String pagePath, String etag) {
+		PageLink cached = links.get(pagePath);
+		String link;
+		if (cached != null && cached.etag.equals(etag)) {
+			link = cached.link;
+		} else {
+			try {
+				link = join(analyze(pagePath));
+			} catch (IOException e) {
+				return null; // Not cached: retried on the next request
+			}
+			if (links.size() >= MAX_CACHED_PAGES) {
+				links.clear();
+			}
+			links.put(pagePath, new PageLink(etag, link));
+		}
+		return link.isEmpty() ? null : link;
+	}
+
+	/**
+	 * Watcher callback: any change may add or remove a referenced file.
+	 */
+	void onPathChanged(Path changed) {
+		links.clear();
+	}
+
+	/**
+	 * Parses a page of the site and returns its hints in document order
+	 * (fonts last).
+	 */
+	List<Hint> analyze(String pagePath) throws IOException {
+		byte[] html = source.read(pagePath);
+		if (html == null) {
+			return new ArrayList<>();
+		}
+		Map<String, Hint> found = new LinkedHashMap<>();
+		List<String> fonts = new ArrayList<>();
+		for (Reference reference : scanHtml(new String(html, StandardCharsets.UTF_8))) {
+			URI resolved = resolve(pagePath, reference.target);
+			String url = resolved != null ? toUrl(resolved) : null;
+			if (url == null || found.containsKey(url) || fonts.contains(url)) {
+				continue;
+			}
+			if ("font".equals(reference.as)) {
+				fonts.add(url);
+				continue;
+			}
+			found.put(url, new Hint(url, reference.rel, reference.as, reference.type));
+			if ("style".equals(reference.as)) {
+				fonts.addAll(stylesheetFonts(resolved.getPath().substring(basePath.length())));
+			}
+		}
+
+		List<Hint> hints = new ArrayList<>(found.values());
+		int fontCount = 0;
+		for (String font : fonts) {
+			if (fontCount == MAX_FONT_HINTS || found.containsKey(font)) {
+				continue;
+			}
+			found.put(font, new Hint(font, "preload", "font", fontType(font)));
+			hints.add(found.get(font));
+			fontCount++;
+		}
+		return hints.size() > MAX_HINTS ? new ArrayList<>(hints.subList(0, MAX_HINTS)) : hints;
+	}
+
+	private List<String> stylesheetFonts(String stylesheetPath) throws IOException {
+		List<String> fonts = new ArrayList<>();
+		byte[] css = source.read(stylesheetPath);
+		if (css == null) {
+			return fonts;
+		}
+		for (String target : fontFaceUrls(new String(css, StandardCharsets.UTF_8))) {
+			URI resolved = resolve(stylesheetPath, target);
+			String url = resolved != null ? toUrl(resolved) : null;
+			if (url != null && !fonts.contains(url)) {
+				fonts.add(url);
+			}
+		}
+		return fonts;
+	}
+
+	/**
+	 * Resolves a reference against the document it appears in.
+	 *
+	 * @param documentPath Root-relative path of the page or stylesheet
+	 * @return Absolute same-origin URI of an existing file of this site
+	 *         (below the base path), or null
+	 */
+	private URI resolve(String documentPath, String target) {
+		try {
+			URI reference = new URI(target.trim());
+			if (reference.getScheme() != null || reference.getRawAuthority() != null
+					|| reference.getRawPath() == null || reference.getRawPath().isEmpty()) {
+				return null; // Other origin, data: URL or fragment only
+			}
+			URI resolved = new URI(null, null, basePath + documentPath, null).resolve(reference).normalize();
+			String path = resolved.getPath();
+			if (path == null || !path.startsWith(basePath) || path.contains("..")
+					|| !source.exists(path.substring(basePath.length()))) {
+				return null;
+			}
+			return resolved;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Request URL of a resolved reference ("/assets/app.css"), or
+	 *         null if it cannot go into a header unescaped
+	 */
+	private static String toUrl(URI resolved) {
+		String url = resolved.getRawPath() + (resolved.getRawQuery() != null ? "?" + resolved.getRawQuery() : "");
+		for (int i = 0; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c <= ' ' || c >= 0x7f || c == '>' || c == '<' || c == '"') {
+				return null;
+			}
+		}
+		return url;
+	}
+
+	static String join(List<Hint> hints) {
+		StringBuilder link = new StringBuilder();
+		for (Hint hint : hints) {
+			if (link.length() > 0) {
+				link.append(", ");
+			}
+			link.append(hint.toLinkValue());
+		}
+		return link.toString();
+	}
+
+	private static String fontType(String url) {
+		String path = url.toLowerCase(Locale.ROOT);
+		int query = path.indexOf('?');
+		if (query >= 0) {
+			path = path.substring(0, query);
+		}
+		if (path.endsWith(".woff2")) {
+			return "font/woff2";
+		}
+		if (path.endsWith(".woff")) {
+			return "font/woff";
+		}
+		if (path.endsWith(".ttf")) {
+			return "font/ttf";
+		}
+		if (path.endsWith(".otf")) {
+			return "font/otf";
+		}
+		return null;
+	}
+
+	// --- Scanning ---
+
+	/**
+	 * A reference found in markup, before resolution.
+	 */
+	private static final class Reference {
+		final String target;
+		final String rel;
+		final String as;
+		final String type;
+
+		Reference(String target, String rel, String as, String type) {
+			this.target = target;
+			this.rel = rel;
+			this.as = as;
+			this.type = type;
+		}
+	}
+
+	/**
+	 * Tag scanner for the references that matter here: script src, link
+	 * rel=stylesheet / preload / modulepreload, and fonts in inline style
+	 * elements. Comments and script bodies are skipped.
+	 */
+	private static List<Reference> scanHtml(String html) {
+		List<Reference> references = new ArrayList<>();
+		int length = html.length();
+		int i = 0;
+		while ((i = html.indexOf('<', i)) >= 0) {
+			if (html.startsWith("<!--", i)) {
+				int end = html.indexOf("-->", i + 4);
+				if (end < 0) {
+					break;
+				}
+				i = end + 3;
+				continue;
+			}
+			int nameEnd = i + 1;
+			while (nameEnd < length && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+				nameEnd++;
+			}
+			if (nameEnd == i + 1) {
+				i++;
+				continue;
+			}
+			String tag = html.substring(i + 1, nameEnd).toLowerCase(Locale.ROOT);
+			Map<String, String> attributes = new HashMap<>();
+			i = parseAttributes(html, nameEnd, attributes);
+
+			if ("script".equals(tag)) {
+				String src = attributes.get("src");
+				if (src != null && !attributes.containsKey("nomodule")) {
+					boolean module = "module".equalsIgnoreCase(attributes.get("type"));
+					references.add(module
+							? new Reference(src, "modulepreload", null, null)
+							: new Reference(src, "preload", "script", null));
+				}
+				i = endOfElement(html, i, "</script");
+			} else if ("style".equals(tag)) {
+				int end = endOfElement(html, i, "</style");
+				for (String font : fontFaceUrls(html.substring(i, Math.min(end, length)))) {
+					references.add(new Reference(font, "preload", "font", null));
+				}
+				i = end;
+			} else if ("link".equals(tag)) {
+				Reference reference = linkReference(attributes);
+				if (reference != null) {
+					references.add(reference);
+				}
+			}
+		}
+		return references;
+	}
+
+	private static Reference linkReference(Map<String, String> attributes) {
+		String href = attributes.get("href");
+		String rel = attributes.get("rel");
+		if (href == null || rel == null) {
+			return null;
+		}
+		List<String> rels = new ArrayList<>();
+		for (String token : rel.toLowerCase(Locale.ROOT).split("\\s+")) {
+			rels.add(token);
+		}
+		if (rels.contains("stylesheet") && !rels.contains("alternate")) {
+			return new Reference(href, "preload", "style", null);
+		}
+		if (rels.contains("modulepreload")) {
+			return new Reference(href, "modulepreload", null, null);
+		}
+		if (rels.contains("preload")) {
+			String as = attributes.get("as");
+			if ("style".equalsIgnoreCase(as) || "script".equalsIgnoreCase(as) || "font".equalsIgnoreCase(as)) {
+				return new Reference(href, "preload", as.toLowerCase(Locale.ROOT), null);
+			}
+		}
+		return null; // prefetch, icons, alternates: not needed for first paint
+	}
+
+	/**
+	 * Reads attributes up to the end of the tag.
+	 *
+	 * @return Index after the closing '>'
+	 */
+	static int parseAttributes(String html, int from, Map<String, String> attributes) {
+		int length = html.length();
+		int i = from;
+		while (i < length) {
+			char c = html.charAt(i);
+			if (c == '>') {
+				return i + 1;
+			}
+			if (Character.isWhitespace(c) || c == '/') {
+				i++;
+				continue;
+			}
+			int nameStart = i;
+			while (i < length && "=>/".indexOf(html.charAt(i)) < 0 && !Character.isWhitespace(html.charAt(i))) {
+				i++;
+			}
+			String name = html.substring(nameStart, i).toLowerCase(Locale.ROOT);
+			while (i < length && Character.isWhitespace(html.charAt(i))) {
+				i++;
+			}
+			String value = "";
+			if (i < length && html.charAt(i) == '=') {
+				i++;
+				while (i < length && Character.isWhitespace(html.charAt(i))) {
+					i++;
+				}
+				if (i < length && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+					char quote = html.charAt(i);
+					int end = html.indexOf(quote, i + 1);
+					end = end < 0 ? length : end;
+					value = html.substring(i + 1, end);
+					i = end + 1;
+				} else {
+					int valueStart = i;
+					while (i < length && html.charAt(i) != '>' && !Character.isWhitespace(html.charAt(i))) {
+						i++;
+					}
+					value = html.substring(valueStart, i);
+				}
+			}
+			attributes.putIfAbsent(name, value);
+		}
+		return length;
+	}
+
+	/**
+	 * @return Index of the closing tag (case-insensitive), or the end of the text
+	 */
+	static int endOfElement(String html, int from, String closingTag) {
+		for (int i = html.indexOf('<', from); i >= 0; i = html.indexOf('<', i + 1)) {
+			if (html.regionMatches(true, i, closingTag, 0, closingTag.length())) {
+				return i;
+			}
+		}
+		return html.length();
+	}
+
+	/**
+	 * First font URL of each @font-face rule (browsers use the first
+	 * supported source, and builds list woff2 first).
+	 */
+	static List<String> fontFaceUrls(String css) {
+		List<String> urls = new ArrayList<>();
+		String lower = css.toLowerCase(Locale.ROOT);
+		int i = 0;
+		while ((i = lower.indexOf("@font-face", i)) >= 0) {
+			int open = lower.indexOf('{', i);
+			int close = open < 0 ? -1 : lower.indexOf('}', open);
+			if (close < 0) {
+				break;
+			}
+			for (int u = lower.indexOf("url(", open); u >= 0 && u < close; u = lower.indexOf("url(", u + 4)) {
+				int end = css.indexOf(')', u + 4);
+				if (end < 0 || end > close) {
+					break;
+				}
+				String url = css.substring(u + 4, end).trim();
+				if (url.length() >= 2 && (url.charAt(0) == '"' || url.charAt(0) == '\'')) {
+					url = url.substring(1, url.length() - 1);
+				}
+				if (fontType(url) != null) {
+					urls.add(url);
+					break;
+				}
+			}
+			i = close + 1;
+		}
+		return urls;
+	}
+}
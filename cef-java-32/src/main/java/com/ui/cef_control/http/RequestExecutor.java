@@ -0,0 +1,142 @@
+package com.ui.cef_control.http;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor handed to the HTTP engine, built from the configured
+ * ExecutorStrategy. Counts active and completed requests for every strategy.
+ */
+final class RequestExecutor implements Executor {
+
+	private final ExecutorStrategy strategy;
+	private final ExecutorService delegate;
+	private final ThreadPoolExecutor pool;
+	private final AtomicInteger active;
+	private final LongAdder completed;
+	private final LongAdder overflowRuns;
+
+	private RequestExecutor(ExecutorStrategy strategy, ExecutorService delegate, ThreadPoolExecutor pool) {
+		this.strategy = strategy;
+		this.delegate = delegate;
+		this.pool = pool;
+		this.active = new AtomicInteger();
+		this.completed = new LongAdder();
+		this.overflowRuns = new LongAdder();
+	}
+
+	/**
+	 * Creates the executor for a server.
+	 *
+	 * @param config Server configuration (strategy, workers, queue capacity)
+	 * @param threadNamePrefix Prefix for worker thread names
+	 */
+	static RequestExecutor create(HttpServerConfig config, String threadNamePrefix) {
+		switch (config.getExecutorStrategy()) {
+			case DISPATCHER_THREAD:
+				return new RequestExecutor(ExecutorStrategy.DISPATCHER_THREAD, null, null);
+			case VIRTUAL_THREADS:
+				ExecutorService virtual = newVirtualThreadExecutor();
+				if (virtual != null) {
+					return new RequestExecutor(ExecutorStrategy.VIRTUAL_THREADS, virtual, null);
+				}
+				System.err.println("RequestExecutor: virtual threads not available on this JDK, using a bounded pool");
+				return boundedPool(config, threadNamePrefix);
+			case BOUNDED_POOL:
+			default:
+				return boundedPool(config, threadNamePrefix);
+		}
+	}
+
+	private static RequestExecutor boundedPool(HttpServerConfig config, String threadNamePrefix) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(
+				config.getWorkerThreads(),
+				config.getWorkerThreads(),
+				60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(config.getWorkerQueueCapacity()),
+				factory);
+		pool.allowCoreThreadTimeOut(true);
+		RequestExecutor executor = new RequestExecutor(ExecutorStrategy.BOUNDED_POOL, pool, pool);
+		// Queue full: run on the dispatcher thread rather than drop the connection.
+		// Once stopped, refuse: the engines close the connection instead of
+		// serving it inline after the drain was reported.
+		pool.setRejectedExecutionHandler((runnable, rejectedBy) -> {
+			if (rejectedBy.isShutdown()) {
+				throw new RejectedExecutionException("Request executor is shut down");
+			}
+			executor.overflowRuns.increment();
+			runnable.run();
+		});
+		return executor;
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() via reflection, so the
+	 * code still compiles and runs on Java 11.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		Runnable counted = () -> {
+			active.incrementAndGet();
+			try {
+				command.run();
+			} finally {
+				active.decrementAndGet();
+				completed.increment();
+			}
+		};
+		if (delegate == null) {
+			counted.run();
+		} else {
+			delegate.execute(counted);
+		}
+	}
+
+	ExecutorStrategy getStrategy() {
+		return strategy;
+	}
+
+	WorkerPoolStats stats() {
+		return new WorkerPoolStats(
+				strategy,
+				active.get(),
+				pool != null ? pool.getQueue().size() : 0,
+				pool != null ? pool.getPoolSize() : 0,
+				completed.sum(),
+				overflowRuns.sum()
+		);
+	}
+
+	/**
+	 * Stops accepting work; running requests are allowed to finish.
+	 */
+	void shutdown() {
+		if (delegate != null) {
+			delegate.shutdown();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.ui.cef_control.http;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request recorder shared by the static file handlers of a server.
+ *
+ * Recording touches only preallocated atomics (histogram bucket, byte
+ * adder, status counter, in-flight gauge), so the cost per request is a
+ * handful of uncontended CAS operations and no allocation. Owned by the
+ * server, so figures survive restarts like the asset cache does.
+ */
+final class RequestMetrics {
+
+	private static final RouteClass[] ROUTES = RouteClass.values();
+	// Status codes 100-599 are counted individually; anything else lands in slot 0
+	private static final int STATUS_SLOTS = 600;
+
+	private final LatencyHistogram[] latency;
+	private final LongAdder[] bytes;
+	private final AtomicLongArray statusCounts;
+	private final AtomicInteger inFlight;
+
+	RequestMetrics() {
+		this.latency = new LatencyHistogram[ROUTES.length];
+		this.bytes = new LongAdder[ROUTES.length];
+		for (int i = 0; i < ROUTES.length; i++) {
+			latency[i] = new LatencyHistogram();
+			bytes[i] = new LongAdder();
+		}
+		this.statusCounts = new AtomicLongArray(STATUS_SLOTS);
+		this.inFlight = new AtomicInteger();
+	}
+
+	/**
+	 * @return Start timestamp to pass to requestCompleted
+	 */
+	long requestStarted() {
+		inFlight.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * @param route Class of the served file
+	 * @param status Response status (-1 if none was sent)
+	 * @param bodyBytes Response body bytes written
+	 * @param startNanos Value returned by requestStarted
+	 */
+	void requestCompleted(RouteClass route, int status, long bodyBytes, long startNanos) {
+		latency[route.ordinal()].record(System.nanoTime() - startNanos);
+		bytes[route.ordinal()].add(bodyBytes);
+		statusCounts.incrementAndGet(status >= 100 && status < STATUS_SLOTS ? status : 0);
+		inFlight.decrementAndGet();
+	}
+
+	int getInFlight() {
+		return inFlight.get();
+	}
+
+	RequestMetricsStats stats() {
+		Map<RouteClass, RouteStats> routes = new EnumMap<>(RouteClass.class);
+		for (RouteClass route : ROUTES) {
+			LatencyHistogram.Snapshot snapshot = latency[route.ordinal()].snapshot();
+			routes.put(route, new RouteStats(
+					route,
+					snapshot.getCount(),
+					bytes[route.ordinal()].sum(),
+					toMicros(snapshot.percentile(0.50)),
+					toMicros(snapshot.percentile(0.90)),
+					toMicros(snapshot.percentile(0.99)),
+					toMicros(snapshot.getMax())));
+		}
+
+		Map<Integer, Long> statuses = new TreeMap<>();
+		for (int i = 0; i < STATUS_SLOTS; i++) {
+			long count = statusCounts.get(i);
+			if (count > 0) {
+				statuses.put(i, count);
+			}
+		}
+
+		return new RequestMetricsStats(inFlight.get(), Collections.unmodifiableMap(routes),
+				Collections.unmodifiableMap(statuses));
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,61 @@
+package com.ui.cef_control.http;
+
+import java.util.Map;
+
+/**
+ * Point-in-time snapshot of the request metrics of a docs server.
+ *
+ * Comparing route latencies with the worker stats separates slow storage
+ * (HTML/MEDIA p99 up, workers idle) from a saturated thread model (every
+ * route slow, queue depth or overflow runs growing).
+ */
+public final class RequestMetricsStats {
+
+	private final int inFlight;
+	private final Map<RouteClass, RouteStats> routes;
+	private final Map<Integer, Long> statusCounts;
+
+	RequestMetricsStats(int inFlight, Map<RouteClass, RouteStats> routes, Map<Integer, Long> statusCounts) {
+		this.inFlight = inFlight;
+		this.routes = routes;
+		this.statusCounts = statusCounts;
+	}
+
+	/**
+	 * Requests currently inside the static file handler.
+	 */
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Stats per route class, including classes with no requests yet.
+	 */
+	public Map<RouteClass, RouteStats> getRoutes() {
+		return routes;
+	}
+
+	/**
+	 * Response count per status code (codes never sent are absent).
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	public long getTotalRequests() {
+		long total = 0;
+		for (RouteStats route : routes.values()) {
+			total += route.getRequests();
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestMetricsStats{" +
+				"inFlight=" + inFlight +
+				", routes=" + routes.values() +
+				", statusCounts=" + statusCounts +
+				'}';
+	}
+}
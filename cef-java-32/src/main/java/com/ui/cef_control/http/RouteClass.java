@@ -0,0 +1,47 @@
+package com.ui.cef_control.http;
+
+import java.util.Locale;
+
+/**
+ * Coarse request classes that metrics are grouped by.
+ *
+ * Derived from the served file's content type once, when the file is
+ * indexed. FALLBACK marks SPA routes answered with index.html, which
+ * behave differently from direct HTML hits (client-side routing).
+ */
+public enum RouteClass {
+	HTML,
+	FALLBACK,
+	SCRIPT,
+	STYLE,
+	IMAGE,
+	FONT,
+	MEDIA,
+	OTHER;
+
+	/**
+	 * Classifies a served file by its MIME type.
+	 */
+	static RouteClass of(String contentType) {
+		String type = contentType.toLowerCase(Locale.ROOT);
+		if (type.startsWith("text/html")) {
+			return HTML;
+		}
+		if (type.contains("javascript")) {
+			return SCRIPT;
+		}
+		if (type.startsWith("text/css")) {
+			return STYLE;
+		}
+		if (type.startsWith("image/")) {
+			return IMAGE;
+		}
+		if (type.startsWith("font/") || type.contains("fontobject") || type.contains("font-woff")) {
+			return FONT;
+		}
+		if (type.startsWith("video/") || type.startsWith("audio/")) {
+			return MEDIA;
+		}
+		return OTHER;
+	}
+}
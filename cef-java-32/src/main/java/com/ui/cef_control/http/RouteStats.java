@@ -0,0 +1,73 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time latency and volume figures of one route class.
+ *
+ * Latencies are measured from handler entry to the last body byte
+ * handed to the server, in microseconds.
+ */
+public final class RouteStats {
+
+	private final RouteClass route;
+	private final long requests;
+	private final long bytes;
+	private final long p50Micros;
+	private final long p90Micros;
+	private final long p99Micros;
+	private final long maxMicros;
+
+	RouteStats(RouteClass route, long requests, long bytes, long p50Micros, long p90Micros, long p99Micros,
+			long maxMicros) {
+		this.route = route;
+		this.requests = requests;
+		this.bytes = bytes;
+		this.p50Micros = p50Micros;
+		this.p90Micros = p90Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+	}
+
+	public RouteClass getRoute() {
+		return route;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * Response body bytes (after Content-Encoding).
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getP50Micros() {
+		return p50Micros;
+	}
+
+	public long getP90Micros() {
+		return p90Micros;
+	}
+
+	public long getP99Micros() {
+		return p99Micros;
+	}
+
+	public long getMaxMicros() {
+		return maxMicros;
+	}
+
+	@Override
+	public String toString() {
+		return "RouteStats{" +
+				"route=" + route +
+				", requests=" + requests +
+				", bytes=" + bytes +
+				", p50Micros=" + p50Micros +
+				", p90Micros=" + p90Micros +
+				", p99Micros=" + p99Micros +
+				", maxMicros=" + maxMicros +
+				'}';
+	}
+}
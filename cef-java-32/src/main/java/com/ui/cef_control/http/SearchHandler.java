@@ -0,0 +1,158 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Serves the reserved /__search context from the sites' SearchIndex.
+ *
+ * GET /__search?q=words&limit=10 answers
+ * {"query":"words","total":N,"results":[{"url":..,"title":..,"excerpt":..,"score":..}]},
+ * best first. The results cover what the requesting Host sees: a host
+ * mount's root, or the server's root plus its path mounts. The last word
+ * may be incomplete (prefix match). Answered from memory; not recorded
+ * in the request metrics.
+ */
+class SearchHandler implements HttpHandler {
+
+	static final String CONTEXT_PATH = "/__search";
+	static final int DEFAULT_LIMIT = 10;
+	static final int MAX_LIMIT = 50;
+
+	private final Function<String, List<SearchIndex>> indexes;
+
+	/**
+	 * @param indexes Host header (or null) -> indexes to search
+	 */
+	SearchHandler(Function<String, List<SearchIndex>> indexes) {
+		this.indexes = indexes;
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			exchange.sendResponseHeaders(405, -1); // 405 Method Not Allowed
+			exchange.close();
+			return;
+		}
+
+		String query = "";
+		int limit = DEFAULT_LIMIT;
+		String rawQuery = exchange.getRequestURI().getRawQuery();
+		try {
+			if (rawQuery != null) {
+				for (String parameter : rawQuery.split("&")) {
+					int equals = parameter.indexOf('=');
+					String name = equals < 0 ? parameter : parameter.substring(0, equals);
+					String value = equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1),
+							StandardCharsets.UTF_8);
+					if ("q".equals(name)) {
+						query = value;
+					} else if ("limit".equals(name)) {
+						limit = Integer.parseInt(value);
+					}
+				}
+			}
+			if (limit < 1 || limit > MAX_LIMIT) {
+				throw new IllegalArgumentException("limit must be 1-" + MAX_LIMIT);
+			}
+		} catch (IllegalArgumentException e) {
+			// Also NumberFormatException and malformed %-escapes
+			exchange.sendResponseHeaders(400, -1); // 400 Bad Request
+			exchange.close();
+			return;
+		}
+
+		byte[] bytes = renderJson(query, search(StaticFileHandler.requestHeader(exchange, "Host"), query, limit))
+				.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	/**
+	 * Searches every index and keeps the best hits overall.
+	 */
+	SearchIndex.Result search(String host, String query, int limit) {
+		List<SearchIndex> targets = indexes.apply(host);
+		if (targets.size() == 1) {
+			return targets.get(0).search(query, limit);
+		}
+		List<SearchIndex.Hit> hits = new ArrayList<>();
+		int total = 0;
+		for (SearchIndex index : targets) {
+			SearchIndex.Result result = index.search(query, limit);
+			hits.addAll(result.getHits());
+			total += result.getTotal();
+		}
+		hits.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+		return new SearchIndex.Result(hits.size() > limit ? hits.subList(0, limit) : hits, total);
+	}
+
+	static String renderJson(String query, SearchIndex.Result result) {
+		StringBuilder out = new StringBuilder(256 + result.getHits().size() * 320);
+		out.append("{\"query\":");
+		appendString(out, query);
+		out.append(",\"total\":").append(result.getTotal());
+		out.append(",\"results\":[");
+		boolean first = true;
+		for (SearchIndex.Hit hit : result.getHits()) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append("{\"url\":");
+			appendString(out, hit.getUrl());
+			out.append(",\"title\":");
+			appendString(out, hit.getTitle());
+			out.append(",\"excerpt\":");
+			appendString(out, hit.getExcerpt());
+			out.append(",\"score\":").append(String.format(Locale.ROOT, "%.4f", hit.getScore()));
+			out.append('}');
+		}
+		out.append("]}");
+		return out.toString();
+	}
+
+	private static void appendString(StringBuilder out, String value) {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+						out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+			}
+		}
+		out.append('"');
+	}
+}
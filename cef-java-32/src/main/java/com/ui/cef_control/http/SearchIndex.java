@@ -0,0 +1,852 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Full-text index of the HTML pages of one static root, served by
+ * SearchHandler so the docs UI does not have to download and parse a
+ * client-side search index.
+ *
+ * Layout: immutable segments, each with a sorted term dictionary and the
+ * postings of all its terms in two flat int arrays (document, term
+ * frequency), term i owning [offsets[i], offsets[i + 1]). A search reads
+ * the segment list published in a volatile field and never blocks.
+ *
+ * Lifecycle:
+ * 1. buildAsync() extracts and tokenizes every page in parallel on the
+ *    fork-join pool and installs the result as one segment
+ * 2. onPathChanged() flags the previous version of a changed page (or of
+ *    the pages below a changed directory) removed, so searches skip it
+ *    from then on, and re-indexes it on the pool into a small new segment
+ * 3. Small segments are merged once there are more than MAX_SEGMENTS,
+ *    everything is merged once a quarter of the indexed pages are removed
+ *
+ * Ranking: BM25 over the page text, title terms counted TITLE_WEIGHT
+ * times. Every query term must match; the last one also matches as a
+ * prefix, so results keep up with typing.
+ */
+final class SearchIndex {
+
+	/**
+	 * One search result.
+	 */
+	static final class Hit {
+		private final String url;
+		private final String title;
+		private final String excerpt;
+		private final double score;
+
+		Hit(String url, String title, String excerpt, double score) {
+			this.url = url;
+			this.title = title;
+			this.excerpt = excerpt;
+			this.score = score;
+		}
+
+		String getUrl() {
+			return url;
+		}
+
+		String getTitle() {
+			return title;
+		}
+
+		String getExcerpt() {
+			return excerpt;
+		}
+
+		double getScore() {
+			return score;
+		}
+	}
+
+	/**
+	 * Top hits of one search and how many pages matched in total.
+	 */
+	static final class Result {
+		static final Result EMPTY = new Result(Collections.emptyList(), 0);
+
+		private final List<Hit> hits;
+		private final int total;
+
+		Result(List<Hit> hits, int total) {
+			this.hits = hits;
+			this.total = total;
+		}
+
+		List<Hit> getHits() {
+			return hits;
+		}
+
+		int getTotal() {
+			return total;
+		}
+	}
+
+	/** Pages larger than this are not indexed. */
+	static final int MAX_PAGE_BYTES = 4 * 1024 * 1024;
+	static final int MAX_SEGMENTS = 8;
+	/** Characters of page text kept for result excerpts. */
+	static final int EXCERPT_CHARS = 200;
+	/** Most dictionary terms a query prefix expands to. */
+	static final int MAX_PREFIX_TERMS = 64;
+
+	private static final int TITLE_WEIGHT = 3;
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final int FILES_PER_TASK = 8;
+
+	/**
+	 * One indexed version of a page. Segments are rebuilt around the same
+	 * instances, so removal is a flag rather than a copy of every segment.
+	 */
+	private static final class Document {
+		final String key;
+		final String url;
+		final String title;
+		final String excerpt;
+		final int length;
+		volatile boolean removed;
+
+		Document(String key, String url, String title, String excerpt, int length) {
+			this.key = key;
+			this.url = url;
+			this.title = title;
+			this.excerpt = excerpt;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * A page after extraction: its document and term frequencies.
+	 */
+	private static final class Page {
+		final Document document;
+		final Map<String, Integer> frequencies;
+
+		Page(Document document, Map<String, Integer> frequencies) {
+			this.document = document;
+			this.frequencies = frequencies;
+		}
+	}
+
+	private static final class Segment {
+		final String[] terms;
+		final int[] offsets;
+		final int[] postingDocs;
+		final int[] postingFreqs;
+		final Document[] documents;
+
+		Segment(String[] terms, int[] offsets, int[] postingDocs, int[] postingFreqs, Document[] documents) {
+			this.terms = terms;
+			this.offsets = offsets;
+			this.postingDocs = postingDocs;
+			this.postingFreqs = postingFreqs;
+			this.documents = documents;
+		}
+
+		/**
+		 * @return Index of the first term >= key
+		 */
+		int lowerBound(String key) {
+			int index = Arrays.binarySearch(terms, key);
+			return index >= 0 ? index : -index - 1;
+		}
+	}
+
+	/**
+	 * Accumulates documents and postings, then lays them out as a Segment.
+	 */
+	private static final class SegmentBuilder {
+		/** (document, frequency) pairs of one term. */
+		private static final class Postings {
+			int[] pairs = new int[4];
+			int count;
+		}
+
+		private final List<Document> documents = new ArrayList<>();
+		private final Map<String, Postings> postings = new HashMap<>();
+		private int postingCount;
+
+		int add(Document document) {
+			documents.add(document);
+			return documents.size() - 1;
+		}
+
+		void add(String term, int doc, int freq) {
+			Postings list = postings.computeIfAbsent(term, t -> new Postings());
+			if (list.count * 2 == list.pairs.length) {
+				list.pairs = Arrays.copyOf(list.pairs, list.pairs.length * 2);
+			}
+			list.pairs[list.count * 2] = doc;
+			list.pairs[list.count * 2 + 1] = freq;
+			list.count++;
+			postingCount++;
+		}
+
+		void add(Page page) {
+			int doc = add(page.document);
+			for (Map.Entry<String, Integer> term : page.frequencies.entrySet()) {
+				add(term.getKey(), doc, term.getValue());
+			}
+		}
+
+		Segment build() {
+			String[] terms = postings.keySet().toArray(new String[0]);
+			Arrays.sort(terms);
+			int[] offsets = new int[terms.length + 1];
+			int[] docs = new int[postingCount];
+			int[] freqs = new int[postingCount];
+			int next = 0;
+			for (int i = 0; i < terms.length; i++) {
+				offsets[i] = next;
+				Postings list = postings.get(terms[i]);
+				for (int p = 0; p < list.count; p++) {
+					docs[next] = list.pairs[p * 2];
+					freqs[next] = list.pairs[p * 2 + 1];
+					next++;
+				}
+			}
+			offsets[terms.length] = next;
+			return new Segment(terms, offsets, docs, freqs, documents.toArray(new Document[0]));
+		}
+	}
+
+	/**
+	 * What searches read: segments plus the figures BM25 needs.
+	 */
+	private static final class State {
+		static final State EMPTY = new State(new Segment[0], 0, 0);
+
+		final Segment[] segments;
+		final int documents;
+		final long totalLength;
+
+		State(Segment[] segments, int documents, long totalLength) {
+			this.segments = segments;
+			this.documents = documents;
+			this.totalLength = totalLength;
+		}
+	}
+
+	private final Path root;
+	private final String basePath;
+	private final ForkJoinPool pool;
+	private volatile State state = State.EMPTY;
+
+	// Guarded by this; sorted, so the pages below a directory are one range
+	private final NavigableMap<String, Document> live = new TreeMap<>();
+	private int removedInSegments;
+	private boolean building;
+	private final Set<String> changedDuringBuild = new HashSet<>();
+
+	private volatile ForkJoinTask<?> build;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param root Static files root (pages are read below it)
+	 * @param basePath URL path the root is served under, with leading and trailing '/'
+	 */
+	SearchIndex(Path root, String basePath) {
+		this(root, basePath, ForkJoinPool.commonPool());
+	}
+
+	SearchIndex(Path root, String basePath, ForkJoinPool pool) {
+		this.root = root;
+		this.basePath = basePath;
+		this.pool = pool;
+	}
+
+	/**
+	 * Starts indexing the whole tree in the background.
+	 *
+	 * @return Task that completes when the index has been installed
+	 */
+	ForkJoinTask<?> buildAsync() {
+		ConcurrentLinkedQueue<Page> pages = new ConcurrentLinkedQueue<>();
+		return startBuild(new DirectoryTask(root, pages), pages);
+	}
+
+	/**
+	 * Starts indexing the pages of a docs pack in the background.
+	 *
+	 * @return Task that completes when the index has been installed
+	 */
+	ForkJoinTask<?> buildAsync(DocsPack pack) {
+		List<String> keys = new ArrayList<>();
+		for (String path : pack.paths()) {
+			if (isPage(path)) {
+				keys.add(path);
+			}
+		}
+		ConcurrentLinkedQueue<Page> pages = new ConcurrentLinkedQueue<>();
+		return startBuild(new PackTask(pack, keys, 0, keys.size(), pages), pages);
+	}
+
+	private ForkJoinTask<?> startBuild(RecursiveAction scan, ConcurrentLinkedQueue<Page> pages) {
+		synchronized (this) {
+			building = true;
+		}
+		BuildTask task = new BuildTask(scan, pages);
+		this.build = pool.submit(task);
+		return build;
+	}
+
+	/**
+	 * Cancels a running background build (on server stop).
+	 */
+	void cancelBuild() {
+		cancelled = true;
+		ForkJoinTask<?> task = this.build;
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Watcher callback: drops the indexed version of a changed page, or of
+	 * the pages below a changed directory, and queues their re-index on the
+	 * pool; the watcher thread never reads a page.
+	 */
+	void onPathChanged(Path changed) {
+		String key = keyOf(changed);
+		if (key == null) {
+			return;
+		}
+		boolean page = isPage(key);
+		synchronized (this) {
+			if (building) {
+				changedDuringBuild.add(key);
+			}
+			remove(key);
+		}
+		if (!cancelled) {
+			pool.execute(() -> reindex(changed, key, page));
+		}
+	}
+
+	private void reindex(Path changed, String key, boolean page) {
+		try {
+			if (page) {
+				BasicFileAttributes attributes = Files.readAttributes(changed, BasicFileAttributes.class);
+				Page indexed = attributes.isRegularFile() ? readPage(changed, key, attributes.size()) : null;
+				if (indexed != null) {
+					add(Collections.singletonList(indexed));
+				}
+			} else if (Files.isDirectory(changed)) {
+				// Anything else is an asset: nothing to index
+				ConcurrentLinkedQueue<Page> pages = new ConcurrentLinkedQueue<>();
+				new DirectoryTask(changed, pages).invoke();
+				add(new ArrayList<>(pages));
+			}
+		} catch (IOException e) {
+			// Deleted or unreadable: stays out of the index until it changes again
+		}
+	}
+
+	/**
+	 * Runs a query against the current segments.
+	 *
+	 * @param query Words as typed; the last one may be incomplete
+	 * @param limit Most hits to return
+	 */
+	Result search(String query, int limit) {
+		Set<String> queryTerms = new LinkedHashSet<>(HtmlText.tokens(query));
+		State current = state;
+		if (queryTerms.isEmpty() || current.documents == 0 || limit <= 0) {
+			return Result.EMPTY;
+		}
+		Segment[] segments = current.segments;
+		double averageLength = Math.max(1.0, (double) current.totalLength / current.documents);
+
+		float[][] totals = new float[segments.length][];
+		int[][] matched = new int[segments.length][];
+		float[][] termScores = new float[segments.length][];
+		for (int s = 0; s < segments.length; s++) {
+			totals[s] = new float[segments[s].documents.length];
+			matched[s] = new int[segments[s].documents.length];
+			termScores[s] = new float[segments[s].documents.length];
+		}
+
+		int termIndex = 0;
+		for (String queryTerm : queryTerms) {
+			boolean prefix = ++termIndex == queryTerms.size();
+			for (float[] scores : termScores) {
+				Arrays.fill(scores, 0f);
+			}
+			for (String term : expand(segments, queryTerm, prefix)) {
+				int df = documentFrequency(segments, term);
+				if (df == 0) {
+					continue;
+				}
+				double idf = Math.log(1 + (current.documents - df + 0.5) / (df + 0.5));
+				for (int s = 0; s < segments.length; s++) {
+					Segment segment = segments[s];
+					int index = Arrays.binarySearch(segment.terms, term);
+					if (index < 0) {
+						continue;
+					}
+					for (int p = segment.offsets[index]; p < segment.offsets[index + 1]; p++) {
+						Document document = segment.documents[segment.postingDocs[p]];
+						if (document.removed) {
+							continue;
+						}
+						double tf = segment.postingFreqs[p];
+						double norm = K1 * (1 - B + B * document.length / averageLength);
+						float score = (float) (idf * tf * (K1 + 1) / (tf + norm));
+						// Several completions of one prefix count once, at their best
+						int doc = segment.postingDocs[p];
+						termScores[s][doc] = Math.max(termScores[s][doc], score);
+					}
+				}
+			}
+			for (int s = 0; s < segments.length; s++) {
+				float[] scores = termScores[s];
+				for (int doc = 0; doc < scores.length; doc++) {
+					if (scores[doc] > 0) {
+						totals[s][doc] += scores[doc];
+						matched[s][doc]++;
+					}
+				}
+			}
+		}
+
+		PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a.score, b.score));
+		int total = 0;
+		for (int s = 0; s < segments.length; s++) {
+			for (int doc = 0; doc < matched[s].length; doc++) {
+				if (matched[s][doc] != queryTerms.size()) {
+					continue;
+				}
+				total++;
+				if (top.size() < limit || totals[s][doc] > top.peek().score) {
+					Document document = segments[s].documents[doc];
+					top.add(new Hit(document.url, document.title, document.excerpt, totals[s][doc]));
+					if (top.size() > limit) {
+						top.poll();
+					}
+				}
+			}
+		}
+		List<Hit> hits = new ArrayList<>(top);
+		hits.sort((a, b) -> Double.compare(b.score, a.score));
+		return new Result(hits, total);
+	}
+
+	/**
+	 * @return Pages currently searchable
+	 */
+	int size() {
+		return state.documents;
+	}
+
+	int segmentCount() {
+		return state.segments.length;
+	}
+
+	/**
+	 * Dictionary terms a query term stands for: itself, or for a prefix
+	 * the first MAX_PREFIX_TERMS terms starting with it, across segments.
+	 */
+	private static Set<String> expand(Segment[] segments, String queryTerm, boolean prefix) {
+		if (!prefix) {
+			return Collections.singleton(queryTerm);
+		}
+		TreeSet<String> terms = new TreeSet<>();
+		for (Segment segment : segments) {
+			for (int i = segment.lowerBound(queryTerm); i < segment.terms.length; i++) {
+				String term = segment.terms[i];
+				if (!term.startsWith(queryTerm)) {
+					break;
+				}
+				terms.add(term);
+				if (terms.size() > MAX_PREFIX_TERMS) {
+					terms.pollLast();
+					if (term.compareTo(terms.last()) > 0) {
+						break;
+					}
+				}
+			}
+		}
+		return terms;
+	}
+
+	private static int documentFrequency(Segment[] segments, String term) {
+		int df = 0;
+		for (Segment segment : segments) {
+			int index = Arrays.binarySearch(segment.terms, term);
+			if (index < 0) {
+				continue;
+			}
+			for (int p = segment.offsets[index]; p < segment.offsets[index + 1]; p++) {
+				if (!segment.documents[segment.postingDocs[p]].removed) {
+					df++;
+				}
+			}
+		}
+		return df;
+	}
+
+	/**
+	 * Flags the indexed page with this key, or every page below it, removed.
+	 */
+	private synchronized void remove(String key) {
+		long removedLength = 0;
+		int removedCount = 0;
+		Document page = live.remove(key);
+		if (page != null) {
+			page.removed = true;
+			removedLength += page.length;
+			removedCount++;
+		}
+		// Keys below "dir/" sort between "dir/" and "dir0" ('0' follows '/')
+		Map<String, Document> below = key.isEmpty() ? live : live.subMap(key + "/", key + "0");
+		for (Document document : below.values()) {
+			document.removed = true;
+			removedLength += document.length;
+			removedCount++;
+		}
+		below.clear();
+		if (removedCount > 0) {
+			removedInSegments += removedCount;
+			publish(state.segments, -removedCount, -removedLength);
+			compactIfNeeded();
+		}
+	}
+
+	/**
+	 * Adds pages as one new segment; older versions of the same pages are flagged removed.
+	 */
+	private synchronized void add(List<Page> pages) {
+		if (pages.isEmpty() || cancelled) {
+			return;
+		}
+		SegmentBuilder builder = new SegmentBuilder();
+		int addedCount = 0;
+		long addedLength = 0;
+		for (Page page : pages) {
+			Document previous = live.put(page.document.key, page.document);
+			if (previous != null) {
+				previous.removed = true;
+				removedInSegments++;
+				addedCount--;
+				addedLength -= previous.length;
+			}
+			builder.add(page);
+			addedCount++;
+			addedLength += page.document.length;
+		}
+		Segment[] segments = Arrays.copyOf(state.segments, state.segments.length + 1);
+		segments[segments.length - 1] = builder.build();
+		publish(segments, addedCount, addedLength);
+		compactIfNeeded();
+	}
+
+	/**
+	 * Installs the initial build underneath whatever the watcher indexed
+	 * meanwhile; pages that changed during the build keep the watcher's version.
+	 */
+	private synchronized void install(List<Page> pages) {
+		building = false;
+		if (cancelled) {
+			return;
+		}
+		SegmentBuilder builder = new SegmentBuilder();
+		int addedCount = 0;
+		long addedLength = 0;
+		for (Page page : pages) {
+			if (changedDuringBuild(page.document.key) || live.containsKey(page.document.key)) {
+				continue;
+			}
+			live.put(page.document.key, page.document);
+			builder.add(page);
+			addedCount++;
+			addedLength += page.document.length;
+		}
+		changedDuringBuild.clear();
+		Segment[] segments = new Segment[state.segments.length + 1];
+		segments[0] = builder.build();
+		System.arraycopy(state.segments, 0, segments, 1, state.segments.length);
+		publish(segments, addedCount, addedLength);
+		compactIfNeeded();
+	}
+
+	private boolean changedDuringBuild(String key) {
+		for (String changed : changedDuringBuild) {
+			if (key.equals(changed) || changed.isEmpty() || key.startsWith(changed + "/")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Merge policy: the small segments of single changes are folded into
+	 * one when there are too many; everything is rewritten once removed
+	 * pages take up a quarter of the index.
+	 */
+	private void compactIfNeeded() {
+		Segment[] segments = state.segments;
+		if (removedInSegments > 0 && removedInSegments * 4 >= live.size() + removedInSegments) {
+			publish(new Segment[] {merge(segments, 0)}, 0, 0);
+			removedInSegments = 0;
+		} else if (segments.length > MAX_SEGMENTS) {
+			Segment[] merged = Arrays.copyOf(segments, 2);
+			merged[1] = merge(segments, 1);
+			publish(merged, 0, 0);
+		}
+	}
+
+	/**
+	 * Rewrites segments[from..] as one, without removed pages.
+	 */
+	private Segment merge(Segment[] segments, int from) {
+		SegmentBuilder builder = new SegmentBuilder();
+		int dropped = 0;
+		for (int s = from; s < segments.length; s++) {
+			Segment segment = segments[s];
+			int[] renumbered = new int[segment.documents.length];
+			for (int doc = 0; doc < segment.documents.length; doc++) {
+				Document document = segment.documents[doc];
+				if (document.removed) {
+					renumbered[doc] = -1;
+					dropped++;
+				} else {
+					renumbered[doc] = builder.add(document);
+				}
+			}
+			for (int t = 0; t < segment.terms.length; t++) {
+				for (int p = segment.offsets[t]; p < segment.offsets[t + 1]; p++) {
+					int doc = renumbered[segment.postingDocs[p]];
+					if (doc >= 0) {
+						builder.add(segment.terms[t], doc, segment.postingFreqs[p]);
+					}
+				}
+			}
+		}
+		if (from > 0) {
+			removedInSegments -= dropped;
+		}
+		return builder.build();
+	}
+
+	private void publish(Segment[] segments, int documentDelta, long lengthDelta) {
+		State current = state;
+		state = new State(segments, current.documents + documentDelta, current.totalLength + lengthDelta);
+	}
+
+	/**
+	 * @return Key of a path under the root ("guide/intro.html", "" for the root), or null if outside
+	 */
+	private String keyOf(Path path) {
+		if (!path.startsWith(root)) {
+			return null;
+		}
+		return root.relativize(path).toString().replace('\\', '/');
+	}
+
+	private static boolean isPage(String key) {
+		String lower = key.toLowerCase(Locale.ROOT);
+		return lower.endsWith(".html") && !lower.equals("404.html");
+	}
+
+	private Page readPage(Path file, String key, long size) throws IOException {
+		if (!isPage(key) || size > MAX_PAGE_BYTES) {
+			return null;
+		}
+		return analyze(key, Files.readAllBytes(file));
+	}
+
+	/**
+	 * Extracts and tokenizes one page.
+	 */
+	private Page analyze(String key, byte[] html) {
+		HtmlText text = HtmlText.extract(html);
+		Map<String, Integer> frequencies = new HashMap<>();
+		List<String> bodyTokens = HtmlText.tokens(text.getText());
+		for (String token : bodyTokens) {
+			frequencies.merge(token, 1, Integer::sum);
+		}
+		List<String> titleTokens = HtmlText.tokens(text.getTitle());
+		for (String token : titleTokens) {
+			frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+		}
+		String title = text.getTitle().isEmpty() ? key : text.getTitle();
+		Document document = new Document(key, PathIndex.pageUrl(basePath, key), title, excerpt(text),
+				bodyTokens.size() + titleTokens.size());
+		return new Page(document, frequencies);
+	}
+
+	/**
+	 * Start of the page text, past the title the text usually opens with.
+	 */
+	private static String excerpt(HtmlText text) {
+		String body = text.getText();
+		String title = text.getTitle();
+		if (!title.isEmpty() && body.startsWith(title)) {
+			body = body.substring(title.length()).trim();
+		}
+		if (body.length() <= EXCERPT_CHARS) {
+			return body;
+		}
+		int cut = body.lastIndexOf(' ', EXCERPT_CHARS);
+		return body.substring(0, cut > EXCERPT_CHARS / 2 ? cut : EXCERPT_CHARS) + "...";
+	}
+
+	/**
+	 * Runs a scan, then installs what it found. Like the other tasks
+	 * below, Serializable through ForkJoinTask but never serialized.
+	 */
+	private final class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient RecursiveAction scan;
+		private final transient ConcurrentLinkedQueue<Page> pages;
+
+		BuildTask(RecursiveAction scan, ConcurrentLinkedQueue<Page> pages) {
+			this.scan = scan;
+			this.pages = pages;
+		}
+
+		@Override
+		protected void compute() {
+			scan.invoke();
+			install(new ArrayList<>(pages));
+		}
+	}
+
+	/**
+	 * Indexes the pages of one directory and forks a task per subdirectory.
+	 */
+	private final class DirectoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient Path dir;
+		private final transient ConcurrentLinkedQueue<Page> pages;
+
+		DirectoryTask(Path dir, ConcurrentLinkedQueue<Page> pages) {
+			this.dir = dir;
+			this.pages = pages;
+		}
+
+		@Override
+		protected void compute() {
+			if (cancelled) {
+				return;
+			}
+			List<Path> files = new ArrayList<>();
+			List<RecursiveAction> tasks = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+				for (Path entry : entries) {
+					if (Files.isDirectory(entry)) {
+						tasks.add(new DirectoryTask(entry, pages));
+					} else if (isPage(keyOf(entry))) {
+						files.add(entry);
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("SearchIndex: cannot list " + dir + ": " + e);
+				return;
+			}
+
+			tasks.add(new FileBatchTask(files, 0, files.size(), pages));
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Indexes a slice of a directory listing, splitting large slices in half.
+	 */
+	private final class FileBatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient List<Path> files;
+		private final int from;
+		private final int to;
+		private final transient ConcurrentLinkedQueue<Page> pages;
+
+		FileBatchTask(List<Path> files, int from, int to, ConcurrentLinkedQueue<Page> pages) {
+			this.files = files;
+			this.from = from;
+			this.to = to;
+			this.pages = pages;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > FILES_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new FileBatchTask(files, from, mid, pages), new FileBatchTask(files, mid, to, pages));
+				return;
+			}
+			for (int i = from; i < to && !cancelled; i++) {
+				Path file = files.get(i);
+				try {
+					Page page = readPage(file, keyOf(file), Files.size(file));
+					if (page != null) {
+						pages.add(page);
+					}
+				} catch (IOException e) {
+					// Vanished during the build; the watcher reports it if it comes back
+				}
+			}
+		}
+	}
+
+	/**
+	 * Indexes a slice of a pack's pages, splitting large slices in half.
+	 */
+	private final class PackTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient DocsPack pack;
+		private final transient List<String> keys;
+		private final int from;
+		private final int to;
+		private final transient ConcurrentLinkedQueue<Page> pages;
+
+		PackTask(DocsPack pack, List<String> keys, int from, int to, ConcurrentLinkedQueue<Page> pages) {
+			this.pack = pack;
+			this.keys = keys;
+			this.from = from;
+			this.to = to;
+			this.pages = pages;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > FILES_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new PackTask(pack, keys, from, mid, pages), new PackTask(pack, keys, mid, to, pages));
+				return;
+			}
+			for (int i = from; i < to && !cancelled; i++) {
+				DocsPack.Entry entry = pack.get(keys.get(i));
+				if (entry == null || entry.length() > MAX_PAGE_BYTES) {
+					continue;
+				}
+				byte[] html = new byte[(int) entry.length()];
+				entry.getBody().duplicate().get(html);
+				pages.add(analyze(keys.get(i), html));
+			}
+		}
+	}
+}
@@ -1,11 +1,23 @@
 package com.ui.cef_control.http;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * HTTP request handler for serving static VuePress files.
@@ -20,31 +32,166 @@ import java.nio.file.Path;
  * Content-Type:
  * - Automatically determined from file extension
  *
- * No caching, compression, range requests, or security headers (Phase-7).
+ * Paths are resolved through the site's PathIndex (an in-memory trie kept
+ * current by the file watcher), so a request does not stat the disk.
+ *
+ * File contents are served from an AssetCache; the disk is only read on a miss.
+ * Files above the large-file threshold bypass the cache and are streamed
+ * from a FileChannel, so heap use per request does not grow with file size.
+ *
+ * Content-Encoding:
+ * - Chosen from Accept-Encoding among the asset's precompressed variants
+ *   (br/gzip); nothing is compressed on the request path
+ *
+ * Conditional GET:
+ * - Strong ETag (content hash) and Last-Modified on every file response
+ * - If-None-Match / If-Modified-Since that still match -> 304, no body
+ *
+ * Range requests:
+ * - Single range -> 206 with Content-Range; several -> multipart/byteranges
+ * - Unsatisfiable -> 416; If-Range honoured; ranges use the identity body
+ *
+ * Metrics: every request records route class, status, body bytes and
+ * latency in the server's RequestMetrics (lock-free, no allocation).
+ *
+ * Docs pack mode (site backed by a DocsPack):
+ * - Same routing and headers, bodies sliced from one memory-mapped file
+ *
+ * Preload hints:
+ * - 200 HTML responses carry Link rel=preload/modulepreload headers for
+ *   the page's stylesheets, scripts and fonts (see PreloadHints), so
+ *   fetching them starts before the HTML is parsed
+ *
+ * Prefetch hints:
+ * - Page requests (HTML and SPA fallback) with a same-origin Referer
+ *   count as a navigation between two pages; prefetches themselves
+ *   (Sec-Purpose / Purpose: prefetch) are not counted
+ * - 200 page responses add Link rel=prefetch entries for the likely
+ *   next pages (see PrefetchHints), fetched by the browser when idle
+ *
+ * HTML transform (HttpServerConfig.withHtmlTransform, see HtmlTransform):
+ * - HTML files are served minified with small stylesheets inlined; the
+ *   transformed body, its gzip variant and its own ETag are cached per
+ *   page version, so a warm request does a lookup and a write
+ *
+ * Hot set (HttpServerConfig.withHotSet, see HotSet):
+ * - The root handler counts the file each request is served from, so
+ *   the next start can warm the cache with the most requested ones
+ *
+ * Mounted roots (see MountRouter):
+ * - A handler per root; a prefix-mounted one resolves the path below its
+ *   prefix, and its SPA fallback is its own root's index.html
+ *
+ * Root swap (see swapSite):
+ * - Each request retains the site it started on and serves entirely from
+ *   it; a swapped-out site is closed when its last request completes
+ *
+ * Cache-Control (see CachePolicy), on 200, 206 and 304 alike:
+ * - Fingerprinted assets (app.3f9a1c2b.js) -> public, max-age=31536000, immutable
+ * - HTML, including the index.html SPA fallback, and other files -> no-cache
+ *
+ * No security headers (Phase-7).
  */
 class StaticFileHandler implements HttpHandler {
 
-	private final Path staticRoot;
+	private volatile StaticSite site;
+	private final RequestMetrics metrics;
+	// Length of the mount prefix ("/release-notes") in front of every request path, 0 at the root
+	private final int prefixLength;
+	// Request counts per file of the root, or null
+	private final HotSet hotSet;
 
 	StaticFileHandler(Path staticRoot) {
-		this.staticRoot = staticRoot;
+		this(staticRoot, new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES));
 	}
 
-	@Override
-	public void handle(HttpExchange exchange) throws IOException {
-		// Only support GET requests
-		if (!"GET".equals(exchange.getRequestMethod())) {
-			exchange.sendResponseHeaders(405, 0); // 405 Method Not Allowed
-			exchange.close();
-			return;
+	StaticFileHandler(Path staticRoot, AssetCache cache) {
+		this(staticRoot, cache, HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES);
+	}
+
+	StaticFileHandler(Path staticRoot, AssetCache cache, long largeFileThreshold) {
+		this(StaticSite.unwatched(staticRoot, cache, largeFileThreshold));
+	}
+
+	StaticFileHandler(StaticSite site) {
+		this(site, new RequestMetrics());
+	}
+
+	StaticFileHandler(StaticSite site, RequestMetrics metrics) {
+		this(site, metrics, 0);
+	}
+
+	/**
+	 * Handler of a root mounted below a path prefix. The caller (MountRouter)
+	 * only passes requests whose path starts with that prefix.
+	 *
+	 * @param prefixLength Length of the prefix without trailing '/' ("/release-notes")
+	 */
+	StaticFileHandler(StaticSite site, RequestMetrics metrics, int prefixLength) {
+		this(site, metrics, prefixLength, null);
+	}
+
+	/**
+	 * Root handler that counts served files in a hot set.
+	 */
+	StaticFileHandler(StaticSite site, RequestMetrics metrics, HotSet hotSet) {
+		this(site, metrics, 0, hotSet);
+	}
+
+	private StaticFileHandler(StaticSite site, RequestMetrics metrics, int prefixLength, HotSet hotSet) {
+		this.site = site;
+		this.metrics = metrics;
+		this.prefixLength = prefixLength;
+		this.hotSet = hotSet;
+	}
+
+	/**
+	 * Serves subsequent requests from another site. The caller owns the
+	 * returned site and closes it; requests still running on it keep it
+	 * open until they finish.
+	 *
+	 * @return The site served until now
+	 */
+	synchronized StaticSite swapSite(StaticSite replacement) {
+		StaticSite previous = site;
+		site = replacement;
+		return previous;
+	}
+
+	StaticSite getSite() {
+		return site;
+	}
+
+	/**
+	 * Retains the current site for one request. Retrying covers a swap
+	 * that closed the site between the read and the retain.
+	 */
+	private StaticSite acquireSite() {
+		while (true) {
+			StaticSite current = site;
+			if (current.retain()) {
+				return current;
+			}
 		}
+	}
 
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		long start = metrics.requestStarted();
+		RouteClass route = RouteClass.OTHER;
+		long bytes = 0;
+		StaticSite current = acquireSite();
 		try {
-			String path = exchange.getRequestURI().getPath();
-			if (path.startsWith("/")) {
-				path = path.substring(1);
+			// Only support GET requests
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, 0); // 405 Method Not Allowed
+				exchange.close();
+				return;
 			}
 
+			// Resolved as sent, leading '/' included: no per-request copies
+			String path = exchange.getRequestURI().getPath();
+
 			// Prevent directory traversal attacks
 			if (path.contains("..")) {
 				exchange.sendResponseHeaders(400, 0); // 400 Bad Request
@@ -52,22 +199,36 @@ class StaticFileHandler implements HttpHandler {
 				return;
 			}
 
-			Path filePath = staticRoot.resolve(path);
-
-			// Check if requested path is a file
-			if (Files.isRegularFile(filePath)) {
-				serveFile(exchange, filePath);
+			// Unknown paths resolve to index.html (SPA fallback); "/" is the entry page itself
+			RouteClass missRoute = path.length() - prefixLength <= 1 ? RouteClass.HTML : RouteClass.FALLBACK;
+			DocsPack pack = current.getPack();
+			if (pack != null) {
+				DocsPack.Entry entry = pack.resolve(prefixLength == 0 ? path : path.substring(prefixLength));
+				route = entry != null ? entry.getRouteClass() : missRoute;
+				entry = entry != null ? entry : pack.get(PathIndex.FALLBACK);
+				if (entry != null) {
+					if (hotSet != null) {
+						hotSet.record(entry.getPath());
+					}
+					bytes = servePacked(current, exchange, entry, pageOf(current, exchange, path, route));
+					return;
+				}
 			} else {
-				// Fallback to index.html for SPA routing
-				Path indexFile = staticRoot.resolve("index.html");
-				if (Files.isRegularFile(indexFile)) {
-					serveFile(exchange, indexFile);
-				} else {
-					// index.html not found
-					exchange.sendResponseHeaders(404, 0); // 404 Not Found
-					exchange.close();
+				PathIndex.Entry entry = current.resolve(path, prefixLength);
+				route = entry != null ? entry.getRouteClass() : missRoute;
+				entry = entry != null ? entry : current.fallback();
+				if (entry != null) {
+					if (hotSet != null) {
+						hotSet.record(entry.getRelativePath());
+					}
+					bytes = serveFile(current, exchange, entry, pageOf(current, exchange, path, route));
+					return;
 				}
 			}
+
+			// index.html not found
+			exchange.sendResponseHeaders(404, 0); // 404 Not Found
+			exchange.close();
 		} catch (Exception e) {
 			// Any unexpected error -> 500
 			try {
@@ -76,75 +237,453 @@ class StaticFileHandler implements HttpHandler {
 			} catch (IOException ignore) {
 				// Already closed or write failed
 			}
+		} finally {
+			current.release();
+			metrics.requestCompleted(route, exchange.getResponseCode(), bytes, start);
+		}
+	}
+
+	/**
+	 * Maps a page request to its page and counts the navigation that led
+	 * to it.
+	 *
+	 * @return Page key for the prefetch hints, or null if the request is not for a page
+	 */
+	private String pageOf(StaticSite site, HttpExchange exchange, String path, RouteClass route) {
+		if (route != RouteClass.HTML && route != RouteClass.FALLBACK) {
+			return null;
+		}
+		PrefetchHints prefetch = site.getPrefetchHints();
+		String page = prefetch.pageKey(path, prefixLength);
+		if (page == null) {
+			return null;
+		}
+		String purpose = requestHeader(exchange, "Sec-Purpose");
+		if (isPrefetch(purpose != null ? purpose : requestHeader(exchange, "Purpose"))) {
+			return page;
+		}
+		String referer = requestHeader(exchange, "Referer");
+		String host = requestHeader(exchange, "Host");
+		if (referer != null && host != null) {
+			String from = prefetch.refererPage(referer, host);
+			if (from != null) {
+				prefetch.recordNavigation(from, page);
+			}
 		}
+		return page;
+	}
+
+	/**
+	 * @param purpose Sec-Purpose or Purpose header value (may be null)
+	 * @return true if the request is a speculative prefetch, not a navigation
+	 */
+	static boolean isPrefetch(String purpose) {
+		if (purpose == null) {
+			return false;
+		}
+		int length = "prefetch".length();
+		for (int i = 0; i + length <= purpose.length(); i++) {
+			if (purpose.regionMatches(true, i, "prefetch", 0, length)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * Serves a file with appropriate content-type header.
 	 *
-	 * Phase-6: Only send Content-Type and Content-Length.
-	 * Phase-7: Add Cache-Control, ETag, If-Modified-Since, compression, etc.
+	 * Sends the precomputed headers, validators and the best encoded variant,
+	 * or 304 with no body when the client's validator still matches.
+	 *
+	 * @return Response body bytes sent
 	 */
-	private void serveFile(HttpExchange exchange, Path filePath) throws IOException {
-		byte[] content = Files.readAllBytes(filePath);
-		String contentType = guessContentType(filePath);
+	private long serveFile(StaticSite site, HttpExchange exchange, PathIndex.Entry entry, String page)
+			throws IOException {
+		Path filePath = entry.getFile();
+		long size = entry.getSize();
+		boolean large = size > site.getLargeFileThreshold();
+		// Large files are hashed on the pool, never while a (Range) request waits
+		ContentHashIndex.Validator validator = large
+				? site.getHashIndex().getWithoutHashing(filePath, size, entry.getLastModifiedMillis())
+				: site.getHashIndex().get(filePath, size, entry.getLastModifiedMillis());
+		exchange.getResponseHeaders().set("Cache-Control", entry.getCacheControl());
+		HtmlTransform transform = site.getHtmlTransform();
+		if (transform != null && !large && entry.getRouteClass() == RouteClass.HTML) {
+			HtmlTransform.Page transformed = transform.transform(entry.getRelativePath(), validator,
+					() -> site.getCache().get(filePath).getContent());
+			if (transformed != null) {
+				return serveTransformed(site, exchange, entry.getContentType(), transformed, page);
+			}
+		}
+		if (isNotModified(exchange, validator)) {
+			sendNotModified(exchange, entry.getContentType(), validator);
+			return 0;
+		}
 
-		exchange.getResponseHeaders().set("Content-Type", contentType);
+		String range = requestHeader(exchange, "Range");
+		if (range != null && isIfRangeSatisfied(exchange, validator)) {
+			if (large) {
+				List<ByteRange> ranges = ByteRange.parse(range, size);
+				if (ranges != null) {
+					try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+						return serveRanges(exchange, entry.getContentType(), size, validator, ranges,
+								(offset, count, out) -> FileTransfer.transfer(channel, offset, count, Channels.newChannel(out)));
+					}
+				}
+			} else {
+				CachedAsset asset = site.getCache().get(filePath);
+				byte[] content = asset.getContent();
+				List<ByteRange> ranges = ByteRange.parse(range, content.length);
+				if (ranges != null) {
+					return serveRanges(exchange, asset.getContentType(), content.length, validator, ranges,
+							(offset, count, out) -> out.write(content, (int) offset, (int) count));
+				}
+			}
+		}
+
+		if (large) {
+			return serveLargeFile(exchange, entry, validator);
+		}
+
+		CachedAsset asset = site.getCache().get(filePath);
+		byte[] content = asset.getContent();
+
+		Headers headers = exchange.getResponseHeaders();
+		for (Map.Entry<String, String> header : asset.getHeaders().entrySet()) {
+			headers.set(header.getKey(), header.getValue());
+		}
+
+		String encoding = Compression.negotiate(
+				requestHeader(exchange, "Accept-Encoding"),
+				asset.getEncodedVariants());
+		if (encoding != null) {
+			content = asset.getEncodedVariants().get(encoding);
+			headers.set("Content-Encoding", encoding);
+		}
+		setValidatorHeaders(headers, validator, encoding);
+		if (entry.getRouteClass() == RouteClass.HTML) {
+			setLinkHeader(site, headers, site.getPreloadHints().linkFor(entry.getRelativePath(), validator.getEtag()),
+					page);
+		}
 		exchange.sendResponseHeaders(200, content.length); // 200 OK
 
 		OutputStream os = exchange.getResponseBody();
 		os.write(content);
 		os.close();
+		return content.length;
 	}
 
 	/**
-	 * Guesses MIME type based on file extension.
-	 * Uses Files.probeContentType() as fallback.
-	 */
-	private String guessContentType(Path filePath) {
-		String fileName = filePath.getFileName().toString();
-		String extension = fileName.contains(".") ?
-				fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase() :
-				"";
-
-		// Common VuePress file types
-		switch (extension) {
-			case "html":
-				return "text/html; charset=utf-8";
-			case "css":
-				return "text/css";
-			case "js":
-				return "application/javascript";
-			case "json":
-				return "application/json";
-			case "svg":
-				return "image/svg+xml";
-			case "png":
-				return "image/png";
-			case "jpg":
-			case "jpeg":
-				return "image/jpeg";
-			case "gif":
-				return "image/gif";
-			case "webp":
-				return "image/webp";
-			case "woff":
-				return "font/woff";
-			case "woff2":
-				return "font/woff2";
-			case "ttf":
-				return "font/ttf";
-			case "eot":
-				return "application/vnd.ms-fontobject";
-			default:
-				// Fallback to system probe
-				try {
-					String probed = Files.probeContentType(filePath);
-					return probed != null ? probed : "application/octet-stream";
-				} catch (IOException e) {
-					return "application/octet-stream";
+	 * Streams a file above the large-file threshold straight from disk.
+	 *
+	 * Only br/gzip sidecars from the docs build are considered for
+	 * Content-Encoding; large files are never compressed here.
+	 */
+	private long serveLargeFile(HttpExchange exchange, PathIndex.Entry entry,
+			ContentHashIndex.Validator validator) throws IOException {
+		Path filePath = entry.getFile();
+		String contentType = entry.getContentType();
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Content-Type", contentType);
+		headers.set("Accept-Ranges", "bytes");
+
+		Path body = filePath;
+		long length = entry.getSize();
+		String encoding = null;
+		if (Compression.isCompressible(contentType)) {
+			Map<String, Path> sidecars = Compression.freshSidecars(filePath);
+			if (!sidecars.isEmpty()) {
+				headers.set("Vary", "Accept-Encoding");
+				encoding = Compression.negotiate(
+						requestHeader(exchange, "Accept-Encoding"), sidecars);
+				if (encoding != null) {
+					body = sidecars.get(encoding);
+					length = Files.size(body);
+					headers.set("Content-Encoding", encoding);
 				}
+			}
+		}
+
+		setValidatorHeaders(headers, validator, encoding);
+		exchange.sendResponseHeaders(200, length); // 200 OK
+		try (OutputStream os = exchange.getResponseBody()) {
+			FileTransfer.transfer(body, 0, length, os);
 		}
+		return length;
 	}
-}
 
+	/**
+	 * Serves a docs pack entry: no file opens, no stat calls.
+	 * Bodies are slices of the pack's memory mapping.
+	 *
+	 * @return Response body bytes sent
+	 */
+	private long servePacked(StaticSite site, HttpExchange exchange, DocsPack.Entry entry, String page)
+			throws IOException {
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Cache-Control", entry.getCacheControl());
+		ContentHashIndex.Validator validator = entry.getValidator();
+		ByteBuffer body = entry.getBody();
+		HtmlTransform transform = site.getHtmlTransform();
+		if (transform != null && entry.getRouteClass() == RouteClass.HTML) {
+			HtmlTransform.Page transformed = transform.transform(entry.getPath(), validator, () -> {
+				byte[] content = new byte[body.remaining()];
+				body.duplicate().get(content);
+				return content;
+			});
+			if (transformed != null) {
+				return serveTransformed(site, exchange, entry.getContentType(), transformed, page);
+			}
+		}
+		if (isNotModified(exchange, validator)) {
+			sendNotModified(exchange, entry.getContentType(), validator);
+			return 0;
+		}
+
+		String range = requestHeader(exchange, "Range");
+		if (range != null && isIfRangeSatisfied(exchange, validator)) {
+			List<ByteRange> ranges = ByteRange.parse(range, entry.length());
+			if (ranges != null) {
+				return serveRanges(exchange, entry.getContentType(), entry.length(), validator, ranges,
+						(offset, count, out) -> FileTransfer.write(body, offset, count, out));
+			}
+		}
+
+		headers.set("Content-Type", entry.getContentType());
+		headers.set("Accept-Ranges", "bytes");
+		if (!entry.getEncodedVariants().isEmpty()) {
+			headers.set("Vary", "Accept-Encoding");
+		}
+		String encoding = Compression.negotiate(
+				requestHeader(exchange, "Accept-Encoding"),
+				entry.getEncodedVariants());
+		ByteBuffer selected = body;
+		if (encoding != null) {
+			selected = entry.getEncodedVariants().get(encoding);
+			headers.set("Content-Encoding", encoding);
+		}
+		setValidatorHeaders(headers, validator, encoding);
+		if (entry.getRouteClass() == RouteClass.HTML) {
+			setLinkHeader(site, headers, site.getPreloadHints().linkFor(entry.getPath(), validator.getEtag()), page);
+		}
+		long length = selected.remaining();
+		exchange.sendResponseHeaders(200, length); // 200 OK
+		try (OutputStream os = exchange.getResponseBody()) {
+			FileTransfer.write(selected, 0, length, os);
+		}
+		return length;
+	}
+
+	/**
+	 * Serves a page from its cached transformed version, which has
+	 * validators of its own; Cache-Control is already set.
+	 *
+	 * @return Response body bytes sent
+	 */
+	private static long serveTransformed(StaticSite site, HttpExchange exchange, String contentType,
+			HtmlTransform.Page transformed, String page) throws IOException {
+		ContentHashIndex.Validator validator = transformed.getValidator();
+		if (isNotModified(exchange, validator)) {
+			sendNotModified(exchange, contentType, validator);
+			return 0;
+		}
+
+		byte[] identity = transformed.getContent();
+		String range = requestHeader(exchange, "Range");
+		if (range != null && isIfRangeSatisfied(exchange, validator)) {
+			List<ByteRange> ranges = ByteRange.parse(range, identity.length);
+			if (ranges != null) {
+				return serveRanges(exchange, contentType, identity.length, validator, ranges,
+						(offset, count, out) -> out.write(identity, (int) offset, (int) count));
+			}
+		}
+
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Content-Type", contentType);
+		headers.set("Accept-Ranges", "bytes");
+		if (!transformed.getEncodedVariants().isEmpty()) {
+			headers.set("Vary", "Accept-Encoding");
+		}
+		byte[] content = identity;
+		String encoding = Compression.negotiate(
+				requestHeader(exchange, "Accept-Encoding"),
+				transformed.getEncodedVariants());
+		if (encoding != null) {
+			content = transformed.getEncodedVariants().get(encoding);
+			headers.set("Content-Encoding", encoding);
+		}
+		setValidatorHeaders(headers, validator, encoding);
+		setLinkHeader(site, headers, transformed.getPreloadLink(), page);
+		exchange.sendResponseHeaders(200, content.length); // 200 OK
+
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(content);
+		}
+		return content.length;
+	}
+
+	/**
+	 * Sets the Link header of an HTML response: preloads of the file
+	 * served, then prefetches of the page it shows (both cached analyses).
+	 *
+	 * @param preload Preload header value of the file, or null
+	 * @param page Page key of the request, or null
+	 */
+	private static void setLinkHeader(StaticSite site, Headers headers, String preload, String page) {
+		String prefetch = page != null ? site.getPrefetchHints().linkFor(page) : null;
+		if (preload != null && prefetch != null) {
+			headers.set("Link", preload + ", " + prefetch);
+		} else if (preload != null || prefetch != null) {
+			headers.set("Link", preload != null ? preload : prefetch);
+		}
+	}
+
+	/**
+	 * Writes part of a response body.
+	 */
+	private interface RangeSource {
+		void copy(long offset, long count, OutputStream out) throws IOException;
+	}
+
+	/**
+	 * Sends 206 (single part or multipart/byteranges) or 416 for the identity
+	 * representation. Each part is copied with a positional read, so the cost
+	 * of a seek is proportional to the range, not the file.
+	 *
+	 * @return Response body bytes sent
+	 */
+	private static long serveRanges(HttpExchange exchange, String contentType, long totalLength,
+			ContentHashIndex.Validator validator, List<ByteRange> ranges, RangeSource source) throws IOException {
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Accept-Ranges", "bytes");
+		setValidatorHeaders(headers, validator, null);
+
+		if (ranges.isEmpty()) {
+			headers.set("Content-Range", "bytes */" + totalLength);
+			exchange.sendResponseHeaders(416, -1); // 416 Range Not Satisfiable
+			exchange.close();
+			return 0;
+		}
+
+		if (ranges.size() == 1) {
+			ByteRange range = ranges.get(0);
+			headers.set("Content-Type", contentType);
+			headers.set("Content-Range", range.contentRange(totalLength));
+			exchange.sendResponseHeaders(206, range.length()); // 206 Partial Content
+			try (OutputStream os = exchange.getResponseBody()) {
+				source.copy(range.getFirst(), range.length(), os);
+			}
+			return range.length();
+		}
+
+		// multipart/byteranges: length is known up front, so no chunked encoding
+		String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong())
+				+ Long.toHexString(System.nanoTime());
+		byte[][] partHeaders = new byte[ranges.size()][];
+		long bodyLength = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			ByteRange range = ranges.get(i);
+			partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+					+ "Content-Type: " + contentType + "\r\n"
+					+ "Content-Range: " + range.contentRange(totalLength) + "\r\n\r\n")
+					.getBytes(StandardCharsets.ISO_8859_1);
+			bodyLength += partHeaders[i].length + range.length();
+		}
+		byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+		bodyLength += closing.length;
+
+		headers.set("Content-Type", "multipart/byteranges; boundary=" + boundary);
+		exchange.sendResponseHeaders(206, bodyLength); // 206 Partial Content
+		try (OutputStream os = exchange.getResponseBody()) {
+			for (int i = 0; i < ranges.size(); i++) {
+				os.write(partHeaders[i]);
+				source.copy(ranges.get(i).getFirst(), ranges.get(i).length(), os);
+			}
+			os.write(closing);
+		}
+		return bodyLength;
+	}
+
+	/**
+	 * If-Range: ranges only apply if the client's validator is still current
+	 * (strong ETag comparison, or an exact Last-Modified date).
+	 */
+	private static boolean isIfRangeSatisfied(HttpExchange exchange, ContentHashIndex.Validator validator) {
+		String ifRange = requestHeader(exchange, "If-Range");
+		if (ifRange == null) {
+			return true;
+		}
+		String value = ifRange.trim();
+		if (value.startsWith("\"") || value.startsWith("W/")) {
+			return !validator.isWeak() && value.equals(validator.getEtag());
+		}
+		try {
+			long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+					.toInstant().toEpochMilli();
+			return date / 1000 == validator.getLastModifiedMillis() / 1000;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * First value of a request header. Scans the parsed headers with a
+	 * case-insensitive compare instead of Headers.getFirst(), which copies
+	 * and re-cases the key on every call.
+	 *
+	 * @return Header value, or null if the client did not send it
+	 */
+	static String requestHeader(HttpExchange exchange, String name) {
+		for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey())) {
+				List<String> values = header.getValue();
+				return values.isEmpty() ? null : values.get(0);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Evaluates If-None-Match, or If-Modified-Since when no entity tag was sent.
+	 */
+	private static boolean isNotModified(HttpExchange exchange, ContentHashIndex.Validator validator) {
+		String ifNoneMatch = requestHeader(exchange, "If-None-Match");
+		if (ifNoneMatch != null) {
+			return validator.matches(ifNoneMatch);
+		}
+
+		String ifModifiedSince = requestHeader(exchange, "If-Modified-Since");
+		if (ifModifiedSince != null) {
+			try {
+				long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME)
+						.toInstant().toEpochMilli();
+				// HTTP dates have one-second resolution
+				return validator.getLastModifiedMillis() / 1000 <= since / 1000;
+			} catch (DateTimeParseException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static void sendNotModified(HttpExchange exchange, String contentType,
+			ContentHashIndex.Validator validator) throws IOException {
+		Headers headers = exchange.getResponseHeaders();
+		if (Compression.isCompressible(contentType)) {
+			headers.set("Vary", "Accept-Encoding");
+		}
+		setValidatorHeaders(headers, validator, null);
+		exchange.sendResponseHeaders(304, -1); // 304 Not Modified, no body
+		exchange.close();
+	}
+
+	/**
+	 * Sets ETag and Last-Modified. Encoded representations get their own
+	 * strong tag ("hash-gzip") since their bytes differ from the identity body.
+	 */
+	private static void setValidatorHeaders(Headers headers, ContentHashIndex.Validator validator, String encoding) {
+		headers.set("ETag", validator.etagFor(encoding));
+		headers.set("Last-Modified", validator.getLastModifiedHttpDate());
+	}
+}
@@ -0,0 +1,159 @@
+package com.ui.cef_control.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Watches a static files tree and reports changed paths.
+ *
+ * Every directory below the root is registered with a WatchService
+ * (the JDK watch API is not recursive). Newly created directories are
+ * registered as they appear. A single daemon thread drains the events.
+ *
+ * Listeners receive the path that changed. A directory path (or the root
+ * itself after an event overflow) means "anything below here may have changed".
+ */
+final class StaticRootWatcher implements Closeable {
+
+	/**
+	 * Receives change notifications on the watcher thread.
+	 * Implementations must be fast and must not throw.
+	 */
+	interface ChangeListener {
+		void onPathChanged(Path changed);
+	}
+
+	private final Path root;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> watchedDirs;
+	private final List<ChangeListener> listeners;
+	private final Thread thread;
+	private volatile boolean closed;
+
+	private StaticRootWatcher(Path root) throws IOException {
+		this.root = root;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.watchedDirs = new ConcurrentHashMap<>();
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.thread = new Thread(this::run, "static-root-watcher");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Registers the whole tree under root and starts the watcher thread.
+	 *
+	 * @param root Static files root directory
+	 * @return Running watcher (close() to stop)
+	 * @throws IOException if the tree cannot be registered
+	 */
+	static StaticRootWatcher start(Path root) throws IOException {
+		StaticRootWatcher watcher = new StaticRootWatcher(root);
+		try {
+			watcher.registerTree(root);
+		} catch (IOException e) {
+			watcher.close();
+			throw e;
+		}
+		watcher.thread.start();
+		return watcher;
+	}
+
+	void addListener(ChangeListener listener) {
+		if (listener != null) {
+			listeners.add(listener);
+		}
+	}
+
+	void removeListener(ChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	Path getRoot() {
+		return root;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			watchService.close();
+		} catch (IOException ignore) {
+			// Nothing left to release
+		}
+	}
+
+	private void registerTree(Path dir) throws IOException {
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = d.register(watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+				watchedDirs.put(key, d);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void run() {
+		while (!closed) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path dir = watchedDirs.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+					// Events were lost: treat the whole tree as changed
+					notifyChanged(root);
+					continue;
+				}
+
+				Path changed = dir.resolve((Path) event.context());
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+					try {
+						registerTree(changed);
+					} catch (IOException e) {
+						System.err.println("StaticRootWatcher: cannot watch " + changed + ": " + e);
+					}
+				}
+				notifyChanged(changed);
+			}
+
+			if (!key.reset()) {
+				// Directory was deleted or became inaccessible
+				watchedDirs.remove(key);
+			}
+		}
+	}
+
+	private void notifyChanged(Path changed) {
+		for (ChangeListener listener : listeners) {
+			try {
+				listener.onPathChanged(changed);
+			} catch (Exception e) {
+				// Listener exceptions must not stop the watcher
+				System.err.println("StaticRootWatcher listener threw exception: " + e);
+			}
+		}
+	}
+}
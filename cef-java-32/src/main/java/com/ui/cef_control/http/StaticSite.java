@@ -0,0 +1,370 @@
+package com.ui.cef_control.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything StaticFileHandler needs to serve one static root.
+ *
+ * Bundles the root directory with its per-root state:
+ * - AssetCache (file bodies and precomputed headers)
+ * - PathIndex (request path -> file, SPA fallback, content type,
+ *   Cache-Control) so requests do not stat the disk
+ * - ContentHashIndex (ETag / Last-Modified validators)
+ * - PreloadHints (Link preload headers of HTML pages)
+ * - PrefetchHints (likely next pages, from links and observed navigation)
+ * - HtmlTransform (minified pages with small stylesheets inlined), if enabled
+ * - SearchIndex (full-text index of the HTML pages, for /__search)
+ * - StaticRootWatcher that keeps all of them current when files change
+ *
+ * A site can instead be backed by a DocsPack, in which case every file is
+ * answered from the pack's memory mapping and the cache, hash index and
+ * watcher are unused; preload and prefetch hints and the search index are built from
+ * the pack's bodies.
+ *
+ * Created by the servers on start() and closed on stop(). A running server
+ * can swap in a new site; requests hold a reference (retain/release) for
+ * their duration, so the old site is only closed after the last request
+ * that started on it has finished.
+ */
+final class StaticSite implements Closeable {
+
+	private final Path root;
+	private final AssetCache cache;
+	private final ContentHashIndex hashIndex;
+	private final long largeFileThreshold;
+	private final CachePolicy cachePolicy;
+	private final PathIndex pathIndex;
+	private final StaticRootWatcher watcher;
+	private final DocsPack pack;
+	private final PreloadHints preloadHints;
+	private final PrefetchHints prefetchHints;
+	private final String basePath;
+	private volatile HtmlTransform htmlTransform;
+	private final SearchIndex searchIndex;
+	/** Owner reference plus one per running request; resources are freed at 0. */
+	private final AtomicInteger references = new AtomicInteger(1);
+	private volatile ForkJoinTask<?> hashBuild;
+	private volatile ForkJoinTask<?> searchBuild;
+
+	private StaticSite(Path root, String basePath, AssetCache cache, long largeFileThreshold,
+			CachePolicy cachePolicy, PathIndex pathIndex, StaticRootWatcher watcher, DocsPack pack) {
+		this.root = root;
+		this.cache = cache;
+		this.hashIndex = new ContentHashIndex(root);
+		this.largeFileThreshold = largeFileThreshold;
+		this.cachePolicy = cachePolicy;
+		this.pathIndex = pathIndex;
+		this.watcher = watcher;
+		this.pack = pack;
+		this.basePath = basePath;
+		SiteSource source = new SiteSource();
+		this.preloadHints = new PreloadHints(source, basePath);
+		this.prefetchHints = new PrefetchHints(source, basePath);
+		this.searchIndex = new SearchIndex(root, basePath);
+	}
+
+	/**
+	 * Opens a watched site: starts the file watcher, indexes the tree and
+	 * starts the background hash and search index builds.
+	 *
+	 * @param root Static files root directory
+	 * @param cache Asset cache; not cleared here, since the site this one
+	 *              replaces may still be serving from it (callers drop
+	 *              stale entries once nothing does)
+	 * @param largeFileThreshold Files above this size are streamed, not cached
+	 * @param cachePolicy Cache-Control rules for served files
+	 * @throws IOException if the tree cannot be watched or indexed
+	 */
+	static StaticSite open(Path root, AssetCache cache, long largeFileThreshold, CachePolicy cachePolicy)
+			throws IOException {
+		return open(root, "/", cache, largeFileThreshold, cachePolicy);
+	}
+
+	/**
+	 * Opens a watched site served below a URL path other than "/" (a
+	 * mounted root, see MountRouter). The base path only affects the URLs
+	 * of preload hints; request paths are resolved by the caller's offset.
+	 *
+	 * @param basePath URL path with leading and trailing '/' ("/release-notes/")
+	 */
+	static StaticSite open(Path root, String basePath, AssetCache cache, long largeFileThreshold,
+			CachePolicy cachePolicy) throws IOException {
+		Path normalizedRoot = root.toAbsolutePath().normalize();
+
+		StaticRootWatcher watcher = StaticRootWatcher.start(normalizedRoot);
+		PathIndex pathIndex = new PathIndex(normalizedRoot, cachePolicy);
+		StaticSite site = new StaticSite(normalizedRoot, basePath, cache, largeFileThreshold, cachePolicy,
+				pathIndex, watcher, null);
+		// Listen before the initial scan so no change between watch and scan is lost
+		watcher.addListener(pathIndex::onPathChanged);
+		watcher.addListener(cache::invalidate);
+		watcher.addListener(site.hashIndex::onPathChanged);
+		watcher.addListener(site.preloadHints::onPathChanged);
+		watcher.addListener(site.prefetchHints::onPathChanged);
+		watcher.addListener(path -> {
+			HtmlTransform transform = site.htmlTransform;
+			if (transform != null) {
+				transform.onPathChanged(path);
+			}
+		});
+		watcher.addListener(site.searchIndex::onPathChanged);
+		try {
+			pathIndex.build();
+		} catch (IOException e) {
+			watcher.close();
+			throw e;
+		}
+		site.hashBuild = site.hashIndex.buildAsync();
+		site.searchBuild = site.searchIndex.buildAsync();
+		return site;
+	}
+
+	/**
+	 * Creates a site without a watcher, path index or background build
+	 * (tests, one-off use). Paths are resolved against the disk and
+	 * validators computed on demand; the default cache policy applies.
+	 */
+	static StaticSite unwatched(Path root, AssetCache cache, long largeFileThreshold) {
+		return new StaticSite(root.toAbsolutePath().normalize(), "/", cache, largeFileThreshold,
+				CachePolicy.defaults(), null, null, null);
+	}
+
+	/**
+	 * Creates a site that serves every request from a docs pack.
+	 *
+	 * @param pack Opened pack; closed with the site
+	 * @param cache Asset cache of the server (unused while the pack is served)
+	 */
+	static StaticSite packed(DocsPack pack, AssetCache cache) {
+		StaticSite site = new StaticSite(pack.getFile().toAbsolutePath().normalize(), "/", cache, Long.MAX_VALUE,
+				CachePolicy.defaults(), null, null, pack);
+		site.searchBuild = site.searchIndex.buildAsync(pack);
+		return site;
+	}
+
+	/**
+	 * Opens the site a server config describes: the docs pack if one is
+	 * configured, otherwise the watched static files directory. For
+	 * start(): clears the cache, which nothing serves from yet.
+	 *
+	 * @throws IOException if the pack cannot be opened or the tree cannot be watched
+	 */
+	static StaticSite open(HttpServerConfig config, AssetCache cache) throws IOException {
+		CachePolicy cachePolicy = new CachePolicy(config.getCacheRules());
+		if (config.getDocsPack() != null) {
+			return packed(DocsPack.open(config.getDocsPack(), cachePolicy), cache).withHtmlTransform(config);
+		}
+		cache.clear(); // Nothing serves from it yet; files may have changed while unwatched
+		return open(Paths.get(config.getStaticFilesPath()), cache, config.getLargeFileThresholdBytes(),
+				cachePolicy).withHtmlTransform(config);
+	}
+
+	/**
+	 * Turns on the HTML transform if the config asks for it. Call before
+	 * the site serves its first request.
+	 *
+	 * @return This site
+	 */
+	StaticSite withHtmlTransform(HttpServerConfig config) {
+		if (config.isHtmlTransform()) {
+			htmlTransform = new HtmlTransform(new SiteSource(), preloadHints, basePath,
+					config.getInlineCssLimitBytes());
+		}
+		return this;
+	}
+
+	Path getRoot() {
+		return root;
+	}
+
+	AssetCache getCache() {
+		return cache;
+	}
+
+	ContentHashIndex getHashIndex() {
+		return hashIndex;
+	}
+
+	/**
+	 * @return The docs pack backing this site, or null for a directory site
+	 */
+	DocsPack getPack() {
+		return pack;
+	}
+
+	long getLargeFileThreshold() {
+		return largeFileThreshold;
+	}
+
+	PreloadHints getPreloadHints() {
+		return preloadHints;
+	}
+
+	PrefetchHints getPrefetchHints() {
+		return prefetchHints;
+	}
+
+	/**
+	 * @return The HTML transform, or null if HTML is served as is
+	 */
+	HtmlTransform getHtmlTransform() {
+		return htmlTransform;
+	}
+
+	SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Resolves a request path as sent by the client ("/guide/intro.html").
+	 * Watched sites answer from the PathIndex's memo without allocating.
+	 *
+	 * @return Entry of the file, or null if there is none (serve fallback())
+	 */
+	PathIndex.Entry resolve(String requestPath) {
+		return resolve(requestPath, 0);
+	}
+
+	/**
+	 * Resolves the part of a request path from an offset on, e.g. past the
+	 * "/release-notes" prefix of a mounted root.
+	 *
+	 * @return Entry of the file, or null if there is none (serve fallback())
+	 */
+	PathIndex.Entry resolve(String requestPath, int from) {
+		if (pathIndex != null) {
+			return pathIndex.resolve(requestPath, from);
+		}
+		String path = requestPath.substring(from);
+		return lookup(path.startsWith("/") ? path.substring(1) : path);
+	}
+
+	/**
+	 * Resolves a request path (no leading '/') to a file.
+	 *
+	 * @return Entry of the file, or null if there is none (serve fallback())
+	 */
+	PathIndex.Entry lookup(String path) {
+		if (pathIndex != null) {
+			return pathIndex.lookup(path);
+		}
+		return PathIndex.Entry.of(root, root.resolve(path).normalize(), cachePolicy);
+	}
+
+	/**
+	 * @return Entry of the root index.html (SPA fallback), or null if missing
+	 */
+	PathIndex.Entry fallback() {
+		if (pathIndex != null) {
+			return pathIndex.fallback();
+		}
+		return PathIndex.Entry.of(root, root.resolve(PathIndex.FALLBACK), cachePolicy);
+	}
+
+	/**
+	 * Files of this site as PreloadHints and PrefetchHints see them: same resolution as
+	 * requests, bodies from the asset cache or the pack.
+	 */
+	private final class SiteSource implements PreloadHints.Source {
+		@Override
+		public boolean exists(String path) {
+			return pack != null ? pack.get(path) != null : lookup(path) != null;
+		}
+
+		@Override
+		public byte[] read(String path) throws IOException {
+			if (pack != null) {
+				DocsPack.Entry entry = pack.get(path);
+				if (entry == null || entry.length() > PreloadHints.MAX_DOCUMENT_BYTES) {
+					return null;
+				}
+				byte[] content = new byte[(int) entry.length()];
+				entry.getBody().duplicate().get(content);
+				return content;
+			}
+			PathIndex.Entry entry = lookup(path);
+			if (entry == null || entry.getSize() > Math.min(largeFileThreshold, PreloadHints.MAX_DOCUMENT_BYTES)) {
+				return null;
+			}
+			return cache.get(entry.getFile()).getContent();
+		}
+	}
+
+	/**
+	 * Blocks until the background content-hash and search builds have
+	 * finished, so a swapped-in site answers its first requests without
+	 * hashing on demand and searches find every page.
+	 */
+	void awaitIndexed() {
+		ForkJoinTask<?> build = hashBuild;
+		if (build != null) {
+			build.quietlyJoin();
+		}
+		build = searchBuild;
+		if (build != null) {
+			build.quietlyJoin();
+		}
+	}
+
+	/**
+	 * Takes a reference for one request.
+	 *
+	 * @return false if the site is already closed (it was swapped out in
+	 *         the meantime; read the current one again)
+	 */
+	boolean retain() {
+		while (true) {
+			int current = references.get();
+			if (current == 0) {
+				return false;
+			}
+			if (references.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Drops a request's (or the owner's) reference; the last one closes the site.
+	 */
+	void release() {
+		if (references.decrementAndGet() == 0) {
+			closeResources();
+		}
+	}
+
+	boolean isClosed() {
+		return references.get() == 0;
+	}
+
+	/**
+	 * Releases the owner's reference. Watcher, hash build and pack are
+	 * closed once no request is using the site any more.
+	 */
+	@Override
+	public void close() {
+		if (!isClosed()) {
+			release();
+		}
+	}
+
+	private void closeResources() {
+		if (watcher != null) {
+			watcher.close();
+		}
+		hashIndex.cancelBuild();
+		searchIndex.cancelBuild();
+		if (pack != null) {
+			try {
+				pack.close();
+			} catch (IOException e) {
+				System.err.println("StaticSite: failed to close docs pack: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -1,11 +1,13 @@
 package com.ui.cef_control.http;
 
+import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,17 +22,45 @@ import java.util.List;
  * - Use ephemeral port (0 = OS-assigned)
  * - Notify listeners of lifecycle events (before/after restart, failure)
  * - Simple routing: serve index.html for non-file paths
+ * - Keep hot assets in a byte-budgeted in-memory cache, invalidated by a
+ *   WatchService on the static files tree
+ * - Serve precompressed (br/gzip) variants negotiated from Accept-Encoding
+ * - Stream files above the large-file threshold without heap buffering
+ * - Answer conditional GETs (ETag from a content-hash index built in
+ *   parallel at start, Last-Modified) with 304
+ * - Serve byte ranges (206, multipart/byteranges) for media seeking
+ * - Run requests on a configurable thread model (dispatcher thread,
+ *   bounded worker pool, virtual threads)
+ * - Mark fingerprinted assets immutable and HTML no-cache (configurable
+ *   rules via HttpServerConfig.withCacheRule)
+ * - Record per-route latency histograms, bytes and status counts, served
+ *   as text or JSON from the reserved /__metrics context
+ * - Optionally serve a prebuilt docs pack (file, zip or classpath) from a
+ *   memory mapping instead of the directory tree
+ * - Run on the JDK server or on a selector-based NIO engine with
+ *   keep-alive, pipelining and pooled direct buffers (HttpBackend)
+ * - Optionally speak h2c (HttpServerConfig.withH2c): multiplexed streams,
+ *   HPACK, stream priorities; HTTP/1.1 clients are served as before
+ * - Drain on stop(): in-flight requests finish within a configurable
+ *   deadline (HttpServerConfig.withDrainTimeout), the rest is reported
+ * - Optional admission control (HttpServerConfig.withAdmissionControl):
+ *   concurrency limit, bounded wait queue, fast 503 + Retry-After beyond
+ *   it, limit optionally adapted to observed latency
+ * - Serve further doc sets on the same socket and threads, mounted by path
+ *   prefix or Host header (HttpServerConfig.withMount/withHostMount)
+ * - Answer health probes on the reserved /__health context
+ * - Optionally keep the most requested files in a hot set file and warm
+ *   the cache from it after start() (HttpServerConfig.withHotSet)
  *
  * Design constraints:
  * - No HTTPS (Phase-7)
- * - No caching headers (Phase-7)
- * - No gzip/compression (Phase-7)
  * - No security logic (Phase-7)
  * - No authentication (Phase-7)
  * - No rate limiting (Phase-7)
  *
  * Dependencies:
- * - JDK built-in com.sun.net.httpserver.HttpServer (no external HTTP library)
+ * - JDK built-in com.sun.net.httpserver (HttpServer, or its handler API
+ *   on the NIO backend; no external HTTP library)
  * - Standard Java NIO for file serving
  *
  * Lifecycle:
@@ -38,14 +68,21 @@ import java.util.List;
  * 2. Add listeners (optional)
  * 3. Call start() -> server binds, accepts requests, notifies listeners
  * 4. Server serves files and handles restarts independently
- * 5. Call stop() -> server stops, cleans up resources
+ * 5. Call stop() -> server drains, stops, cleans up resources
  */
 public class VuePressHttpServer {
 
 	private final HttpServerConfig config;
 	private final List<HttpServerListener> listeners;
-	private com.sun.net.httpserver.HttpServer httpServer;
-	private boolean running;
+	private final AssetCache assetCache;
+	private final RequestMetrics requestMetrics;
+	private final HotSet hotSet;
+	private volatile HttpEngine httpServer;
+	private volatile StaticSite site;
+	private volatile MountRouter mounts;
+	private RequestExecutor executor;
+	private volatile AdmissionControl admission;
+	private volatile boolean running;
 
 	/**
 	 * Creates an HTTP server instance (not started yet).
@@ -58,6 +95,9 @@ public class VuePressHttpServer {
 		}
 		this.config = config;
 		this.listeners = new ArrayList<>();
+		this.assetCache = new AssetCache(config.getAssetCacheBudgetBytes());
+		this.requestMetrics = new RequestMetrics();
+		this.hotSet = HotSet.of(config);
 		this.httpServer = null;
 		this.running = false;
 	}
@@ -74,27 +114,64 @@ public class VuePressHttpServer {
 	 * @throws IllegalStateException if server is already running
 	 */
 	public void start() throws IOException {
+		start(config);
+	}
+
+	/**
+	 * Starts like start(), but on an OS-assigned port whatever the
+	 * configured one; HttpServerSupervisor's fallback when that port stays busy.
+	 */
+	void startOnEphemeralPort() throws IOException {
+		start(config.onEphemeralPort());
+	}
+
+	private void start(HttpServerConfig bindConfig) throws IOException {
 		if (running) {
 			throw new IllegalStateException("Server is already running");
 		}
 
-		// Validate static files path exists
+		// Validate static files path exists (not needed when serving a docs pack)
 		Path staticPath = Paths.get(config.getStaticFilesPath());
-		if (!Files.isDirectory(staticPath)) {
+		if (config.getDocsPack() == null && !Files.isDirectory(staticPath)) {
 			throw new IOException("Static files path does not exist or is not a directory: " + staticPath);
 		}
 
-		// Create server bound to localhost only
-		InetSocketAddress bindAddress = new InetSocketAddress(config.getBindAddress(), config.getPort());
-		this.httpServer = com.sun.net.httpserver.HttpServer.create(bindAddress, 0);
+		// Map the docs pack, or watch the tree and start the background ETag index build
+		this.site = StaticSite.open(config, assetCache);
 
-		// Set up static file handler
-		StaticFileHandler handler = new StaticFileHandler(staticPath);
-		this.httpServer.createContext("/", handler);
+		// Set up static file handler, behind the mount router if other roots are mounted
+		StaticFileHandler handler = new StaticFileHandler(site, requestMetrics, hotSet);
+		try {
+			this.mounts = MountRouter.open(config, handler, requestMetrics);
+			// Create server (JDK or NIO backend) bound to localhost only
+			this.httpServer = HttpEngine.bind(bindConfig, "vuepress-http");
+		} catch (IOException e) {
+			if (this.mounts != null) {
+				this.mounts.close();
+				this.mounts = null;
+			}
+			this.site.close();
+			this.site = null;
+			throw e;
+		}
+		// Run exchanges on the configured thread model instead of the dispatcher,
+		// behind admission control if configured, so shedding happens before a worker is taken
+		this.executor = RequestExecutor.create(config, "vuepress-http");
+		HttpHandler root = mounts != null ? mounts : handler;
+		this.admission = AdmissionControl.of(config, root, requestMetrics, executor);
+		this.httpServer.createContext("/", admission != null ? admission : root);
+		this.httpServer.createContext(MetricsHandler.CONTEXT_PATH, new MetricsHandler(requestMetrics,
+				this::getAssetCacheStats, this::getWorkerStats, this::getAdmissionStats));
+		this.httpServer.createContext(HealthHandler.CONTEXT_PATH, new HealthHandler());
+		this.httpServer.createContext(SearchHandler.CONTEXT_PATH, new SearchHandler(this::searchIndexes));
+		this.httpServer.setExecutor(admission != null ? admission : executor);
 
 		// Start accepting connections
 		this.httpServer.start();
 		this.running = true;
+		if (hotSet != null) {
+			hotSet.start(site);
+		}
 
 		// Get the actual bound address (useful if ephemeral port was used)
 		String boundAddress = getActualAddress();
@@ -106,22 +183,45 @@ public class VuePressHttpServer {
 	/**
 	 * Stops the HTTP server.
 	 *
-	 * Performs graceful shutdown, allowing in-flight requests to complete.
-	 * Cleans up all resources.
+	 * Drains gracefully: stops accepting connections, lets in-flight
+	 * requests complete for up to config.getDrainTimeoutMillis(), then
+	 * closes what is left. Cleans up all resources.
 	 *
+	 * @return How many requests were in flight and how many were cut off
 	 * @throws IllegalStateException if server is not running
 	 */
-	public void stop() {
+	public DrainResult stop() {
 		if (!running) {
 			throw new IllegalStateException("Server is not running");
 		}
 
+		DrainResult drain = DrainResult.IDLE;
 		if (this.httpServer != null) {
-			this.httpServer.stop(0); // 0 = wait indefinitely for graceful shutdown
+			drain = this.httpServer.stop(config.getDrainTimeoutMillis());
 			this.httpServer = null;
+			if (!drain.isClean()) {
+				System.err.println("VuePressHttpServer: drain deadline passed, aborted " + drain.getAborted()
+						+ " of " + drain.getInFlightAtStop() + " in-flight requests");
+			}
+		}
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+		if (hotSet != null) {
+			hotSet.stop();
+		}
+		if (this.site != null) {
+			this.site.close();
+			this.site = null;
+		}
+		if (this.mounts != null) {
+			this.mounts.close();
+			this.mounts = null;
 		}
 
+		this.admission = null;
 		this.running = false;
+		return drain;
 	}
 
 	/**
@@ -144,6 +244,20 @@ public class VuePressHttpServer {
 		return addr.getHostName() + ":" + addr.getPort();
 	}
 
+	HttpServerConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Socket address the server listens on, for loopback health probes.
+	 *
+	 * @return Bound address, or null if not running
+	 */
+	InetSocketAddress getBoundAddress() {
+		HttpEngine current = httpServer;
+		return running && current != null ? current.getAddress() : null;
+	}
+
 	/**
 	 * Returns the actual bound port (useful if ephemeral port was requested).
 	 *
@@ -162,6 +276,89 @@ public class VuePressHttpServer {
 		return addr.getPort();
 	}
 
+	/**
+	 * Indexes /__search answers from for a request with this Host header.
+	 */
+	private List<SearchIndex> searchIndexes(String host) {
+		StaticSite current = site;
+		if (current == null) {
+			return Collections.emptyList();
+		}
+		MountRouter router = mounts;
+		return router != null ? router.searchIndexes(host, current.getSearchIndex())
+				: Collections.singletonList(current.getSearchIndex());
+	}
+
+	/**
+	 * Returns the pages a reader of a page is likely to open next, ranked
+	 * from the page's links and the navigation observed so far - the same
+	 * list HTML responses carry as Link rel=prefetch. Lets the embedder
+	 * hand it to the browser when it opens a page itself.
+	 *
+	 * @param pagePath Request path of a page of the root ("/guide/" or "/guide/intro.html")
+	 * @return URL paths, best first; empty if the server is stopped or the path is not a page
+	 */
+	public List<String> getPrefetchUrls(String pagePath) {
+		StaticSite current = site;
+		String page = current != null ? current.getPrefetchHints().pageKey(pagePath, 0) : null;
+		return page != null ? current.getPrefetchHints().rank(page) : Collections.<String>emptyList();
+	}
+
+	/**
+	 * Returns hit/miss/eviction counters of the in-memory asset cache.
+	 *
+	 * Counters accumulate across restarts of this instance. Mounted roots
+	 * each have a cache of their own; their counters, since the last
+	 * start(), are added in while running.
+	 *
+	 * @return Snapshot of the cache counters
+	 */
+	public AssetCacheStats getAssetCacheStats() {
+		MountRouter current = mounts;
+		return current != null ? current.addCacheStats(assetCache.stats()) : assetCache.stats();
+	}
+
+	/**
+	 * Returns active worker count, queue depth and throughput of the request executor.
+	 *
+	 * @return Snapshot of the executor counters, or null if never started
+	 */
+	public WorkerPoolStats getWorkerStats() {
+		RequestExecutor current = executor;
+		return current != null ? current.stats() : null;
+	}
+
+	/**
+	 * Returns the concurrency limit in effect, queue length and how many
+	 * requests were admitted or rejected with 503 since start().
+	 *
+	 * @return Snapshot of the admission counters, or null if admission
+	 *         control is off or the server was never started
+	 */
+	public AdmissionStats getAdmissionStats() {
+		AdmissionControl current = admission;
+		return current != null ? current.stats() : null;
+	}
+
+	/**
+	 * Returns per-route latency percentiles, bytes, status counts and
+	 * in-flight requests (the same figures /__metrics serves).
+	 *
+	 * @return Snapshot of the request metrics
+	 */
+	public RequestMetricsStats getRequestMetrics() {
+		return requestMetrics.stats();
+	}
+
+	/**
+	 * Returns how far the hot-set warm-up after the last start() got.
+	 *
+	 * @return Snapshot of the warm-up, or null if no hot set is configured
+	 */
+	public WarmupStats getWarmupStats() {
+		return hotSet != null ? hotSet.stats() : null;
+	}
+
 	/**
 	 * Checks if the server is currently running.
 	 *
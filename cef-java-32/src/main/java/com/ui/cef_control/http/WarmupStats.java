@@ -0,0 +1,76 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time snapshot of the hot-set warm-up that runs after start()
+ * (see HttpServerConfig.withHotSet).
+ *
+ * Files missing from the current docs, or too large to be cached, are
+ * skipped and not counted as warmed.
+ */
+public final class WarmupStats {
+
+	private final int listed;
+	private final int warmed;
+	private final long warmedBytes;
+	private final long elapsedMillis;
+	private final boolean finished;
+	private final boolean budgetExhausted;
+
+	WarmupStats(int listed, int warmed, long warmedBytes, long elapsedMillis, boolean finished,
+			boolean budgetExhausted) {
+		this.listed = listed;
+		this.warmed = warmed;
+		this.warmedBytes = warmedBytes;
+		this.elapsedMillis = elapsedMillis;
+		this.finished = finished;
+		this.budgetExhausted = budgetExhausted;
+	}
+
+	/**
+	 * @return Paths in the persisted hot set
+	 */
+	public int getListed() {
+		return listed;
+	}
+
+	/**
+	 * @return Files brought into memory so far
+	 */
+	public int getWarmed() {
+		return warmed;
+	}
+
+	public long getWarmedBytes() {
+		return warmedBytes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return true once the warm-up has ended (done, out of budget or stopped)
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return true if the byte or time budget ended the warm-up before the list did
+	 */
+	public boolean isBudgetExhausted() {
+		return budgetExhausted;
+	}
+
+	@Override
+	public String toString() {
+		return "WarmupStats{" +
+				"listed=" + listed +
+				", warmed=" + warmed +
+				", warmedBytes=" + warmedBytes +
+				", elapsedMillis=" + elapsedMillis +
+				", finished=" + finished +
+				", budgetExhausted=" + budgetExhausted +
+				'}';
+	}
+}
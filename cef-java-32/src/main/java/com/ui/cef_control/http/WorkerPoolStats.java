@@ -0,0 +1,77 @@
+package com.ui.cef_control.http;
+
+/**
+ * Point-in-time snapshot of the request executor.
+ */
+public final class WorkerPoolStats {
+
+	private final ExecutorStrategy strategy;
+	private final int activeWorkers;
+	private final int queueDepth;
+	private final int poolSize;
+	private final long completedRequests;
+	private final long overflowRuns;
+
+	WorkerPoolStats(ExecutorStrategy strategy, int activeWorkers, int queueDepth, int poolSize,
+			long completedRequests, long overflowRuns) {
+		this.strategy = strategy;
+		this.activeWorkers = activeWorkers;
+		this.queueDepth = queueDepth;
+		this.poolSize = poolSize;
+		this.completedRequests = completedRequests;
+		this.overflowRuns = overflowRuns;
+	}
+
+	/**
+	 * Strategy actually in effect (VIRTUAL_THREADS may have fallen back).
+	 */
+	public ExecutorStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Requests currently being handled.
+	 */
+	public int getActiveWorkers() {
+		return activeWorkers;
+	}
+
+	/**
+	 * Requests accepted but waiting for a worker.
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * Worker threads currently alive (0 for dispatcher/virtual threads).
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public long getCompletedRequests() {
+		return completedRequests;
+	}
+
+	/**
+	 * Requests the dispatcher had to run itself because the queue was full.
+	 * While it does, no other connection is accepted or read, so a growing
+	 * count means the pool or its queue is too small for the load.
+	 */
+	public long getOverflowRuns() {
+		return overflowRuns;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkerPoolStats{" +
+				"strategy=" + strategy +
+				", activeWorkers=" + activeWorkers +
+				", queueDepth=" + queueDepth +
+				", poolSize=" + poolSize +
+				", completedRequests=" + completedRequests +
+				", overflowRuns=" + overflowRuns +
+				'}';
+	}
+}
@@ -0,0 +1,212 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class AdmissionControlTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	// Exchanges handed to the workers, run by the test
+	private final List<Runnable> submitted = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void testShedsBeyondLimitWhenQueueIsFull() {
+		AdmissionControl admission = new AdmissionControl(exchange -> { }, new RequestMetrics(), submitted::add,
+				2, 0, 0, 0);
+		boolean[] shed = new boolean[3];
+
+		for (int i = 0; i < 3; i++) {
+			int request = i;
+			admission.execute(() -> shed[request] = AdmissionControl.isShedding());
+		}
+
+		// The third ran at once on this thread, as a shed exchange, without a worker
+		assertEquals(2, submitted.size());
+		assertTrue(shed[2]);
+
+		submitted.get(0).run();
+		assertFalse(shed[0]);
+		admission.execute(() -> { });
+		assertEquals(3, submitted.size());
+
+		AdmissionStats stats = admission.stats();
+		assertEquals(2, stats.getActive());
+		assertEquals(3, stats.getAdmitted());
+		assertEquals(1, stats.getRejected());
+	}
+
+	@Test
+	public void testQueuedRequestGetsReleasedSlotWithoutAWorker() {
+		AdmissionControl admission = new AdmissionControl(exchange -> { }, new RequestMetrics(), submitted::add,
+				1, 1, 5_000, 0);
+		boolean[] shed = new boolean[3];
+		for (int i = 0; i < 3; i++) {
+			int request = i;
+			admission.execute(() -> shed[request] = AdmissionControl.isShedding());
+		}
+
+		// One running, one queued (not on a worker), the third shed
+		assertEquals(1, submitted.size());
+		assertEquals(1, admission.stats().getQueued());
+		assertTrue(shed[2]);
+
+		submitted.get(0).run();
+		assertEquals(2, submitted.size());
+		assertEquals(0, admission.stats().getQueued());
+		submitted.get(1).run();
+		assertFalse(shed[1]);
+		assertEquals(1, admission.stats().getRejected());
+	}
+
+	@Test
+	public void testQueuedRequestTimesOut() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(exchange -> { }, new RequestMetrics(), submitted::add,
+				1, 4, 50, 0);
+		boolean[] shed = new boolean[1];
+		admission.execute(() -> { });
+
+		long start = System.nanoTime();
+		admission.execute(() -> shed[0] = AdmissionControl.isShedding());
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (submitted.size() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+
+		// Handed to the workers to be answered with 503
+		assertEquals(2, submitted.size());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+		submitted.get(1).run();
+		assertTrue(shed[0]);
+		assertEquals(0, admission.stats().getQueued());
+		assertEquals(1, admission.stats().getRejected());
+	}
+
+	@Test
+	public void testAdaptiveLimitBacksOffAndRecovers() {
+		AdmissionControl admission = new AdmissionControl(exchange -> { }, new RequestMetrics(), submitted::add,
+				10, 0, 0, 100);
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(admission.tryAcquire());
+		}
+		for (int i = 0; i < 10; i++) {
+			admission.release(SLOW);
+		}
+		assertEquals(8, admission.stats().getLimit());
+
+		// Saturated windows within target grow the limit again
+		for (int round = 0; round < 2; round++) {
+			int limit = admission.stats().getLimit();
+			for (int i = 0; i < limit; i++) {
+				assertTrue(admission.tryAcquire());
+			}
+			for (int i = 0; i < limit; i++) {
+				admission.release(FAST);
+			}
+		}
+		assertEquals(10, admission.stats().getLimit());
+	}
+
+	@Test
+	public void testDefaultPoolShedsBeforeAWorkerIsTaken() throws Exception {
+		int workerThreads = HttpServerConfig.DEFAULT_WORKER_THREADS;
+		HttpServerConfig config = new HttpServerConfig(".", 0, "127.0.0.1")
+				.withAdmissionControl(4 * workerThreads, 2, 5_000);
+		CountDownLatch entered = new CountDownLatch(workerThreads);
+		CountDownLatch release = new CountDownLatch(1);
+		RequestMetrics metrics = new RequestMetrics();
+		RequestExecutor workers = RequestExecutor.create(config, "admission-test");
+		AdmissionControl admission = AdmissionControl.of(config, exchange -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "ok".getBytes(StandardCharsets.US_ASCII);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}, metrics, workers);
+		// Capped at the pool: admitted requests always have a worker
+		assertEquals(workerThreads, admission.stats().getMaxConcurrent());
+
+		HttpEngine engine = HttpEngine.bind(config, "admission-test");
+		engine.createContext("/", admission);
+		engine.setExecutor(admission);
+		engine.start();
+		int port = engine.getAddress().getPort();
+		List<Socket> served = new ArrayList<>();
+		try {
+			for (int i = 0; i < workerThreads + 2; i++) {
+				Socket client = new Socket("127.0.0.1", port);
+				served.add(client);
+				send(client, "/");
+			}
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (admission.stats().getQueued() < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(2, admission.stats().getQueued());
+
+			try (Socket shed = new Socket("127.0.0.1", port)) {
+				send(shed, "/");
+				String rejected = readAll(shed);
+				assertTrue(rejected, rejected.startsWith("HTTP/1.1 503"));
+				assertTrue(rejected, rejected.toLowerCase(Locale.ROOT).contains("retry-after: 1"));
+			}
+			// Queued requests hold no worker, nothing ran on the dispatcher
+			WorkerPoolStats pool = workers.stats();
+			assertEquals(workerThreads, pool.getActiveWorkers());
+			assertEquals(0, pool.getQueueDepth());
+			assertEquals(0, pool.getOverflowRuns());
+
+			release.countDown();
+			for (Socket client : served) {
+				assertTrue(readAll(client).startsWith("HTTP/1.1 200"));
+			}
+			assertEquals(1, admission.stats().getRejected());
+			assertEquals(Long.valueOf(1), metrics.stats().getStatusCounts().get(503));
+		} finally {
+			release.countDown();
+			for (Socket client : served) {
+				client.close();
+			}
+			engine.stop(0);
+			workers.shutdown();
+		}
+	}
+
+	private static void send(Socket socket, String path) throws IOException {
+		socket.setSoTimeout(5_000);
+		OutputStream out = socket.getOutputStream();
+		out.write(("GET " + path + " HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n")
+				.getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	private static String readAll(Socket socket) throws IOException {
+		InputStream in = socket.getInputStream();
+		StringBuilder text = new StringBuilder();
+		int b;
+		while ((b = in.read()) != -1) {
+			text.append((char) b);
+		}
+		return text.toString();
+	}
+}
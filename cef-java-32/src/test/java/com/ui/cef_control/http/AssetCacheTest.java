@@ -0,0 +1,176 @@
+package com.ui.cef_control.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+
+public class AssetCacheTest {
+
+	private Path tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("asset_cache_test_");
+	}
+
+	@Test
+	public void testHitAfterMiss() throws IOException {
+		Path file = write("a.css", 10);
+		AssetCache cache = new AssetCache(1024);
+
+		CachedAsset first = cache.get(file);
+		CachedAsset second = cache.get(file);
+
+		assertSame(first, second);
+		assertEquals("text/css", second.getContentType());
+		assertEquals(1, cache.stats().getMisses());
+		assertEquals(1, cache.stats().getHits());
+		assertEquals(10, cache.stats().getUsedBytes());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryEvicted() throws IOException {
+		Path a = write("a.js", 40);
+		Path b = write("b.js", 40);
+		Path c = write("c.js", 40);
+		AssetCache cache = new AssetCache(100);
+
+		cache.get(a);
+		cache.get(b);
+		cache.get(a); // a is now most recently used
+		cache.get(c); // evicts b
+
+		assertEquals(1, cache.stats().getEvictions());
+		assertEquals(80, cache.stats().getUsedBytes());
+
+		cache.get(a);
+		assertEquals(2, cache.stats().getHits());
+		cache.get(b);
+		assertEquals(4, cache.stats().getMisses());
+	}
+
+	@Test
+	public void testFileLargerThanBudgetIsServedButNotCached() throws IOException {
+		Path big = write("big.png", 200);
+		AssetCache cache = new AssetCache(100);
+
+		assertEquals(200, cache.get(big).getContent().length);
+		assertEquals(0, cache.stats().getEntryCount());
+		assertEquals(0, cache.stats().getEvictions());
+	}
+
+	@Test
+	public void testGeneratedGzipIsReusedAfterEviction() throws IOException {
+		Path a = write("a.js", 4000);
+		Path b = write("b.js", 4000);
+		AssetCache cache = new AssetCache(5000);
+
+		byte[] gzipped = cache.get(a).getEncodedVariants().get(Compression.GZIP);
+		cache.get(b); // evicts a
+		assertEquals(1, cache.stats().getEvictions());
+		assertSame(gzipped, cache.get(a).getEncodedVariants().get(Compression.GZIP));
+
+		// Changed without a change notification: the kept body no longer matches
+		cache.get(b);
+		Files.write(a, new byte[3999]);
+		assertNotSame(gzipped, cache.get(a).getEncodedVariants().get(Compression.GZIP));
+	}
+
+	@Test
+	public void testFileLargerThanBudgetGetsSidecarsOnly() throws IOException {
+		Path big = write("big.js", 4000);
+		AssetCache cache = new AssetCache(1000);
+
+		assertTrue(cache.get(big).getEncodedVariants().isEmpty());
+
+		Files.write(tempDir.resolve("big.js.gz"), new byte[]{1, 2, 3});
+		assertArrayEquals(new byte[]{1, 2, 3}, cache.get(big).getEncodedVariants().get(Compression.GZIP));
+	}
+
+	@Test
+	public void testInvalidateDirectoryDropsEntriesBelowIt() throws IOException {
+		Files.createDirectory(tempDir.resolve("assets"));
+		Path inside = write("assets/app.js", 10);
+		Path outside = write("index.html", 10);
+		AssetCache cache = new AssetCache(1024);
+		cache.get(inside);
+		cache.get(outside);
+
+		cache.invalidate(tempDir.resolve("assets"));
+
+		assertEquals(1, cache.stats().getEntryCount());
+		assertEquals(10, cache.stats().getUsedBytes());
+	}
+
+	@Test
+	public void testConcurrentMissesCollapseIntoOneLoad() throws Exception {
+		Path file = write("chunk.js", 10);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		AssetCache cache = new AssetCache(1024, path -> {
+			loads.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return AssetCache.readFromDisk(path);
+		});
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<CachedAsset>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(pool.submit(() -> cache.get(file)));
+			}
+			// Give all callers time to arrive at the pending load
+			Thread.sleep(200);
+			release.countDown();
+
+			for (Future<CachedAsset> result : results) {
+				assertEquals(10, result.get(5, TimeUnit.SECONDS).getContent().length);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testWatcherInvalidatesChangedFile() throws Exception {
+		Path file = write("page.html", 10);
+		AssetCache cache = new AssetCache(1024);
+		try (StaticRootWatcher watcher = StaticRootWatcher.start(tempDir)) {
+			watcher.addListener(cache::invalidate);
+			cache.get(file);
+			assertEquals(1, cache.stats().getEntryCount());
+
+			Files.write(file, new byte[20]);
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (cache.stats().getEntryCount() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(0, cache.stats().getEntryCount());
+			assertEquals(20, cache.get(file).getContent().length);
+		}
+	}
+
+	private Path write(String name, int size) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.write(file, new byte[size]);
+		return file;
+	}
+}
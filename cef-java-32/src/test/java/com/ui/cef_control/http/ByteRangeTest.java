@@ -0,0 +1,53 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class ByteRangeTest {
+
+	@Test
+	public void testSimpleRange() {
+		List<ByteRange> ranges = ByteRange.parse("bytes=0-99", 1000);
+
+		assertEquals(1, ranges.size());
+		assertEquals(0, ranges.get(0).getFirst());
+		assertEquals(99, ranges.get(0).getLast());
+		assertEquals("bytes 0-99/1000", ranges.get(0).contentRange(1000));
+	}
+
+	@Test
+	public void testOpenEndedAndSuffixRanges() {
+		assertEquals("900-999", ByteRange.parse("bytes=900-", 1000).get(0).toString());
+		assertEquals("500-999", ByteRange.parse("bytes=-500", 1000).get(0).toString());
+		assertEquals("0-999", ByteRange.parse("bytes=-5000", 1000).get(0).toString());
+	}
+
+	@Test
+	public void testLastPositionClampedToLength() {
+		assertEquals("990-999", ByteRange.parse("bytes=990-5000", 1000).get(0).toString());
+	}
+
+	@Test
+	public void testOverlappingRangesCoalesced() {
+		List<ByteRange> ranges = ByteRange.parse("bytes=500-600, 0-10, 550-700, 11-20", 1000);
+
+		assertEquals(2, ranges.size());
+		assertEquals("0-20", ranges.get(0).toString());
+		assertEquals("500-700", ranges.get(1).toString());
+	}
+
+	@Test
+	public void testUnsatisfiableRangeGivesEmptyList() {
+		assertTrue(ByteRange.parse("bytes=1000-1100", 1000).isEmpty());
+		assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+	}
+
+	@Test
+	public void testMalformedOrForeignUnitsIgnored() {
+		assertNull(ByteRange.parse("items=0-1", 1000));
+		assertNull(ByteRange.parse("bytes=abc", 1000));
+		assertNull(ByteRange.parse("bytes=10-5", 1000));
+		assertNull(ByteRange.parse("bytes=0-1,2-3,4-5,6-7,8-9,10-11,12-13,14-15,16-17,18-19,20-21,22-23,24-25,26-27,28-29,30-31,32-33", 1000));
+	}
+}
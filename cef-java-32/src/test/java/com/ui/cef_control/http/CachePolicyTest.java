@@ -0,0 +1,86 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class CachePolicyTest {
+
+	@Test
+	public void testFingerprintedAssetsAreImmutable() {
+		CachePolicy policy = CachePolicy.defaults();
+
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/js/app.3f9a1c2b.js"));
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/css/0.styles.8e2b1d4a.css"));
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/index-Bx3a9Q1c.js"));
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/img/logo.a1b2c3d4.png"));
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/chunk.Dq_3x-9A.js"));
+	}
+
+	@Test
+	public void testVersionedNamesAreNotFingerprints() {
+		CachePolicy policy = CachePolicy.defaults();
+
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("images/guide-part01.png"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("data/report-2024q1.json"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("img/logo-v2dark.svg"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("css/getting-started2.css"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("data/release.2024spring.json"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("js/vendor-chunk-name01.js"));
+		// Too short, or not right before the extension
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("assets/js/app.3f9a1c.js"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("assets/app.3f9a1c2b.min.js"));
+		// Letters or digits only
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("js/app.20240115.js"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("js/app.deadbeef.js"));
+	}
+
+	@Test
+	public void testPlainNamesAreRevalidated() {
+		CachePolicy policy = CachePolicy.defaults();
+
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("index.html"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("guide/getting-started.html"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("assets/js/app.js"));
+		// Six letters that happen to be hex, and words without a digit
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("js/app.facade.js"));
+		assertEquals(CachePolicy.REVALIDATE, policy.cacheControlFor("css/theme-overview.css"));
+	}
+
+	@Test
+	public void testHtmlIsNeverImmutable() {
+		assertEquals(CachePolicy.REVALIDATE, CachePolicy.defaults().cacheControlFor("page.3f9a1c2b.html"));
+	}
+
+	@Test
+	public void testConfiguredRulesWinInOrder() {
+		Map<String, String> rules = new LinkedHashMap<>();
+		rules.put("assets/fonts/**", "public, max-age=86400");
+		rules.put("**/*.js", "no-store");
+		CachePolicy policy = new CachePolicy(rules);
+
+		assertEquals("public, max-age=86400", policy.cacheControlFor("assets/fonts/inter.woff2"));
+		assertEquals("no-store", policy.cacheControlFor("assets/js/app.3f9a1c2b.js"));
+		assertEquals("no-store", policy.cacheControlFor("sw.js"));
+		assertEquals(CachePolicy.IMMUTABLE, policy.cacheControlFor("assets/css/styles.3f9a1c2b.css"));
+	}
+
+	@Test
+	public void testGlobSegments() {
+		assertTrue(CachePolicy.globToPattern("/downloads/*.pdf").matcher("downloads/a.pdf").matches());
+		assertFalse(CachePolicy.globToPattern("downloads/*.pdf").matcher("downloads/x/a.pdf").matches());
+		assertTrue(CachePolicy.globToPattern("docs/**").matcher("docs/a/b/c.md").matches());
+		assertTrue(CachePolicy.globToPattern("file?.txt").matcher("file1.txt").matches());
+		assertFalse(CachePolicy.globToPattern("file?.txt").matcher("file1-txt").matches());
+	}
+
+	@Test
+	public void testConfigRulesAreCopied() {
+		HttpServerConfig base = new HttpServerConfig("/docs", 0, "127.0.0.1");
+		HttpServerConfig withRule = base.withCacheRule("**/*.pdf", "no-store");
+
+		assertTrue(base.getCacheRules().isEmpty());
+		assertEquals("no-store", withRule.getCacheRules().get("**/*.pdf"));
+	}
+}
@@ -0,0 +1,102 @@
+package com.ui.cef_control.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class CompressionTest {
+
+	private Path tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("compression_test_");
+	}
+
+	@Test
+	public void testNegotiatePrefersBrotliOverGzip() {
+		Map<String, byte[]> variants = variants("gzip", "br");
+
+		assertEquals("br", Compression.negotiate("gzip, deflate, br", variants));
+	}
+
+	@Test
+	public void testNegotiateHonoursQualityValues() {
+		Map<String, byte[]> variants = variants("gzip", "br");
+
+		assertEquals("gzip", Compression.negotiate("br;q=0.5, gzip", variants));
+		assertNull(Compression.negotiate("gzip;q=0, br;q=0", variants));
+		assertEquals("br", Compression.negotiate("*", variants));
+	}
+
+	@Test
+	public void testNegotiateReturnsNullWithoutHeaderOrVariants() {
+		assertNull(Compression.negotiate(null, variants("gzip")));
+		assertNull(Compression.negotiate("gzip", variants()));
+		assertNull(Compression.negotiate("identity", variants("gzip")));
+	}
+
+	@Test
+	public void testSmallOrBinaryFilesAreNotCompressed() throws IOException {
+		Path small = write("small.js", 100);
+		Path image = write("logo.png", 8192);
+
+		assertTrue(Compression.buildVariants(small, Files.readAllBytes(small), "application/javascript").isEmpty());
+		assertTrue(Compression.buildVariants(image, Files.readAllBytes(image), "image/png").isEmpty());
+	}
+
+	@Test
+	public void testFreshSidecarsAreUsed() throws IOException {
+		Path js = write("app.js", 8192);
+		Path gz = tempDir.resolve("app.js.gz");
+		Path br = tempDir.resolve("app.js.br");
+		Files.write(gz, new byte[]{1, 2, 3});
+		Files.write(br, new byte[]{4, 5});
+
+		Map<String, byte[]> variants = Compression.buildVariants(js, Files.readAllBytes(js), "application/javascript");
+
+		assertArrayEquals(new byte[]{1, 2, 3}, variants.get("gzip"));
+		assertArrayEquals(new byte[]{4, 5}, variants.get("br"));
+	}
+
+	@Test
+	public void testStaleSidecarIsIgnored() throws IOException {
+		Path js = write("app.js", 8192);
+		Path gz = tempDir.resolve("app.js.gz");
+		Files.write(gz, new byte[]{1, 2, 3});
+		Files.setLastModifiedTime(gz, FileTime.fromMillis(Files.getLastModifiedTime(js).toMillis() - 60_000));
+
+		Map<String, byte[]> variants = Compression.buildVariants(js, Files.readAllBytes(js), "application/javascript");
+
+		assertFalse(Arrays.equals(new byte[]{1, 2, 3}, variants.get("gzip")));
+		assertTrue(variants.get("gzip").length < 8192);
+	}
+
+	@Test
+	public void testSourceOfSidecar() {
+		assertEquals(tempDir.resolve("app.js"), Compression.sourceOfSidecar(tempDir.resolve("app.js.gz")));
+		assertEquals(tempDir.resolve("app.js"), Compression.sourceOfSidecar(tempDir.resolve("app.js.br")));
+		assertNull(Compression.sourceOfSidecar(tempDir.resolve("app.js")));
+	}
+
+	private Path write(String name, int size) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.write(file, new byte[size]);
+		return file;
+	}
+
+	private static Map<String, byte[]> variants(String... encodings) {
+		Map<String, byte[]> variants = new LinkedHashMap<>();
+		for (String encoding : encodings) {
+			variants.put(encoding, new byte[1]);
+		}
+		return variants;
+	}
+}
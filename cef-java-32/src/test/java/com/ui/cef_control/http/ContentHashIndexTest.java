@@ -0,0 +1,185 @@
+package com.ui.cef_control.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class ContentHashIndexTest {
+
+	private Path tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("hash_index_test_");
+	}
+
+	@Test
+	public void testParallelBuildHashesWholeTree() throws Exception {
+		for (int d = 0; d < 4; d++) {
+			Path dir = Files.createDirectories(tempDir.resolve("assets/dir" + d));
+			for (int f = 0; f < 20; f++) {
+				Files.write(dir.resolve("file" + f + ".js"), ("content " + d + "/" + f).getBytes());
+			}
+		}
+		Files.write(tempDir.resolve("index.html"), "<html></html>".getBytes());
+		ContentHashIndex index = new ContentHashIndex(tempDir);
+
+		index.buildAsync().get(10, TimeUnit.SECONDS);
+
+		assertEquals(81, index.size());
+	}
+
+	@Test
+	public void testSameContentSameEtag() throws IOException {
+		Path a = write("a.css", "body {}");
+		Path b = write("b.css", "body {}");
+		Path c = write("c.css", "main {}");
+		ContentHashIndex index = new ContentHashIndex(tempDir);
+
+		String etagA = index.get(a, attributes(a)).getEtag();
+
+		assertEquals(etagA, index.get(b, attributes(b)).getEtag());
+		assertNotEquals(etagA, index.get(c, attributes(c)).getEtag());
+		assertEquals(34, etagA.length());
+	}
+
+	@Test
+	public void testChangedFileIsRehashed() throws IOException {
+		Path file = write("app.js", "v1");
+		ContentHashIndex index = new ContentHashIndex(tempDir);
+		String before = index.get(file, attributes(file)).getEtag();
+
+		Files.write(file, "version 2".getBytes());
+		index.onPathChanged(file);
+
+		String after = index.get(file, attributes(file)).getEtag();
+		assertNotEquals(before, after);
+		assertEquals(ContentHashIndex.hash(file), after);
+	}
+
+	@Test
+	public void testChangeIsRehashedOnThePoolNotTheWatcherThread() throws Exception {
+		Path file = write("app.js", "v1");
+		ForkJoinPool pool = new ForkJoinPool(1);
+		CountDownLatch busy = new CountDownLatch(1);
+		try {
+			ContentHashIndex index = new ContentHashIndex(tempDir, pool);
+			pool.execute(() -> {
+				try {
+					busy.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			index.onPathChanged(file);
+			assertEquals(0, index.size());
+
+			busy.countDown();
+			assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+			assertEquals(1, index.size());
+			assertEquals(ContentHashIndex.hash(file), index.get(file, attributes(file)).getEtag());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentRequestsHashAFileOnce() throws Exception {
+		Path file = tempDir.resolve("intro.mp4");
+		Files.write(file, new byte[8 * 1024 * 1024]);
+		BasicFileAttributes attributes = attributes(file);
+		ContentHashIndex index = new ContentHashIndex(tempDir);
+		ExecutorService requests = Executors.newFixedThreadPool(8);
+		CountDownLatch go = new CountDownLatch(1);
+		try {
+			List<Future<String>> etags = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				etags.add(requests.submit(() -> {
+					go.await();
+					return index.get(file, attributes).getEtag();
+				}));
+			}
+			go.countDown();
+			for (Future<String> etag : etags) {
+				assertEquals(ContentHashIndex.hash(file), etag.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, index.hashCount());
+		} finally {
+			requests.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testLargeFileIsWeakUntilThePoolHashedIt() throws Exception {
+		Path file = write("intro.mp4", "frames");
+		BasicFileAttributes attributes = attributes(file);
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		ForkJoinPool pool = new ForkJoinPool(1);
+		CountDownLatch busy = new CountDownLatch(1);
+		try {
+			ContentHashIndex index = new ContentHashIndex(tempDir, pool);
+			pool.execute(() -> {
+				try {
+					busy.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			ContentHashIndex.Validator weak = index.getWithoutHashing(file, size, modified);
+			assertTrue(weak.isWeak());
+			assertTrue(weak.getEtag().startsWith("W/\""));
+			assertTrue(weak.matches(weak.getEtag()));
+			assertTrue(weak.matches(weak.getEtag().substring(2)));
+			assertTrue(weak.matches(weak.etagFor("gzip")));
+			assertEquals(0, index.hashCount());
+
+			busy.countDown();
+			assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+			ContentHashIndex.Validator strong = index.getWithoutHashing(file, size, modified);
+			assertFalse(strong.isWeak());
+			assertEquals(ContentHashIndex.hash(file), strong.getEtag());
+			assertEquals(1, index.hashCount());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testIfNoneMatchComparison() throws IOException {
+		Path file = write("app.js", "v1");
+		ContentHashIndex.Validator validator = new ContentHashIndex(tempDir).get(file, attributes(file));
+		String etag = validator.getEtag();
+
+		assertTrue(validator.matches(etag));
+		assertTrue(validator.matches("W/" + etag));
+		assertTrue(validator.matches("*"));
+		assertTrue(validator.matches(validator.etagFor("br")));
+		assertFalse(validator.matches("\"nope\""));
+		assertFalse(validator.matches(etag.substring(0, etag.length() - 1) + "x\""));
+	}
+
+	private Path write(String name, String content) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.write(file, content.getBytes());
+		return file;
+	}
+
+	private static BasicFileAttributes attributes(Path file) throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class);
+	}
+}
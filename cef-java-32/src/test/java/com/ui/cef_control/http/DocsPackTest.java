@@ -0,0 +1,99 @@
+package com.ui.cef_control.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import static org.junit.Assert.*;
+
+public class DocsPackTest {
+
+	private Path tempDir;
+	private Path docs;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("docs_pack_test_");
+		docs = Files.createDirectory(tempDir.resolve("docs"));
+		Files.write(docs.resolve("index.html"), "<html>Index</html>".getBytes(StandardCharsets.UTF_8));
+		Files.createDirectories(docs.resolve("assets/js"));
+		Files.write(docs.resolve("assets/js/app.3f9a1c2b.js"), "let x = 1;".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Path pack = tempDir.resolve("docs.pack");
+		assertEquals(2, DocsPacker.pack(docs, pack));
+
+		try (DocsPack opened = DocsPack.open(pack, CachePolicy.defaults())) {
+			assertEquals(2, opened.size());
+			DocsPack.Entry entry = opened.get("assets/js/app.3f9a1c2b.js");
+			assertNotNull(entry);
+			assertEquals("application/javascript", entry.getContentType());
+			assertEquals("let x = 1;", text(entry.getBody()));
+			assertEquals(ContentHashIndex.hash(docs.resolve("assets/js/app.3f9a1c2b.js")),
+					entry.getValidator().getEtag());
+			assertEquals(CachePolicy.IMMUTABLE, entry.getCacheControl());
+			assertNull(opened.get("missing.html"));
+		}
+	}
+
+	@Test
+	public void testSidecarsBecomeVariants() throws IOException {
+		byte[] original = new byte[4096];
+		Files.write(docs.resolve("big.css"), original);
+		Files.write(docs.resolve("big.css.br"), new byte[] {1, 2, 3});
+		Files.setLastModifiedTime(docs.resolve("big.css"), FileTime.fromMillis(1_000_000L));
+
+		Path pack = tempDir.resolve("docs.pack");
+		assertEquals(3, DocsPacker.pack(docs, pack));
+
+		try (DocsPack opened = DocsPack.open(pack, CachePolicy.defaults())) {
+			assertNull(opened.get("big.css.br"));
+			DocsPack.Entry entry = opened.get("big.css");
+			assertEquals(4096, entry.length());
+			assertEquals(3, entry.getEncodedVariants().get(Compression.BROTLI).remaining());
+			assertTrue(entry.getEncodedVariants().containsKey(Compression.GZIP));
+		}
+	}
+
+	@Test
+	public void testOpenFromZipEntry() throws IOException {
+		Path pack = tempDir.resolve("docs.pack");
+		DocsPacker.pack(docs, pack);
+		Path zip = tempDir.resolve("app.jar");
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+			out.putNextEntry(new ZipEntry("docs/docs.pack"));
+			Files.copy(pack, out);
+			out.closeEntry();
+		}
+
+		try (DocsPack opened = DocsPack.open(zip + DocsPack.ARCHIVE_SEPARATOR + "docs/docs.pack",
+				CachePolicy.defaults())) {
+			assertEquals("<html>Index</html>", text(opened.get("index.html").getBody()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsForeignFile() throws IOException {
+		Path notAPack = tempDir.resolve("index.pack");
+		try (OutputStream out = Files.newOutputStream(notAPack)) {
+			out.write("definitely not a pack".getBytes(StandardCharsets.UTF_8));
+		}
+		DocsPack.open(notAPack, CachePolicy.defaults());
+	}
+
+	private static String text(ByteBuffer body) {
+		ByteBuffer copy = body.duplicate();
+		byte[] bytes = new byte[copy.remaining()];
+		copy.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
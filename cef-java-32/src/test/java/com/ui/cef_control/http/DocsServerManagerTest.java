@@ -0,0 +1,157 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class DocsServerManagerTest {
+
+	private DocsServerManager manager;
+	private Path firstDir;
+	private Path secondDir;
+
+	@Before
+	public void setUp() throws IOException {
+		firstDir = Files.createTempDirectory("docs_manager_first_");
+		Files.write(firstDir.resolve("index.html"), "<html><body>First</body></html>".getBytes());
+		secondDir = Files.createTempDirectory("docs_manager_second_");
+		Files.write(secondDir.resolve("index.html"), "<html><body>Second</body></html>".getBytes());
+		manager = new DocsServerManager(firstDir.toString());
+	}
+
+	@After
+	public void tearDown() {
+		if (manager.getState() == DocsState.RUNNING) {
+			manager.stop();
+		}
+	}
+
+	@Test
+	public void testSwapRootKeepsPortAndServesNewDocs() throws IOException {
+		List<String> swapped = new ArrayList<>();
+		manager.addListener(new DocsServerManager.DocsRestartListener() {
+			@Override
+			public void onBeforeRestart() {
+			}
+
+			@Override
+			public void onAfterRestart(String baseUrl) {
+			}
+
+			@Override
+			public void onStartFailure(Throwable error) {
+			}
+
+			@Override
+			public void onDocsSwapped(String baseUrl) {
+				swapped.add(baseUrl);
+			}
+		});
+		manager.start();
+		String baseUrl = manager.getBaseUrl();
+		int port = manager.getBoundPort();
+		assertTrue(get(baseUrl + "/").contains("First"));
+
+		manager.swapRoot(secondDir.toString());
+
+		assertEquals(port, manager.getBoundPort());
+		assertEquals(DocsState.RUNNING, manager.getState());
+		assertTrue(get(baseUrl + "/").contains("Second"));
+		assertEquals(1, swapped.size());
+		assertEquals(baseUrl, swapped.get(0));
+	}
+
+	@Test
+	public void testSwapRootToMissingDirectoryKeepsCurrentDocs() throws IOException {
+		manager.start();
+		try {
+			manager.swapRoot(firstDir.resolve("missing").toString());
+			fail("Expected IOException");
+		} catch (IOException expected) {
+			// Current docs stay in place
+		}
+		assertTrue(get(manager.getBaseUrl() + "/").contains("First"));
+	}
+
+	@Test
+	public void testSwapPackIsKeptAcrossRestarts() throws IOException {
+		Path pack = Files.createTempDirectory("docs_manager_pack_").resolve("docs.pack");
+		DocsPacker.pack(secondDir, pack);
+		manager.start();
+
+		manager.swapPack(pack.toString());
+		assertTrue(get(manager.getBaseUrl() + "/").contains("Second"));
+
+		manager.restart();
+		assertTrue(get(manager.getBaseUrl() + "/").contains("Second"));
+
+		manager.swapRoot(firstDir.toString());
+		manager.restart();
+		assertTrue(get(manager.getBaseUrl() + "/").contains("First"));
+	}
+
+	@Test
+	public void testFailedStartClosesTheOpenedDocs() throws Exception {
+		int watchersBefore = watcherThreads();
+		try (ServerSocket taken = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"))) {
+			DocsHttpServer server = new DocsHttpServer(firstDir.toString(), taken.getLocalPort());
+			try {
+				server.start();
+				fail("Bound a port that is in use");
+			} catch (IOException expected) {
+				// Address in use
+			}
+			assertFalse(server.isRunning());
+			try {
+				server.swapRoot(secondDir.toString());
+				fail("Swapped the root of a server that did not start");
+			} catch (IllegalStateException expected) {
+				// Not running
+			}
+		}
+		long deadline = System.currentTimeMillis() + 2000;
+		while (watcherThreads() > watchersBefore && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(watchersBefore, watcherThreads());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSwapRootRequiresRunningServer() throws IOException {
+		manager.swapRoot(secondDir.toString());
+	}
+
+	private static int watcherThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().equals("static-root-watcher")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static String get(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			in.transferTo(out);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
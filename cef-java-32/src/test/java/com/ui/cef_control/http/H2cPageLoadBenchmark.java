@@ -0,0 +1,148 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Page-complete time of a chunked docs page over HTTP/1.1 versus h2c,
+ * against the same server (h2c mode serves both).
+ *
+ * A page load fetches index.html, then all of its chunks at once:
+ * - HTTP/1.1: at most six requests in flight (a browser's per-host
+ *   connection limit), each connection keep-alive
+ * - h2c: every chunk as a stream of one upgraded connection
+ *
+ * Run from the test classpath:
+ * <pre>
+ * java -cp target/classes:target/test-classes com.ui.cef_control.http.H2cPageLoadBenchmark [chunks] [loads]
+ * </pre>
+ *
+ * Loopback has no round-trip time, so the gap shown here is the queuing
+ * behind six connections only; it widens with real network latency.
+ */
+public final class H2cPageLoadBenchmark {
+
+	private static final int HTTP1_CONNECTIONS = 6;
+
+	private H2cPageLoadBenchmark() {
+		// Entry point only
+	}
+
+	public static void main(String[] args) throws Exception {
+		int chunks = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int loads = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		Path site = Files.createTempDirectory("h2c_benchmark_");
+		List<String> paths = writeSite(site, chunks);
+		VuePressHttpServer server = new VuePressHttpServer(
+				new HttpServerConfig(site.toString(), 0, "127.0.0.1").withH2c(true));
+		server.start();
+		try {
+			String base = "http://127.0.0.1:" + server.getActualPort();
+			HttpClient http1 = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			HttpClient http2 = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+			// Warm-up: JIT, asset cache, and the h2c upgrade of the shared connection
+			HttpResponse<Void> upgraded = http2.send(request(base, "/"), HttpResponse.BodyHandlers.discarding());
+			if (upgraded.version() != HttpClient.Version.HTTP_2) {
+				throw new IllegalStateException("h2c upgrade was not accepted");
+			}
+			for (int i = 0; i < 10; i++) {
+				loadPage(http1, base, paths, HTTP1_CONNECTIONS);
+				loadPage(http2, base, paths, Integer.MAX_VALUE);
+			}
+
+			long[] http1Nanos = new long[loads];
+			long[] http2Nanos = new long[loads];
+			for (int i = 0; i < loads; i++) {
+				// Interleaved so both modes see the same machine state
+				http1Nanos[i] = loadPage(http1, base, paths, HTTP1_CONNECTIONS);
+				http2Nanos[i] = loadPage(http2, base, paths, Integer.MAX_VALUE);
+			}
+
+			System.out.println("Page of " + chunks + " chunks, " + loads + " loads");
+			report("HTTP/1.1 x" + HTTP1_CONNECTIONS, http1Nanos);
+			report("h2c", http2Nanos);
+		} finally {
+			server.stop();
+			Files.walk(site)
+					.sorted((a, b) -> b.compareTo(a))
+					.forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * Writes index.html plus chunk files of 4-40 KB, fingerprinted like a
+	 * VuePress build.
+	 *
+	 * @return Request paths of the chunks
+	 */
+	private static List<String> writeSite(Path site, int chunks) throws IOException {
+		Path assets = Files.createDirectories(site.resolve("assets/js"));
+		Random random = new Random(1);
+		List<String> paths = new ArrayList<>();
+		StringBuilder index = new StringBuilder("<!DOCTYPE html><html><head>");
+		for (int i = 0; i < chunks; i++) {
+			String name = String.format(Locale.ROOT, "%d.%08x.js", i, random.nextInt());
+			StringBuilder script = new StringBuilder();
+			int size = 4096 + random.nextInt(36 * 1024);
+			while (script.length() < size) {
+				script.append("export const v").append(random.nextInt(1000)).append(" = ")
+						.append(random.nextLong()).append(";\n");
+			}
+			Files.write(assets.resolve(name), script.toString().getBytes(StandardCharsets.UTF_8));
+			paths.add("/assets/js/" + name);
+			index.append("<script type=\"module\" src=\"/assets/js/").append(name).append("\"></script>");
+		}
+		index.append("</head><body><div id=\"app\"></div></body></html>");
+		Files.write(site.resolve("index.html"), index.toString().getBytes(StandardCharsets.UTF_8));
+		return paths;
+	}
+
+	/**
+	 * @return Nanoseconds from the index request to the last chunk byte
+	 */
+	private static long loadPage(HttpClient client, String base, List<String> paths, int maxInFlight)
+			throws Exception {
+		long start = System.nanoTime();
+		client.send(request(base, "/"), HttpResponse.BodyHandlers.ofByteArray());
+
+		Semaphore slots = new Semaphore(Math.min(maxInFlight, paths.size()));
+		List<CompletableFuture<HttpResponse<byte[]>>> pending = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			slots.acquire();
+			pending.add(client.sendAsync(request(base, path), HttpResponse.BodyHandlers.ofByteArray())
+					.whenComplete((response, error) -> slots.release()));
+		}
+		for (CompletableFuture<HttpResponse<byte[]>> response : pending) {
+			if (response.get().statusCode() != 200) {
+				throw new IllegalStateException("Chunk failed: " + response.get().uri());
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static HttpRequest request(String base, String path) {
+		return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+	}
+
+	private static void report(String label, long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		System.out.println(String.format(Locale.ROOT, "  %-12s median %7.2f ms   p90 %7.2f ms",
+				label, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.9)] / 1e6));
+	}
+}
@@ -0,0 +1,228 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class HealthProberTest {
+
+	private ServerSocket listener;
+	private Thread responder;
+	private volatile long delayMillis;
+	private volatile String statusLine = "HTTP/1.1 200 OK";
+	private volatile boolean hung;
+	private final List<String> events = new ArrayList<>();
+	private int restartRequests;
+	private boolean restartAccepted = true;
+
+	@Before
+	public void setUp() throws IOException {
+		// Stand-in server whose latency and answers the test controls
+		listener = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		responder = new Thread(() -> {
+			while (!listener.isClosed()) {
+				try (Socket socket = listener.accept()) {
+					readRequestHead(socket.getInputStream());
+					if (hung) {
+						socket.setSoTimeout(2000);
+						socket.getInputStream().read(); // Never answers; client gives up first
+						continue;
+					}
+					Thread.sleep(delayMillis);
+					OutputStream out = socket.getOutputStream();
+					out.write((statusLine + "\r\nContent-Length: 3\r\nConnection: close\r\n\r\nok\n")
+							.getBytes(StandardCharsets.ISO_8859_1));
+					out.flush();
+				} catch (IOException | InterruptedException e) {
+					// Closed by tearDown or by the client's timeout
+				}
+			}
+		}, "health-test-responder");
+		responder.setDaemon(true);
+		responder.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		listener.close();
+	}
+
+	@Test
+	public void testHealthyProbesRecordLatency() {
+		HealthProber prober = prober(new HealthProbeConfig());
+
+		for (int i = 0; i < 3; i++) {
+			prober.probe();
+		}
+
+		HealthStats stats = prober.stats();
+		assertEquals(HealthState.HEALTHY, stats.getState());
+		assertEquals(3, stats.getProbes());
+		assertEquals(0, stats.getFailures());
+		assertTrue(stats.getMaxMicros() > 0);
+		assertEquals(1, events.size());
+		assertEquals("UNKNOWN->HEALTHY", events.get(0));
+	}
+
+	@Test
+	public void testUnresponsiveAfterThresholdOfTimeouts() {
+		HealthProber prober = prober(new HealthProbeConfig()
+				.withSchedule(200, 50)
+				.withFailureThreshold(3));
+		prober.probe();
+		hung = true;
+
+		prober.probe();
+		prober.probe();
+		assertEquals(HealthState.HEALTHY, prober.stats().getState());
+		assertEquals(2, prober.stats().getConsecutiveFailures());
+
+		long start = System.nanoTime();
+		prober.probe();
+		long probeMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals(HealthState.UNRESPONSIVE, prober.stats().getState());
+		assertEquals(2, events.size());
+		assertEquals("HEALTHY->UNRESPONSIVE", events.get(1));
+		assertTrue("probe took " + probeMillis + " ms", probeMillis < 1000);
+		assertEquals(0, restartRequests);
+
+		hung = false;
+		prober.probe();
+		assertEquals(HealthState.HEALTHY, prober.stats().getState());
+		assertEquals("UNRESPONSIVE->HEALTHY", events.get(2));
+	}
+
+	@Test
+	public void testErrorStatusCountsAsFailure() {
+		statusLine = "HTTP/1.1 503 Service Unavailable";
+		HealthProber prober = prober(new HealthProbeConfig().withFailureThreshold(1));
+
+		prober.probe();
+
+		assertEquals(HealthState.UNRESPONSIVE, prober.stats().getState());
+		assertEquals(1, prober.stats().getFailures());
+	}
+
+	@Test
+	public void testSloBreachAndRecoveryOverWindow() {
+		HealthProber prober = prober(new HealthProbeConfig()
+				.withSchedule(500, 400)
+				.withLatencySlo(100, 1.0, 3));
+		// More than a window, so cold first connections have left it
+		for (int i = 0; i < 6; i++) {
+			prober.probe();
+		}
+		assertEquals(HealthState.HEALTHY, prober.stats().getState());
+		events.clear();
+
+		delayMillis = 200;
+		for (int i = 0; i < 3; i++) {
+			prober.probe();
+		}
+		assertEquals(HealthState.DEGRADED, prober.stats().getState());
+		assertTrue(prober.stats().getWindowQuantileMicros() >= 200_000);
+
+		// Quantile 1.0 is the window's maximum: recovered once all slow probes left it
+		delayMillis = 0;
+		prober.probe();
+		prober.probe();
+		assertEquals(HealthState.DEGRADED, prober.stats().getState());
+		prober.probe();
+		assertEquals(HealthState.HEALTHY, prober.stats().getState());
+
+		assertEquals(2, events.size());
+		assertEquals("HEALTHY->DEGRADED", events.get(0));
+		assertEquals("DEGRADED->HEALTHY", events.get(1));
+	}
+
+	@Test
+	public void testRestartRequestedOncePerThreshold() {
+		hung = true;
+		HealthProber prober = prober(new HealthProbeConfig()
+				.withSchedule(100, 30)
+				.withFailureThreshold(2)
+				.withRestartOnUnresponsive(true));
+
+		for (int i = 0; i < 4; i++) {
+			prober.probe();
+		}
+
+		assertEquals(2, restartRequests);
+		assertEquals(2, prober.stats().getRestarts());
+		// Still unresponsive after the first restart: reported once
+		assertEquals(1, events.size());
+		assertEquals("UNKNOWN->UNRESPONSIVE", events.get(0));
+	}
+
+	@Test
+	public void testDeclinedRestartIsAskedForAgainAndNotCounted() {
+		hung = true;
+		restartAccepted = false; // A restart is already pending
+		HealthProber prober = prober(new HealthProbeConfig()
+				.withSchedule(100, 30)
+				.withFailureThreshold(2)
+				.withRestartOnUnresponsive(true));
+
+		for (int i = 0; i < 3; i++) {
+			prober.probe();
+		}
+
+		assertEquals(2, restartRequests);
+		assertEquals(0, prober.stats().getRestarts());
+	}
+
+	@Test
+	public void testProbesRealServerHealthContext() throws IOException {
+		Path docs = Files.createTempDirectory("health_prober_test_");
+		Files.write(docs.resolve("index.html"), "<html></html>".getBytes());
+		VuePressHttpServer server = new VuePressHttpServer(new HttpServerConfig(docs.toString(), 0, "127.0.0.1"));
+		server.start();
+		try {
+			long nanos = HealthProber.probeOnce(server.getBoundAddress(), 1000);
+
+			assertTrue(nanos > 0);
+			// Probes are not docs requests
+			assertEquals(0, server.getRequestMetrics().getStatusCounts().size());
+		} finally {
+			server.stop();
+		}
+	}
+
+	private HealthProber prober(HealthProbeConfig config) {
+		InetSocketAddress address = (InetSocketAddress) listener.getLocalSocketAddress();
+		return new HealthProber(config, () -> address, new HealthProber.Callback() {
+			@Override
+			public void stateChanged(HealthState previous, HealthState current, HealthStats stats) {
+				events.add(previous + "->" + current);
+			}
+
+			@Override
+			public boolean restartRequested(HealthStats stats) {
+				restartRequests++;
+				return restartAccepted;
+			}
+		});
+	}
+
+	private static void readRequestHead(InputStream in) throws IOException {
+		int matched = 0;
+		int b;
+		while (matched < 4 && (b = in.read()) >= 0) {
+			matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class HotSetTest {
+
+	private Path tempDir;
+	private Path hotSetFile;
+	private VuePressHttpServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("hot_set_test_");
+		hotSetFile = Files.createTempDirectory("hot_set_state_").resolve("hot-set.txt");
+		Files.write(tempDir.resolve("index.html"), "<html><body>Index</body></html>".getBytes());
+	}
+
+	@After
+	public void tearDown() {
+		if (server != null && server.isRunning()) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testSavedMostRequestedFirstAndLoadedBack() throws IOException {
+		HotSet hotSet = new HotSet(hotSetFile, 1024, 1000);
+		for (int i = 0; i < 3; i++) {
+			hotSet.record("assets/app.js");
+		}
+		hotSet.record("index.html");
+		hotSet.record("guide/index.html");
+		hotSet.record("guide/index.html");
+
+		hotSet.save();
+
+		List<HotSet.Entry> entries = HotSet.load(hotSetFile);
+		assertEquals(3, entries.size());
+		assertEquals("assets/app.js", entries.get(0).getPath());
+		assertEquals(3, entries.get(0).getCount());
+		assertEquals("guide/index.html", entries.get(1).getPath());
+		assertEquals("index.html", entries.get(2).getPath());
+	}
+
+	@Test
+	public void testLoadSkipsMalformedAndOutsideLines() throws IOException {
+		Files.write(hotSetFile, Arrays.asList("# hot set v1", "5 a.js", "x b.js", "3 ../secret", "4 /etc/passwd",
+				"0 zero.js", "2 with space.css", "garbage"), StandardCharsets.UTF_8);
+
+		List<HotSet.Entry> entries = HotSet.load(hotSetFile);
+
+		assertEquals(2, entries.size());
+		assertEquals("a.js", entries.get(0).getPath());
+		assertEquals("with space.css", entries.get(1).getPath());
+		assertTrue(HotSet.load(hotSetFile.resolveSibling("missing.txt")).isEmpty());
+	}
+
+	@Test
+	public void testWarmupStopsAtTheByteBudget() throws IOException {
+		Files.write(tempDir.resolve("a.js"), new byte[600]);
+		Files.write(tempDir.resolve("b.js"), new byte[600]);
+		Files.write(tempDir.resolve("c.js"), new byte[300]);
+		AssetCache cache = new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES);
+		StaticSite site = StaticSite.unwatched(tempDir, cache, HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES);
+		HotSet hotSet = new HotSet(hotSetFile, 1000, 10_000);
+
+		hotSet.warm(site, Arrays.asList(new HotSet.Entry("missing.js", 9), new HotSet.Entry("a.js", 8),
+				new HotSet.Entry("b.js", 7), new HotSet.Entry("c.js", 6)));
+
+		WarmupStats stats = hotSet.stats();
+		assertEquals(4, stats.getListed());
+		// b.js does not fit what is left of the budget; c.js still does
+		assertEquals(2, stats.getWarmed());
+		assertEquals(900, stats.getWarmedBytes());
+		assertTrue(stats.isFinished());
+		assertFalse(stats.isBudgetExhausted());
+		assertEquals(2, cache.stats().getEntryCount());
+	}
+
+	@Test
+	public void testRestartedServerWarmsTheHotSet() throws Exception {
+		Files.createDirectories(tempDir.resolve("assets"));
+		Files.write(tempDir.resolve("assets/app.js"), "console.log('app');".getBytes());
+		Files.write(tempDir.resolve("assets/cold.js"), "console.log('cold');".getBytes());
+		HttpServerConfig config = new HttpServerConfig(tempDir.toString(), 0, "127.0.0.1")
+				.withHotSet(hotSetFile.toString());
+		server = new VuePressHttpServer(config);
+		server.start();
+		get("/assets/app.js");
+		get("/assets/app.js");
+		get("/");
+		server.stop();
+		assertTrue(Files.exists(hotSetFile));
+
+		server = new VuePressHttpServer(config);
+		server.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!server.getWarmupStats().isFinished() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		WarmupStats stats = server.getWarmupStats();
+		assertEquals(2, stats.getListed());
+		assertEquals(2, stats.getWarmed());
+		long misses = server.getAssetCacheStats().getMisses();
+		get("/assets/app.js");
+		assertEquals(misses, server.getAssetCacheStats().getMisses());
+	}
+
+	private void get(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://" + server.getActualAddress() + path).openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			in.readAllBytes();
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+
+public class HpackTest {
+
+	@Test
+	public void testIntegerWithPrefix() throws IOException {
+		// RFC 7541, C.1.2: 1337 with a 5-bit prefix
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Hpack.writeInt(out, 5, 0, 1337);
+		byte[] encoded = out.toByteArray();
+		assertArrayEquals(bytes("1f 9a 0a"), encoded);
+
+		ByteBuffer in = ByteBuffer.wrap(encoded);
+		assertEquals(1337, Hpack.readInt(in, in.get() & 0xff, 5));
+		assertFalse(in.hasRemaining());
+	}
+
+	@Test
+	public void testDecodesRfcRequestWithHuffman() throws IOException {
+		// RFC 7541, C.4.1
+		byte[] block = bytes("82 86 84 41 8c f1 e3 c2 e5 f2 3a 6b a0 ab 90 f4 ff");
+		Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+		List<String[]> fields = decoder.decode(ByteBuffer.wrap(block));
+
+		assertEquals(4, fields.size());
+		assertArrayEquals(new String[] {":method", "GET"}, fields.get(0));
+		assertArrayEquals(new String[] {":scheme", "http"}, fields.get(1));
+		assertArrayEquals(new String[] {":path", "/"}, fields.get(2));
+		assertArrayEquals(new String[] {":authority", "www.example.com"}, fields.get(3));
+
+		// C.4.2: the second request refers to the dynamic table entry
+		List<String[]> second = decoder.decode(ByteBuffer.wrap(
+				bytes("82 86 84 be 58 86 a8 eb 10 64 9c bf")));
+		assertArrayEquals(new String[] {":authority", "www.example.com"}, second.get(3));
+		assertArrayEquals(new String[] {"cache-control", "no-cache"}, second.get(4));
+	}
+
+	@Test
+	public void testEncoderOutputRoundTrips() throws IOException {
+		Hpack.Encoder encoder = new Hpack.Encoder();
+		Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+		for (int i = 0; i < 3; i++) {
+			List<String[]> fields = new ArrayList<>();
+			fields.add(new String[] {":status", "200"});
+			fields.add(new String[] {"content-type", "text/css"});
+			fields.add(new String[] {"cache-control", "public, max-age=31536000, immutable"});
+			fields.add(new String[] {"etag", "\"abc" + i + "\""});
+			fields.add(new String[] {"x-odd", "\u00e9\u00e8 bytes"});
+
+			byte[] block = encoder.encode(fields);
+			List<String[]> decoded = decoder.decode(ByteBuffer.wrap(block));
+
+			assertEquals(fields.size(), decoded.size());
+			for (int f = 0; f < fields.size(); f++) {
+				assertArrayEquals(fields.get(f), decoded.get(f));
+			}
+		}
+	}
+
+	@Test
+	public void testRepeatedHeadersShrinkThroughDynamicTable() {
+		Hpack.Encoder encoder = new Hpack.Encoder();
+		List<String[]> fields = Arrays.asList(
+				new String[] {":status", "200"},
+				new String[] {"content-type", "application/javascript; charset=utf-8"},
+				new String[] {"cache-control", "public, max-age=31536000, immutable"});
+
+		int first = encoder.encode(fields).length;
+		int second = encoder.encode(fields).length;
+
+		assertTrue("second block " + second + " bytes, first " + first, second < first / 4);
+	}
+
+	@Test
+	public void testTableSizeUpdateIsSignalled() throws IOException {
+		Hpack.Encoder encoder = new Hpack.Encoder();
+		Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+		List<String[]> fields = Arrays.<String[]>asList(new String[] {"x-name", "value"});
+		decoder.decode(ByteBuffer.wrap(encoder.encode(fields)));
+
+		encoder.setMaxTableSize(0);
+		byte[] block = encoder.encode(fields);
+
+		assertEquals(0x20, block[0] & 0xff); // Dynamic table size update to 0
+		assertArrayEquals(fields.get(0), decoder.decode(ByteBuffer.wrap(block)).get(0));
+	}
+
+	@Test(expected = IOException.class)
+	public void testRejectsIndexOutsideTables() throws IOException {
+		new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE).decode(ByteBuffer.wrap(bytes("ff 00")));
+	}
+
+	private static byte[] bytes(String hex) {
+		String[] parts = hex.split(" ");
+		byte[] result = new byte[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			result[i] = (byte) Integer.parseInt(parts[i], 16);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,103 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assert.*;
+
+public class HtmlTransformTest {
+
+	private final Map<String, String> files = new HashMap<>();
+	private int pageReads;
+
+	private final PreloadHints.Source source = new PreloadHints.Source() {
+		@Override
+		public boolean exists(String path) {
+			return files.containsKey(path);
+		}
+
+		@Override
+		public byte[] read(String path) {
+			String content = files.get(path);
+			return content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+		}
+	};
+
+	private HtmlTransform transform(int inlineCssLimit) {
+		return new HtmlTransform(source, new PreloadHints(source), "/", inlineCssLimit);
+	}
+
+	@Test
+	public void testMinifyCollapsesWhitespaceAndDropsComments() {
+		String html = "<html>\n  <head>\n    <title>  Docs  </title>\n  </head>\n"
+				+ "  <body><!-- build 42 --><div id=\"app\"><!--[--><p class=\"a  b\">Some    text</p><!--]-->"
+				+ "<!---->\n<pre>  keep\n    this  </pre><script>var  x =  1;\n</script></div></body>\n</html>";
+
+		assertEquals("<html>\n<head>\n<title> Docs </title>\n</head>\n"
+				+ "<body><div id=\"app\"><!--[--><p class=\"a  b\">Some text</p><!--]-->"
+				+ "<!---->\n<pre>  keep\n    this  </pre><script>var  x =  1;\n</script></div></body>\n</html>",
+				HtmlTransform.minify(html));
+	}
+
+	@Test
+	public void testSmallStylesheetsAreInlinedWithinTheLimit() throws Exception {
+		files.put("assets/small.css", "@font-face{src:url(fonts/a.woff2)}body{background:url('/img/bg.png')}");
+		files.put("assets/large.css", repeat("p{margin:0}", 200));
+		files.put("assets/fonts/a.woff2", "");
+		String html = "<head><link rel=\"stylesheet\" href=\"../assets/small.css\" media=\"screen\">"
+				+ "<link rel=\"stylesheet\" href=\"/assets/large.css\">"
+				+ "<link rel=\"stylesheet\" href=\"/assets/small.css\" integrity=\"sha384-x\">"
+				+ "<noscript><link rel=\"stylesheet\" href=\"/assets/small.css\"></noscript></head>";
+		Set<String> inlined = new HashSet<>();
+
+		String result = transform(1024).inlineStylesheets("guide/index.html", html, inlined);
+
+		assertEquals("<head><style media=\"screen\">@font-face{src:url(/assets/fonts/a.woff2)}"
+				+ "body{background:url('/img/bg.png')}</style>"
+				+ "<link rel=\"stylesheet\" href=\"/assets/large.css\">"
+				+ "<link rel=\"stylesheet\" href=\"/assets/small.css\" integrity=\"sha384-x\">"
+				+ "<noscript><link rel=\"stylesheet\" href=\"/assets/small.css\"></noscript></head>", result);
+		assertEquals(1, inlined.size());
+		assertTrue(inlined.contains("/assets/small.css"));
+	}
+
+	@Test
+	public void testTransformIsCachedPerSourceVersion() {
+		files.put("app.css", "body{color:red}");
+		files.put("app.js", "");
+		files.put("index.html", "<head>  <link rel=stylesheet href=app.css>  <script src=app.js></script></head>");
+		HtmlTransform transform = transform(HttpServerConfig.DEFAULT_INLINE_CSS_LIMIT_BYTES);
+		ContentHashIndex.Validator v1 = new ContentHashIndex.Validator("\"v1\"", 10, 0);
+		HtmlTransform.Body body = () -> {
+			pageReads++;
+			return files.get("index.html").getBytes(StandardCharsets.UTF_8);
+		};
+
+		HtmlTransform.Page page = transform.transform("index.html", v1, body);
+		assertSame(page, transform.transform("index.html", v1, body));
+		assertEquals(1, pageReads);
+
+		assertEquals("<head> <style>body{color:red}</style> <script src=app.js></script></head>",
+				new String(page.getContent(), StandardCharsets.UTF_8));
+		// The inlined stylesheet is no longer preloaded
+		assertEquals("</app.js>; rel=preload; as=script", page.getPreloadLink());
+		assertNotEquals("\"v1\"", page.getValidator().getEtag());
+
+		files.put("app.css", "body{color:blue}");
+		transform.onPathChanged(null);
+		HtmlTransform.Page changed = transform.transform("index.html", v1, body);
+		assertEquals(2, pageReads);
+		assertNotEquals(page.getValidator().getEtag(), changed.getValidator().getEtag());
+	}
+
+	private static String repeat(String text, int times) {
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			out.append(text);
+		}
+		return out.toString();
+	}
+}
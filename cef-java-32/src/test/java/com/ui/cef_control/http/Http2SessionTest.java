@@ -0,0 +1,223 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.Assert.*;
+
+public class Http2SessionTest {
+
+	private Path tempDir;
+	private byte[] largeFile;
+	private VuePressHttpServer server;
+	private int port;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("h2c_test_");
+		Files.write(tempDir.resolve("index.html"), "<html><body>Index</body></html>".getBytes());
+		Files.write(tempDir.resolve("style.css"), "body { color: red; }".getBytes());
+		largeFile = new byte[200 * 1024 + 17];
+		new Random(7).nextBytes(largeFile);
+		Files.write(tempDir.resolve("large.bin"), largeFile);
+
+		HttpServerConfig config = new HttpServerConfig(tempDir.toString(), 0, "127.0.0.1")
+				.withH2c(true);
+		server = new VuePressHttpServer(config);
+		server.start();
+		port = server.getActualPort();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (server.isRunning()) {
+			server.stop();
+		}
+		Files.walk(tempDir)
+				.sorted((a, b) -> b.compareTo(a))
+				.forEach(path -> path.toFile().delete());
+	}
+
+	@Test
+	public void testUpgradeThenMultiplexedRequests() throws Exception {
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+		HttpResponse<String> first = client.send(request("/style.css"), HttpResponse.BodyHandlers.ofString());
+		assertEquals(HttpClient.Version.HTTP_2, first.version());
+		assertEquals(200, first.statusCode());
+		assertEquals("body { color: red; }", first.body());
+
+		List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			responses.add(client.sendAsync(request(i % 2 == 0 ? "/large.bin" : "/index.html"),
+					HttpResponse.BodyHandlers.ofByteArray()));
+		}
+		for (int i = 0; i < responses.size(); i++) {
+			HttpResponse<byte[]> response = responses.get(i).get();
+			assertEquals(HttpClient.Version.HTTP_2, response.version());
+			if (i % 2 == 0) {
+				assertArrayEquals(largeFile, response.body());
+			} else {
+				assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("Index"));
+			}
+		}
+	}
+
+	@Test
+	public void testPriorKnowledgeStreams() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			OutputStream out = socket.getOutputStream();
+			Hpack.Encoder encoder = new Hpack.Encoder();
+			out.write(Http2Session.PREFACE);
+			writeFrame(out, Http2Session.SETTINGS, 0, 0, new byte[0]);
+			writeFrame(out, Http2Session.HEADERS, Http2Session.FLAG_END_HEADERS | Http2Session.FLAG_END_STREAM, 1,
+					encoder.encode(requestFields("/style.css")));
+			writeFrame(out, Http2Session.HEADERS, Http2Session.FLAG_END_HEADERS | Http2Session.FLAG_END_STREAM, 3,
+					encoder.encode(requestFields("/missing-dir/x.png")));
+			out.flush();
+
+			Map<Integer, StreamResult> results = readStreams(socket.getInputStream(), 2);
+
+			assertEquals("200", results.get(1).header(":status"));
+			assertEquals("text/css", results.get(1).header("content-type").split(";")[0]);
+			assertEquals("body { color: red; }", new String(results.get(1).body.toByteArray(),
+					StandardCharsets.UTF_8));
+			// SPA fallback still applies; the point is the second stream is answered on the same connection
+			assertNotNull(results.get(3).header(":status"));
+		}
+	}
+
+	@Test
+	public void testHttp11StillServedWhenH2cEnabled() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			socket.getOutputStream().write("GET /style.css HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n"
+					.getBytes(StandardCharsets.US_ASCII));
+			ByteArrayOutputStream received = new ByteArrayOutputStream();
+			InputStream in = socket.getInputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				received.write(buffer, 0, read);
+			}
+			String response = new String(received.toByteArray(), StandardCharsets.ISO_8859_1);
+			assertTrue(response, response.startsWith("HTTP/1.1 200"));
+			assertTrue(response.endsWith("body { color: red; }"));
+		}
+	}
+
+	@Test
+	public void testBadPrefaceFollowUpGetsGoAway() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			OutputStream out = socket.getOutputStream();
+			out.write(Http2Session.PREFACE);
+			// A frame larger than our SETTINGS_MAX_FRAME_SIZE is a connection error
+			out.write(new byte[] {0x01, 0x00, 0x00, Http2Session.DATA, 0, 0, 0, 0, 1});
+			out.flush();
+
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			int type;
+			do {
+				int length = (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+				type = in.readUnsignedByte();
+				in.readUnsignedByte();
+				in.readInt();
+				byte[] payload = new byte[length];
+				in.readFully(payload);
+				if (type == Http2Session.GOAWAY) {
+					assertEquals(Http2Session.FRAME_SIZE_ERROR, ByteBuffer.wrap(payload).getInt(4));
+				}
+			} while (type != Http2Session.GOAWAY);
+			assertEquals(-1, in.read());
+		}
+	}
+
+	private HttpRequest request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET().build();
+	}
+
+	private List<String[]> requestFields(String path) {
+		return Arrays.asList(
+				new String[] {":method", "GET"},
+				new String[] {":scheme", "http"},
+				new String[] {":path", path},
+				new String[] {":authority", "127.0.0.1:" + port});
+	}
+
+	private static void writeFrame(OutputStream out, int type, int flags, int streamId, byte[] payload)
+			throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(9);
+		header.put((byte) (payload.length >>> 16)).put((byte) (payload.length >>> 8)).put((byte) payload.length)
+				.put((byte) type).put((byte) flags).putInt(streamId);
+		out.write(header.array());
+		out.write(payload);
+	}
+
+	private static final class StreamResult {
+		List<String[]> headers = new ArrayList<>();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		boolean ended;
+
+		String header(String name) {
+			for (String[] field : headers) {
+				if (field[0].equals(name)) {
+					return field[1];
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Reads frames until count streams have ended, acknowledging SETTINGS
+	 * is not needed since the server does not wait for it.
+	 */
+	private static Map<Integer, StreamResult> readStreams(InputStream raw, int count) throws IOException {
+		DataInputStream in = new DataInputStream(raw);
+		Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+		Map<Integer, StreamResult> results = new HashMap<>();
+		int ended = 0;
+		while (ended < count) {
+			int length = (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+			int type = in.readUnsignedByte();
+			int flags = in.readUnsignedByte();
+			int streamId = in.readInt() & 0x7fffffff;
+			byte[] payload = new byte[length];
+			in.readFully(payload);
+			if (type != Http2Session.HEADERS && type != Http2Session.DATA) {
+				continue;
+			}
+			StreamResult result = results.computeIfAbsent(streamId, id -> new StreamResult());
+			if (type == Http2Session.HEADERS) {
+				result.headers.addAll(decoder.decode(ByteBuffer.wrap(payload)));
+			} else {
+				result.body.write(payload);
+			}
+			if ((flags & Http2Session.FLAG_END_STREAM) != 0) {
+				result.ended = true;
+				ended++;
+			}
+		}
+		return results;
+	}
+}
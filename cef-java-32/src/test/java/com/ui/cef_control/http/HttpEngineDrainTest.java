@@ -0,0 +1,138 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class HttpEngineDrainTest {
+
+	@Test
+	public void testJdkEngineLetsRunningExchangeFinish() throws Exception {
+		assertDrainCompletes(HttpBackend.JDK);
+	}
+
+	@Test
+	public void testNioEngineLetsRunningExchangeFinish() throws Exception {
+		assertDrainCompletes(HttpBackend.NIO);
+	}
+
+	@Test
+	public void testNioEngineReportsExchangesPastDeadline() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		HttpEngine engine = bind(HttpBackend.NIO, entered, release);
+		ExecutorService workers = Executors.newCachedThreadPool();
+		engine.setExecutor(workers);
+		engine.start();
+		try (Socket client = new Socket("127.0.0.1", engine.getAddress().getPort())) {
+			sendGet(client);
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+			DrainResult drain = engine.stop(100);
+
+			assertEquals(1, drain.getInFlightAtStop());
+			assertEquals(1, drain.getAborted());
+			assertFalse(drain.isClean());
+		} finally {
+			release.countDown();
+			workers.shutdown();
+		}
+	}
+
+	@Test
+	public void testIdleEngineStopsWithoutWaiting() throws Exception {
+		HttpEngine engine = bind(HttpBackend.JDK, new CountDownLatch(1), new CountDownLatch(0));
+		engine.start();
+
+		DrainResult drain = engine.stop(10_000);
+
+		assertTrue(drain.isClean());
+		assertEquals(0, drain.getInFlightAtStop());
+		assertTrue(drain.getElapsedMillis() < 5_000);
+	}
+
+	private static void assertDrainCompletes(HttpBackend backend) throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		HttpEngine engine = bind(backend, entered, release);
+		ExecutorService workers = Executors.newCachedThreadPool();
+		engine.setExecutor(workers);
+		engine.start();
+		int port = engine.getAddress().getPort();
+		try (Socket client = new Socket("127.0.0.1", port)) {
+			sendGet(client);
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+			// Release the exchange while stop() is draining
+			workers.execute(() -> {
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				release.countDown();
+			});
+			DrainResult drain = engine.stop(3_000);
+
+			assertEquals(1, drain.getInFlightAtStop());
+			assertEquals(0, drain.getAborted());
+			assertEquals(1, drain.getCompleted());
+			String response = readAll(client.getInputStream());
+			assertTrue(response, response.startsWith("HTTP/1.1 200"));
+			assertTrue(response, response.endsWith("done"));
+			try (Socket late = new Socket("127.0.0.1", port)) {
+				fail("Listening socket still open after stop, accepted " + late.getRemoteSocketAddress());
+			} catch (ConnectException expected) {
+				// Not accepting any more
+			}
+		} finally {
+			workers.shutdown();
+		}
+	}
+
+	private static HttpEngine bind(HttpBackend backend, CountDownLatch entered, CountDownLatch release)
+			throws IOException {
+		HttpServerConfig config = new HttpServerConfig(".", 0, "127.0.0.1").withBackend(backend);
+		HttpEngine engine = HttpEngine.bind(config, "drain-test");
+		engine.createContext("/", (HttpExchange exchange) -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "done".getBytes(StandardCharsets.US_ASCII);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		return engine;
+	}
+
+	private static void sendGet(Socket client) throws IOException {
+		client.setSoTimeout(10_000);
+		client.getOutputStream().write(
+				"GET /slow HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+		client.getOutputStream().flush();
+	}
+
+	private static String readAll(InputStream in) throws IOException {
+		StringBuilder text = new StringBuilder();
+		int b;
+		while ((b = in.read()) != -1) {
+			text.append((char) b);
+		}
+		return text.toString();
+	}
+}
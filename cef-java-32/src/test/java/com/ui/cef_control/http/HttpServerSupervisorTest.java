@@ -4,8 +4,14 @@ import com.ui.cef_control.supervisor.RetryPolicy;
 import org.junit.Before;
 import org.junit.Test;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import static org.junit.Assert.*;
 
 public class HttpServerSupervisorTest {
@@ -131,6 +137,173 @@ public class HttpServerSupervisorTest {
 		assertEquals(1, listener.startFailureCount);
 	}
 
+	@Test
+	public void testHealthProberRestartsServerThatStoppedAnswering() throws InterruptedException {
+		HealthProbeConfig health = new HealthProbeConfig()
+				.withSchedule(50, 40)
+				.withFailureThreshold(2)
+				.withRestartOnUnresponsive(true);
+		HttpServerSupervisor probed = new HttpServerSupervisor(server, RetryPolicy.noRetry(), health);
+		probed.addListener(listener);
+		probed.start();
+
+		// Behind the supervisor's back: probes now fail to connect
+		server.stop();
+
+		long deadline = System.currentTimeMillis() + health.getDetectionBoundMillis() + 5000;
+		while (!(probed.getHealthStats().getRestarts() == 1 && server.isRunning())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		try {
+			assertEquals(1, listener.unresponsiveCount);
+			assertTrue(probed.isServerRunning());
+			assertTrue(probed.getServerPort() > 0);
+			assertEquals(1, probed.getHealthStats().getRestarts());
+		} finally {
+			probed.stop();
+		}
+		assertNull(probed.getHealthStats());
+	}
+
+	@Test
+	public void testStopCancelsRestartThatIsStillRetrying() throws Exception {
+		int port;
+		try (ServerSocket probe = occupyPort()) {
+			port = probe.getLocalPort();
+		}
+		HealthProbeConfig health = new HealthProbeConfig()
+				.withSchedule(50, 40)
+				.withFailureThreshold(2)
+				.withRestartOnUnresponsive(true);
+		server = new VuePressHttpServer(new HttpServerConfig(tempStaticDir.toAbsolutePath().toString(), port,
+				"127.0.0.1"));
+		HttpServerSupervisor probed = new HttpServerSupervisor(server, RetryPolicy.alwaysRetry(), health);
+		probed.addListener(listener);
+		probed.start();
+
+		// The server dies and something else takes its port: every restart attempt fails
+		server.stop();
+		ServerSocket blocker = new ServerSocket(port, 1, InetAddress.getByName("127.0.0.1"));
+		try {
+			long deadline = System.currentTimeMillis() + health.getDetectionBoundMillis() + 5000;
+			while (listener.startFailureCount < 2 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertTrue(listener.startFailureCount >= 2);
+			assertEquals(1, probed.getHealthStats().getRestarts());
+
+			// Not held up by the retries, and none runs afterwards
+			long start = System.nanoTime();
+			probed.stop();
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		} finally {
+			blocker.close();
+		}
+		Thread.sleep(500);
+		assertFalse(server.isRunning());
+		assertFalse(probed.isServerRunning());
+		assertNull(probed.getHealthStats());
+	}
+
+	@Test
+	public void testStartAsyncCompletesWithBoundAddress() throws Exception {
+		CompletableFuture<String> started = supervisor.startAsync();
+
+		String address = started.get(5, TimeUnit.SECONDS);
+		try {
+			assertEquals(supervisor.getServerAddress(), address);
+			assertTrue(supervisor.isServerRunning());
+		} finally {
+			supervisor.stop();
+		}
+	}
+
+	@Test
+	public void testStartAsyncRetriesUntilPortIsFree() throws Exception {
+		ServerSocket blocker = occupyPort();
+		int port = blocker.getLocalPort();
+		HttpServerSupervisor retrying = supervisorOnPort(port, RetryPolicy.alwaysRetry(), false);
+
+		CompletableFuture<String> started = retrying.startAsync(10000);
+		// The caller is not held up by the busy port
+		assertFalse(started.isDone());
+		Thread.sleep(150);
+		blocker.close();
+
+		started.get(5, TimeUnit.SECONDS);
+		try {
+			assertEquals(port, retrying.getServerPort());
+		} finally {
+			retrying.stop();
+		}
+	}
+
+	@Test
+	public void testStartAsyncFailsAtDeadline() throws Exception {
+		try (ServerSocket blocker = occupyPort()) {
+			HttpServerSupervisor retrying = supervisorOnPort(blocker.getLocalPort(), RetryPolicy.alwaysRetry(), false);
+
+			CompletableFuture<String> started = retrying.startAsync(250);
+			try {
+				started.get(5, TimeUnit.SECONDS);
+				fail("Expected the startup deadline to pass");
+			} catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof TimeoutException);
+				assertTrue(ex.getCause().getCause() instanceof IOException);
+			}
+			assertFalse(retrying.isServerRunning());
+		}
+	}
+
+	@Test
+	public void testStartAsyncFallsBackToEphemeralPort() throws Exception {
+		try (ServerSocket blocker = occupyPort()) {
+			HttpServerSupervisor fallback = supervisorOnPort(blocker.getLocalPort(), RetryPolicy.noRetry(), true);
+			fallback.addListener(listener);
+
+			String address = fallback.startAsync().get(5, TimeUnit.SECONDS);
+			try {
+				assertTrue(fallback.getServerPort() > 0);
+				assertNotEquals(blocker.getLocalPort(), fallback.getServerPort());
+				assertEquals(address, listener.lastNewAddress);
+				assertEquals(1, listener.startFailureCount);
+			} finally {
+				fallback.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testSyncStartFallsBackToEphemeralPort() throws Exception {
+		try (ServerSocket blocker = occupyPort()) {
+			HttpServerSupervisor fallback = supervisorOnPort(blocker.getLocalPort(), RetryPolicy.noRetry(), true);
+
+			fallback.start();
+			try {
+				assertNotEquals(blocker.getLocalPort(), fallback.getServerPort());
+			} finally {
+				fallback.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testCancelledStartAsyncStopsRetrying() throws Exception {
+		ServerSocket blocker = occupyPort();
+		HttpServerSupervisor retrying = supervisorOnPort(blocker.getLocalPort(), RetryPolicy.alwaysRetry(), false);
+
+		CompletableFuture<String> started = retrying.startAsync();
+		Thread.sleep(50);
+		assertTrue(started.cancel(false));
+		blocker.close();
+
+		// Longer than the next backoffs: no attempt may bind the freed port
+		Thread.sleep(500);
+		assertFalse(retrying.isServerRunning());
+		assertFalse(server.isRunning());
+	}
+
 	@Test
 	public void testListenerRemovedPreventsNotifications() {
 		supervisor.addListener(listener);
@@ -142,11 +315,23 @@ public class HttpServerSupervisorTest {
 		assertEquals(0, listener.afterRestartCount);
 	}
 
+	private static ServerSocket occupyPort() throws IOException {
+		return new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+	}
+
+	private HttpServerSupervisor supervisorOnPort(int port, RetryPolicy retryPolicy, boolean ephemeralFallback) {
+		HttpServerConfig fixed = new HttpServerConfig(tempStaticDir.toAbsolutePath().toString(), port, "127.0.0.1")
+				.withEphemeralPortFallback(ephemeralFallback);
+		server = new VuePressHttpServer(fixed);
+		return new HttpServerSupervisor(server, retryPolicy);
+	}
+
 	// Helper listener
 	private static class TestHttpServerListener implements HttpServerListener {
 		int beforeRestartCount = 0;
 		int afterRestartCount = 0;
-		int startFailureCount = 0;
+		volatile int startFailureCount = 0;
+		volatile int unresponsiveCount = 0;
 		String lastNewAddress = null;
 		Throwable lastError = null;
 
@@ -166,6 +351,11 @@ public class HttpServerSupervisorTest {
 			startFailureCount++;
 			this.lastError = error;
 		}
+
+		@Override
+		public void onUnresponsive(HealthStats stats) {
+			unresponsiveCount++;
+		}
 	}
 
 	// Helper retry policy for testing
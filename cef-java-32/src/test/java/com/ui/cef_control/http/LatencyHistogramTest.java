@@ -0,0 +1,50 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBucketsCoverValuesContiguously() {
+		for (long value = 0; value < 100_000; value++) {
+			int bucket = LatencyHistogram.bucketOf(value);
+			assertTrue("value " + value, value <= LatencyHistogram.upperBoundOf(bucket));
+			if (bucket > 0) {
+				assertTrue("value " + value, value > LatencyHistogram.upperBoundOf(bucket - 1));
+			}
+		}
+		assertTrue(LatencyHistogram.bucketOf(Long.MAX_VALUE) >= 0);
+	}
+
+	@Test
+	public void testRelativeErrorIsBounded() {
+		for (long value = 8; value < 1L << 40; value = value * 3 + 1) {
+			long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(value));
+			assertTrue("value " + value, upper - value <= value / 8 + 1);
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(1_000_000, snapshot.getMax());
+		assertEquals(500_000, snapshot.percentile(0.5), 500_000 / 8.0);
+		assertEquals(990_000, snapshot.percentile(0.99), 990_000 / 8.0);
+		assertEquals(1_000_000, snapshot.percentile(1.0));
+	}
+
+	@Test
+	public void testEmptySnapshot() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.percentile(0.99));
+	}
+}
@@ -0,0 +1,123 @@
+package com.ui.cef_control.http;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.After;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class MountRouterTest {
+
+	private final HttpHandler root = exchange -> { };
+	private final HttpHandler notes = exchange -> { };
+	private final HttpHandler api = exchange -> { };
+	private final HttpHandler apiV2 = exchange -> { };
+	private VuePressHttpServer server;
+
+	@After
+	public void tearDown() {
+		if (server != null && server.isRunning()) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testLongestPrefixEndingAtSegmentBoundaryWins() {
+		Map<String, HttpHandler> prefixes = new LinkedHashMap<>();
+		prefixes.put("/notes", notes);
+		prefixes.put("/api", api);
+		prefixes.put("/api/v2", apiV2);
+		MountRouter router = new MountRouter(root, prefixes, Collections.emptyMap());
+
+		assertSame(notes, router.route(null, "/notes/v2.html"));
+		assertSame(notes, router.route(null, "/notes"));
+		assertSame(notes, router.route(null, "/notes/"));
+		assertSame(root, router.route(null, "/notesx/v2.html"));
+		assertSame(api, router.route(null, "/api/v1/index.html"));
+		assertSame(apiV2, router.route(null, "/api/v2/index.html"));
+		assertSame(api, router.route(null, "/api/v2x"));
+		assertSame(root, router.route(null, "/"));
+		assertSame(root, router.route(null, "/guide/notes/x.html"));
+	}
+
+	@Test
+	public void testHostMountIgnoresPortAndCaseAndPrecedesPrefixes() {
+		Map<String, HttpHandler> hosts = new LinkedHashMap<>();
+		hosts.put("api.localhost", api);
+		MountRouter router = new MountRouter(root, Collections.singletonMap("/notes", notes), hosts);
+
+		assertSame(api, router.route("api.localhost", "/notes/x.html"));
+		assertSame(api, router.route("API.Localhost:8080", "/"));
+		assertSame(notes, router.route("127.0.0.1:8080", "/notes/x.html"));
+		assertSame(root, router.route("api.localhost.example", "/"));
+		assertSame(root, router.route(null, "/"));
+	}
+
+	@Test
+	public void testServesMountedRootsOnOneServer() throws IOException {
+		Path docs = Files.createTempDirectory("mount_router_docs_");
+		Files.write(docs.resolve("index.html"), "<html><body>Docs</body></html>".getBytes());
+		Files.write(docs.resolve("page.html"), "<p>docs page</p>".getBytes());
+		Path notesDir = Files.createTempDirectory("mount_router_notes_");
+		Files.write(notesDir.resolve("index.html"), "<html><body>Notes</body></html>".getBytes());
+		Files.write(notesDir.resolve("page.html"), "<p>notes page</p>".getBytes());
+
+		server = new VuePressHttpServer(new HttpServerConfig(docs.toString(), 0, "127.0.0.1")
+				.withMount("/release-notes/", notesDir.toString()));
+		server.start();
+		String base = "http://127.0.0.1:" + server.getActualPort();
+
+		assertEquals("<p>docs page</p>", get(base + "/page.html"));
+		assertEquals("<p>notes page</p>", get(base + "/release-notes/page.html"));
+		// SPA fallback of each root is its own index.html
+		assertTrue(get(base + "/release-notes/some/route").contains("Notes"));
+		assertTrue(get(base + "/release-notes").contains("Notes"));
+		assertTrue(get(base + "/release-notesx/page.html").contains("Docs"));
+
+		AssetCacheStats stats = server.getAssetCacheStats();
+		assertEquals(2 * AssetCache.DEFAULT_BUDGET_BYTES, stats.getBudgetBytes());
+		assertTrue(stats.getEntryCount() >= 2);
+	}
+
+	@Test
+	public void testMissingMountedDirectoryFailsStart() throws IOException {
+		Path docs = Files.createTempDirectory("mount_router_docs_");
+		Files.write(docs.resolve("index.html"), "<html></html>".getBytes());
+
+		server = new VuePressHttpServer(new HttpServerConfig(docs.toString(), 0, "127.0.0.1")
+				.withMount("/notes", docs.resolve("missing").toString()));
+		try {
+			server.start();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("missing"));
+		}
+		assertFalse(server.isRunning());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRootPrefixIsRejected() {
+		new HttpServerConfig("docs", 0, "127.0.0.1").withMount("/", "notes");
+	}
+
+	private static String get(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			in.transferTo(out);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class NioHttpEngineTest {
+
+	private Path tempDir;
+	private byte[] largeFile;
+	private VuePressHttpServer server;
+	private int port;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("nio_engine_test_");
+		Files.write(tempDir.resolve("index.html"), "<html><body>Index</body></html>".getBytes());
+		Files.write(tempDir.resolve("style.css"), "body { color: red; }".getBytes());
+		largeFile = new byte[3 * NioHttpEngine.BUFFER_BYTES + 123];
+		new Random(42).nextBytes(largeFile);
+		Files.write(tempDir.resolve("large.bin"), largeFile);
+
+		HttpServerConfig config = new HttpServerConfig(tempDir.toString(), 0, "127.0.0.1")
+				.withBackend(HttpBackend.NIO);
+		server = new VuePressHttpServer(config);
+		server.start();
+		port = server.getActualPort();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (server.isRunning()) {
+			server.stop();
+		}
+		Files.walk(tempDir)
+				.sorted((a, b) -> b.compareTo(a))
+				.forEach(path -> path.toFile().delete());
+	}
+
+	@Test
+	public void testKeepAliveReusesConnection() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+
+			send(out, "GET /style.css HTTP/1.1\r\nHost: x\r\n\r\n");
+			Response first = Response.read(in);
+			send(out, "GET / HTTP/1.1\r\nHost: x\r\n\r\n");
+			Response second = Response.read(in);
+
+			assertEquals(200, first.status);
+			assertEquals("body { color: red; }", first.bodyText());
+			assertEquals(200, second.status);
+			assertTrue(second.bodyText().contains("Index"));
+			assertNull(second.header("connection"));
+		}
+	}
+
+	@Test
+	public void testPipelinedResponsesKeepRequestOrder() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(),
+					"GET /style.css HTTP/1.1\r\nHost: x\r\n\r\n"
+					+ "GET /large.bin HTTP/1.1\r\nHost: x\r\n\r\n"
+					+ "GET /index.html HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n");
+			InputStream in = socket.getInputStream();
+
+			Response css = Response.read(in);
+			Response large = Response.read(in);
+			Response index = Response.read(in);
+
+			assertEquals("body { color: red; }", css.bodyText());
+			assertArrayEquals(largeFile, large.body);
+			assertTrue(index.bodyText().contains("Index"));
+			assertEquals("close", index.header("connection"));
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testChunkedResponseForUnknownLength() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), "POST / HTTP/1.1\r\nHost: x\r\nContent-Length: 4\r\n\r\nabcd"
+					+ "GET /style.css HTTP/1.1\r\nHost: x\r\n\r\n");
+			InputStream in = socket.getInputStream();
+
+			Response rejected = Response.read(in);
+			Response next = Response.read(in);
+
+			// StaticFileHandler answers 405 with sendResponseHeaders(405, 0)
+			assertEquals(405, rejected.status);
+			assertEquals("chunked", rejected.header("transfer-encoding"));
+			assertEquals(0, rejected.body.length);
+			// The request body was skipped, not parsed as the next request
+			assertEquals(200, next.status);
+			assertEquals("body { color: red; }", next.bodyText());
+		}
+	}
+
+	@Test
+	public void testHttp10ClosesUnlessKeepAliveRequested() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), "GET /style.css HTTP/1.0\r\n\r\n");
+			InputStream in = socket.getInputStream();
+
+			Response response = Response.read(in);
+
+			assertEquals(200, response.status);
+			assertEquals("close", response.header("connection"));
+			assertEquals(-1, in.read());
+		}
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			OutputStream out = socket.getOutputStream();
+			send(out, "GET /style.css HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+			Response first = Response.read(socket.getInputStream());
+			send(out, "GET /style.css HTTP/1.0\r\n\r\n");
+			Response second = Response.read(socket.getInputStream());
+
+			assertEquals("keep-alive", first.header("connection"));
+			assertEquals(200, second.status);
+		}
+	}
+
+	@Test
+	public void testMalformedRequestGets400AndClose() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), "garbage\r\n\r\n");
+			InputStream in = socket.getInputStream();
+
+			Response response = Response.read(in);
+
+			assertEquals(400, response.status);
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testOversizedHeadGets431() throws IOException {
+		StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n");
+		while (request.length() <= NioHttpEngine.BUFFER_BYTES) {
+			request.append("X-Filler: ").append("0123456789012345678901234567890123456789").append("\r\n");
+		}
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), request.toString());
+
+			Response response = Response.read(socket.getInputStream());
+
+			assertEquals(431, response.status);
+		}
+	}
+
+	@Test
+	public void testMetricsServedByNioBackend() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), "GET /style.css HTTP/1.1\r\nHost: x\r\n\r\n"
+					+ "GET /__metrics HTTP/1.1\r\nHost: x\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			Response.read(in);
+
+			Response metrics = Response.read(in);
+
+			assertEquals(200, metrics.status);
+			assertTrue(metrics.bodyText().contains("http_requests_total{route=\"style\"} 1"));
+		}
+	}
+
+	@Test
+	public void testStopClosesIdleConnections() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			send(socket.getOutputStream(), "GET /style.css HTTP/1.1\r\nHost: x\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			Response.read(in);
+
+			server.stop();
+
+			socket.setSoTimeout(5000);
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void testBufferPoolRecyclesBuffers() {
+		BufferPool pool = new BufferPool(1024, 2);
+
+		ByteBuffer first = pool.acquire();
+		ByteBuffer second = pool.acquire();
+		ByteBuffer third = pool.acquire();
+		first.put((byte) 1);
+		pool.release(first);
+		pool.release(second);
+		pool.release(third);
+
+		assertTrue(first.isDirect());
+		assertEquals(2, pool.pooledCount());
+		ByteBuffer reused = pool.acquire();
+		assertSame(first, reused);
+		assertEquals(0, reused.position());
+		assertEquals(1, pool.pooledCount());
+	}
+
+	private static void send(OutputStream out, String request) throws IOException {
+		out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+		out.flush();
+	}
+
+	/**
+	 * Minimal HTTP/1.1 response reader (Content-Length, chunked, or close-delimited).
+	 */
+	private static final class Response {
+		int status;
+		final Map<String, String> headers = new HashMap<>();
+		byte[] body;
+
+		static Response read(InputStream in) throws IOException {
+			Response response = new Response();
+			String statusLine = readLine(in);
+			assertNotNull("connection closed before a response", statusLine);
+			response.status = Integer.parseInt(statusLine.split(" ")[1]);
+			String line;
+			while ((line = readLine(in)) != null && !line.isEmpty()) {
+				int colon = line.indexOf(':');
+				response.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+						line.substring(colon + 1).trim());
+			}
+
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			String length = response.header("content-length");
+			if ("chunked".equals(response.header("transfer-encoding"))) {
+				int size;
+				while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+					body.write(readFully(in, size));
+					readLine(in);
+				}
+				readLine(in);
+			} else if (length != null) {
+				body.write(readFully(in, Integer.parseInt(length)));
+			} else if (response.status != 304) {
+				int b;
+				while ((b = in.read()) >= 0) {
+					body.write(b);
+				}
+			}
+			response.body = body.toByteArray();
+			return response;
+		}
+
+		String header(String name) {
+			return headers.get(name);
+		}
+
+		String bodyText() {
+			return new String(body, StandardCharsets.UTF_8);
+		}
+
+		private static String readLine(InputStream in) throws IOException {
+			StringBuilder line = new StringBuilder();
+			int b;
+			while ((b = in.read()) >= 0) {
+				if (b == '\n') {
+					int last = line.length() - 1;
+					return last >= 0 && line.charAt(last) == '\r' ? line.substring(0, last) : line.toString();
+				}
+				line.append((char) b);
+			}
+			return line.length() > 0 ? line.toString() : null;
+		}
+
+		private static byte[] readFully(InputStream in, int count) throws IOException {
+			byte[] bytes = new byte[count];
+			int offset = 0;
+			while (offset < count) {
+				int read = in.read(bytes, offset, count - offset);
+				if (read < 0) {
+					throw new IOException("EOF after " + offset + " of " + count + " bytes");
+				}
+				offset += read;
+			}
+			return bytes;
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package com.ui.cef_control.http;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP/1.1 load: requests arrive on a schedule, whether or not
+ * earlier ones have been answered.
+ *
+ * A scheduler thread draws Poisson arrivals at the target rate and queues
+ * them; a fixed set of keep-alive client connections takes them in order.
+ * Latency runs from the scheduled arrival, not from the moment a client
+ * got to the request, so time spent queued behind a slow server counts
+ * (no coordinated omission: a stall shows in the tail instead of
+ * silently lowering the request rate).
+ */
+final class OpenLoopLoadGenerator {
+
+	private static final long DRAIN_GRACE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final InetSocketAddress address;
+	private final List<String> paths;
+	private final int clients;
+	private final double ratePerSecond;
+	private final long seed;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * @param paths Request paths, picked uniformly at random
+	 * @param clients Keep-alive connections (concurrent requests at most)
+	 * @param ratePerSecond Mean arrival rate
+	 */
+	OpenLoopLoadGenerator(InetSocketAddress address, List<String> paths, int clients, double ratePerSecond,
+			long seed) {
+		if (clients < 1) {
+			throw new IllegalArgumentException("clients must be >= 1, got: " + clients);
+		}
+		if (ratePerSecond <= 0) {
+			throw new IllegalArgumentException("ratePerSecond must be > 0, got: " + ratePerSecond);
+		}
+		this.address = address;
+		this.paths = paths;
+		this.clients = clients;
+		this.ratePerSecond = ratePerSecond;
+		this.seed = seed;
+	}
+
+	/**
+	 * Generates arrivals for duration, then waits (up to a grace period)
+	 * for the clients to work off the queue.
+	 */
+	Report run(long duration, TimeUnit unit) throws InterruptedException {
+		BlockingQueue<long[]> arrivals = new LinkedBlockingQueue<>();
+		List<Thread> workers = new ArrayList<>(clients);
+		for (int i = 0; i < clients; i++) {
+			Thread worker = new Thread(() -> drive(arrivals), "load-client-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+		}
+		workers.forEach(Thread::start);
+
+		Random random = new Random(seed);
+		long start = System.nanoTime();
+		long end = start + unit.toNanos(duration);
+		double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+		long scheduled = 0;
+		long next = start;
+		while (next < end) {
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+				continue;
+			}
+			arrivals.add(new long[] {next, random.nextInt(paths.size())});
+			scheduled++;
+			next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+		}
+
+		long drainDeadline = System.nanoTime() + DRAIN_GRACE_NANOS;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		for (Thread worker : workers) {
+			worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(drainDeadline - System.nanoTime())));
+		}
+		return new Report(scheduled, completed.get(), errors.get(), arrivals.size(), bytes.get(),
+				System.nanoTime() - start, latency.snapshot());
+	}
+
+	/**
+	 * One client connection: takes arrivals until interrupted and the queue is empty.
+	 */
+	private void drive(BlockingQueue<long[]> arrivals) {
+		Connection connection = null;
+		boolean stopping = false;
+		while (true) {
+			long[] arrival;
+			try {
+				arrival = stopping ? arrivals.poll() : arrivals.take();
+			} catch (InterruptedException e) {
+				stopping = true;
+				continue;
+			}
+			if (arrival == null || (stopping && System.nanoTime() - arrival[0] > DRAIN_GRACE_NANOS)) {
+				break;
+			}
+			try {
+				if (connection == null) {
+					connection = new Connection(address);
+				}
+				long body = connection.get(paths.get((int) arrival[1]));
+				latency.record(System.nanoTime() - arrival[0]);
+				bytes.addAndGet(body);
+				completed.incrementAndGet();
+				if (connection.closeRequested) {
+					connection.close();
+					connection = null;
+				}
+			} catch (IOException e) {
+				errors.incrementAndGet();
+				if (connection != null) {
+					connection.close();
+					connection = null;
+				}
+			}
+		}
+		if (connection != null) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Minimal keep-alive HTTP/1.1 client (Content-Length and chunked bodies).
+	 */
+	private static final class Connection {
+		private final Socket socket;
+		private final OutputStream out;
+		private final InputStream in;
+		private final byte[] discard = new byte[64 * 1024];
+		boolean closeRequested;
+
+		Connection(InetSocketAddress address) throws IOException {
+			socket = new Socket();
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(30_000);
+			socket.connect(address, 5_000);
+			out = socket.getOutputStream();
+			in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+		}
+
+		/**
+		 * @return Body bytes received
+		 * @throws IOException on connection errors and non-2xx/3xx responses
+		 */
+		long get(String path) throws IOException {
+			out.write(("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\n"
+					+ "Accept-Encoding: gzip, deflate, br\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+
+			String status = readLine();
+			if (status == null || !status.startsWith("HTTP/1.1 ")) {
+				throw new IOException("Bad status line: " + status);
+			}
+			int code = Integer.parseInt(status.substring(9, 12));
+			long length = -1;
+			boolean chunked = false;
+			String line;
+			while ((line = readLine()) != null && !line.isEmpty()) {
+				String lower = line.toLowerCase(Locale.ROOT);
+				if (lower.startsWith("content-length:")) {
+					length = Long.parseLong(lower.substring(15).trim());
+				} else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+					chunked = true;
+				} else if (lower.startsWith("connection:") && lower.contains("close")) {
+					closeRequested = true;
+				}
+			}
+			long received;
+			if (chunked) {
+				received = 0;
+				long chunk;
+				while ((chunk = Long.parseLong(readLine().trim(), 16)) > 0) {
+					skip(chunk);
+					readLine();
+					received += chunk;
+				}
+				readLine();
+			} else {
+				received = Math.max(0, length);
+				skip(received);
+			}
+			if (code >= 400) {
+				throw new IOException("HTTP " + code + " for " + path);
+			}
+			return received;
+		}
+
+		private void skip(long count) throws IOException {
+			long left = count;
+			while (left > 0) {
+				int read = in.read(discard, 0, (int) Math.min(discard.length, left));
+				if (read < 0) {
+					throw new IOException("Connection closed mid-body");
+				}
+				left -= read;
+			}
+		}
+
+		private String readLine() throws IOException {
+			StringBuilder line = new StringBuilder(64);
+			int b;
+			while ((b = in.read()) != '\n') {
+				if (b < 0) {
+					return line.length() == 0 ? null : line.toString();
+				}
+				if (b != '\r') {
+					line.append((char) b);
+				}
+			}
+			return line.toString();
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Outcome of one run; latencies in nanoseconds from the scheduled arrival.
+	 */
+	static final class Report {
+		final long scheduled;
+		final long completed;
+		final long errors;
+		final long unserved;
+		final long bytes;
+		final long elapsedNanos;
+		final LatencyHistogram.Snapshot latency;
+
+		Report(long scheduled, long completed, long errors, long unserved, long bytes, long elapsedNanos,
+				LatencyHistogram.Snapshot latency) {
+			this.scheduled = scheduled;
+			this.completed = completed;
+			this.errors = errors;
+			this.unserved = unserved;
+			this.bytes = bytes;
+			this.elapsedNanos = elapsedNanos;
+			this.latency = latency;
+		}
+
+		double requestsPerSecond() {
+			return completed * 1e9 / elapsedNanos;
+		}
+
+		double bytesPerSecond() {
+			return bytes * 1e9 / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT,
+					"requests %d/%d (errors %d, unserved %d) in %.1f s: %.0f req/s, %.2f MB/s, "
+							+ "latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms",
+					completed, scheduled, errors, unserved, elapsedNanos / 1e9, requestsPerSecond(),
+					bytesPerSecond() / 1e6, millis(latency.percentile(0.50)), millis(latency.percentile(0.99)),
+					millis(latency.percentile(0.999)), millis(latency.getMax()));
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1e6;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.ui.cef_control.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.Assert.*;
+
+public class PathIndexTest {
+
+	private Path root;
+	private PathIndex index;
+
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("path_index_test_").toRealPath();
+		Files.write(root.resolve("index.html"), "<html></html>".getBytes());
+		Files.createDirectories(root.resolve("assets/js"));
+		Files.write(root.resolve("assets/js/app.3f9a1c2b.js"), "let a;".getBytes());
+		Files.createDirectories(root.resolve("guide"));
+		Files.write(root.resolve("guide/intro.html"), "<p>intro</p>".getBytes());
+
+		index = new PathIndex(root, CachePolicy.defaults());
+		index.build();
+	}
+
+	@Test
+	public void testLookupPrecomputesMetadata() {
+		PathIndex.Entry entry = index.lookup("assets/js/app.3f9a1c2b.js");
+
+		assertNotNull(entry);
+		assertEquals(root.resolve("assets/js/app.3f9a1c2b.js"), entry.getFile());
+		assertEquals("application/javascript", entry.getContentType());
+		assertEquals(CachePolicy.IMMUTABLE, entry.getCacheControl());
+		assertEquals(6, entry.getSize());
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testDirectoriesAndMissingPathsAreNotFiles() {
+		assertNull(index.lookup(""));
+		assertNull(index.lookup("guide"));
+		assertNull(index.lookup("guide/"));
+		assertNull(index.lookup("guide/missing.html"));
+		assertNull(index.lookup("nowhere/intro.html"));
+		assertEquals(root.resolve("index.html"), index.fallback().getFile());
+	}
+
+	@Test
+	public void testEmptyAndDotSegmentsAreSkipped() {
+		assertNotNull(index.lookup("guide//intro.html"));
+		assertNotNull(index.lookup("./guide/./intro.html"));
+	}
+
+	@Test
+	public void testCaseFollowsTheFilesystem() throws IOException {
+		Path upper = root.resolve("INDEX.HTML");
+		boolean insensitive = Files.exists(upper) && Files.isSameFile(upper, root.resolve("index.html"));
+		assertEquals(insensitive, PathIndex.isCaseInsensitive(root));
+		assertEquals(insensitive, index.lookup("Guide/Intro.html") != null);
+	}
+
+	@Test
+	public void testCaseInsensitiveIndexFoldsNames() throws IOException {
+		Files.write(root.resolve("guide/Setup.HTML"), "<p>setup</p>".getBytes());
+		PathIndex folded = new PathIndex(root, CachePolicy.defaults(), true);
+		folded.build();
+
+		PathIndex.Entry entry = folded.resolve("/GUIDE/setup.html");
+		assertNotNull(entry);
+		assertEquals("guide/Setup.HTML", entry.getRelativePath());
+		assertSame(folded.lookup("guide/intro.html"), folded.lookup("Guide/INTRO.html"));
+
+		Path added = root.resolve("Api/Ref.html");
+		Files.createDirectories(added.getParent());
+		Files.write(added, "<p>ref</p>".getBytes());
+		folded.onPathChanged(added);
+		assertNotNull(folded.lookup("api/ref.html"));
+		assertNotNull(folded.lookup("API/REF.HTML"));
+	}
+
+	@Test
+	public void testIncrementalFileUpdates() throws IOException {
+		Path added = root.resolve("guide/setup.html");
+		Files.write(added, "<p>setup</p>".getBytes());
+		index.onPathChanged(added);
+		assertNotNull(index.lookup("guide/setup.html"));
+
+		Files.delete(added);
+		index.onPathChanged(added);
+		assertNull(index.lookup("guide/setup.html"));
+		assertNotNull(index.lookup("guide/intro.html"));
+	}
+
+	@Test
+	public void testNewDirectoryIsScanned() throws IOException {
+		Path dir = root.resolve("api/v2");
+		Files.createDirectories(dir);
+		Files.write(dir.resolve("ref.html"), "<p>ref</p>".getBytes());
+
+		index.onPathChanged(root.resolve("api"));
+
+		assertNotNull(index.lookup("api/v2/ref.html"));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	public void testFallbackTracksIndexHtml() throws IOException {
+		Files.delete(root.resolve("index.html"));
+		index.onPathChanged(root.resolve("index.html"));
+		assertNull(index.fallback());
+
+		Files.write(root.resolve("index.html"), "<html>new</html>".getBytes());
+		index.onPathChanged(root.resolve("index.html"));
+		assertEquals(16, index.fallback().getSize());
+	}
+
+	@Test
+	public void testUnchangedBranchesAreShared() throws IOException {
+		PathIndex.Entry before = index.lookup("assets/js/app.3f9a1c2b.js");
+
+		Files.write(root.resolve("guide/intro.html"), "<p>changed</p>".getBytes());
+		index.onPathChanged(root.resolve("guide/intro.html"));
+
+		assertSame(before, index.lookup("assets/js/app.3f9a1c2b.js"));
+		assertEquals(14, index.lookup("guide/intro.html").getSize());
+	}
+}
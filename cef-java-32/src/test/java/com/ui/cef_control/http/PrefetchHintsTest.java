@@ -0,0 +1,142 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class PrefetchHintsTest {
+
+	private final Map<String, String> files = new HashMap<>();
+	private int pageReads;
+
+	private final PreloadHints.Source source = new PreloadHints.Source() {
+		@Override
+		public boolean exists(String path) {
+			return files.containsKey(path);
+		}
+
+		@Override
+		public byte[] read(String path) {
+			pageReads++;
+			String content = files.get(path);
+			return content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+		}
+	};
+
+	private final PrefetchHints hints = new PrefetchHints(source);
+
+	@Test
+	public void testContentLinksRankBeforeNavigationLinks() {
+		files.put("guide/index.html", "<html><body>"
+				+ "<nav><a href=\"/\">Home</a><a href=\"/reference/\">Reference</a></nav>"
+				+ "<!-- <a href=\"commented.html\">x</a> -->"
+				+ "<script>var a = '<a href=\"scripted.html\">';</script>"
+				+ "<main><p>Read <a href=\"intro.html#setup\">the intro</a> and "
+				+ "<router-link to=\"/guide/mounts\">mounts</router-link>, or "
+				+ "<a href=\"https://example.com/\">elsewhere</a>, <a href=\"#top\">top</a>, "
+				+ "<a href=\"missing.html\">missing</a>, <a href=\"/app.js\">a file</a> "
+				+ "and the <a href=\"/reference/\">reference</a>.</p></main></body></html>");
+		files.put("index.html", "");
+		files.put("reference/index.html", "");
+		files.put("guide/intro.html", "");
+		files.put("guide/mounts.html", "");
+		files.put("guide/commented.html", "");
+		files.put("guide/scripted.html", "");
+		files.put("app.js", "");
+
+		// Reference is linked from the navbar and the content: content weight, first in document order
+		assertEquals(Arrays.asList("/reference/", "/guide/intro.html", "/guide/mounts.html"),
+				hints.rank("guide/index.html"));
+		assertEquals("</reference/>; rel=prefetch, </guide/intro.html>; rel=prefetch, "
+				+ "</guide/mounts.html>; rel=prefetch", hints.linkFor("guide/index.html"));
+	}
+
+	@Test
+	public void testObservedNavigationOutranksLinks() {
+		files.put("index.html", "<main><a href=a.html>A</a><a href=b.html>B</a><a href=c.html>C</a></main>");
+		files.put("a.html", "");
+		files.put("b.html", "");
+		files.put("c.html", "");
+		files.put("d.html", "");
+		assertEquals(Arrays.asList("/a.html", "/b.html", "/c.html"), hints.rank("index.html"));
+
+		hints.recordNavigation("index.html", "c.html");
+		hints.recordNavigation("index.html", "d.html");
+		hints.recordNavigation("index.html", "d.html");
+		hints.recordNavigation("index.html", "index.html");
+
+		// d.html is not linked (search, typed URL) but was opened most often
+		assertEquals(Arrays.asList("/d.html", "/c.html", "/a.html"), hints.rank("index.html"));
+		assertEquals(1, pageReads);
+	}
+
+	@Test
+	public void testPageKeysFollowSpaUrls() {
+		files.put("index.html", "");
+		files.put("guide/index.html", "");
+		files.put("guide/intro.html", "");
+
+		assertEquals("index.html", hints.pageKey("/", 0));
+		assertEquals("guide/index.html", hints.pageKey("/guide/", 0));
+		assertEquals("guide/index.html", hints.pageKey("/guide", 0));
+		assertEquals("guide/intro.html", hints.pageKey("/guide/intro", 0));
+		assertEquals("guide/intro.html", hints.pageKey("/docs/guide/intro.html", 5));
+		assertNull(hints.pageKey("/guide/missing", 0));
+		assertNull(hints.pageKey("/app.js", 0));
+	}
+
+	@Test
+	public void testRefererMustNameThisOriginAndAPage() {
+		files.put("index.html", "");
+		files.put("guide/intro.html", "");
+		files.put("guide/\u00fcber.html", "");
+		String host = "localhost:8080";
+
+		assertEquals("guide/intro.html", hints.refererPage("http://localhost:8080/guide/intro?q=1#top", host));
+		assertEquals("index.html", hints.refererPage("http://LOCALHOST:8080", host));
+		assertEquals("guide/\u00fcber.html", hints.refererPage("http://localhost:8080/guide/%C3%BCber.html", host));
+		assertNull(hints.refererPage("http://localhost:80801/guide/intro", host));
+		assertNull(hints.refererPage("http://example.com/guide/intro", host));
+		assertNull(hints.refererPage("http://localhost:8080/guide/../guide/intro", host));
+		assertNull(hints.refererPage("http://localhost:8080/app.js", host));
+		assertNull(hints.refererPage("localhost:8080/guide/intro", host));
+
+		PrefetchHints mounted = new PrefetchHints(source, "/docs/");
+		assertEquals("guide/intro.html", mounted.refererPage("http://localhost:8080/docs/guide/intro", host));
+		assertNull(mounted.refererPage("http://localhost:8080/guide/intro", host));
+	}
+
+	@Test
+	public void testPrefetchPurposeIsMatchedIgnoringCase() {
+		assertTrue(StaticFileHandler.isPrefetch("prefetch"));
+		assertTrue(StaticFileHandler.isPrefetch("Prefetch;anonymous-client-ip"));
+		assertFalse(StaticFileHandler.isPrefetch("prerender"));
+		assertFalse(StaticFileHandler.isPrefetch(null));
+	}
+
+	@Test
+	public void testMountedSiteLinksStayBelowItsBasePath() {
+		PrefetchHints mounted = new PrefetchHints(source, "/release-notes/");
+		files.put("index.html", "<a href=\"v2.html\">2</a><a href=\"/release-notes/v1/\">1</a>"
+				+ "<a href=\"/guide/\">Outside</a>");
+		files.put("v2.html", "");
+		files.put("v1/index.html", "");
+		files.put("guide/index.html", "");
+
+		assertEquals(Arrays.asList("/release-notes/v2.html", "/release-notes/v1/"), mounted.rank("index.html"));
+	}
+
+	@Test
+	public void testChangeNotificationDropsCachedLinks() {
+		files.put("index.html", "<a href=a.html>A</a>");
+		assertNull(hints.linkFor("index.html"));
+
+		files.put("a.html", "");
+		hints.onPathChanged(null);
+
+		assertEquals("</a.html>; rel=prefetch", hints.linkFor("index.html"));
+	}
+}
@@ -0,0 +1,134 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+
+public class PreloadHintsTest {
+
+	private final Map<String, String> files = new HashMap<>();
+	private int pageReads;
+
+	private final PreloadHints hints = new PreloadHints(new PreloadHints.Source() {
+		@Override
+		public boolean exists(String path) {
+			return files.containsKey(path);
+		}
+
+		@Override
+		public byte[] read(String path) {
+			if (path.endsWith(".html")) {
+				pageReads++;
+			}
+			String content = files.get(path);
+			return content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+		}
+	});
+
+	@Test
+	public void testExtractsStylesScriptsAndFonts() throws Exception {
+		files.put("guide/index.html", "<!DOCTYPE html><html><head>"
+				+ "<!-- <script src=\"/assets/commented.js\"></script> -->"
+				+ "<link rel=\"stylesheet\" href=\"../assets/style.4c1e.css\">"
+				+ "<link rel=\"modulepreload\" href=\"/assets/chunk.9a.js\">"
+				+ "<link rel=\"prefetch\" href=\"/assets/later.js\">"
+				+ "<link rel=icon href=/favicon.ico>"
+				+ "<script type=\"module\" src=\"/assets/app.3f9a.js\"></script>"
+				+ "<script src=\"https://cdn.example.com/x.js\"></script>"
+				+ "<script>var s = '<script src=\"/assets/inline.js\">';</script>"
+				+ "<style>@font-face { font-family: A; src: url('/assets/a.woff2') format('woff2'),"
+				+ " url(/assets/a.woff) format('woff'); }</style>"
+				+ "</head><body><script src=\"/assets/missing.js\" defer></script></body></html>");
+		files.put("assets/style.4c1e.css", "@font-face{font-family:B;src:url(fonts/b.woff2)}body{margin:0}");
+		files.put("assets/chunk.9a.js", "");
+		files.put("assets/later.js", "");
+		files.put("assets/app.3f9a.js", "");
+		files.put("assets/inline.js", "");
+		files.put("assets/commented.js", "");
+		files.put("assets/a.woff2", "");
+		files.put("assets/fonts/b.woff2", "");
+		files.put("favicon.ico", "");
+
+		List<PreloadHints.Hint> result = hints.analyze("guide/index.html");
+
+		assertEquals(5, result.size());
+		assertEquals("</assets/style.4c1e.css>; rel=preload; as=style", result.get(0).toLinkValue());
+		assertEquals("</assets/chunk.9a.js>; rel=modulepreload", result.get(1).toLinkValue());
+		assertEquals("</assets/app.3f9a.js>; rel=modulepreload", result.get(2).toLinkValue());
+		// Linked stylesheet fonts come before inline ones: they were found first
+		assertEquals("</assets/fonts/b.woff2>; rel=preload; as=font; type=\"font/woff2\"; crossorigin",
+				result.get(3).toLinkValue());
+		assertEquals("/assets/a.woff2", result.get(4).getUrl());
+	}
+
+	@Test
+	public void testMountedSiteHintsStayBelowItsBasePath() throws Exception {
+		PreloadHints mounted = new PreloadHints(new PreloadHints.Source() {
+			@Override
+			public boolean exists(String path) {
+				return files.containsKey(path);
+			}
+
+			@Override
+			public byte[] read(String path) {
+				String content = files.get(path);
+				return content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+			}
+		}, "/release-notes/");
+		files.put("v2/index.html", "<html><head>"
+				+ "<link rel=\"stylesheet\" href=\"../assets/style.css\">"
+				+ "<script type=\"module\" src=\"/release-notes/assets/app.js\"></script>"
+				+ "<script src=\"/assets/other-root.js\"></script>"
+				+ "</head></html>");
+		files.put("assets/style.css", "");
+		files.put("assets/app.js", "");
+		files.put("assets/other-root.js", "");
+
+		List<PreloadHints.Hint> result = mounted.analyze("v2/index.html");
+
+		assertEquals(2, result.size());
+		assertEquals("/release-notes/assets/style.css", result.get(0).getUrl());
+		assertEquals("/release-notes/assets/app.js", result.get(1).getUrl());
+	}
+
+	@Test
+	public void testAnalysisIsCachedPerVersion() {
+		files.put("index.html", "<script src=/app.js></script>");
+		files.put("app.js", "");
+
+		assertEquals("</app.js>; rel=preload; as=script", hints.linkFor("index.html", "\"v1\""));
+		assertEquals("</app.js>; rel=preload; as=script", hints.linkFor("index.html", "\"v1\""));
+		assertEquals(1, pageReads);
+
+		files.put("index.html", "<link rel=stylesheet href=app.css>");
+		files.put("app.css", "");
+		assertEquals("</app.css>; rel=preload; as=style", hints.linkFor("index.html", "\"v2\""));
+		assertEquals(2, pageReads);
+	}
+
+	@Test
+	public void testChangeNotificationDropsCachedAnalysis() {
+		files.put("index.html", "<script src=/app.js></script>");
+		assertNull(hints.linkFor("index.html", "\"v1\""));
+
+		files.put("app.js", "");
+		hints.onPathChanged(null);
+
+		assertEquals("</app.js>; rel=preload; as=script", hints.linkFor("index.html", "\"v1\""));
+	}
+
+	@Test
+	public void testHintsAreCapped() throws Exception {
+		StringBuilder page = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			files.put("c" + i + ".js", "");
+			page.append("<script src=\"c").append(i).append(".js\"></script>");
+		}
+		files.put("index.html", page.toString());
+
+		assertEquals(PreloadHints.MAX_HINTS, hints.analyze("index.html").size());
+	}
+}
@@ -0,0 +1,114 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class RequestExecutorTest {
+
+	private final HttpServerConfig baseConfig = new HttpServerConfig("/tmp", 0, "127.0.0.1");
+	private RequestExecutor executor;
+
+	@After
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testBoundedPoolRunsRequestsInParallel() throws Exception {
+		executor = RequestExecutor.create(baseConfig.withWorkerPool(4, 16), "test-worker");
+		CountDownLatch allStarted = new CountDownLatch(4);
+		CountDownLatch release = new CountDownLatch(1);
+
+		for (int i = 0; i < 4; i++) {
+			executor.execute(() -> {
+				allStarted.countDown();
+				await(release);
+			});
+		}
+
+		assertTrue("all requests should run at once", allStarted.await(5, TimeUnit.SECONDS));
+		assertEquals(4, executor.stats().getActiveWorkers());
+		release.countDown();
+	}
+
+	@Test
+	public void testQueueDepthAndOverflowReported() throws Exception {
+		executor = RequestExecutor.create(baseConfig.withWorkerPool(1, 1), "test-worker");
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		executor.execute(() -> {
+			started.countDown();
+			await(release);
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		executor.execute(() -> { });                 // queued
+		executor.execute(() -> { });                 // queue full: runs on this thread
+
+		WorkerPoolStats stats = executor.stats();
+		assertEquals(1, stats.getQueueDepth());
+		assertEquals(1, stats.getOverflowRuns());
+		release.countDown();
+	}
+
+	@Test
+	public void testNothingRunsInlineAfterShutdown() {
+		executor = RequestExecutor.create(baseConfig.withWorkerPool(1, 1), "test-worker");
+		executor.shutdown();
+		boolean[] ran = new boolean[1];
+
+		try {
+			executor.execute(() -> ran[0] = true);
+			fail("Accepted a request after shutdown");
+		} catch (RejectedExecutionException expected) {
+			// The engine closes the connection
+		}
+
+		assertFalse(ran[0]);
+		assertEquals(0, executor.stats().getOverflowRuns());
+	}
+
+	@Test
+	public void testDispatcherThreadRunsInline() {
+		executor = RequestExecutor.create(
+				baseConfig.withExecutorStrategy(ExecutorStrategy.DISPATCHER_THREAD), "test-worker");
+		Thread caller = Thread.currentThread();
+		Thread[] ranOn = new Thread[1];
+
+		executor.execute(() -> ranOn[0] = Thread.currentThread());
+
+		assertSame(caller, ranOn[0]);
+		assertEquals(1, executor.stats().getCompletedRequests());
+	}
+
+	@Test
+	public void testVirtualThreadsRunOrFallBack() throws Exception {
+		executor = RequestExecutor.create(
+				baseConfig.withExecutorStrategy(ExecutorStrategy.VIRTUAL_THREADS), "test-worker");
+		CountDownLatch ran = new CountDownLatch(1);
+
+		executor.execute(ran::countDown);
+
+		assertTrue(ran.await(5, TimeUnit.SECONDS));
+		assertNotEquals(ExecutorStrategy.DISPATCHER_THREAD, executor.getStrategy());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWorkerPoolValidation() {
+		baseConfig.withWorkerPool(0, 10);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
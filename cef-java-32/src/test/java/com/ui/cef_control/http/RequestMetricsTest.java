@@ -0,0 +1,56 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RequestMetricsTest {
+
+	@Test
+	public void testRecordsPerRouteAndStatus() {
+		RequestMetrics metrics = new RequestMetrics();
+		long start = metrics.requestStarted();
+		assertEquals(1, metrics.getInFlight());
+		metrics.requestCompleted(RouteClass.SCRIPT, 200, 1234, start);
+		metrics.requestCompleted(RouteClass.FALLBACK, 304, 0, metrics.requestStarted());
+		metrics.requestCompleted(RouteClass.OTHER, -1, 0, metrics.requestStarted());
+
+		RequestMetricsStats stats = metrics.stats();
+		assertEquals(0, stats.getInFlight());
+		assertEquals(3, stats.getTotalRequests());
+		assertEquals(1, stats.getRoutes().get(RouteClass.SCRIPT).getRequests());
+		assertEquals(1234, stats.getRoutes().get(RouteClass.SCRIPT).getBytes());
+		assertEquals(0, stats.getRoutes().get(RouteClass.IMAGE).getRequests());
+		assertEquals(Long.valueOf(1), stats.getStatusCounts().get(200));
+		assertEquals(Long.valueOf(1), stats.getStatusCounts().get(304));
+		assertEquals(Long.valueOf(1), stats.getStatusCounts().get(0));
+	}
+
+	@Test
+	public void testRouteClassFromContentType() {
+		assertEquals(RouteClass.HTML, RouteClass.of("text/html; charset=utf-8"));
+		assertEquals(RouteClass.SCRIPT, RouteClass.of("application/javascript"));
+		assertEquals(RouteClass.STYLE, RouteClass.of("text/css"));
+		assertEquals(RouteClass.IMAGE, RouteClass.of("image/svg+xml"));
+		assertEquals(RouteClass.FONT, RouteClass.of("font/woff2"));
+		assertEquals(RouteClass.MEDIA, RouteClass.of("video/mp4"));
+		assertEquals(RouteClass.OTHER, RouteClass.of("application/json"));
+	}
+
+	@Test
+	public void testRenderTextAndJson() {
+		RequestMetrics metrics = new RequestMetrics();
+		metrics.requestCompleted(RouteClass.HTML, 200, 10, metrics.requestStarted());
+		AssetCacheStats cache = new AssetCacheStats(3, 1, 0, 1, 10, 100);
+		WorkerPoolStats workers = new WorkerPoolStats(ExecutorStrategy.BOUNDED_POOL, 0, 0, 1, 1, 0);
+
+		String text = MetricsHandler.renderText(metrics.stats(), cache, workers, null);
+		assertTrue(text.contains("http_requests_total{route=\"html\"} 1\n"));
+		assertTrue(text.contains("http_responses_total{status=\"200\"} 1\n"));
+		assertTrue(text.contains("asset_cache_hit_ratio 0.7500\n"));
+
+		String json = MetricsHandler.renderJson(metrics.stats(), cache, null, null);
+		assertTrue(json.startsWith("{\"inFlight\":0,\"routes\":{\"html\":{\"requests\":1,\"bytes\":10,"));
+		assertTrue(json.contains("\"statusCounts\":{\"200\":1}"));
+		assertTrue(json.endsWith("\"usedBytes\":10}}"));
+	}
+}
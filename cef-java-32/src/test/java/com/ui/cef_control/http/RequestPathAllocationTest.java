@@ -0,0 +1,124 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Guards the steady-state request path against per-request garbage:
+ * path resolution, encoding negotiation and conditional checks must not
+ * allocate once warmed up. Bytes are counted per thread, so the test is
+ * not disturbed by other threads (JIT compiler threads included).
+ */
+public class RequestPathAllocationTest {
+
+	private static final int WARMUP = 200_000;
+	private static final int OPERATIONS = 200_000;
+
+	// Slack for a stray allocation during measurement (e.g. a deoptimization)
+	private static final double MAX_BYTES_PER_OP = 1.0;
+
+	private Path root;
+	private StaticSite site;
+	private com.sun.management.ThreadMXBean threads;
+
+	@Before
+	public void setUp() throws IOException {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		root = Files.createTempDirectory("request_path_allocation_test_").toRealPath();
+		Files.write(root.resolve("index.html"), "<html></html>".getBytes());
+		Files.createDirectories(root.resolve("assets/js"));
+		Files.write(root.resolve("assets/js/app.3f9a1c2b.js"), "let a;".getBytes());
+		Files.createDirectories(root.resolve("guide"));
+		Files.write(root.resolve("guide/intro.html"), "<html></html>".getBytes());
+		site = StaticSite.open(root, new AssetCache(1024 * 1024), HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES,
+				CachePolicy.defaults());
+		site.awaitIndexed();
+	}
+
+	@After
+	public void tearDown() {
+		if (site != null) {
+			site.close();
+		}
+	}
+
+	@Test
+	public void testResolveDoesNotAllocate() {
+		assertNotNull(site.resolve("/assets/js/app.3f9a1c2b.js"));
+		assertNull(site.resolve("/guide/spa-route"));
+
+		assertAllocationFree(() -> {
+			site.resolve("/assets/js/app.3f9a1c2b.js");
+			site.resolve("/guide/spa-route");
+		});
+	}
+
+	@Test
+	public void testPageRequestWithRefererDoesNotAllocate() {
+		PrefetchHints prefetch = site.getPrefetchHints();
+		String referer = "http://127.0.0.1:8080/guide/intro?from=nav#setup";
+		assertEquals("guide/intro.html", prefetch.refererPage(referer, "127.0.0.1:8080"));
+		assertEquals("index.html", prefetch.pageKey("/", 0));
+		assertFalse(StaticFileHandler.isPrefetch("anonymous-client-ip"));
+
+		// What the handler does for a page request: map it, rule out a prefetch, count the step
+		assertAllocationFree(() -> {
+			String page = prefetch.pageKey("/", 0);
+			if (!StaticFileHandler.isPrefetch("anonymous-client-ip")) {
+				prefetch.recordNavigation(prefetch.refererPage(referer, "127.0.0.1:8080"), page);
+			}
+		});
+	}
+
+	@Test
+	public void testNegotiateDoesNotAllocate() {
+		Map<String, Object> variants = new HashMap<>();
+		variants.put(Compression.BROTLI, new byte[0]);
+		variants.put(Compression.GZIP, new byte[0]);
+		assertEquals(Compression.BROTLI, Compression.negotiate("gzip;q=0.8, deflate, br", variants));
+
+		assertAllocationFree(() -> {
+			Compression.negotiate("gzip;q=0.8, deflate, br", variants);
+			Compression.negotiate("gzip, deflate", variants);
+		});
+	}
+
+	@Test
+	public void testConditionalChecksDoNotAllocate() {
+		ContentHashIndex.Validator validator = new ContentHashIndex.Validator("\"3f9a1c0d\"", 6, 1_700_000_000_000L);
+		String ifNoneMatch = "\"0000\", " + validator.etagFor(Compression.GZIP);
+		assertTrue(validator.matches(ifNoneMatch));
+
+		assertAllocationFree(() -> {
+			validator.matches(ifNoneMatch);
+			validator.etagFor(Compression.BROTLI);
+		});
+	}
+
+	private void assertAllocationFree(Runnable operation) {
+		for (int i = 0; i < WARMUP; i++) {
+			operation.run();
+		}
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < OPERATIONS; i++) {
+			operation.run();
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		double perOperation = allocated / (double) OPERATIONS;
+		assertTrue("allocated " + perOperation + " B/op", perOperation <= MAX_BYTES_PER_OP);
+	}
+}
@@ -0,0 +1,275 @@
+package com.ui.cef_control.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+public class SearchIndexTest {
+
+	private Path tempDir;
+	private VuePressHttpServer server;
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = Files.createTempDirectory("search_index_test_");
+	}
+
+	@After
+	public void tearDown() {
+		if (server != null && server.isRunning()) {
+			server.stop();
+		}
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void testParallelBuildRanksByBm25() throws Exception {
+		page("guide/mounts.html", "Mounting roots", "A mount serves a root. Mount several roots on one mount point.");
+		page("guide/index.html", "Guide", "Start here. The mount page explains roots.");
+		page("reference/config.html", "Config", "Every setting of the server.");
+		for (int i = 0; i < 30; i++) {
+			page("filler/page" + i + ".html", "Filler " + i, "Unrelated text about caching number " + i);
+		}
+		SearchIndex index = new SearchIndex(tempDir, "/");
+
+		index.buildAsync().get(10, TimeUnit.SECONDS);
+
+		assertEquals(33, index.size());
+		SearchIndex.Result result = index.search("mount roots", 10);
+		assertEquals(2, result.getTotal());
+		assertEquals("/guide/mounts.html", result.getHits().get(0).getUrl());
+		assertEquals("Mounting roots", result.getHits().get(0).getTitle());
+		assertEquals("/guide/", result.getHits().get(1).getUrl());
+		assertTrue(result.getHits().get(0).getScore() > result.getHits().get(1).getScore());
+	}
+
+	@Test
+	public void testLastTermMatchesAsPrefix() throws Exception {
+		page("a.html", "Admission", "Admission control sheds load.");
+		page("b.html", "Health", "Probes of the health endpoint.");
+		SearchIndex index = built();
+
+		assertEquals("/a.html", index.search("admi", 10).getHits().get(0).getUrl());
+		assertEquals(1, index.search("sheds adm", 10).getTotal());
+		// Only the last term is a prefix
+		assertEquals(0, index.search("adm control", 10).getTotal());
+		assertEquals(0, index.search("xyz", 10).getTotal());
+	}
+
+	@Test
+	public void testOnlyMainContentIsIndexed() throws Exception {
+		Files.write(tempDir.resolve("page.html"), ("<html><head><title>Site | Page</title>"
+				+ "<script>var hidden = 'scripted';</script></head><body>"
+				+ "<nav>Sidebar navlink</nav><main class=\"page\"><h1>Real <code>Title</code></h1>"
+				+ "<p>Body&nbsp;text &amp; more</p><style>.styled{}</style><!-- commented --></main></body></html>")
+				.getBytes(StandardCharsets.UTF_8));
+		SearchIndex index = built();
+
+		assertEquals(1, index.search("body more", 10).getTotal());
+		assertEquals(0, index.search("navlink", 10).getTotal());
+		assertEquals(0, index.search("scripted", 10).getTotal());
+		assertEquals(0, index.search("styled", 10).getTotal());
+		assertEquals(0, index.search("commented", 10).getTotal());
+		SearchIndex.Hit hit = index.search("real", 10).getHits().get(0);
+		assertEquals("Real Title", hit.getTitle());
+		assertEquals("Body text & more", hit.getExcerpt());
+	}
+
+	@Test
+	public void testChangedAndDeletedPagesAreReindexed() throws Exception {
+		Path file = page("guide/page.html", "Page", "Original wording.");
+		page("guide/other.html", "Other", "Original content too.");
+		SearchIndex index = built();
+		assertEquals(2, index.search("original", 10).getTotal());
+
+		page("guide/page.html", "Page", "Rewritten wording.");
+		changed(index, file);
+
+		assertEquals(1, index.search("original", 10).getTotal());
+		assertEquals("/guide/page.html", index.search("rewritten", 10).getHits().get(0).getUrl());
+		assertEquals(2, index.size());
+
+		Files.delete(file);
+		changed(index, file);
+
+		assertEquals(0, index.search("rewritten", 10).getTotal());
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void testChangesAreReindexedOnThePool() throws Exception {
+		Path file = page("guide/page.html", "Page", "Original wording.");
+		page("guide/other.html", "Other", "Original content too.");
+		SearchIndex index = built();
+		CountDownLatch release = new CountDownLatch(2);
+		for (int i = 0; i < 2; i++) {
+			pool.execute(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+
+		page("guide/page.html", "Page", "Rewritten wording.");
+		index.onPathChanged(file);
+		index.onPathChanged(tempDir.resolve("assets/app.js"));
+
+		// Dropped at once, read only once the pool gets to it
+		assertEquals(1, index.search("original", 10).getTotal());
+		assertEquals(0, index.search("rewritten", 10).getTotal());
+		release.countDown();
+		release.countDown();
+		assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+		assertEquals(1, index.search("rewritten", 10).getTotal());
+		assertEquals(2, index.size());
+
+		// A directory moved in is indexed as a whole
+		Path moved = Files.createTempDirectory("search_index_moved_");
+		Files.write(moved.resolve("new.html"), html("New", "Freshly moved in."));
+		Path dir = Files.move(moved, tempDir.resolve("guide/moved"));
+		changed(index, dir);
+		assertEquals("/guide/moved/new.html", index.search("freshly", 10).getHits().get(0).getUrl());
+
+		// Only the pages below a deleted directory are dropped, not its siblings
+		Files.delete(dir.resolve("new.html"));
+		Files.delete(dir);
+		changed(index, dir);
+		assertEquals(0, index.search("freshly", 10).getTotal());
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testManyChangesKeepSegmentCountBounded() throws Exception {
+		Path file = page("page.html", "Page", "version start");
+		for (int i = 0; i < 20; i++) {
+			page("stable" + i + ".html", "Stable " + i, "stable content");
+		}
+		SearchIndex index = built();
+
+		for (int i = 0; i < 40; i++) {
+			page("page.html", "Page", "version v" + i);
+			changed(index, file);
+			assertTrue(index.segmentCount() <= SearchIndex.MAX_SEGMENTS);
+		}
+
+		assertEquals(21, index.size());
+		assertEquals(1, index.search("version", 10).getTotal());
+		assertEquals(1, index.search("v39", 10).getTotal());
+		assertEquals(0, index.search("v38", 10).getTotal());
+		assertEquals(20, index.search("stable", 50).getTotal());
+	}
+
+	@Test
+	public void testLimitKeepsBestHits() throws Exception {
+		for (int i = 1; i <= 5; i++) {
+			StringBuilder body = new StringBuilder();
+			for (int r = 0; r < i; r++) {
+				body.append("cache ");
+			}
+			page("p" + i + ".html", "Page " + i, body + "and other words to pad the page length");
+		}
+		SearchIndex index = built();
+
+		SearchIndex.Result result = index.search("cache", 2);
+
+		assertEquals(5, result.getTotal());
+		assertEquals(2, result.getHits().size());
+		assertEquals("/p5.html", result.getHits().get(0).getUrl());
+		assertEquals("/p4.html", result.getHits().get(1).getUrl());
+	}
+
+	@Test
+	public void testJsonEscaping() {
+		SearchIndex.Result result = new SearchIndex.Result(Collections.singletonList(
+				new SearchIndex.Hit("/a.html", "Say \"hi\"", "back\\slash\nline", 1.5)), 1);
+
+		String json = SearchHandler.renderJson("q\"", result);
+
+		assertEquals("{\"query\":\"q\\\"\",\"total\":1,\"results\":[{\"url\":\"/a.html\",\"title\":\"Say \\\"hi\\\"\","
+				+ "\"excerpt\":\"back\\\\slash\\nline\",\"score\":1.5000}]}", json);
+	}
+
+	@Test
+	public void testSearchEndpointCoversPathMounts() throws Exception {
+		page("index.html", "Docs", "Welcome to the docs about widgets.");
+		Path notes = Files.createTempDirectory("search_index_notes_");
+		Files.write(notes.resolve("v2.html"), html("Release 2", "Widgets got faster in this release."));
+		server = new VuePressHttpServer(new HttpServerConfig(tempDir.toString(), 0, "127.0.0.1")
+				.withMount("/release-notes", notes.toString()));
+		server.start();
+		String base = "http://" + server.getActualAddress() + SearchHandler.CONTEXT_PATH;
+
+		String json = get(base + "?q=widgets");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!json.contains("\"total\":2") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			json = get(base + "?q=widgets");
+		}
+
+		assertTrue(json, json.contains("\"total\":2"));
+		assertTrue(json.contains("\"url\":\"/\""));
+		assertTrue(json.contains("\"url\":\"/release-notes/v2.html\""));
+		assertTrue(get(base + "?q=fast&limit=1").contains("\"title\":\"Release 2\""));
+		assertEquals(400, status(base + "?q=x&limit=0"));
+	}
+
+	private SearchIndex built() throws Exception {
+		SearchIndex index = new SearchIndex(tempDir, "/", pool);
+		index.buildAsync().get(10, TimeUnit.SECONDS);
+		return index;
+	}
+
+	private void changed(SearchIndex index, Path path) {
+		index.onPathChanged(path);
+		assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+	}
+
+	private Path page(String path, String title, String body) throws IOException {
+		Path file = tempDir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, html(title, body));
+		return file;
+	}
+
+	private static byte[] html(String title, String body) {
+		return ("<html><head><title>" + title + " | Docs</title></head><body><nav>Home Guide</nav>"
+				+ "<main><h1>" + title + "</h1><p>" + body + "</p></main></body></html>")
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String get(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			in.transferTo(out);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static int status(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
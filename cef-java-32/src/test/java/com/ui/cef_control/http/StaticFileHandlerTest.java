@@ -142,10 +142,424 @@ public class StaticFileHandlerTest {
 		assertEquals(404, exchange.getResponseCodeInternal());
 	}
 
+	@Test
+	public void testRepeatedRequestServedFromCache() throws IOException {
+		AssetCache cache = new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES);
+		StaticFileHandler cachingHandler = new StaticFileHandler(tempDir, cache);
+
+		cachingHandler.handle(new TestHttpExchange("GET", "/style.css"));
+		TestHttpExchange second = new TestHttpExchange("GET", "/style.css");
+		cachingHandler.handle(second);
+
+		assertEquals(200, second.getResponseCodeInternal());
+		assertTrue(second.getResponseBodyString().contains("color: red"));
+		assertEquals("text/css", second.getResponseHeaders().getFirst("Content-Type"));
+		assertEquals(1, cache.stats().getMisses());
+		assertEquals(1, cache.stats().getHits());
+	}
+
+	@Test
+	public void testGzipVariantServedWhenAccepted() throws IOException {
+		StringBuilder css = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			css.append(".rule-").append(i).append(" { color: red; }\n");
+		}
+		Files.write(tempDir.resolve("large.css"), css.toString().getBytes());
+
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/large.css")
+				.withRequestHeader("Accept-Encoding", "gzip, deflate, br");
+		handler.handle(exchange);
+
+		assertEquals(200, exchange.getResponseCodeInternal());
+		assertEquals("gzip", exchange.getResponseHeaders().getFirst("Content-Encoding"));
+		assertEquals("Accept-Encoding", exchange.getResponseHeaders().getFirst("Vary"));
+		byte[] body = exchange.getResponseBytes();
+		try (java.util.zip.GZIPInputStream in = new java.util.zip.GZIPInputStream(
+				new java.io.ByteArrayInputStream(body))) {
+			assertEquals(css.toString(), new String(in.readAllBytes()));
+		}
+	}
+
+	@Test
+	public void testIdentityServedWithoutAcceptEncoding() throws IOException {
+		byte[] css = new byte[4096];
+		java.util.Arrays.fill(css, (byte) 'a');
+		Files.write(tempDir.resolve("plain.css"), css);
+
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/plain.css");
+		handler.handle(exchange);
+
+		assertNull(exchange.getResponseHeaders().getFirst("Content-Encoding"));
+		assertEquals(css.length, exchange.getResponseBytes().length);
+	}
+
+	@Test
+	public void testLargeFileStreamedWithoutCaching() throws IOException {
+		byte[] font = new byte[300_000];
+		new java.util.Random(42).nextBytes(font);
+		Files.write(tempDir.resolve("big.woff2"), font);
+		AssetCache cache = new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES);
+		StaticFileHandler streamingHandler = new StaticFileHandler(tempDir, cache, 64 * 1024);
+
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/big.woff2");
+		streamingHandler.handle(exchange);
+
+		assertEquals(200, exchange.getResponseCodeInternal());
+		assertEquals("font/woff2", exchange.getResponseHeaders().getFirst("Content-Type"));
+		assertArrayEquals(font, exchange.getResponseBytes());
+		assertEquals(0, cache.stats().getEntryCount());
+	}
+
+	@Test
+	public void testResponsesCarryValidators() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css");
+
+		handler.handle(exchange);
+
+		String etag = exchange.getResponseHeaders().getFirst("ETag");
+		assertNotNull(etag);
+		assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+		assertNotNull(exchange.getResponseHeaders().getFirst("Last-Modified"));
+	}
+
+	@Test
+	public void testMatchingIfNoneMatchReturns304() throws IOException {
+		TestHttpExchange first = new TestHttpExchange("GET", "/script.js");
+		handler.handle(first);
+		String etag = first.getResponseHeaders().getFirst("ETag");
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/script.js")
+				.withRequestHeader("If-None-Match", "\"other\", " + etag);
+		handler.handle(revalidate);
+
+		assertEquals(304, revalidate.getResponseCodeInternal());
+		assertEquals(0, revalidate.getResponseBytes().length);
+		assertEquals(etag, revalidate.getResponseHeaders().getFirst("ETag"));
+	}
+
+	@Test
+	public void testFingerprintedAssetIsImmutable() throws IOException {
+		Files.write(tempDir.resolve("app.3f9a1c2b.js"), "console.log('hashed');".getBytes());
+		TestHttpExchange first = new TestHttpExchange("GET", "/app.3f9a1c2b.js");
+		handler.handle(first);
+		String etag = first.getResponseHeaders().getFirst("ETag");
+
+		assertEquals(CachePolicy.IMMUTABLE, first.getResponseHeaders().getFirst("Cache-Control"));
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/app.3f9a1c2b.js")
+				.withRequestHeader("If-None-Match", etag);
+		handler.handle(revalidate);
+
+		assertEquals(304, revalidate.getResponseCodeInternal());
+		assertEquals(CachePolicy.IMMUTABLE, revalidate.getResponseHeaders().getFirst("Cache-Control"));
+	}
+
+	@Test
+	public void testHtmlAndSpaFallbackAreRevalidated() throws IOException {
+		TestHttpExchange fallback = new TestHttpExchange("GET", "/guide/not-a-file");
+		handler.handle(fallback);
+		TestHttpExchange script = new TestHttpExchange("GET", "/script.js");
+		handler.handle(script);
+
+		assertEquals("no-cache", fallback.getResponseHeaders().getFirst("Cache-Control"));
+		assertEquals("no-cache", script.getResponseHeaders().getFirst("Cache-Control"));
+	}
+
+	@Test
+	public void testStaleIfNoneMatchReturns200() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/script.js")
+				.withRequestHeader("If-None-Match", "\"0123456789abcdef0123456789abcdef\"");
+
+		handler.handle(exchange);
+
+		assertEquals(200, exchange.getResponseCodeInternal());
+		assertTrue(exchange.getResponseBodyString().contains("console.log"));
+	}
+
+	@Test
+	public void testIfModifiedSinceReturns304WhenUnchanged() throws IOException {
+		TestHttpExchange first = new TestHttpExchange("GET", "/style.css");
+		handler.handle(first);
+		String lastModified = first.getResponseHeaders().getFirst("Last-Modified");
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("If-Modified-Since", lastModified);
+		handler.handle(revalidate);
+
+		assertEquals(304, revalidate.getResponseCodeInternal());
+	}
+
+	@Test
+	public void testIfModifiedSinceBeforeChangeReturns200() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT");
+
+		handler.handle(exchange);
+
+		assertEquals(200, exchange.getResponseCodeInternal());
+	}
+
+	@Test
+	public void testEncodedVariantHasDistinctEtagAndRevalidates() throws IOException {
+		byte[] js = new byte[8192];
+		java.util.Arrays.fill(js, (byte) ';');
+		Files.write(tempDir.resolve("app.js"), js);
+
+		TestHttpExchange identity = new TestHttpExchange("GET", "/app.js");
+		handler.handle(identity);
+		TestHttpExchange gzip = new TestHttpExchange("GET", "/app.js")
+				.withRequestHeader("Accept-Encoding", "gzip");
+		handler.handle(gzip);
+
+		String gzipEtag = gzip.getResponseHeaders().getFirst("ETag");
+		assertNotEquals(identity.getResponseHeaders().getFirst("ETag"), gzipEtag);
+		assertTrue(gzipEtag.endsWith("-gzip\""));
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/app.js")
+				.withRequestHeader("Accept-Encoding", "gzip")
+				.withRequestHeader("If-None-Match", gzipEtag);
+		handler.handle(revalidate);
+		assertEquals(304, revalidate.getResponseCodeInternal());
+	}
+
+	@Test
+	public void testSingleRangeReturns206() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("Range", "bytes=0-3");
+
+		handler.handle(exchange);
+
+		assertEquals(206, exchange.getResponseCodeInternal());
+		assertEquals("body", exchange.getResponseBodyString());
+		assertEquals("bytes 0-3/20", exchange.getResponseHeaders().getFirst("Content-Range"));
+		assertEquals("bytes", exchange.getResponseHeaders().getFirst("Accept-Ranges"));
+	}
+
+	@Test
+	public void testMultipleRangesReturnMultipart() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("Range", "bytes=0-3,-4");
+
+		handler.handle(exchange);
+
+		assertEquals(206, exchange.getResponseCodeInternal());
+		String contentType = exchange.getResponseHeaders().getFirst("Content-Type");
+		assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+		String body = exchange.getResponseBodyString();
+		assertTrue(body.contains("Content-Range: bytes 0-3/20\r\n\r\nbody"));
+		assertTrue(body.contains("Content-Range: bytes 16-19/20\r\n\r\nd; }"));
+		assertTrue(body.endsWith("--" + contentType.substring(contentType.indexOf('=') + 1) + "--\r\n"));
+	}
+
+	@Test
+	public void testUnsatisfiableRangeReturns416() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("Range", "bytes=100-200");
+
+		handler.handle(exchange);
+
+		assertEquals(416, exchange.getResponseCodeInternal());
+		assertEquals("bytes */20", exchange.getResponseHeaders().getFirst("Content-Range"));
+	}
+
+	@Test
+	public void testStaleIfRangeReturnsFullBody() throws IOException {
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("Range", "bytes=0-3")
+				.withRequestHeader("If-Range", "\"stale\"");
+
+		handler.handle(exchange);
+
+		assertEquals(200, exchange.getResponseCodeInternal());
+		assertEquals("body { color: red; }", exchange.getResponseBodyString());
+	}
+
+	@Test
+	public void testRangeOfLargeFileReadsOnlyThatRegion() throws IOException {
+		byte[] video = new byte[500_000];
+		new java.util.Random(7).nextBytes(video);
+		Files.write(tempDir.resolve("intro.mp4"), video);
+		StaticFileHandler streamingHandler = new StaticFileHandler(tempDir,
+				new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES), 64 * 1024);
+
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/intro.mp4")
+				.withRequestHeader("Range", "bytes=400000-400999");
+		streamingHandler.handle(exchange);
+
+		assertEquals(206, exchange.getResponseCodeInternal());
+		assertArrayEquals(java.util.Arrays.copyOfRange(video, 400_000, 401_000), exchange.getResponseBytes());
+		assertEquals("bytes 400000-400999/500000", exchange.getResponseHeaders().getFirst("Content-Range"));
+	}
+
+	@Test
+	public void testRequestsAreRecordedByRouteClass() throws IOException {
+		RequestMetrics metrics = new RequestMetrics();
+		StaticFileHandler measured = new StaticFileHandler(
+				StaticSite.unwatched(tempDir, new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES), 1024 * 1024),
+				metrics);
+
+		measured.handle(new TestHttpExchange("GET", "/script.js"));
+		measured.handle(new TestHttpExchange("GET", "/guide/some-route"));
+		measured.handle(new TestHttpExchange("POST", "/script.js"));
+
+		RequestMetricsStats stats = metrics.stats();
+		assertEquals(1, stats.getRoutes().get(RouteClass.SCRIPT).getRequests());
+		assertEquals(20, stats.getRoutes().get(RouteClass.SCRIPT).getBytes());
+		assertEquals(1, stats.getRoutes().get(RouteClass.FALLBACK).getRequests());
+		assertEquals(Long.valueOf(2), stats.getStatusCounts().get(200));
+		assertEquals(Long.valueOf(1), stats.getStatusCounts().get(405));
+		assertEquals(0, stats.getInFlight());
+	}
+
+	@Test
+	public void testServeFromDocsPack() throws IOException {
+		Files.write(tempDir.resolve("app.3f9a1c2b.js"), repeat("console.log('packed');\n", 200).getBytes());
+		Path packFile = Files.createTempFile("static_handler_test_", ".pack");
+		DocsPacker.pack(tempDir, packFile);
+		StaticFileHandler packHandler = new StaticFileHandler(StaticSite.packed(
+				DocsPack.open(packFile, CachePolicy.defaults()), new AssetCache(0)));
+
+		TestHttpExchange css = new TestHttpExchange("GET", "/style.css");
+		packHandler.handle(css);
+		assertEquals(200, css.getResponseCodeInternal());
+		assertEquals("body { color: red; }", css.getResponseBodyString());
+		assertEquals("text/css", css.getResponseHeaders().getFirst("Content-Type"));
+
+		TestHttpExchange fallback = new TestHttpExchange("GET", "/guide/intro");
+		packHandler.handle(fallback);
+		assertTrue(fallback.getResponseBodyString().contains("Index"));
+		assertEquals("no-cache", fallback.getResponseHeaders().getFirst("Cache-Control"));
+
+		TestHttpExchange gzip = new TestHttpExchange("GET", "/app.3f9a1c2b.js")
+				.withRequestHeader("Accept-Encoding", "gzip");
+		packHandler.handle(gzip);
+		assertEquals("gzip", gzip.getResponseHeaders().getFirst("Content-Encoding"));
+		assertEquals(CachePolicy.IMMUTABLE, gzip.getResponseHeaders().getFirst("Cache-Control"));
+
+		TestHttpExchange range = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("Range", "bytes=7-11");
+		packHandler.handle(range);
+		assertEquals(206, range.getResponseCodeInternal());
+		assertEquals("color", range.getResponseBodyString());
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/style.css")
+				.withRequestHeader("If-None-Match", css.getResponseHeaders().getFirst("ETag"));
+		packHandler.handle(revalidate);
+		assertEquals(304, revalidate.getResponseCodeInternal());
+	}
+
+	@Test
+	public void testHtmlResponsesCarryPreloadLinks() throws IOException {
+		Files.write(tempDir.resolve("index.html"), ("<html><head><link rel=\"stylesheet\" href=\"/style.css\">"
+				+ "<script src=\"script.js\" defer></script><script src=\"/missing.js\"></script>"
+				+ "</head><body>Index</body></html>").getBytes());
+
+		TestHttpExchange page = new TestHttpExchange("GET", "/guide/some-route");
+		handler.handle(page);
+		assertEquals("</style.css>; rel=preload; as=style, </script.js>; rel=preload; as=script",
+				page.getResponseHeaders().getFirst("Link"));
+
+		TestHttpExchange script = new TestHttpExchange("GET", "/script.js");
+		handler.handle(script);
+		assertNull(script.getResponseHeaders().getFirst("Link"));
+	}
+
+	@Test
+	public void testPageResponsesCarryPrefetchLinksFromObservedNavigation() throws IOException {
+		Files.write(tempDir.resolve("index.html"), "<html><body><main>Index</main></body></html>".getBytes());
+		Files.createDirectories(tempDir.resolve("guide"));
+		Files.write(tempDir.resolve("guide/a.html"), "<html><body>A</body></html>".getBytes());
+		Files.write(tempDir.resolve("guide/b.html"), "<html><body>B</body></html>".getBytes());
+
+		TestHttpExchange before = new TestHttpExchange("GET", "/guide/a");
+		handler.handle(before);
+		assertNull(before.getResponseHeaders().getFirst("Link"));
+
+		handler.handle(new TestHttpExchange("GET", "/guide/b.html")
+				.withRequestHeader("Host", "127.0.0.1:8080")
+				.withRequestHeader("Referer", "http://127.0.0.1:8080/guide/a?x=1"));
+		// Other origins and prefetches are not navigation
+		handler.handle(new TestHttpExchange("GET", "/")
+				.withRequestHeader("Host", "127.0.0.1:8080")
+				.withRequestHeader("Referer", "http://example.com/guide/a"));
+		handler.handle(new TestHttpExchange("GET", "/")
+				.withRequestHeader("Host", "127.0.0.1:8080")
+				.withRequestHeader("Referer", "http://127.0.0.1:8080/guide/a")
+				.withRequestHeader("Sec-Purpose", "prefetch"));
+
+		TestHttpExchange after = new TestHttpExchange("GET", "/guide/a");
+		handler.handle(after);
+		assertEquals("</guide/b.html>; rel=prefetch", after.getResponseHeaders().getFirst("Link"));
+	}
+
+	@Test
+	public void testTransformedHtmlHasItsOwnValidators() throws IOException {
+		Files.write(tempDir.resolve("index.html"), ("<html>\n  <head>\n    <link rel=\"stylesheet\" href=\"/style.css\">"
+				+ "\n  </head>\n  <body>Index</body>\n</html>").getBytes());
+		StaticFileHandler transforming = new StaticFileHandler(StaticSite.unwatched(tempDir,
+				new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES), HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES)
+				.withHtmlTransform(new HttpServerConfig(tempDir.toString(), 0, "127.0.0.1").withHtmlTransform(true)));
+
+		TestHttpExchange page = new TestHttpExchange("GET", "/guide/some-route");
+		transforming.handle(page);
+		assertEquals(200, page.getResponseCodeInternal());
+		assertEquals("<html>\n<head>\n<style>body { color: red; }</style>\n</head>\n<body>Index</body>\n</html>",
+				page.getResponseBodyString());
+		assertNull(page.getResponseHeaders().getFirst("Link"));
+		String etag = page.getResponseHeaders().getFirst("ETag");
+
+		TestHttpExchange plain = new TestHttpExchange("GET", "/");
+		handler.handle(plain);
+		assertNotEquals(etag, plain.getResponseHeaders().getFirst("ETag"));
+
+		TestHttpExchange revalidate = new TestHttpExchange("GET", "/").withRequestHeader("If-None-Match", etag);
+		transforming.handle(revalidate);
+		assertEquals(304, revalidate.getResponseCodeInternal());
+
+		TestHttpExchange css = new TestHttpExchange("GET", "/style.css");
+		transforming.handle(css);
+		assertEquals("body { color: red; }", css.getResponseBodyString());
+	}
+
+	@Test
+	public void testSwappedSiteStaysOpenForRunningRequests() throws IOException {
+		Path nextDir = Files.createTempDirectory("static_handler_next_");
+		Files.write(nextDir.resolve("index.html"), "<html><body>Next</body></html>".getBytes());
+		StaticSite first = StaticSite.unwatched(tempDir, new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES),
+				HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES);
+		StaticSite next = StaticSite.unwatched(nextDir, new AssetCache(AssetCache.DEFAULT_BUDGET_BYTES),
+				HttpServerConfig.DEFAULT_LARGE_FILE_THRESHOLD_BYTES);
+		StaticFileHandler swapping = new StaticFileHandler(first);
+
+		// A request that started before the swap
+		assertTrue(first.retain());
+		assertSame(first, swapping.swapSite(next));
+		first.close();
+		assertFalse(first.isClosed());
+
+		TestHttpExchange exchange = new TestHttpExchange("GET", "/");
+		swapping.handle(exchange);
+		assertTrue(exchange.getResponseBodyString().contains("Next"));
+
+		first.release();
+		assertTrue(first.isClosed());
+		assertFalse(first.retain());
+		assertFalse(next.isClosed());
+	}
+
+	private static String repeat(String text, int times) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			builder.append(text);
+		}
+		return builder.toString();
+	}
+
 	// Test implementation of HttpExchange
 	private static class TestHttpExchange extends HttpExchange {
 		private final String method;
 		private final URI uri;
+		private final Headers requestHeaders;
 		private final Headers responseHeaders;
 		private final ByteArrayOutputStream responseBody;
 		private int responseCode;
@@ -153,6 +567,7 @@ public class StaticFileHandlerTest {
 		TestHttpExchange(String method, String path) {
 			this.method = method;
 			this.uri = URI.create(path);
+			this.requestHeaders = new Headers();
 			this.responseHeaders = new Headers();
 			this.responseBody = new ByteArrayOutputStream();
 			this.responseCode = -1;
@@ -188,6 +603,15 @@ public class StaticFileHandlerTest {
 			// No-op for test
 		}
 
+		TestHttpExchange withRequestHeader(String name, String value) {
+			requestHeaders.add(name, value);
+			return this;
+		}
+
+		byte[] getResponseBytes() {
+			return responseBody.toByteArray();
+		}
+
 		int getResponseCodeInternal() {
 			return responseCode;
 		}
@@ -198,7 +622,7 @@ public class StaticFileHandlerTest {
 
 		// Unused abstract methods
 		@Override
-		public java.security.Principal getPrincipal() {
+		public com.sun.net.httpserver.HttpPrincipal getPrincipal() {
 			return null;
 		}
 
@@ -237,7 +661,17 @@ public class StaticFileHandlerTest {
 
 		@Override
 		public Headers getRequestHeaders() {
-			return responseHeaders;
+			return requestHeaders;
+		}
+
+		@Override
+		public java.io.InputStream getRequestBody() {
+			return new java.io.ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public com.sun.net.httpserver.HttpContext getHttpContext() {
+			return null;
 		}
 	}
 }
@@ -0,0 +1,95 @@
+package com.ui.cef_control.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a VuePress-like build output for load tests.
+ *
+ * Layout (the same shape "vuepress build" produces):
+ * - index.html and guide/page-N.html pages
+ * - assets/js/N.hash.js chunks and assets/css/styles.hash.css
+ * - assets/img/fig-N.hash.png (random, incompressible bytes)
+ *
+ * Sizes are drawn from a log-normal distribution around medianBytes;
+ * sigma sets the spread (0 = every file the same size, 1.0 is roughly
+ * what a docs build with a few large chunks and images looks like).
+ * The same seed always produces the same tree.
+ */
+final class SyntheticDocsTree {
+
+	private static final String TEXT = "VuePress static docs content for load testing. ";
+
+	private SyntheticDocsTree() {
+		// Utility class, no instantiation
+	}
+
+	/**
+	 * @param fileCount Files to write (at least one, the index.html)
+	 * @return Request paths of every written file, "/" for the index page
+	 * @throws IOException if the tree cannot be written
+	 */
+	static List<String> write(Path root, int fileCount, int medianBytes, double sigma, long seed)
+			throws IOException {
+		if (fileCount < 1) {
+			throw new IllegalArgumentException("fileCount must be >= 1, got: " + fileCount);
+		}
+		Random random = new Random(seed);
+		List<String> paths = new ArrayList<>(fileCount);
+		Files.write(root.resolve("index.html"), html(size(random, medianBytes, sigma)));
+		paths.add("/");
+
+		for (int i = 1; i < fileCount; i++) {
+			String hash = Long.toHexString(random.nextLong() & 0xffffffffL);
+			int size = size(random, medianBytes, sigma);
+			String relative;
+			byte[] content;
+			// Rough mix of a docs build: pages, script chunks, styles, images
+			int kind = random.nextInt(20);
+			if (kind < 6) {
+				relative = "guide/page-" + i + ".html";
+				content = html(size);
+			} else if (kind < 13) {
+				relative = "assets/js/" + i + "." + hash + ".js";
+				content = text("export default function chunk" + i + "() { return \"", size);
+			} else if (kind < 15) {
+				relative = "assets/css/styles-" + i + "." + hash + ".css";
+				content = text(".theme-default-content { margin: 0 auto; } /* ", size);
+			} else {
+				relative = "assets/img/fig-" + i + "." + hash + ".png";
+				content = new byte[size];
+				random.nextBytes(content);
+			}
+			Path file = root.resolve(relative);
+			Files.createDirectories(file.getParent());
+			Files.write(file, content);
+			paths.add("/" + relative);
+		}
+		return paths;
+	}
+
+	private static int size(Random random, int medianBytes, double sigma) {
+		double size = medianBytes * Math.exp(sigma * random.nextGaussian());
+		return (int) Math.max(64, Math.min(size, 64L * 1024 * 1024));
+	}
+
+	private static byte[] html(int size) {
+		return text("<!DOCTYPE html><html><head><link rel=\"stylesheet\" href=\"/assets/css/styles.css\">"
+				+ "</head><body><div id=\"app\">", size);
+	}
+
+	private static byte[] text(String prefix, int size) {
+		StringBuilder builder = new StringBuilder(size + TEXT.length());
+		builder.append(prefix);
+		while (builder.length() < size) {
+			builder.append(TEXT);
+		}
+		builder.setLength(size);
+		return builder.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+}
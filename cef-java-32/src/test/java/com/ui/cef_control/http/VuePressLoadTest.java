@@ -0,0 +1,88 @@
+package com.ui.cef_control.http;
+
+import org.junit.Test;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static org.junit.Assert.*;
+
+/**
+ * Macro load test: VuePressHttpServer on an ephemeral port, a synthetic
+ * docs tree (SyntheticDocsTree) and open-loop keep-alive clients
+ * (OpenLoopLoadGenerator). Prints req/s, MB/s and p50/p99/p99.9 latency.
+ *
+ * Excluded from the normal test run; runs offline with
+ * <pre>
+ * mvn -Ploadtest test
+ * mvn -Ploadtest test -Dloadtest.rate=5000 -Dloadtest.clients=32 -Dloadtest.backend=NIO
+ * </pre>
+ *
+ * Properties (defaults in brackets): loadtest.files [500],
+ * loadtest.medianBytes [8192], loadtest.sigma [1.0], loadtest.clients [16],
+ * loadtest.rate [2000 req/s], loadtest.seconds [15], loadtest.warmupSeconds [3],
+ * loadtest.backend [JDK], loadtest.seed [42].
+ *
+ * Compare runs on the same machine only; the figures are for spotting
+ * regressions between commits, not absolute capacity.
+ */
+public class VuePressLoadTest {
+
+	@Test
+	public void testOpenLoopLoad() throws Exception {
+		OpenLoopLoadGenerator.Report report = run();
+		System.out.println("[VuePressLoadTest] " + report);
+
+		assertTrue("no request completed", report.completed > 0);
+		assertEquals("request errors", 0, report.errors);
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.out.println(run());
+	}
+
+	private static OpenLoopLoadGenerator.Report run() throws IOException, InterruptedException {
+		int files = Integer.getInteger("loadtest.files", 500);
+		int medianBytes = Integer.getInteger("loadtest.medianBytes", 8192);
+		double sigma = Double.parseDouble(System.getProperty("loadtest.sigma", "1.0"));
+		int clients = Integer.getInteger("loadtest.clients", 16);
+		double rate = Double.parseDouble(System.getProperty("loadtest.rate", "2000"));
+		int seconds = Integer.getInteger("loadtest.seconds", 15);
+		int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 3);
+		HttpBackend backend = HttpBackend.valueOf(
+				System.getProperty("loadtest.backend", "JDK").toUpperCase(Locale.ROOT));
+		long seed = Long.getLong("loadtest.seed", 42);
+
+		Path root = Files.createTempDirectory("vuepress_load_");
+		try {
+			List<String> paths = SyntheticDocsTree.write(root, files, medianBytes, sigma, seed);
+			VuePressHttpServer server = new VuePressHttpServer(
+					new HttpServerConfig(root.toString(), 0, "127.0.0.1").withBackend(backend));
+			server.start();
+			try {
+				InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getActualPort());
+				System.out.println(String.format(Locale.ROOT,
+						"[VuePressLoadTest] %d files, median %d bytes, sigma %.2f; %d clients at %.0f req/s "
+								+ "for %d s on %s", files, medianBytes, sigma, clients, rate, seconds, backend));
+				if (warmupSeconds > 0) {
+					// JIT and asset cache; not reported
+					new OpenLoopLoadGenerator(address, paths, clients, rate, seed + 1)
+							.run(warmupSeconds, TimeUnit.SECONDS);
+				}
+				return new OpenLoopLoadGenerator(address, paths, clients, rate, seed)
+						.run(seconds, TimeUnit.SECONDS);
+			} finally {
+				server.stop();
+			}
+		} finally {
+			try (Stream<Path> walk = Files.walk(root)) {
+				walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+}